@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.joda.beans.ser.JodaBeanSer;
+
+import com.opengamma.sdk.margin.LchMarginDetail;
+import com.opengamma.sdk.margin.LchMarginIndex;
+import com.opengamma.sdk.margin.LchMarginScenario;
+import com.opengamma.sdk.margin.MarginBreakdown;
+import com.opengamma.sdk.margin.MarginCalcMode;
+import com.opengamma.sdk.margin.MarginCalcResult;
+import com.opengamma.sdk.margin.MarginCalcResultStatus;
+import com.opengamma.sdk.margin.MarginCalcType;
+import com.opengamma.sdk.margin.MarginSummary;
+import com.opengamma.sdk.margin.NamedValue;
+import com.opengamma.sdk.margin.PortfolioItemSummary;
+import com.opengamma.sdk.margin.TradeCurveSensitivity;
+import com.opengamma.sdk.margin.TradeSensitivity;
+import com.opengamma.sdk.margin.TradeValuation;
+import com.opengamma.sdk.margin.TradeValuations;
+import com.opengamma.sdk.margin.TradeValue;
+
+/**
+ * Synthetic data shared by the benchmarks.
+ * <p>
+ * The data is generated from a fixed seed, such that every run measures the same work.
+ */
+final class BenchmarkData {
+
+  /**
+   * The valuation date.
+   */
+  static final LocalDate VAL_DATE = LocalDate.of(2026, 6, 1);
+  /**
+   * The serializer used to write the JSON, producing the compact JSON that the SDK writes.
+   */
+  static final JodaBeanSer SERIALIZER = JodaBeanSer.COMPACT;
+
+  private static final String LCH_HEADER = "CobDate\tLchMatchedTradeRef\tTradeDate\tMaturityDate\tCurrency" +
+      "\tNotionalAmount\tProductType\tParty_A_LegType\tParty_A_Rate\tParty_A_IndexName\tParty_A_FirstTenor" +
+      "\tParty_B_LegType\tParty_B_Rate\tParty_B_IndexName\tParty_B_FirstTenor\tTradeLevelNPV\tTradePV01";
+  private static final String[] CURRENCIES = {"EUR", "GBP", "USD", "JPY", "CHF"};
+  private static final String[] INDICES = {"EURIBOR-Reuters", "LIBOR-BBA", "SOFR-COMPOUND", "SONIA-COMPOUND"};
+  private static final Period[] TENORS = {
+      Period.ofMonths(1), Period.ofMonths(3), Period.ofMonths(6), Period.ofYears(1), Period.ofYears(2),
+      Period.ofYears(3), Period.ofYears(5), Period.ofYears(7), Period.ofYears(10), Period.ofYears(15),
+      Period.ofYears(20), Period.ofYears(30)};
+
+  /**
+   * Restricted constructor.
+   */
+  private BenchmarkData() {
+  }
+
+  //-------------------------------------------------------------------------
+  // writes a temporary tab separated LCH trade file
+  static Path lchTradeFile(int trades) {
+    Random random = new Random(trades);
+    try {
+      Path path = Files.createTempFile("sdk-benchmark-", ".txt");
+      path.toFile().deleteOnExit();
+      try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+        writer.write(LCH_HEADER);
+        writer.newLine();
+        for (int i = 0; i < trades; i++) {
+          String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+          String index = INDICES[random.nextInt(INDICES.length)];
+          boolean payFixed = random.nextBoolean();
+          String fixed = String.format(Locale.ENGLISH, "FIX\t%.6f\t\t1Y", random.nextDouble() / 20);
+          String floating = "FLT\t0\t" + index + "\t6M";
+          writer.write(String.format(Locale.ENGLISH, "01/06/2026\tLCH%011d\t01/06/2026\t%02d/06/%d\t%s\t%d\tIRS\t%s\t%s\t%.2f\t%.2f",
+              i,
+              1 + random.nextInt(28),
+              2027 + random.nextInt(30),
+              currency,
+              (1 + random.nextInt(1000)) * 1_000_000L,
+              payFixed ? fixed : floating,
+              payFixed ? floating : fixed,
+              random.nextGaussian() * 100_000,
+              random.nextGaussian() * 10_000));
+          writer.newLine();
+        }
+      }
+      return path;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  // copies a portfolio file from the classpath to a temporary file
+  static Path resourceFile(String name) {
+    try (InputStream in = BenchmarkData.class.getResourceAsStream(name)) {
+      if (in == null) {
+        throw new IllegalArgumentException("Could not find portfolio resource: " + name);
+      }
+      Path path = Files.createTempFile("sdk-benchmark-", "-" + name);
+      path.toFile().deleteOnExit();
+      Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+      return path;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // creates a completed LCH result, with margin detail and trade valuations including bucketed sensitivities
+  static MarginCalcResult lchResult(int trades, int scenarios) {
+    Random random = new Random(trades * 31L + scenarios);
+    List<LchMarginScenario> scenarioList = new ArrayList<>(scenarios);
+    List<String> scenarioIds = new ArrayList<>(scenarios);
+    for (int i = 0; i < scenarios; i++) {
+      String id = "S" + i;
+      double pnl = random.nextGaussian() * 1_000_000;
+      scenarioIds.add(id);
+      scenarioList.add(LchMarginScenario.of(id, VAL_DATE.minusDays(scenarios - i), pnl, pnl * 0.9));
+    }
+    List<LchMarginIndex> indices = new ArrayList<>();
+    for (String index : INDICES) {
+      indices.add(LchMarginIndex.of(index, random.nextDouble() * 1_000_000, random.nextDouble() * 2_000_000, scenarioIds));
+    }
+    LchMarginDetail detail = LchMarginDetail.of(1_000_000, scenarioIds.subList(0, Math.min(6, scenarios)), indices, scenarioList);
+
+    List<TradeValuation> valuations = new ArrayList<>(trades);
+    List<PortfolioItemSummary> items = new ArrayList<>(trades);
+    for (int i = 0; i < trades; i++) {
+      String tradeId = String.format(Locale.ENGLISH, "LCH%011d", i);
+      String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+      TradeSensitivity delta = TradeSensitivity.of(
+          random.nextGaussian() * 10_000,
+          Collections.singletonList(curveSensitivity(random, currency + "-DSC", currency)));
+      valuations.add(TradeValuation.of(
+          tradeId,
+          TradeValue.of(random.nextGaussian() * 100_000, currency, random.nextGaussian() * 100_000),
+          delta,
+          null));
+      items.add(PortfolioItemSummary.of(tradeId, "SWAP", "IRS " + currency));
+    }
+    List<TradeCurveSensitivity> bucketedDelta = new ArrayList<>();
+    for (String currency : CURRENCIES) {
+      bucketedDelta.add(curveSensitivity(random, currency + "-DSC", currency));
+    }
+    TradeValuations tradeValuations = TradeValuations.of(0d, 0d, bucketedDelta, null, null, valuations);
+
+    return MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        EnumSet.of(MarginCalcType.PORTFOLIO_SUMMARY, MarginCalcType.MARGIN, MarginCalcType.MARGIN_DETAIL,
+            MarginCalcType.PRESENT_VALUE, MarginCalcType.DELTA),
+        MarginCalcMode.SPOT,
+        VAL_DATE,
+        "GBP",
+        "GBP",
+        true,
+        items,
+        marginSummary(1_000_000, 20),
+        detail,
+        tradeValuations,
+        Collections.emptyList());
+  }
+
+  // creates a completed result with delta and gamma to several curves for every trade
+  static MarginCalcResult sensitivityResult(int trades, int curvesPerTrade) {
+    Random random = new Random(trades * 17L + curvesPerTrade);
+    List<TradeValuation> valuations = new ArrayList<>(trades);
+    for (int i = 0; i < trades; i++) {
+      String tradeId = String.format(Locale.ENGLISH, "T%011d", i);
+      String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+      List<TradeCurveSensitivity> deltaCurves = new ArrayList<>(curvesPerTrade);
+      List<TradeCurveSensitivity> gammaCurves = new ArrayList<>(curvesPerTrade);
+      for (int j = 0; j < curvesPerTrade; j++) {
+        String curveName = currency + "-" + INDICES[j % INDICES.length];
+        deltaCurves.add(curveSensitivity(random, curveName, currency));
+        gammaCurves.add(curveSensitivity(random, curveName, currency));
+      }
+      valuations.add(TradeValuation.of(
+          tradeId,
+          TradeValue.of(random.nextGaussian() * 100_000, currency, random.nextGaussian() * 100_000),
+          TradeSensitivity.of(random.nextGaussian() * 10_000, deltaCurves),
+          TradeSensitivity.of(random.nextGaussian() * 100, gammaCurves)));
+    }
+    TradeValuations tradeValuations = TradeValuations.of(
+        0d, 0d, Collections.emptyList(), 0d, Collections.emptyList(), valuations);
+
+    return MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        EnumSet.of(MarginCalcType.PRESENT_VALUE, MarginCalcType.DELTA, MarginCalcType.GAMMA),
+        MarginCalcMode.SPOT,
+        VAL_DATE,
+        "GBP",
+        "GBP",
+        true,
+        Collections.emptyList(),
+        null,
+        null,
+        tradeValuations,
+        Collections.emptyList());
+  }
+
+  // creates a sensitivity to every tenor of a curve
+  private static TradeCurveSensitivity curveSensitivity(Random random, String curveName, String currency) {
+    Map<Period, Double> tenorSensitivity = new LinkedHashMap<>();
+    double total = 0;
+    for (Period tenor : TENORS) {
+      double value = random.nextGaussian() * 1_000;
+      tenorSensitivity.put(tenor, value);
+      total += value;
+    }
+    return TradeCurveSensitivity.of(curveName, currency, total, tenorSensitivity);
+  }
+
+  // creates a margin summary with the specified number of details
+  static MarginSummary marginSummary(double margin, int details) {
+    List<NamedValue> namedValues = new ArrayList<>(details);
+    for (int i = 0; i < details; i++) {
+      namedValues.add(NamedValue.of("Detail" + i, margin / (i + 2)));
+    }
+    return MarginSummary.of(margin, namedValues, MarginBreakdown.of(margin, margin * 0.9, margin * 0.1, 0));
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.margin.LchMarginAnalysis;
+import com.opengamma.sdk.margin.LchMarginDetail;
+import com.opengamma.sdk.margin.LchMarginScenario;
+import com.opengamma.sdk.margin.LchWhatIfEstimator;
+
+/**
+ * Benchmarks the analysis of the value-at-risk scenarios of an LCH result.
+ * <p>
+ * The expected shortfall found by partial selection is compared to that found by sorting all the scenarios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LchAnalysisBenchmark {
+
+  @Param({"10000"})
+  private int scenarios;
+  @Param({"6", "250"})
+  private int tailSize;
+
+  private LchMarginAnalysis analysis;
+  private double[] pnl;
+  private LchWhatIfEstimator estimator;
+  private double[] candidatePnl;
+
+  /**
+   * Creates the analysis.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    LchMarginDetail detail = (LchMarginDetail) BenchmarkData.lchResult(1, scenarios).getMarginDetail().get();
+    analysis = LchMarginAnalysis.ofScaledPnl(detail);
+    pnl = detail.scaledPnlVector();
+    estimator = LchWhatIfEstimator.of(detail);
+    candidatePnl = new double[scenarios];
+    for (int i = 0; i < scenarios; i++) {
+      candidatePnl[i] = -pnl[(i * 7) % scenarios] / 10;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the expected shortfall using partial selection.
+   *
+   * @return the expected shortfall
+   */
+  @Benchmark
+  public double expectedShortfall() {
+    return analysis.expectedShortfall(tailSize);
+  }
+
+  /**
+   * Calculates the expected shortfall by sorting all the scenarios, for comparison.
+   *
+   * @return the expected shortfall
+   */
+  @Benchmark
+  public double expectedShortfallFullSort() {
+    double[] sorted = pnl.clone();
+    Arrays.sort(sorted);
+    double total = 0;
+    for (int i = 0; i < tailSize; i++) {
+      total += sorted[i];
+    }
+    return -total / tailSize;
+  }
+
+  /**
+   * Finds the scenarios in the tail, worst first.
+   *
+   * @return the tail
+   */
+  @Benchmark
+  public List<LchMarginScenario> tailScenarios() {
+    return analysis.tailScenarios(tailSize);
+  }
+
+  /**
+   * Estimates the change of margin from adding a candidate to the portfolio, without calling the service.
+   *
+   * @return the estimated change of margin
+   */
+  @Benchmark
+  public double estimateWhatIf() {
+    return estimator.estimateMarginChange(candidatePnl);
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.common.PollingStrategy;
+import com.opengamma.sdk.common.ServiceInvoker;
+import com.opengamma.sdk.common.auth.AccessTokenResult;
+import com.opengamma.sdk.common.auth.AuthClient;
+import com.opengamma.sdk.common.auth.Credentials;
+import com.opengamma.sdk.margin.Ccp;
+import com.opengamma.sdk.margin.MarginCalcRequest;
+import com.opengamma.sdk.margin.MarginCalcResult;
+import com.opengamma.sdk.margin.MarginClient;
+import com.opengamma.sdk.margin.PortfolioDataFile;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Benchmarks end-to-end calls to the margin service, using a local stand-in for the server.
+ * <p>
+ * The stand-in completes every calculation immediately, returning a large LCH result,
+ * thus this measures the client side cost of a calculation, including the HTTP round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarginClientBenchmark {
+
+  private static final String CALCULATIONS = "/margin/v3/ccps/lch/calculations";
+
+  @Param({"1000", "10000"})
+  private int trades;
+
+  private MockWebServer server;
+  private ServiceInvoker invoker;
+  private MarginClient client;
+  private MarginCalcRequest request;
+
+  /**
+   * Starts the server and creates the client.
+   *
+   * @throws IOException if the server cannot be started
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    String resultJson = BenchmarkData.SERIALIZER.jsonWriter().write(BenchmarkData.lchResult(trades, 1300), false);
+    server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest recorded) {
+        switch (recorded.getMethod()) {
+          case "POST":
+            return new MockResponse()
+                .setResponseCode(202)
+                .setHeader("Location", server.url(CALCULATIONS + "/1"));
+          case "GET":
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(resultJson);
+          default:
+            return new MockResponse();
+        }
+      }
+    });
+    server.start();
+    invoker = ServiceInvoker.builder(Credentials.ofApiKey("user", "password"))
+        .serviceUrl(server.url("/"))
+        .authClientFactory(inv -> new FixedAuthClient())
+        .pollingStrategy(PollingStrategy.fixed(Duration.ZERO))
+        .build();
+    client = MarginClient.of(invoker);
+    PortfolioDataFile file = PortfolioDataFile.of(BenchmarkData.lchTradeFile(trades));
+    request = MarginCalcRequest.of(BenchmarkData.VAL_DATE, "GBP", Collections.singletonList(file));
+  }
+
+  /**
+   * Stops the client and the server.
+   *
+   * @throws IOException if the server cannot be stopped
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    invoker.close();
+    server.shutdown();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Performs a calculation, from submitting the request to deleting the server state.
+   *
+   * @return the result
+   */
+  @Benchmark
+  public MarginCalcResult calculate() {
+    return client.calculate(Ccp.LCH, request);
+  }
+
+  /**
+   * Gets the result of a calculation.
+   *
+   * @return the result
+   */
+  @Benchmark
+  public MarginCalcResult getCalculation() {
+    return client.getCalculation(Ccp.LCH, "1");
+  }
+
+  //-------------------------------------------------------------------------
+  // authenticates without calling the server
+  private static final class FixedAuthClient implements AuthClient {
+    @Override
+    public AccessTokenResult authenticateApiKey(String apiKey, String apiKeySecret) {
+      return AccessTokenResult.of("1234", "bearer", 60_000);
+    }
+
+    @Override
+    public AccessTokenResult authenticateApiKey(Credentials credentials) {
+      return credentials.authenticate(this);
+    }
+  }
+
+}
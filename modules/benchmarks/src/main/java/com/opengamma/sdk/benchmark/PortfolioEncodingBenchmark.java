@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.margin.PortfolioDataFile;
+import com.opengamma.sdk.margin.PortfolioEncodingOptions;
+
+/**
+ * Benchmarks the GZIP, ZIP and Base-64 encoding of portfolio files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioEncodingBenchmark {
+
+  @Param({"1000", "100000"})
+  private int trades;
+  @Param({"-1", "1"})
+  private int compressionLevel;
+
+  private PortfolioEncodingOptions options;
+  private Path file;
+  private List<Path> files;
+  private ExecutorService executor;
+
+  /**
+   * Creates the portfolio files.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    options = PortfolioEncodingOptions.ofCompressionLevel(compressionLevel);
+    file = BenchmarkData.lchTradeFile(trades);
+    files = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      files.add(BenchmarkData.lchTradeFile(trades / 4 + i));
+    }
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  /**
+   * Stops the executor.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Encodes a single file using GZIP.
+   *
+   * @return the encoded data
+   */
+  @Benchmark
+  public String gzip() {
+    return PortfolioDataFile.of(file, options).getData();
+  }
+
+  /**
+   * Encodes multiple files using ZIP.
+   *
+   * @return the encoded data
+   */
+  @Benchmark
+  public String zip() {
+    return PortfolioDataFile.ofCombined(files, options).getData();
+  }
+
+  /**
+   * Encodes multiple files using ZIP, compressing the files concurrently.
+   *
+   * @return the encoded data
+   */
+  @Benchmark
+  public String zipParallel() {
+    return PortfolioDataFile.ofCombined(files, executor, options).getData();
+  }
+
+}
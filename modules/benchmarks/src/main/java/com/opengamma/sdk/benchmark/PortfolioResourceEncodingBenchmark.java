@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.margin.PortfolioDataFile;
+import com.opengamma.sdk.margin.PortfolioEncodingOptions;
+
+/**
+ * Benchmarks the encoding throughput of the example portfolio files at each compression level.
+ * <p>
+ * Alongside the number of encodings per second, JMH reports the {@code inputBytes} and {@code encodedBytes}
+ * counters as rates per second. The first is the encode throughput in bytes, and the ratio
+ * of the second to the first is the size of the data sent to the server relative to the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioResourceEncodingBenchmark {
+
+  @Param({"lch-trades.txt", "simple.csv", "simple.xlsx"})
+  private String resource;
+  @Param({"0", "1", "-1", "9"})
+  private int compressionLevel;
+
+  private PortfolioEncodingOptions options;
+  private Path file;
+  private long fileSize;
+
+  /**
+   * Copies the portfolio file.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    options = PortfolioEncodingOptions.ofCompressionLevel(compressionLevel);
+    file = BenchmarkData.resourceFile(resource);
+    try {
+      fileSize = Files.size(file);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The number of bytes read and written, reported by JMH as rates.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class EncodedSize {
+    /** The number of bytes of the file encoded. */
+    public long inputBytes;
+    /** The number of bytes of encoded data. */
+    public long encodedBytes;
+
+    /**
+     * Resets the counters.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      inputBytes = 0;
+      encodedBytes = 0;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Encodes the file using GZIP.
+   *
+   * @param size  the counters of the bytes encoded
+   * @return the encoded data
+   */
+  @Benchmark
+  public String gzip(EncodedSize size) {
+    String data = PortfolioDataFile.of(file, options).getData();
+    size.inputBytes += fileSize;
+    size.encodedBytes += data.length();
+    return data;
+  }
+
+}
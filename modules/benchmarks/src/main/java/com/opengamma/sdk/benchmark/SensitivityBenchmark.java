@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import com.opengamma.sdk.margin.Ccp;
+import com.opengamma.sdk.margin.MarginCalcResult;
+import com.opengamma.sdk.margin.TradeCurveSensitivity;
+import com.opengamma.sdk.margin.TradeValuation;
+import com.opengamma.sdk.margin.TradeValuations;
+
+/**
+ * Benchmarks reading and aggregating a result with delta and gamma for every trade.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per result.
+ * The {@link #retainedSize(RetainedSize)} benchmark reports the heap retained by the tenor sensitivities
+ * of the result, compared to the {@code HashMap} layout used before they were held in primitive arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitivityBenchmark {
+
+  @Param({"10000"})
+  private int trades;
+  @Param({"4"})
+  private int curvesPerTrade;
+
+  private String resultJson;
+  private TradeValuations valuations;
+
+  /**
+   * Creates the result JSON.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    MarginCalcResult result = BenchmarkData.sensitivityResult(trades, curvesPerTrade);
+    resultJson = BenchmarkData.SERIALIZER.jsonWriter().write(result, false);
+    valuations = result.getTradeValuations().get();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The heap retained by the tenor sensitivities of a result, reported by JMH.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class RetainedSize {
+    /** The bytes retained by the tenor sensitivities, as now held in primitive arrays. */
+    public long compactBytes;
+    /** The bytes retained by the same tenor sensitivities, as previously held in a {@code HashMap}. */
+    public long hashMapBytes;
+
+    /**
+     * Resets the counters.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      compactBytes = 0;
+      hashMapBytes = 0;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Reads the result from JSON.
+   *
+   * @return the result
+   */
+  @Benchmark
+  public MarginCalcResult readResult() {
+    return MarginCalcResult.parseJson(Ccp.LCH, resultJson);
+  }
+
+  /**
+   * Sums the delta of every trade to every tenor.
+   *
+   * @return the total
+   */
+  @Benchmark
+  public double sumDelta() {
+    double total = 0;
+    for (TradeValuation trade : valuations.getTrades()) {
+      for (TradeCurveSensitivity curve : trade.getDelta().get().getCurveSensitivity()) {
+        for (double value : curve.getTenorValues()) {
+          total += value;
+        }
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Reads the result from JSON, measuring the heap retained by its tenor sensitivities.
+   * <p>
+   * The tenor sensitivities are measured as read, and as they were held before, being an unmodifiable
+   * {@code HashMap} with a {@code Period} and boxed {@code Double} for each entry.
+   * Objects shared between the sensitivities, such as interned tenors, are only counted once.
+   * The time taken includes walking the object graphs, so only the counters are of interest.
+   *
+   * @param size  the counters of the retained heap
+   * @return the result
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public MarginCalcResult retainedSize(RetainedSize size) {
+    MarginCalcResult result = readResult();
+    List<Map<Period, Double>> compact = new ArrayList<>();
+    List<Map<Period, Double>> hashMaps = new ArrayList<>();
+    for (TradeValuation trade : result.getTradeValuations().get().getTrades()) {
+      List<TradeCurveSensitivity> curves = new ArrayList<>(trade.getDelta().get().getCurveSensitivity());
+      curves.addAll(trade.getGamma().get().getCurveSensitivity());
+      for (TradeCurveSensitivity curve : curves) {
+        compact.add(curve.getTenorSensitivity());
+        hashMaps.add(hashMap(curve));
+      }
+    }
+    size.compactBytes += GraphLayout.parseInstance(compact.toArray()).totalSize();
+    size.hashMapBytes += GraphLayout.parseInstance(hashMaps.toArray()).totalSize();
+    return result;
+  }
+
+  // copies the tenor sensitivities to the layout previously held, with a tenor and boxed value per entry
+  private static Map<Period, Double> hashMap(TradeCurveSensitivity curve) {
+    List<Period> tenors = curve.getTenors();
+    double[] values = curve.getTenorValues();
+    Map<Period, Double> map = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      map.put(Period.parse(tenors.get(i).toString()), Double.valueOf(values[i]));
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.margin.Ccp;
+import com.opengamma.sdk.margin.MarginCalcRequest;
+import com.opengamma.sdk.margin.MarginCalcResult;
+import com.opengamma.sdk.margin.PortfolioDataFile;
+
+/**
+ * Benchmarks the JSON serialization of requests and deserialization of results.
+ * <p>
+ * The result includes LCH margin detail and trade valuations with bucketed sensitivities,
+ * read using the same deserializers as the SDK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({"1000", "10000"})
+  private int trades;
+  @Param({"1300"})
+  private int scenarios;
+
+  private MarginCalcRequest request;
+  private String resultJson;
+
+  /**
+   * Creates the request and the result JSON.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    PortfolioDataFile file = PortfolioDataFile.of(BenchmarkData.lchTradeFile(trades));
+    request = MarginCalcRequest.of(BenchmarkData.VAL_DATE, "GBP", Collections.singletonList(file));
+    resultJson = BenchmarkData.SERIALIZER.jsonWriter().write(BenchmarkData.lchResult(trades, scenarios), false);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes the request as JSON.
+   *
+   * @return the JSON
+   */
+  @Benchmark
+  public String writeRequest() {
+    return BenchmarkData.SERIALIZER.jsonWriter().write(request, false);
+  }
+
+  /**
+   * Reads the result from JSON.
+   *
+   * @return the result
+   */
+  @Benchmark
+  public MarginCalcResult readResult() {
+    return MarginCalcResult.parseJson(Ccp.LCH, resultJson);
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.benchmark;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.sdk.margin.MarginCalcResultStatus;
+import com.opengamma.sdk.margin.MarginCalcType;
+import com.opengamma.sdk.margin.MarginSummary;
+import com.opengamma.sdk.margin.MarginWhatIfCalcResult;
+
+/**
+ * Benchmarks the calculation of the delta between the base and combined what-if results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhatIfBenchmark {
+
+  @Param({"10", "1000"})
+  private int details;
+
+  private MarginSummary base;
+  private MarginSummary combined;
+
+  /**
+   * Creates the margin summaries.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    base = BenchmarkData.marginSummary(1_000_000, details);
+    combined = BenchmarkData.marginSummary(1_250_000, details);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Creates the what-if result, calculating the delta.
+   *
+   * @return the result
+   */
+  @Benchmark
+  public MarginWhatIfCalcResult whatIf() {
+    return MarginWhatIfCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        EnumSet.of(MarginCalcType.MARGIN),
+        BenchmarkData.VAL_DATE,
+        "GBP",
+        Collections.emptyList(),
+        base,
+        combined,
+        Collections.emptyList());
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Polling strategy that backs off exponentially, with jitter and a cap.
+ */
+final class ExponentialPollingStrategy implements PollingStrategy {
+
+  /**
+   * The standard strategy.
+   */
+  static final ExponentialPollingStrategy STANDARD =
+      new ExponentialPollingStrategy(Duration.ofMillis(100), 2d, Duration.ofSeconds(2), 0.2d);
+
+  /** The initial delay, in milliseconds. */
+  private final long initialMillis;
+  /** The multiplier. */
+  private final double multiplier;
+  /** The maximum delay, in milliseconds. */
+  private final long maxMillis;
+  /** The jitter, as a fraction. */
+  private final double jitter;
+
+  // creates an instance
+  ExponentialPollingStrategy(Duration initialDelay, double multiplier, Duration maxDelay, double jitter) {
+    Objects.requireNonNull(initialDelay, "initialDelay must not be null");
+    Objects.requireNonNull(maxDelay, "maxDelay must not be null");
+    if (initialDelay.isNegative()) {
+      throw new IllegalArgumentException("initialDelay must not be negative");
+    }
+    if (maxDelay.compareTo(initialDelay) < 0) {
+      throw new IllegalArgumentException("maxDelay must not be less than initialDelay");
+    }
+    if (!(multiplier >= 1d) || Double.isInfinite(multiplier)) {
+      throw new IllegalArgumentException("multiplier must be at least one");
+    }
+    if (!(jitter >= 0d && jitter <= 1d)) {
+      throw new IllegalArgumentException("jitter must be from zero to one");
+    }
+    this.initialMillis = initialDelay.toMillis();
+    this.multiplier = multiplier;
+    this.maxMillis = maxDelay.toMillis();
+    this.jitter = jitter;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Duration nextDelay(int attempt, Duration serverHint) {
+    if (serverHint != null) {
+      // the hint is capped, so that an unreasonable Retry-After does not stall the poll
+      return Duration.ofMillis(Math.min(maxMillis, serverHint.toMillis()));
+    }
+    double base = Math.min(maxMillis, initialMillis * Math.pow(multiplier, Math.max(attempt, 0)));
+    double factor = jitter == 0d ? 1d : 1d + jitter * (2d * ThreadLocalRandom.current().nextDouble() - 1d);
+    return Duration.ofMillis(Math.min(maxMillis, Math.round(base * factor)));
+  }
+
+  @Override
+  public String toString() {
+    return "ExponentialPollingStrategy[initial=" + initialMillis + "ms, multiplier=" + multiplier +
+        ", max=" + maxMillis + "ms, jitter=" + jitter + "]";
+  }
+
+}
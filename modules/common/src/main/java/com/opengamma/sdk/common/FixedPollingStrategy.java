@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Polling strategy that polls at a fixed interval.
+ */
+final class FixedPollingStrategy implements PollingStrategy {
+
+  /** The interval. */
+  private final Duration interval;
+
+  // creates an instance
+  FixedPollingStrategy(Duration interval) {
+    this.interval = Objects.requireNonNull(interval, "interval must not be null");
+    if (interval.isNegative()) {
+      throw new IllegalArgumentException("interval must not be negative");
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Duration nextDelay(int attempt, Duration serverHint) {
+    // the hint is capped at the interval, so that an unreasonable Retry-After does not stall the poll
+    return serverHint != null && serverHint.compareTo(interval) < 0 ? serverHint : interval;
+  }
+
+  @Override
+  public String toString() {
+    return "FixedPollingStrategy[" + interval + "]";
+  }
+
+}
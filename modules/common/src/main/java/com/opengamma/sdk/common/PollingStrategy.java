@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common;
+
+import java.time.Duration;
+
+/**
+ * Strategy used to decide how long to wait between polls of a long-running remote task.
+ * <p>
+ * Calculations performed by the OpenGamma service are asynchronous.
+ * The client submits the calculation, then polls until the result is available.
+ * This strategy controls the delay before each poll.
+ * <p>
+ * The strategy is asked for the delay before every poll, including the first.
+ * If the server sent a {@code Retry-After} header on the previous poll, it is passed in as a hint.
+ * The standard implementations honour the hint in preference to their own calculated delay,
+ * but never wait longer than their maximum delay, or the interval of a fixed strategy,
+ * such that an unreasonable hint, such as {@code Retry-After: 86400}, does not stall polling.
+ * <p>
+ * Implementations must be immutable and thread-safe, as a single instance is shared by all calculations.
+ */
+public interface PollingStrategy {
+
+  /**
+   * Obtains the standard polling strategy.
+   * <p>
+   * This polls quickly at first, so that small calculations complete promptly, then backs off
+   * exponentially so that large calculations do not waste requests.
+   * The first poll occurs after 100ms, with the delay doubling up to a maximum of 2 seconds.
+   * The delay is randomized by up to 20% to avoid many clients polling in lockstep.
+   *
+   * @return the standard strategy
+   */
+  public static PollingStrategy standard() {
+    return ExponentialPollingStrategy.STANDARD;
+  }
+
+  /**
+   * Obtains a strategy that polls at a fixed interval.
+   *
+   * @param interval  the interval between polls
+   * @return the strategy
+   * @throws IllegalArgumentException if the interval is negative
+   */
+  public static PollingStrategy fixed(Duration interval) {
+    return new FixedPollingStrategy(interval);
+  }
+
+  /**
+   * Obtains a strategy that backs off exponentially, doubling the delay each time.
+   * <p>
+   * The delay is randomized by up to 20%.
+   *
+   * @param initialDelay  the delay before the first poll
+   * @param maxDelay  the maximum delay between polls
+   * @return the strategy
+   * @throws IllegalArgumentException if the delays are invalid
+   */
+  public static PollingStrategy exponential(Duration initialDelay, Duration maxDelay) {
+    return new ExponentialPollingStrategy(initialDelay, 2d, maxDelay, 0.2d);
+  }
+
+  /**
+   * Obtains a strategy that backs off exponentially.
+   * <p>
+   * The delay before poll {@code n} (zero-based) is {@code initialDelay * multiplier^n}, capped at {@code maxDelay}.
+   * The jitter is the fraction by which each delay is randomized, such that a jitter of 0.2
+   * results in a delay between 80% and 120% of the calculated value.
+   *
+   * @param initialDelay  the delay before the first poll
+   * @param multiplier  the multiplier applied to the delay after each poll, at least one
+   * @param maxDelay  the maximum delay between polls
+   * @param jitter  the fraction by which to randomize each delay, from zero to one inclusive
+   * @return the strategy
+   * @throws IllegalArgumentException if the arguments are invalid
+   */
+  public static PollingStrategy exponential(Duration initialDelay, double multiplier, Duration maxDelay, double jitter) {
+    return new ExponentialPollingStrategy(initialDelay, multiplier, maxDelay, jitter);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the delay before the next poll.
+   *
+   * @param attempt  the number of polls that have already been made, zero for the first poll
+   * @param serverHint  the delay requested by the server on the previous poll, null if none
+   * @return the delay before the next poll, not negative
+   */
+  public abstract Duration nextDelay(int attempt, Duration serverHint);
+
+}
@@ -5,15 +5,24 @@
  */
 package com.opengamma.sdk.common;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.opengamma.sdk.common.auth.AuthClient;
 import com.opengamma.sdk.common.auth.Credentials;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 
 /**
  * Invoker used to call the OpenGamma service.
@@ -50,6 +59,12 @@ public final class ServiceInvoker implements AutoCloseable {
   private final OkHttpClient httpClient;
   /** Executor. */
   private final ScheduledExecutorService executor;
+  /** Polling strategy. */
+  private final PollingStrategy pollingStrategy;
+  /** Obtains an access token, if there is not one already. */
+  private final Runnable authenticator;
+  /** Executor running the asynchronous HTTP calls, created by the builder, null if that of the HTTP client is used. */
+  private final ExecutorService dispatcherExecutor;
 
   //-------------------------------------------------------------------------
   /**
@@ -151,10 +166,20 @@ public final class ServiceInvoker implements AutoCloseable {
 
   //-------------------------------------------------------------------------
   // creates an instance
-  ServiceInvoker(HttpUrl serviceUrl, OkHttpClient httpClient, ScheduledExecutorService executor) {
+  ServiceInvoker(
+      HttpUrl serviceUrl,
+      OkHttpClient httpClient,
+      ScheduledExecutorService executor,
+      PollingStrategy pollingStrategy,
+      Runnable authenticator,
+      ExecutorService dispatcherExecutor) {
+
     this.serviceUrl = Objects.requireNonNull(serviceUrl, "serviceUrl must not be null");
     this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
     this.executor = Objects.requireNonNull(executor, "executor must not be null");
+    this.pollingStrategy = Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    this.authenticator = Objects.requireNonNull(authenticator, "authenticator must not be null");
+    this.dispatcherExecutor = dispatcherExecutor;
   }
 
   //-------------------------------------------------------------------------
@@ -185,6 +210,74 @@ public final class ServiceInvoker implements AutoCloseable {
     return executor;
   }
 
+  /**
+   * Gets the default strategy used to decide how long to wait between polls.
+   *
+   * @return the polling strategy
+   */
+  public PollingStrategy getPollingStrategy() {
+    return pollingStrategy;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Prepares the invoker for a batch of calls, by authenticating and opening connections to the service.
+   * <p>
+   * The first call made using an invoker has to authenticate, and every concurrent call
+   * has to open a connection, including a TLS handshake. Calling this method before a batch
+   * of calls is submitted moves that cost outside the batch.
+   * <p>
+   * The specified number of requests are sent to the service concurrently.
+   * Where HTTP/1.1 is used, each opens a connection that is kept in the connection pool,
+   * subject to the limits of the pool and dispatcher.
+   * Where HTTP/2 is used, the requests share a single connection.
+   * The responses to these requests are ignored.
+   * <p>
+   * This method blocks until the access token has been obtained and all the requests have completed.
+   *
+   * @param connections  the number of connections to open, zero to only authenticate
+   * @throws IllegalArgumentException if the number of connections is negative
+   * @throws UncheckedIOException if unable to connect to the service
+   * @throws RuntimeException if unable to authenticate
+   */
+  public void warmUp(int connections) {
+    if (connections < 0) {
+      throw new IllegalArgumentException("connections must not be negative");
+    }
+    authenticator.run();
+    Request request = new Request.Builder()
+        .url(serviceUrl)
+        .head()
+        .tag(WarmUp.class, WarmUp.INSTANCE)
+        .build();
+    CountDownLatch latch = new CountDownLatch(connections);
+    AtomicReference<IOException> failure = new AtomicReference<>();
+    for (int i = 0; i < connections; i++) {
+      httpClient.newCall(request).enqueue(new Callback() {
+        @Override
+        public void onResponse(Call call, Response response) {
+          response.close();
+          latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Call call, IOException ex) {
+          failure.compareAndSet(null, ex);
+          latch.countDown();
+        }
+      });
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while warming up", ex);
+    }
+    if (failure.get() != null) {
+      throw new UncheckedIOException("Unable to connect to service: " + serviceUrl, failure.get());
+    }
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Closes access to the remote service.
@@ -193,10 +286,22 @@ public final class ServiceInvoker implements AutoCloseable {
    * <p>
    * This closes the executor, but not the HTTP client (as {@link OkHttpClient}
    * advises it should not normally be explicitly closed).
+   * Where the builder created the executor that runs asynchronous HTTP calls,
+   * such as when virtual threads are used, that executor is also closed.
+   * Calls already in progress are allowed to complete.
    */
   @Override
   public void close() {
     executor.shutdown();
+    if (dispatcherExecutor != null) {
+      dispatcherExecutor.shutdown();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // tags a warm-up request, which is sent without an access token
+  enum WarmUp {
+    INSTANCE
   }
 
 }
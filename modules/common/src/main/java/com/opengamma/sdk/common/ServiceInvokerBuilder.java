@@ -7,11 +7,24 @@ package com.opengamma.sdk.common;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -23,10 +36,14 @@ import org.slf4j.LoggerFactory;
 import com.opengamma.sdk.common.auth.AccessTokenResult;
 import com.opengamma.sdk.common.auth.AuthClient;
 import com.opengamma.sdk.common.auth.Credentials;
+import com.opengamma.sdk.common.auth.TokenStore;
 
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 
@@ -67,6 +84,10 @@ public final class ServiceInvokerBuilder {
    * HTTP header.
    */
   private static final String AUTHORIZATION = "Authorization";
+  /**
+   * The number of platform threads used for timers when virtual threads are enabled.
+   */
+  private static final int TIMER_THREADS = 2;
 
   /** The credentials. */
   private Credentials credentials;
@@ -80,6 +101,22 @@ public final class ServiceInvokerBuilder {
   private Function<ServiceInvoker, AuthClient> authClientFactory;
   /** Times to retry */
   private int retries;
+  /** The polling strategy. */
+  private PollingStrategy pollingStrategy = PollingStrategy.standard();
+  /** The token store, null if tokens are not shared. */
+  private TokenStore tokenStore;
+  /** The connection pool, null to use that of the HTTP client. */
+  private ConnectionPool connectionPool;
+  /** The maximum number of concurrent requests, zero to use that of the HTTP client. */
+  private int maxRequests;
+  /** The maximum number of concurrent requests to a single host, zero to use that of the HTTP client. */
+  private int maxRequestsPerHost;
+  /** The protocols, null to use those of the HTTP client. */
+  private List<Protocol> protocols;
+  /** The connect timeout in milliseconds, negative to use that of the HTTP client. */
+  private long connectTimeoutMillis = -1;
+  /** Whether to use virtual threads for blocking work, where supported. */
+  private boolean virtualThreads;
 
   //-------------------------------------------------------------------------
   /**
@@ -134,6 +171,10 @@ public final class ServiceInvokerBuilder {
    * <p>
    * Retries are primarily handled by the underlying OkHttp library.
    * At this level, retries are off by default, and this is the recommended setting.
+   * <p>
+   * Only requests that fail without a response are retried.
+   * Any response is returned as received, including a 429 (Too Many Requests) or 503 (Service Unavailable),
+   * which is left to the caller to retry, such as the margin client, which follows the {@code Retry-After} header.
    *
    * @param retries  how many times to retry
    * @return this builder, for method chaining
@@ -154,6 +195,8 @@ public final class ServiceInvokerBuilder {
    * Unlike {@link #httpClient(OkHttpClient)}, this method allows the standard settings
    * that the service invoker uses to be accessed. As such, the builder will be pre-populated
    * with a logging interceptor, read timeout and write timeout.
+   * The OkHttp limits on concurrent requests are not changed,
+   * see {@link #maxRequests(int)} and {@link #maxRequestsPerHost(int)}.
    *
    * @param httpClientFactory  the function that provides an HTTP client from a builder
    * @return this builder, for method chaining
@@ -167,6 +210,122 @@ public final class ServiceInvokerBuilder {
     return this;
   }
 
+  /**
+   * Sets the pool used to hold open connections to the service.
+   * <p>
+   * Connections are kept open after a request completes, so that later requests
+   * avoid the cost of a new TCP connection and TLS handshake.
+   * The OkHttp default is to keep up to 5 idle connections for 5 minutes.
+   * A batch that submits many requests at once using HTTP/1.1 may benefit from a larger pool.
+   * <p>
+   * This replaces the connection pool of the HTTP client when {@link #build()} is called.
+   *
+   * @param maxIdleConnections  the maximum number of idle connections to keep open
+   * @param keepAliveDuration  how long an idle connection is kept open
+   * @param timeUnit  the unit of the duration
+   * @return this builder, for method chaining
+   * @throws IllegalArgumentException if the number of connections or duration is negative
+   */
+  public ServiceInvokerBuilder connectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+    Objects.requireNonNull(timeUnit, "timeUnit must not be null");
+    if (maxIdleConnections < 0) {
+      throw new IllegalArgumentException("maxIdleConnections must not be negative");
+    }
+    if (keepAliveDuration <= 0) {
+      throw new IllegalArgumentException("keepAliveDuration must be positive");
+    }
+    this.connectionPool = new ConnectionPool(maxIdleConnections, keepAliveDuration, timeUnit);
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of requests that can be executed concurrently using asynchronous calls.
+   * <p>
+   * Asynchronous calls beyond this limit are queued by OkHttp until a running call completes.
+   * Synchronous calls are not limited.
+   * <p>
+   * This replaces the dispatcher of the HTTP client when {@link #build()} is called.
+   *
+   * @param maxRequests  the maximum number of concurrent requests
+   * @return this builder, for method chaining
+   * @throws IllegalArgumentException if the maximum is less than one
+   */
+  public ServiceInvokerBuilder maxRequests(int maxRequests) {
+    if (maxRequests < 1) {
+      throw new IllegalArgumentException("maxRequests must be at least one");
+    }
+    this.maxRequests = maxRequests;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of requests to a single host that can be executed concurrently using asynchronous calls.
+   * <p>
+   * As all requests are sent to the service host, this limits the concurrency of asynchronous calls.
+   * The OkHttp default of 5 serializes a batch of asynchronous calls into groups of 5,
+   * thus a larger value, such as 64, may be used to submit a batch of calculations at once.
+   * Where HTTP/2 is used, concurrent requests are multiplexed over a single connection.
+   * <p>
+   * This replaces the dispatcher of the HTTP client when {@link #build()} is called.
+   *
+   * @param maxRequestsPerHost  the maximum number of concurrent requests to a single host
+   * @return this builder, for method chaining
+   * @throws IllegalArgumentException if the maximum is less than one
+   */
+  public ServiceInvokerBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+    if (maxRequestsPerHost < 1) {
+      throw new IllegalArgumentException("maxRequestsPerHost must be at least one");
+    }
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    return this;
+  }
+
+  /**
+   * Sets the protocols that can be used to communicate with the service, in order of preference.
+   * <p>
+   * By default, OkHttp prefers {@link Protocol#HTTP_2 HTTP/2}, negotiated during the TLS handshake,
+   * which multiplexes concurrent requests over a single connection.
+   * Passing only {@link Protocol#HTTP_1_1 HTTP/1.1} uses a separate connection for each concurrent request,
+   * which may be needed where a proxy does not support HTTP/2.
+   * Passing only {@link Protocol#H2_PRIOR_KNOWLEDGE} uses HTTP/2 without TLS, which is only useful in testing.
+   * <p>
+   * This replaces the protocols of the HTTP client when {@link #build()} is called.
+   *
+   * @param protocols  the protocols, in order of preference
+   * @return this builder, for method chaining
+   * @throws IllegalArgumentException if the combination of protocols is not supported by OkHttp
+   */
+  public ServiceInvokerBuilder protocols(Protocol... protocols) {
+    Objects.requireNonNull(protocols, "protocols must not be null");
+    List<Protocol> list = new ArrayList<>();
+    Collections.addAll(list, protocols);
+    // validate eagerly, rather than when build() is called
+    new OkHttpClient.Builder().protocols(list);
+    this.protocols = list;
+    return this;
+  }
+
+  /**
+   * Sets the timeout used when connecting to the service.
+   * <p>
+   * The OkHttp default is 10 seconds.
+   * <p>
+   * This replaces the connect timeout of the HTTP client when {@link #build()} is called.
+   *
+   * @param timeout  the timeout, zero for no timeout
+   * @param timeUnit  the unit of the timeout
+   * @return this builder, for method chaining
+   * @throws IllegalArgumentException if the timeout is negative
+   */
+  public ServiceInvokerBuilder connectTimeout(long timeout, TimeUnit timeUnit) {
+    Objects.requireNonNull(timeUnit, "timeUnit must not be null");
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must not be negative");
+    }
+    this.connectTimeoutMillis = timeUnit.toMillis(timeout);
+    return this;
+  }
+
   /**
    * Sets the executor service to use.
    * <p>
@@ -185,6 +344,43 @@ public final class ServiceInvokerBuilder {
     return this;
   }
 
+  /**
+   * Sets whether virtual threads are used for blocking work, where supported by the JVM.
+   * <p>
+   * By default, each asynchronous HTTP call blocks a platform thread of the HTTP client while it is in progress,
+   * and the executor uses a pool of {@code availableProcessors()} platform threads.
+   * When enabled on Java 21 or later, asynchronous HTTP calls and the background refresh of the access token
+   * run on virtual threads, and the standard executor is a small pool of platform threads used only for timers.
+   * This allows many thousands of calculations to be in progress at once without a large pool of platform threads.
+   * The limits set by {@link #maxRequests(int)} and {@link #maxRequestsPerHost(int)} still apply.
+   * <p>
+   * This replaces the dispatcher of the HTTP client when {@link #build()} is called, retaining its limits.
+   * An executor set using {@link #executorService(ScheduledExecutorService)} is not changed.
+   * On earlier versions of Java, this setting is ignored and platform threads are used.
+   *
+   * @param virtualThreads  true to use virtual threads where supported
+   * @return this builder, for method chaining
+   */
+  public ServiceInvokerBuilder virtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  /**
+   * Sets the default strategy used to decide how long to wait between polls.
+   * <p>
+   * Calculations are performed asynchronously by the service, with the client polling for the result.
+   * This strategy is used when polling, unless a strategy is specified for an individual call.
+   * The default is {@link PollingStrategy#standard()}.
+   *
+   * @param pollingStrategy  the polling strategy
+   * @return this builder, for method chaining
+   */
+  public ServiceInvokerBuilder pollingStrategy(PollingStrategy pollingStrategy) {
+    this.pollingStrategy = Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    return this;
+  }
+
   /**
    * Sets the {@code AuthClient} factory.
    * <p>
@@ -199,6 +395,22 @@ public final class ServiceInvokerBuilder {
     return this;
   }
 
+  /**
+   * Sets the store used to share access tokens.
+   * <p>
+   * By default, each invoker authenticates when it is first used, and holds its access token privately.
+   * A store allows a token that is still valid to be shared between invokers using the same credentials,
+   * and between processes if the store is file-based, reducing calls to the authentication endpoint.
+   * See {@link TokenStore#inMemory()} and {@link TokenStore#ofDirectory(java.nio.file.Path)}.
+   *
+   * @param tokenStore  the token store
+   * @return this builder, for method chaining
+   */
+  public ServiceInvokerBuilder tokenStore(TokenStore tokenStore) {
+    this.tokenStore = Objects.requireNonNull(tokenStore, "tokenStore must not be null");
+    return this;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Builds the service invoker, using the information provided.
@@ -212,8 +424,13 @@ public final class ServiceInvokerBuilder {
     if (httpClient == null) {
       httpClientFactory(builder -> builder.build());
     }
+    ExecutorService virtualExecutor = virtualThreads ? VirtualThreads.newExecutor("ServiceInvoker-virtual-") : null;
+    if (virtualThreads && virtualExecutor == null) {
+      log.info("Virtual threads are not supported by this JVM, using platform threads");
+    }
     if (executorService == null) {
-      executorService = createExecutorService();
+      executorService = createExecutorService(
+          virtualExecutor != null ? TIMER_THREADS : Runtime.getRuntime().availableProcessors());
     }
     if (authClientFactory == null) {
       authClientFactory = inv -> AuthClient.of(inv);
@@ -221,43 +438,83 @@ public final class ServiceInvokerBuilder {
     // setup HttpClient
     TokenInterceptor tokenInterceptor = new TokenInterceptor();
     UserAgentHeaderInterceptor userAgentInterceptor = new UserAgentHeaderInterceptor();
+    OkHttpClient.Builder httpClientBuilder = httpClient.newBuilder()
+        .addInterceptor(tokenInterceptor)
+        .addInterceptor(userAgentInterceptor)
+        .addNetworkInterceptor(new BusyResponseInterceptor());
     if (retries > 0) {
-      RetryInterceptor retryInterceptor = new RetryInterceptor(retries);
-      httpClient = httpClient.newBuilder()
-          .addInterceptor(tokenInterceptor)
-          .addInterceptor(userAgentInterceptor)
-          .addInterceptor(retryInterceptor)
-          .build();
-    } else {
-      httpClient = httpClient.newBuilder()
-          .addInterceptor(tokenInterceptor)
-          .addInterceptor(userAgentInterceptor)
-          .build();
+      httpClientBuilder.addInterceptor(new RetryInterceptor(retries));
     }
+    ExecutorService dispatcherExecutor = configureConnections(httpClientBuilder, virtualExecutor);
+    httpClient = httpClientBuilder.build();
     // setup instance, creating a pure immutable ServiceInvoker, then using it
     // care should be taken when altering this code to ensure Java Memory Model semantics are considered
-    ServiceInvoker invoker = new ServiceInvoker(serviceUrl, httpClient, executorService);
-    tokenInterceptor.init(authClientFactory.apply(invoker), credentials);
+    ServiceInvoker invoker = new ServiceInvoker(
+        serviceUrl, httpClient, executorService, pollingStrategy, tokenInterceptor::ensureToken, dispatcherExecutor);
+    Executor refreshExecutor = virtualExecutor != null ? virtualExecutor : Runnable::run;
+    tokenInterceptor.init(authClientFactory.apply(invoker), credentials, executorService, refreshExecutor, tokenStore);
     return invoker;
   }
 
+  // applies the connection settings, leaving those of the HTTP client where not set
+  // the dispatcher runs calls on virtual threads if the executor is not null
+  // returns the executor of the dispatcher if one was created, which is closed with the invoker, null if not
+  private ExecutorService configureConnections(OkHttpClient.Builder httpClientBuilder, ExecutorService virtualExecutor) {
+    if (connectionPool != null) {
+      httpClientBuilder.connectionPool(connectionPool);
+    }
+    ExecutorService dispatcherExecutor = null;
+    if (maxRequests > 0 || maxRequestsPerHost > 0 || virtualExecutor != null) {
+      Dispatcher current = httpClient.dispatcher();
+      dispatcherExecutor = virtualExecutor != null ? virtualExecutor : createDispatcherExecutor();
+      Dispatcher dispatcher = new Dispatcher(dispatcherExecutor);
+      dispatcher.setMaxRequests(maxRequests > 0 ? maxRequests : current.getMaxRequests());
+      dispatcher.setMaxRequestsPerHost(maxRequestsPerHost > 0 ? maxRequestsPerHost : current.getMaxRequestsPerHost());
+      httpClientBuilder.dispatcher(dispatcher);
+    }
+    if (protocols != null) {
+      httpClientBuilder.protocols(protocols);
+    }
+    if (connectTimeoutMillis >= 0) {
+      httpClientBuilder.connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    return dispatcherExecutor;
+  }
+
   //-------------------------------------------------------------------------
+  // creates the executor of a dispatcher using platform threads
+  // the threads are daemon threads, as used by the executor, so that asynchronous calls do not prevent JVM exit
+  private static ExecutorService createDispatcherExecutor() {
+    ThreadFactory threadFactory = r -> {
+      Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setName("ServiceInvoker-OkHttp-" + t.getName());
+      t.setDaemon(true);
+      return t;
+    };
+    return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+  }
+
   /**
    * Creates an executor service for use by the invoker.
    * <p>
-   * This uses a thread pool with {@code Runtime.getRuntime().availableProcessors()} threads.
+   * This uses a thread pool with {@code Runtime.getRuntime().availableProcessors()} threads,
+   * or a small number of threads if virtual threads are used for blocking work.
+   * Delayed tasks, such as the refresh of the access token, are discarded when the executor is shut down.
    * 
+   * @param threads  the number of threads
    * @return the executor service
    */
-  private static ScheduledExecutorService createExecutorService() {
+  private static ScheduledExecutorService createExecutorService(int threads) {
     ThreadFactory threadFactory = r -> {
       Thread t = Executors.defaultThreadFactory().newThread(r);
       t.setName("ServiceInvoker-" + t.getName());
       t.setDaemon(true);
       return t;
     };
-    ScheduledExecutorService executor =
-        Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), threadFactory);
+    ScheduledThreadPoolExecutor executor =
+        new ScheduledThreadPoolExecutor(threads, threadFactory);
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    executor.setRemoveOnCancelPolicy(true);
     return executor;
   }
 
@@ -286,7 +543,24 @@ public final class ServiceInvokerBuilder {
     }
   }
 
+  // an interceptor that stops OkHttp resending a 503 response with "Retry-After: 0" straight away
+  // the header is changed to the equivalent date, so that a 429 or 503 response is only retried by the caller
+  private static class BusyResponseInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      Response response = chain.proceed(chain.request());
+      String retryAfter = response.header("Retry-After");
+      if (response.code() != 503 || retryAfter == null || !retryAfter.trim().matches("0+")) {
+        return response;
+      }
+      return response.newBuilder()
+          .header("Retry-After", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)))
+          .build();
+    }
+  }
+
   //an interceptor that handles retries on System/network related exceptions (eg. timeout)
+  //a response is never retried, as a 429 or 503 response is retried by the caller after the Retry-After delay
   private static class RetryInterceptor implements Interceptor {
     /** Times to retry */
     private final int retryCount;
@@ -315,58 +589,168 @@ public final class ServiceInvokerBuilder {
   }
 
   // an interceptor that adds the access token, and refreshes it when necessary
+  // the token is refreshed in the background before it expires, with a 401 response handled as a fallback
   private static class TokenInterceptor implements Interceptor {
-    /** The lock protecting the token. */
+    /** The lock ensuring that only one thread authenticates at a time. */
     private final Lock lock = new ReentrantLock();
     /** The auth client. */
     private volatile AuthClient authClient;
     /** The credentials. */
     private volatile Credentials credentials;
+    /** The executor used to schedule the refresh of the token. */
+    private volatile ScheduledExecutorService executor;
+    /** The executor used to run the refresh of the token, which blocks. */
+    private volatile Executor refreshExecutor;
+    /** The store used to share tokens, null if none. */
+    private volatile TokenStore tokenStore;
     /** The current token. */
-    private volatile AccessTokenResult token;
+    private volatile CurrentToken token;
+    /** The scheduled refresh, guarded by the lock. */
+    private ScheduledFuture<?> scheduledRefresh;
 
     // initializes the state, to ensure that ServiceInvoker is pure immutable wrt Java Memory Model
-    void init(AuthClient authClient, Credentials credentials) {
+    void init(
+        AuthClient authClient,
+        Credentials credentials,
+        ScheduledExecutorService executor,
+        Executor refreshExecutor,
+        TokenStore tokenStore) {
+
       this.authClient = authClient;
       this.credentials = credentials;
+      this.executor = executor;
+      this.refreshExecutor = refreshExecutor;
+      this.tokenStore = tokenStore;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-      // do nothing for auth
+      // do nothing for auth or warm-up
       Request initialRequest = chain.request();
-      if (initialRequest.url().pathSegments().contains("auth")) {
+      if (initialRequest.url().pathSegments().contains("auth") || initialRequest.tag(ServiceInvoker.WarmUp.class) != null) {
         return chain.proceed(initialRequest);
       }
 
-      // try using the current access token, unless not present
-      AccessTokenResult copyOfToken = token;
-      if (copyOfToken != null) {
-        log.trace("Add token: {}", copyOfToken.getAccessToken());
-        Request modifiedRequest = initialRequest.newBuilder()
-            .header(AUTHORIZATION, "Bearer " + copyOfToken.getAccessToken())
-            .build();
-        Response response = chain.proceed(modifiedRequest);
-        if (response.code() != 401) {
-          return response;
-        }
-        // response must be closed before calling chain.proceed() again
-        response.close();
+      // use the current access token, unless not present or about to expire
+      CurrentToken copyOfToken = token;
+      if (copyOfToken == null || copyOfToken.isStale()) {
+        copyOfToken = refresh(copyOfToken, false);
       }
+      log.trace("Add token: {}", copyOfToken.token.getAccessToken());
+      Response response = chain.proceed(withToken(initialRequest, copyOfToken));
+      if (response.code() != 401) {
+        return response;
+      }
+      // response must be closed before calling chain.proceed() again
+      response.close();
+
+      // token rejected, get a new token unless another thread already has
+      CurrentToken newToken = refresh(copyOfToken, true);
+      return chain.proceed(withToken(initialRequest, newToken));
+    }
 
-      // try to get a new token
+    // obtains a token if there is not one already
+    void ensureToken() {
+      CurrentToken copyOfToken = token;
+      if (copyOfToken == null || copyOfToken.isStale()) {
+        refresh(copyOfToken, false);
+      }
+    }
+
+    // replaces the specified token, sharing the result if another thread has already replaced it
+    private CurrentToken refresh(CurrentToken oldToken, boolean rejected) {
       lock.lock();
       try {
-        token = credentials.authenticate(authClient);
-        Request modifiedRequest2 = initialRequest.newBuilder()
-            .header(AUTHORIZATION, "Bearer " + token.getAccessToken())
-            .build();
-        return chain.proceed(modifiedRequest2);
+        CurrentToken copyOfToken = token;
+        if (copyOfToken != null && copyOfToken != oldToken && !copyOfToken.isStale()) {
+          return copyOfToken;
+        }
+        if (rejected && tokenStore != null) {
+          tokenStore.remove(credentials, oldToken.token);
+        }
+        return authenticate(oldToken);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // starts the refresh of the token, which runs on a virtual thread if enabled
+    private void startRefresh() {
+      try {
+        refreshExecutor.execute(this::refreshInBackground);
+      } catch (RejectedExecutionException ex) {
+        // token will be refreshed if it is used again
+      }
+    }
 
+    // refreshes the token in the background, ahead of expiry
+    private void refreshInBackground() {
+      if (executor.isShutdown()) {
+        return;
+      }
+      lock.lock();
+      try {
+        authenticate(token);
+      } catch (RuntimeException ex) {
+        log.warn("Unable to refresh access token, will retry when next used: {}", ex.getMessage());
       } finally {
         lock.unlock();
       }
     }
+
+    // authenticates and schedules the next refresh, must be called with the lock held
+    // a token from the store is used in preference to authenticating, unless it is the token being replaced
+    // the store ensures that invokers sharing it do not authenticate at the same time using the same credentials
+    private CurrentToken authenticate(CurrentToken oldToken) {
+      AccessTokenResult result = tokenStore != null ?
+          tokenStore.findOrAuthenticate(
+              credentials,
+              oldToken != null ? oldToken.token : null,
+              () -> credentials.authenticate(authClient)) :
+          credentials.authenticate(authClient);
+      CurrentToken newToken = new CurrentToken(result);
+      token = newToken;
+      if (scheduledRefresh != null) {
+        scheduledRefresh.cancel(false);
+        scheduledRefresh = null;
+      }
+      if (result.getExpiresIn() > 0) {
+        // refresh when three quarters of the lifetime has passed
+        long delayMillis = TimeUnit.SECONDS.toMillis(result.getExpiresIn()) * 3 / 4;
+        try {
+          scheduledRefresh = executor.schedule(this::startRefresh, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+          // invoker closed, token will be refreshed if it is used again
+        }
+      }
+      return newToken;
+    }
+
+    // adds the token to the request
+    private static Request withToken(Request request, CurrentToken token) {
+      return request.newBuilder()
+          .header(AUTHORIZATION, "Bearer " + token.token.getAccessToken())
+          .build();
+    }
+  }
+
+  // an access token, and the time after which it should no longer be used
+  private static final class CurrentToken {
+    /** The token. */
+    private final AccessTokenResult token;
+    /** The value of System.nanoTime() after which the token is stale, only used if the token expires. */
+    private final long staleAt;
+
+    private CurrentToken(AccessTokenResult token) {
+      this.token = token;
+      // stale when nine tenths of the lifetime has passed, allowing for latency and clock drift
+      this.staleAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(token.getExpiresIn()) * 9 / 10;
+    }
+
+    // checks if the token should be replaced before use
+    private boolean isStale() {
+      return token.getExpiresIn() > 0 && System.nanoTime() - staleAt >= 0;
+    }
   }
 
 }
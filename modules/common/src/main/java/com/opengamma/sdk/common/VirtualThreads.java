@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides access to virtual threads, where supported by the JVM.
+ * <p>
+ * The SDK is compiled for Java 8, so virtual threads, added in Java 21, are accessed by reflection.
+ * On earlier versions, or where virtual threads are a preview feature that is not enabled,
+ * they are reported as not supported.
+ */
+final class VirtualThreads {
+
+  /**
+   * The method {@code Thread.ofVirtual()}, null if not supported.
+   */
+  private static final Method OF_VIRTUAL;
+  /**
+   * The method {@code Thread.Builder.name(String, long)}, null if not supported.
+   */
+  private static final Method NAME;
+  /**
+   * The method {@code Thread.Builder.factory()}, null if not supported.
+   */
+  private static final Method FACTORY;
+  /**
+   * The method {@code Executors.newThreadPerTaskExecutor(ThreadFactory)}, null if not supported.
+   */
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    Method newThreadPerTaskExecutor = null;
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builderClass.getMethod("name", String.class, long.class);
+      factory = builderClass.getMethod("factory");
+      newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      // fails if virtual threads are a preview feature that is not enabled
+      factory.invoke(ofVirtual.invoke(null));
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  //-------------------------------------------------------------------------
+  // checks if virtual threads are supported
+  static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  // creates an executor that starts a new virtual thread for each task, null if not supported
+  static ExecutorService newExecutor(String namePrefix) {
+    if (OF_VIRTUAL == null) {
+      return null;
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+      ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+      return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  // creates an instance
+  private VirtualThreads() {
+  }
+
+}
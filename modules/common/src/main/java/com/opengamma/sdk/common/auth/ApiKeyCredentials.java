@@ -5,6 +5,9 @@
  */
 package com.opengamma.sdk.common.auth;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -49,6 +52,21 @@ final class ApiKeyCredentials implements Credentials, ImmutableBean {
     return client.authenticateApiKey(apiKey, secret);
   }
 
+  // gets a key identifying these credentials, which does not reveal them
+  String storeKey() {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest((apiKey + '\n' + secret).getBytes(StandardCharsets.UTF_8));
+      StringBuilder buf = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return buf.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code ApiKeyCredentials}.
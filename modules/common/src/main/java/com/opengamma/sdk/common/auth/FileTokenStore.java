@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store of access tokens held in files, one per credentials.
+ * <p>
+ * Each file is replaced atomically, thus processes sharing the directory see either the old or new token.
+ * <p>
+ * Only one token is obtained at a time for the same credentials. Within the JVM, concurrent callers share the result.
+ * Across processes, the token is obtained holding an exclusive lock on a lock file alongside the token file,
+ * with a process that waits for the lock then finding the token stored by the process that held it.
+ * The lock file is not deleted, as deleting it would allow two processes to lock different files.
+ */
+final class FileTokenStore implements TokenStore {
+
+  /** Log. */
+  private static final Logger log = LoggerFactory.getLogger(FileTokenStore.class);
+  /** The file suffix. */
+  private static final String SUFFIX = ".token";
+  /** The lock file suffix. */
+  private static final String LOCK_SUFFIX = ".lock";
+  /** The tokens being obtained, keyed by lock file, shared by all instances as a file can only be locked once per JVM. */
+  private static final InFlightTokens<Path> IN_FLIGHT = new InFlightTokens<>();
+  /** The access token property. */
+  private static final String ACCESS_TOKEN = "accessToken";
+  /** The token type property. */
+  private static final String TOKEN_TYPE = "tokenType";
+  /** The expiry property. */
+  private static final String EXPIRES_AT = "expiresAt";
+
+  /**
+   * The directory.
+   */
+  private final Path directory;
+  /**
+   * The clock.
+   */
+  private final Clock clock;
+
+  //-------------------------------------------------------------------------
+  // creates an instance
+  FileTokenStore(Path directory) {
+    this(directory, Clock.systemUTC());
+  }
+
+  // creates an instance
+  FileTokenStore(Path directory, Clock clock) {
+    this.directory = Objects.requireNonNull(directory, "directory must not be null");
+    this.clock = clock;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Optional<AccessTokenResult> find(Credentials credentials) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Path file = file(credentials);
+    if (file == null) {
+      return Optional.empty();
+    }
+    StoredToken stored = read(file);
+    return stored != null ? stored.toResult(clock.instant()) : Optional.empty();
+  }
+
+  @Override
+  public void store(Credentials credentials, AccessTokenResult token) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Objects.requireNonNull(token, "token must not be null");
+    Path file = file(credentials);
+    StoredToken stored = StoredToken.of(token, clock.instant());
+    if (file == null || stored == null) {
+      return;
+    }
+    Properties properties = new Properties();
+    properties.setProperty(ACCESS_TOKEN, stored.getAccessToken());
+    properties.setProperty(TOKEN_TYPE, stored.getTokenType());
+    properties.setProperty(EXPIRES_AT, stored.getExpiresAt().toString());
+    Path temp = null;
+    try {
+      Files.createDirectories(directory);
+      // temporary files are created readable only by the owner where supported
+      temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        properties.store(writer, null);
+      }
+      move(temp, file);
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Unable to store access token in {}: {}", file, ex.toString());
+      deleteQuietly(temp);
+    }
+  }
+
+  @Override
+  public AccessTokenResult findOrAuthenticate(
+      Credentials credentials,
+      AccessTokenResult replacing,
+      Supplier<AccessTokenResult> authenticator) {
+
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Path file = file(credentials);
+    if (file == null) {
+      return authenticator.get();
+    }
+    Path lockFile = directory.resolve(file.getFileName() + LOCK_SUFFIX).toAbsolutePath().normalize();
+    return IN_FLIGHT.obtain(
+        lockFile,
+        replacing,
+        () -> withLock(lockFile, () -> TokenStore.super.findOrAuthenticate(credentials, replacing, authenticator)));
+  }
+
+  @Override
+  public void remove(Credentials credentials, AccessTokenResult token) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Objects.requireNonNull(token, "token must not be null");
+    Path file = file(credentials);
+    if (file == null) {
+      return;
+    }
+    StoredToken stored = read(file);
+    if (stored != null && stored.isToken(token)) {
+      deleteQuietly(file);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the file for the credentials, null if the credentials cannot be stored
+  private Path file(Credentials credentials) {
+    if (credentials instanceof ApiKeyCredentials) {
+      return directory.resolve(((ApiKeyCredentials) credentials).storeKey() + SUFFIX);
+    }
+    return null;
+  }
+
+  // reads the file, null if not present or invalid
+  private static StoredToken read(Path file) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Unable to read access token from {}: {}", file, ex.toString());
+      return null;
+    }
+    String accessToken = properties.getProperty(ACCESS_TOKEN);
+    String tokenType = properties.getProperty(TOKEN_TYPE);
+    String expiresAt = properties.getProperty(EXPIRES_AT);
+    if (accessToken == null || accessToken.isEmpty() || tokenType == null || tokenType.isEmpty() || expiresAt == null) {
+      log.warn("Unable to read access token from {}: missing properties", file);
+      return null;
+    }
+    try {
+      return new StoredToken(accessToken, tokenType, Instant.parse(expiresAt));
+    } catch (DateTimeException ex) {
+      log.warn("Unable to read access token from {}: {}", file, ex.toString());
+      return null;
+    }
+  }
+
+  // obtains the token holding an exclusive lock on the lock file, or without the lock if it cannot be obtained
+  private static AccessTokenResult withLock(Path lockFile, Supplier<AccessTokenResult> supplier) {
+    FileChannel channel = null;
+    try {
+      Files.createDirectories(lockFile.getParent());
+      channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      channel.lock();
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Unable to lock {}, obtaining access token without the lock: {}", lockFile, ex.toString());
+      closeQuietly(channel, lockFile);
+      channel = null;
+    }
+    try {
+      return supplier.get();
+    } finally {
+      // closing the channel releases the lock
+      closeQuietly(channel, lockFile);
+    }
+  }
+
+  // closes the channel, ignoring failure
+  private static void closeQuietly(FileChannel channel, Path file) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        log.debug("Unable to close {}: {}", file, ex.toString());
+      }
+    }
+  }
+
+  // moves the file, atomically if possible
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  // deletes the file, ignoring failure
+  private static void deleteQuietly(Path file) {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException ex) {
+        log.debug("Unable to delete {}: {}", file, ex.toString());
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "FileTokenStore[" + directory + "]";
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The tokens that are being obtained, ensuring that only one is obtained at a time for each key.
+ * <p>
+ * The first caller for a key obtains the token, with callers that arrive while it does so waiting for,
+ * and sharing, the same result. Once obtained, the next caller for the key obtains a token again.
+ *
+ * @param <K>  the type of the key
+ */
+final class InFlightTokens<K> {
+
+  /**
+   * The tokens being obtained, keyed by the key.
+   */
+  private final ConcurrentMap<K, CompletableFuture<AccessTokenResult>> inFlight = new ConcurrentHashMap<>();
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains the token for the key, sharing the result with concurrent callers for the same key.
+   * <p>
+   * If the shared result is the token being replaced, the token is obtained again.
+   *
+   * @param key  the key
+   * @param replacing  the token being replaced, null if none
+   * @param supplier  the supplier of the token, only called if the token is not already being obtained
+   * @return the token
+   */
+  AccessTokenResult obtain(K key, AccessTokenResult replacing, Supplier<AccessTokenResult> supplier) {
+    while (true) {
+      AccessTokenResult result = obtain(key, supplier);
+      if (replacing == null || !result.getAccessToken().equals(replacing.getAccessToken())) {
+        return result;
+      }
+    }
+  }
+
+  // obtains the token, or waits for the token already being obtained
+  private AccessTokenResult obtain(K key, Supplier<AccessTokenResult> supplier) {
+    CompletableFuture<AccessTokenResult> future = new CompletableFuture<>();
+    CompletableFuture<AccessTokenResult> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      AccessTokenResult result = supplier.get();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  // waits for the token being obtained by another caller, rethrowing its failure
+  private static AccessTokenResult join(CompletableFuture<AccessTokenResult> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A store of access tokens held in memory.
+ * <p>
+ * Only one token is obtained at a time for the same credentials, with concurrent callers sharing the result.
+ */
+final class InMemoryTokenStore implements TokenStore {
+
+  /**
+   * The clock.
+   */
+  private final Clock clock;
+  /**
+   * The tokens, keyed by credentials.
+   */
+  private final ConcurrentMap<Credentials, StoredToken> tokens = new ConcurrentHashMap<>();
+  /**
+   * The tokens being obtained, keyed by credentials.
+   */
+  private final InFlightTokens<Credentials> inFlight = new InFlightTokens<>();
+
+  //-------------------------------------------------------------------------
+  // creates an instance
+  InMemoryTokenStore() {
+    this(Clock.systemUTC());
+  }
+
+  // creates an instance
+  InMemoryTokenStore(Clock clock) {
+    this.clock = clock;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Optional<AccessTokenResult> find(Credentials credentials) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    StoredToken stored = tokens.get(credentials);
+    return stored != null ? stored.toResult(clock.instant()) : Optional.empty();
+  }
+
+  @Override
+  public void store(Credentials credentials, AccessTokenResult token) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Objects.requireNonNull(token, "token must not be null");
+    StoredToken stored = StoredToken.of(token, clock.instant());
+    if (stored != null) {
+      tokens.put(credentials, stored);
+    }
+  }
+
+  @Override
+  public AccessTokenResult findOrAuthenticate(
+      Credentials credentials,
+      AccessTokenResult replacing,
+      Supplier<AccessTokenResult> authenticator) {
+
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    return inFlight.obtain(
+        credentials,
+        replacing,
+        () -> TokenStore.super.findOrAuthenticate(credentials, replacing, authenticator));
+  }
+
+  @Override
+  public void remove(Credentials credentials, AccessTokenResult token) {
+    Objects.requireNonNull(credentials, "credentials must not be null");
+    Objects.requireNonNull(token, "token must not be null");
+    tokens.computeIfPresent(credentials, (key, stored) -> stored.isToken(token) ? null : stored);
+  }
+
+  @Override
+  public String toString() {
+    return "InMemoryTokenStore";
+  }
+
+}
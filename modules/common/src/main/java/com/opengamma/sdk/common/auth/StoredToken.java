@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * An access token held in a store, with the instant at which it expires.
+ */
+final class StoredToken {
+
+  /**
+   * The minimum remaining lifetime for a stored token to be used.
+   */
+  static final Duration MIN_REMAINING = Duration.ofSeconds(60);
+
+  /**
+   * The access token.
+   */
+  private final String accessToken;
+  /**
+   * The token type.
+   */
+  private final String tokenType;
+  /**
+   * The instant at which the token expires.
+   */
+  private final Instant expiresAt;
+
+  //-------------------------------------------------------------------------
+  // creates an instance for a token that has just been obtained, null if the token does not expire
+  static StoredToken of(AccessTokenResult token, Instant now) {
+    if (token.getExpiresIn() <= 0) {
+      return null;
+    }
+    return new StoredToken(token.getAccessToken(), token.getTokenType(), now.plusSeconds(token.getExpiresIn()));
+  }
+
+  // creates an instance
+  StoredToken(String accessToken, String tokenType, Instant expiresAt) {
+    this.accessToken = accessToken;
+    this.tokenType = tokenType;
+    this.expiresAt = expiresAt;
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the access token
+  String getAccessToken() {
+    return accessToken;
+  }
+
+  // gets the token type
+  String getTokenType() {
+    return tokenType;
+  }
+
+  // gets the instant at which the token expires
+  Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  // checks if this is the specified token
+  boolean isToken(AccessTokenResult token) {
+    return accessToken.equals(token.getAccessToken());
+  }
+
+  // gets the token with its remaining lifetime, empty if too close to expiry
+  Optional<AccessTokenResult> toResult(Instant now) {
+    long remaining = Duration.between(now, expiresAt).getSeconds();
+    if (remaining < MIN_REMAINING.getSeconds()) {
+      return Optional.empty();
+    }
+    return Optional.of(AccessTokenResult.of(accessToken, tokenType, remaining));
+  }
+
+}
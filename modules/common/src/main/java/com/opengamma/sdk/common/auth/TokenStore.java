@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A store of access tokens, allowing a token to be shared rather than obtained again.
+ * <p>
+ * By default, each {@code ServiceInvoker} authenticates when it is first used.
+ * Where many invokers are created using the same credentials, or where a process is started many times,
+ * a store allows a token that is still valid to be reused, avoiding a call to the authentication endpoint.
+ * A store is set using {@code ServiceInvokerBuilder.tokenStore(TokenStore)}.
+ * <p>
+ * Tokens are keyed by the credentials used to obtain them.
+ * The lifetime of each token, {@link AccessTokenResult#getExpiresIn()}, is honored.
+ * A token that is found in the store is returned with its remaining lifetime, and a token
+ * that is close to expiry is not returned. Tokens without a lifetime are not stored.
+ * <p>
+ * The stores provided ensure that only one token is obtained at a time for the same credentials,
+ * thus many invokers that start at the same time authenticate once, see {@link #findOrAuthenticate}.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface TokenStore {
+
+  /**
+   * Obtains a store that holds tokens in memory.
+   * <p>
+   * The same instance should be passed to each invoker that is to share tokens.
+   * 
+   * @return the store
+   */
+  public static TokenStore inMemory() {
+    return new InMemoryTokenStore();
+  }
+
+  /**
+   * Obtains a store that holds tokens in files in the specified directory.
+   * <p>
+   * This allows tokens to be reused across processes, such as a batch process that is run many times.
+   * Each token is held in its own file, named using a hash of the credentials, which are not stored.
+   * The file is readable only by its owner where the file system supports it,
+   * however the directory should also be protected, as the token grants access to the service.
+   * <p>
+   * The directory is created if necessary. Failure to read or write a file is logged,
+   * with the token obtained from the authentication endpoint instead.
+   * Only credentials created using {@link Credentials#ofApiKey(String, String)} are stored.
+   * 
+   * @param directory  the directory to hold the files
+   * @return the store
+   */
+  public static TokenStore ofDirectory(Path directory) {
+    return new FileTokenStore(directory);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Finds a valid token for the specified credentials.
+   * <p>
+   * The token is returned with its remaining lifetime.
+   * 
+   * @param credentials  the credentials
+   * @return the token, empty if there is no token that is valid for long enough to be used
+   */
+  public abstract Optional<AccessTokenResult> find(Credentials credentials);
+
+  /**
+   * Stores a token that has just been obtained for the specified credentials.
+   * <p>
+   * Any existing token for the credentials is replaced.
+   * 
+   * @param credentials  the credentials
+   * @param token  the token, with its full lifetime
+   */
+  public abstract void store(Credentials credentials, AccessTokenResult token);
+
+  /**
+   * Finds a valid token for the specified credentials, authenticating and storing a new token if there is none.
+   * <p>
+   * A stored token is not returned if it is the token being replaced.
+   * The stores provided ensure that only one caller authenticates at a time for the same credentials,
+   * with the other callers sharing the result. The file store also locks the token file,
+   * thus processes sharing the directory do not authenticate at the same time.
+   * <p>
+   * The default implementation calls {@link #find(Credentials)}, then authenticates and calls
+   * {@link #store(Credentials, AccessTokenResult)}, without preventing concurrent authentication.
+   * 
+   * @param credentials  the credentials
+   * @param replacing  the token being replaced, null if none
+   * @param authenticator  the function used to authenticate, obtaining a new token
+   * @return the token
+   */
+  public default AccessTokenResult findOrAuthenticate(
+      Credentials credentials,
+      AccessTokenResult replacing,
+      Supplier<AccessTokenResult> authenticator) {
+
+    Optional<AccessTokenResult> stored = find(credentials);
+    if (stored.isPresent() &&
+        (replacing == null || !stored.get().getAccessToken().equals(replacing.getAccessToken()))) {
+      return stored.get();
+    }
+    AccessTokenResult result = authenticator.get();
+    store(credentials, result);
+    return result;
+  }
+
+  /**
+   * Removes a token that has been rejected by the service.
+   * <p>
+   * The stored token is only removed if it is the specified token.
+   * 
+   * @param credentials  the credentials
+   * @param token  the rejected token
+   */
+  public abstract void remove(Credentials credentials, AccessTokenResult token);
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link PollingStrategy}.
+ */
+public class PollingStrategyTest {
+
+  @Test
+  public void test_fixed() {
+    PollingStrategy test = PollingStrategy.fixed(Duration.ofMillis(500));
+    assertThat(test.nextDelay(0, null)).isEqualTo(Duration.ofMillis(500));
+    assertThat(test.nextDelay(10, null)).isEqualTo(Duration.ofMillis(500));
+    assertThat(test.nextDelay(10, Duration.ofMillis(200))).isEqualTo(Duration.ofMillis(200));
+    assertThatIllegalArgumentException().isThrownBy(() -> PollingStrategy.fixed(Duration.ofMillis(-1)));
+  }
+
+  @Test
+  public void test_exponential_noJitter() {
+    PollingStrategy test = PollingStrategy.exponential(Duration.ofMillis(50), 2d, Duration.ofMillis(1000), 0d);
+    assertThat(test.nextDelay(0, null)).isEqualTo(Duration.ofMillis(50));
+    assertThat(test.nextDelay(1, null)).isEqualTo(Duration.ofMillis(100));
+    assertThat(test.nextDelay(2, null)).isEqualTo(Duration.ofMillis(200));
+    assertThat(test.nextDelay(5, null)).isEqualTo(Duration.ofMillis(1000));
+    assertThat(test.nextDelay(Integer.MAX_VALUE, null)).isEqualTo(Duration.ofMillis(1000));
+    assertThat(test.nextDelay(5, Duration.ofMillis(300))).isEqualTo(Duration.ofMillis(300));
+  }
+
+  @Test
+  public void test_serverHintCapped() {
+    Duration day = Duration.ofSeconds(86400);
+    assertThat(PollingStrategy.fixed(Duration.ofMillis(500)).nextDelay(0, day)).isEqualTo(Duration.ofMillis(500));
+    assertThat(PollingStrategy.exponential(Duration.ofMillis(50), 2d, Duration.ofMillis(1000), 0d).nextDelay(0, day))
+        .isEqualTo(Duration.ofMillis(1000));
+    assertThat(PollingStrategy.standard().nextDelay(0, day)).isEqualTo(Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void test_exponential_jitter() {
+    PollingStrategy test = PollingStrategy.exponential(Duration.ofMillis(1000), 1d, Duration.ofMillis(1000), 0.5d);
+    for (int i = 0; i < 100; i++) {
+      assertThat(test.nextDelay(i, null)).isBetween(Duration.ofMillis(500), Duration.ofMillis(1000));
+    }
+  }
+
+  @Test
+  public void test_exponential_invalid() {
+    Duration second = Duration.ofSeconds(1);
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PollingStrategy.exponential(Duration.ofSeconds(2), second));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PollingStrategy.exponential(second, 0.5d, second, 0d));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PollingStrategy.exponential(second, 2d, second, 1.5d));
+  }
+
+  @Test
+  public void test_standard() {
+    PollingStrategy test = PollingStrategy.standard();
+    assertThat(test.nextDelay(0, null)).isLessThanOrEqualTo(Duration.ofMillis(120));
+    assertThat(test.nextDelay(100, null)).isLessThanOrEqualTo(Duration.ofSeconds(2));
+  }
+
+}
@@ -6,17 +6,35 @@
 package com.opengamma.sdk.common;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.opengamma.sdk.common.auth.Credentials;
+import com.opengamma.sdk.common.auth.TokenStore;
 
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 
 /**
  * Test {@link ServiceInvoker}.
@@ -24,6 +42,8 @@ import okhttp3.mockwebserver.MockWebServer;
 public class ServiceInvokerTest {
 
   private MockWebServer server;
+  @TempDir
+  private Path directory;
 
   @BeforeEach
   public void setUp() throws Exception {
@@ -81,4 +101,250 @@ public class ServiceInvokerTest {
     }
   }
 
+  @Test
+  public void testRetries_busyNotRetried() throws Exception {
+    AtomicInteger requestCount = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().contains("auth")) {
+          return new MockResponse().setResponseCode(200).setBody("{\n" +
+              "  \"access_token\": \"testAccessToken\",\n" +
+              "  \"expires_in\": 3600,\n" +
+              "  \"token_type\": \"Bearer\"\n" +
+              "}");
+        }
+        int code = requestCount.incrementAndGet() == 1 ? 429 : 503;
+        return new MockResponse().setResponseCode(code).setHeader("Retry-After", "0");
+      }
+    });
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .serviceUrl(server.url(""))
+        .retries(3)
+        .build()) {
+
+      Request request = new Request.Builder()
+          .url(invoker.getServiceUrl().resolve("test"))
+          .get()
+          .build();
+      // the busy responses are returned for the caller to retry, rather than being retried here
+      try (Response response = invoker.getHttpClient().newCall(request).execute()) {
+        assertThat(response.code()).isEqualTo(429);
+      }
+      try (Response response = invoker.getHttpClient().newCall(request).execute()) {
+        assertThat(response.code()).isEqualTo(503);
+      }
+      assertThat(requestCount.get()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void testProactiveRefresh() throws Exception {
+    AtomicInteger authCount = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().contains("auth")) {
+          return new MockResponse().setResponseCode(200).setBody("{\n" +
+              "  \"access_token\": \"token" + authCount.incrementAndGet() + "\",\n" +
+              "  \"expires_in\": 1,\n" +
+              "  \"token_type\": \"Bearer\"\n" +
+              "}");
+        }
+        return new MockResponse().setResponseCode(200).setBody(request.getHeader("Authorization"));
+      }
+    });
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .serviceUrl(server.url(""))
+        .build()) {
+
+      invoker.warmUp(0);
+      assertThat(authCount.get()).isEqualTo(1);
+      // refreshed after three quarters of the lifetime, without waiting for a request to be rejected
+      Thread.sleep(1_000);
+      assertThat(authCount.get()).isEqualTo(2);
+      Request request = new Request.Builder()
+          .url(invoker.getServiceUrl().resolve("test"))
+          .get()
+          .build();
+      try (Response response = invoker.getHttpClient().newCall(request).execute()) {
+        assertThat(response.body().string()).isEqualTo("Bearer token2");
+      }
+      assertThat(authCount.get()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .serviceUrl(server.url(""))
+        .build()) {
+
+      invoker.warmUp(2);
+      assertThat(server.getRequestCount()).isEqualTo(3);
+      assertThat(server.takeRequest().getPath()).contains("auth");
+      for (int i = 0; i < 2; i++) {
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("HEAD");
+        assertThat(request.getHeader("Authorization")).isNull();
+      }
+      // already authenticated
+      invoker.warmUp(0);
+      assertThat(server.getRequestCount()).isEqualTo(3);
+      assertThatIllegalArgumentException().isThrownBy(() -> invoker.warmUp(-1));
+    }
+  }
+
+  @Test
+  public void testTokenStore_concurrentInvokers_inMemory() throws Exception {
+    TokenStore store = TokenStore.inMemory();
+    assertConcurrentInvokersAuthenticateOnce(() -> store);
+  }
+
+  @Test
+  public void testTokenStore_concurrentInvokers_directory() throws Exception {
+    // a store per invoker, as though each were in a different process
+    assertConcurrentInvokersAuthenticateOnce(() -> TokenStore.ofDirectory(directory));
+  }
+
+  // starts many invokers at once, checking that they share one token
+  private void assertConcurrentInvokersAuthenticateOnce(Supplier<TokenStore> stores) throws Exception {
+    int invokerCount = 8;
+    AtomicInteger authCount = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().contains("auth")) {
+          return new MockResponse().setResponseCode(200).setBody("{\n" +
+              "  \"access_token\": \"token" + authCount.incrementAndGet() + "\",\n" +
+              "  \"expires_in\": 3600,\n" +
+              "  \"token_type\": \"Bearer\"\n" +
+              "}").setBodyDelay(200, TimeUnit.MILLISECONDS);
+        }
+        return new MockResponse().setResponseCode(200).setBody(request.getHeader("Authorization"));
+      }
+    });
+    List<ServiceInvoker> invokers = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(invokerCount);
+    try {
+      for (int i = 0; i < invokerCount; i++) {
+        invokers.add(ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+            .serviceUrl(server.url(""))
+            .tokenStore(stores.get())
+            .build());
+      }
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<String>> results = new ArrayList<>();
+      for (ServiceInvoker invoker : invokers) {
+        results.add(executor.submit(() -> {
+          start.await();
+          Request request = new Request.Builder()
+              .url(invoker.getServiceUrl().resolve("test"))
+              .get()
+              .build();
+          try (Response response = invoker.getHttpClient().newCall(request).execute()) {
+            return response.body().string();
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<String> result : results) {
+        assertThat(result.get(30, TimeUnit.SECONDS)).isEqualTo("Bearer token1");
+      }
+      assertThat(authCount.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+      invokers.forEach(ServiceInvoker::close);
+    }
+  }
+
+  @Test
+  public void testConnectionSettings_default() {
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test")).build()) {
+      OkHttpClient httpClient = invoker.getHttpClient();
+      assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(64);
+      assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(5);
+      assertThat(httpClient.readTimeoutMillis()).isEqualTo(30_000);
+    }
+  }
+
+  @Test
+  public void testConnectionSettings() {
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .httpClient(new OkHttpClient())
+        .connectionPool(20, 1, TimeUnit.MINUTES)
+        .maxRequestsPerHost(16)
+        .protocols(Protocol.HTTP_1_1)
+        .connectTimeout(2, TimeUnit.SECONDS)
+        .build()) {
+      OkHttpClient httpClient = invoker.getHttpClient();
+      assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(64);
+      assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(16);
+      assertThat(httpClient.protocols()).containsExactly(Protocol.HTTP_1_1);
+      assertThat(httpClient.connectTimeoutMillis()).isEqualTo(2_000);
+    }
+  }
+
+  @Test
+  public void testConnectionSettings_invalid() {
+    ServiceInvokerBuilder builder = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.connectionPool(-1, 1, TimeUnit.MINUTES));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.maxRequests(0));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.maxRequestsPerHost(0));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.protocols(Protocol.HTTP_2));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.connectTimeout(-1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    try (ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .maxRequestsPerHost(16)
+        .virtualThreads(true)
+        .build()) {
+      OkHttpClient httpClient = invoker.getHttpClient();
+      assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(64);
+      assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(16);
+      Thread thread = httpClient.dispatcher().executorService().submit(Thread::currentThread).get();
+      if (VirtualThreads.isSupported()) {
+        assertThat(thread.getName()).startsWith("ServiceInvoker-virtual-");
+      } else {
+        assertThat(thread.getName()).startsWith("ServiceInvoker-OkHttp-");
+      }
+      assertThat(thread.isDaemon()).isTrue();
+    }
+  }
+
+  @Test
+  public void testClose_dispatcherExecutor() {
+    ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .maxRequestsPerHost(16)
+        .build();
+    invoker.close();
+    assertThat(invoker.getExecutor().isShutdown()).isTrue();
+    assertThat(invoker.getHttpClient().dispatcher().executorService().isShutdown()).isTrue();
+  }
+
+  @Test
+  public void testClose_virtualThreads() {
+    ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .virtualThreads(true)
+        .build();
+    invoker.close();
+    assertThat(invoker.getExecutor().isShutdown()).isTrue();
+    // without support, the dispatcher of the HTTP client is used, which is not closed
+    assertThat(invoker.getHttpClient().dispatcher().executorService().isShutdown())
+        .isEqualTo(VirtualThreads.isSupported());
+  }
+
+  @Test
+  public void testClose_httpClientDispatcher() {
+    OkHttpClient httpClient = new OkHttpClient();
+    ServiceInvoker invoker = ServiceInvoker.builder(Credentials.ofApiKey("test", "test"))
+        .httpClient(httpClient)
+        .build();
+    invoker.close();
+    assertThat(invoker.getExecutor().isShutdown()).isTrue();
+    assertThat(httpClient.dispatcher().executorService().isShutdown()).isFalse();
+  }
+
 }
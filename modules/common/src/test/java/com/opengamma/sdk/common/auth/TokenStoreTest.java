@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.common.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test {@link TokenStore}.
+ */
+public class TokenStoreTest {
+
+  private static final Instant NOW = Instant.parse("2026-06-01T10:00:00Z");
+  private static final Credentials CREDENTIALS = Credentials.ofApiKey("key", "secret");
+  private static final Credentials OTHER_CREDENTIALS = Credentials.ofApiKey("key", "other");
+  private static final AccessTokenResult TOKEN = AccessTokenResult.of("token", AccessTokenResult.BEARER, 3600);
+
+  @TempDir
+  private Path directory;
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_inMemory() {
+    TokenStore test = new InMemoryTokenStore(Clock.fixed(NOW, ZoneOffset.UTC));
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+    test.store(CREDENTIALS, TOKEN);
+    assertThat(test.find(CREDENTIALS)).hasValue(TOKEN);
+    assertThat(test.find(Credentials.ofApiKey("key", "secret"))).hasValue(TOKEN);
+    assertThat(test.find(OTHER_CREDENTIALS)).isEmpty();
+  }
+
+  @Test
+  public void test_inMemory_expiry() {
+    TokenStore test = new InMemoryTokenStore(Clock.fixed(NOW, ZoneOffset.UTC));
+    // too close to expiry
+    test.store(CREDENTIALS, AccessTokenResult.of("token", AccessTokenResult.BEARER, 30));
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+    // no lifetime
+    test.store(OTHER_CREDENTIALS, AccessTokenResult.of("token", AccessTokenResult.BEARER, 0));
+    assertThat(test.find(OTHER_CREDENTIALS)).isEmpty();
+  }
+
+  @Test
+  public void test_inMemory_remove() {
+    TokenStore test = TokenStore.inMemory();
+    test.store(CREDENTIALS, TOKEN);
+    test.remove(CREDENTIALS, AccessTokenResult.of("newer", AccessTokenResult.BEARER, 3600));
+    assertThat(test.find(CREDENTIALS)).isPresent();
+    test.remove(CREDENTIALS, TOKEN);
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+  }
+
+  @Test
+  public void test_inMemory_findOrAuthenticate() {
+    TokenStore test = new InMemoryTokenStore(Clock.fixed(NOW, ZoneOffset.UTC));
+    assertFindOrAuthenticate(test);
+  }
+
+  // checks that a stored token is used unless being replaced, and that failure is not stored
+  private static void assertFindOrAuthenticate(TokenStore test) {
+    AtomicInteger authCount = new AtomicInteger();
+    AccessTokenResult newer = AccessTokenResult.of("newer", AccessTokenResult.BEARER, 3600);
+    assertThat(test.findOrAuthenticate(CREDENTIALS, null, () -> {
+      authCount.incrementAndGet();
+      return TOKEN;
+    })).isEqualTo(TOKEN);
+    assertThat(test.findOrAuthenticate(CREDENTIALS, null, () -> newer)).isEqualTo(TOKEN);
+    assertThat(authCount.get()).isEqualTo(1);
+    assertThatIllegalStateException().isThrownBy(() -> test.findOrAuthenticate(CREDENTIALS, TOKEN, () -> {
+      throw new IllegalStateException();
+    }));
+    assertThat(test.findOrAuthenticate(CREDENTIALS, TOKEN, () -> newer)).isEqualTo(newer);
+    assertThat(test.find(CREDENTIALS).get().getAccessToken()).isEqualTo("newer");
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_ofDirectory() throws Exception {
+    Path subdirectory = directory.resolve("tokens");
+    TokenStore test = new FileTokenStore(subdirectory, Clock.fixed(NOW, ZoneOffset.UTC));
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+    test.store(CREDENTIALS, TOKEN);
+    // another process, an hour less a minute later
+    TokenStore later = new FileTokenStore(subdirectory, Clock.fixed(NOW.plusSeconds(3540), ZoneOffset.UTC));
+    assertThat(later.find(CREDENTIALS)).hasValue(AccessTokenResult.of("token", AccessTokenResult.BEARER, 60));
+    assertThat(later.find(OTHER_CREDENTIALS)).isEmpty();
+    // credentials are not stored
+    try (Stream<Path> files = Files.list(subdirectory)) {
+      Path file = files.findFirst().get();
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      assertThat(file.getFileName().toString()).doesNotContain("key").endsWith(".token");
+      assertThat(content).contains("token").doesNotContain("secret");
+    }
+  }
+
+  @Test
+  public void test_ofDirectory_remove() {
+    TokenStore test = TokenStore.ofDirectory(directory);
+    test.store(CREDENTIALS, TOKEN);
+    test.remove(CREDENTIALS, AccessTokenResult.of("newer", AccessTokenResult.BEARER, 3600));
+    assertThat(test.find(CREDENTIALS)).isPresent();
+    test.remove(CREDENTIALS, TOKEN);
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+  }
+
+  @Test
+  public void test_ofDirectory_findOrAuthenticate() throws Exception {
+    TokenStore test = new FileTokenStore(directory, Clock.fixed(NOW, ZoneOffset.UTC));
+    assertFindOrAuthenticate(test);
+    String fileName = ((ApiKeyCredentials) CREDENTIALS).storeKey() + ".token";
+    assertThat(directory.resolve(fileName + ".lock")).exists();
+  }
+
+  @Test
+  public void test_ofDirectory_invalidFile() throws Exception {
+    TokenStore test = new FileTokenStore(directory, Clock.fixed(NOW, ZoneOffset.UTC));
+    test.store(CREDENTIALS, TOKEN);
+    String fileName = ((ApiKeyCredentials) CREDENTIALS).storeKey() + ".token";
+    Files.write(directory.resolve(fileName), "expiresAt=invalid".getBytes(StandardCharsets.UTF_8));
+    assertThat(test.find(CREDENTIALS)).isEmpty();
+    test.store(CREDENTIALS, TOKEN);
+    assertThat(test.find(CREDENTIALS)).isEqualTo(Optional.of(TOKEN));
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+import com.opengamma.sdk.common.PollingStrategy;
+import com.opengamma.sdk.common.ServiceInvoker;
+
+/**
+ * Client providing non-blocking access to the margin service.
+ * <p>
+ * Each operation sends its request using the asynchronous API of OkHttp, returning a future
+ * that completes when the response has been read. No thread waits while a request is in progress,
+ * thus the number of concurrent requests is limited by the dispatcher of the HTTP client,
+ * see {@code ServiceInvokerBuilder.maxRequestsPerHost(int)}, rather than by the number of threads.
+ * <p>
+ * Futures are completed on the threads of the HTTP client, which should not be blocked.
+ * Dependent work that is slow should use the {@code async} methods of {@link CompletableFuture}.
+ * Failures are reported by completing the future exceptionally with the exception
+ * that the equivalent method on {@link MarginClient} would throw.
+ * Cancelling a future cancels the request.
+ */
+public interface AsyncMarginClient {
+
+  /**
+   * Obtains an instance, specifying the invoker to use.
+   * <p>
+   * The {@link ServiceInvoker} provides authentication.
+   *
+   * @param invoker  the service invoker
+   * @return the client
+   */
+  public static AsyncMarginClient of(ServiceInvoker invoker) {
+    return InvokerAsyncMarginClient.of(InvokerMarginClient.of(invoker));
+  }
+
+  /**
+   * Obtains an instance, specifying the invoker to use and the limiter of concurrent requests.
+   * <p>
+   * The {@link ServiceInvoker} provides authentication.
+   * The {@link MarginLimiter} limits the number of requests in progress for each CCP and operation,
+   * adapting to the load on the server. A request waiting for the limiter does not block a thread.
+   *
+   * @param invoker  the service invoker
+   * @param limiter  the limiter of concurrent requests
+   * @return the client
+   */
+  public static AsyncMarginClient of(ServiceInvoker invoker, MarginLimiter limiter) {
+    return InvokerAsyncMarginClient.of(InvokerMarginClient.of(invoker, limiter));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Lists the available CCPs.
+   * <p>
+   * The future completes exceptionally with {@link MarginException} if unable to list the CCPs,
+   * or {@link UncheckedIOException} if an IO error occurs.
+   *
+   * @return the future list of available CCPs
+   */
+  public abstract CompletableFuture<CcpsResult> listCcps();
+
+  /**
+   * Gets information about a single CCP.
+   * <p>
+   * The future completes exceptionally with {@link MarginException} if unable to get the information,
+   * or {@link UncheckedIOException} if an IO error occurs.
+   *
+   * @param ccp  the CCP to lookup
+   * @return the future information about the CCP
+   */
+  public abstract CompletableFuture<CcpInfo> getCcpInfo(Ccp ccp);
+
+  /**
+   * Creates a margin calculation task.
+   * <p>
+   * The future completes exceptionally with {@link MarginException} if unable to create the calculation,
+   * or {@link UncheckedIOException} if an IO error occurs.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @return the future calculation identifier
+   */
+  public abstract CompletableFuture<String> createCalculation(Ccp ccp, MarginCalcRequest request);
+
+  /**
+   * Gets the result of a margin calculation task.
+   * <p>
+   * The future completes exceptionally with {@link MarginException} if unable to get the calculation,
+   * or {@link UncheckedIOException} if an IO error occurs.
+   *
+   * @param ccp  the CCP to use
+   * @param calcId  the calculation identifier
+   * @return the future calculation result
+   */
+  public abstract CompletableFuture<MarginCalcResult> getCalculation(Ccp ccp, String calcId);
+
+  /**
+   * Deletes a margin calculation task.
+   * <p>
+   * The future completes exceptionally with {@link MarginException} if unable to delete the calculation,
+   * or {@link UncheckedIOException} if an IO error occurs.
+   *
+   * @param ccp  the CCP to use
+   * @param calcId  the calculation identifier
+   * @return the future that completes when the calculation has been deleted
+   */
+  public abstract CompletableFuture<Void> deleteCalculation(Ccp ccp, String calcId);
+
+  //-------------------------------------------------------------------------
+  /**
+   * High-level call to submit a portfolio for parsing, validation and IM calculation.
+   * <p>
+   * The calculation is created, polled until complete using the default polling strategy
+   * of the invoker, then deleted.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @return the future detailed result of the calculation
+   */
+  public abstract CompletableFuture<MarginCalcResult> calculate(Ccp ccp, MarginCalcRequest request);
+
+  /**
+   * High-level call to submit a portfolio for parsing, validation and IM calculation,
+   * specifying the strategy used to decide how long to wait between polls.
+   * <p>
+   * The calculation is created, polled until complete, then deleted.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the future detailed result of the calculation
+   */
+  public abstract CompletableFuture<MarginCalcResult> calculate(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy);
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs a batch of calculations, keeping a bounded number in flight at any one time.
+ * <p>
+ * Calculations are started in order. As each one completes, the next is started,
+ * such that submission, polling and cleanup of different calculations overlap.
+ * <p>
+ * Cancelling one of the returned futures cancels its calculation, allowing the calculation function to stop it,
+ * and frees its place in the window straight away. A calculation whose future is cancelled before it is
+ * started is never started.
+ * <p>
+ * This class is thread-safe.
+ */
+final class CalculationBatch<T, R> {
+
+  /**
+   * The function that starts a single calculation.
+   */
+  private final Function<T, CompletableFuture<R>> calculateFn;
+  /**
+   * The inputs.
+   */
+  private final List<T> inputs;
+  /**
+   * The results, in the same order as the inputs.
+   */
+  private final List<CompletableFuture<R>> results;
+  /**
+   * The maximum number of calculations in flight.
+   */
+  private final int maxInFlight;
+  /**
+   * The index of the next input to start, guarded by this.
+   */
+  private int nextIndex;
+  /**
+   * The number of calculations in flight, guarded by this.
+   */
+  private int inFlight;
+  /**
+   * The number of times the submission loop has been triggered and not yet run.
+   */
+  private final AtomicInteger wip = new AtomicInteger();
+
+  //-------------------------------------------------------------------------
+  /**
+   * Starts a batch of calculations.
+   *
+   * @param <T>  the type of the input
+   * @param <R>  the type of the result
+   * @param inputs  the inputs
+   * @param maxInFlight  the maximum number of calculations in flight at any one time
+   * @param calculateFn  the function that starts a single calculation
+   * @return the futures, one for each input, in the same order as the inputs
+   */
+  static <T, R> List<CompletableFuture<R>> start(
+      List<T> inputs,
+      int maxInFlight,
+      Function<T, CompletableFuture<R>> calculateFn) {
+
+    CalculationBatch<T, R> batch = new CalculationBatch<>(inputs, maxInFlight, calculateFn);
+    batch.submitMore();
+    return batch.results;
+  }
+
+  // creates an instance
+  private CalculationBatch(List<T> inputs, int maxInFlight, Function<T, CompletableFuture<R>> calculateFn) {
+    this.inputs = new ArrayList<>(Objects.requireNonNull(inputs, "inputs must not be null"));
+    this.calculateFn = Objects.requireNonNull(calculateFn, "calculateFn must not be null");
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least one");
+    }
+    this.maxInFlight = maxInFlight;
+    List<CompletableFuture<R>> futures = new ArrayList<>(this.inputs.size());
+    for (int i = 0; i < this.inputs.size(); i++) {
+      futures.add(new CompletableFuture<>());
+    }
+    this.results = Collections.unmodifiableList(futures);
+  }
+
+  //-------------------------------------------------------------------------
+  // runs the submission loop, unless another thread is already running it, in which case that thread runs it again
+  private void submitMore() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      submitOnce();
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  // starts calculations until the window is full or there are no more inputs
+  private void submitOnce() {
+    while (true) {
+      int index;
+      synchronized (this) {
+        if (inFlight >= maxInFlight || nextIndex >= inputs.size()) {
+          return;
+        }
+        index = nextIndex++;
+        if (results.get(index).isDone()) {
+          // cancelled before being started
+          continue;
+        }
+        inFlight++;
+      }
+      CompletableFuture<R> result = results.get(index);
+      AtomicBoolean released = new AtomicBoolean();
+      try {
+        CompletableFuture<R> calculation = calculateFn.apply(inputs.get(index));
+        // a calculation that completes immediately re-triggers the loop rather than recursing
+        calculation.whenComplete((value, ex) -> {
+          if (ex != null) {
+            result.completeExceptionally(ex);
+          } else {
+            result.complete(value);
+          }
+          release(released);
+        });
+        result.whenComplete((value, ex) -> {
+          if (result.isCancelled()) {
+            calculation.cancel(false);
+            release(released);
+          }
+        });
+      } catch (RuntimeException ex) {
+        synchronized (this) {
+          inFlight--;
+        }
+        result.completeExceptionally(ex);
+      }
+    }
+  }
+
+  // frees the place in the window of a calculation, once only, starting the next calculation
+  private void release(AtomicBoolean released) {
+    if (released.compareAndSet(false, true)) {
+      synchronized (this) {
+        inFlight--;
+      }
+      submitMore();
+    }
+  }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Interfaces for streaming calculation results with backpressure.
+ * <p>
+ * These interfaces have the same methods and contract as those of {@code java.util.concurrent.Flow}
+ * and the Reactive Streams specification, which are not available in Java 8.
+ * Use {@link #adapt(Publisher, Class)} to obtain a publisher implementing either, for example:
+ * <pre>
+ *  Flow.Publisher&lt;MarginCalcResult&gt; flowPublisher = CalculationFlow.adapt(publisher, Flow.Publisher.class);
+ *  org.reactivestreams.Publisher&lt;MarginCalcResult&gt; rsPublisher =
+ *      CalculationFlow.adapt(publisher, org.reactivestreams.Publisher.class);
+ * </pre>
+ */
+public final class CalculationFlow {
+
+  /**
+   * A producer of items that are received by a subscriber.
+   * <p>
+   * Items are only produced in response to demand signalled by {@link Subscription#request(long)}.
+   *
+   * @param <T>  the type of the items
+   */
+  @FunctionalInterface
+  public interface Publisher<T> {
+
+    /**
+     * Adds the subscriber.
+     * <p>
+     * The subscriber receives {@link Subscriber#onSubscribe(Subscription)} before any other signal.
+     * A publisher that only supports a single subscriber signals {@link Subscriber#onError(Throwable)}
+     * with an {@link IllegalStateException} to any later subscriber.
+     *
+     * @param subscriber  the subscriber
+     */
+    public abstract void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items from a publisher.
+   * <p>
+   * The methods are invoked in order, never concurrently, but not necessarily on the same thread.
+   * As the methods may be invoked on threads used for network calls, they should not block.
+   *
+   * @param <T>  the type of the items
+   */
+  public interface Subscriber<T> {
+
+    /**
+     * Called before any other method, providing the subscription used to request items.
+     *
+     * @param subscription  the subscription
+     */
+    public abstract void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with the next item, only in response to a request.
+     *
+     * @param item  the item
+     */
+    public abstract void onNext(T item);
+
+    /**
+     * Called when the publisher fails, after which no other method is called.
+     *
+     * @param throwable  the failure
+     */
+    public abstract void onError(Throwable throwable);
+
+    /**
+     * Called when all items have been received, after which no other method is called.
+     */
+    public abstract void onComplete();
+  }
+
+  /**
+   * The link between a publisher and a subscriber, used to signal demand.
+   */
+  public interface Subscription {
+
+    /**
+     * Requests more items.
+     * <p>
+     * The demand is added to any outstanding demand.
+     * If the number is not positive, the subscriber receives {@link Subscriber#onError(Throwable)}
+     * with an {@link IllegalArgumentException}.
+     *
+     * @param n  the number of additional items, {@code Long.MAX_VALUE} for unbounded demand
+     */
+    public abstract void request(long n);
+
+    /**
+     * Cancels the subscription, after which the subscriber receives no more items.
+     */
+    public abstract void cancel();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adapts a publisher to another publisher interface with the same methods,
+   * such as {@code java.util.concurrent.Flow.Publisher} or {@code org.reactivestreams.Publisher}.
+   * <p>
+   * The SDK is compiled for Java 8, without a dependency on Reactive Streams, so the adapter uses reflection.
+   * The publisher interface must declare {@code subscribe}, taking a subscriber interface that declares
+   * {@code onSubscribe}, {@code onNext}, {@code onError} and {@code onComplete}, where {@code onSubscribe}
+   * takes a subscription interface that declares {@code request} and {@code cancel}.
+   * Signals are passed through unchanged, thus the adapted publisher has the same contract.
+   *
+   * @param <P>  the type of the publisher interface
+   * @param publisher  the publisher to adapt
+   * @param publisherType  the publisher interface
+   * @return the adapted publisher
+   * @throws IllegalArgumentException if the type is not a compatible publisher interface
+   */
+  public static <P> P adapt(Publisher<?> publisher, Class<P> publisherType) {
+    Objects.requireNonNull(publisher, "publisher must not be null");
+    Objects.requireNonNull(publisherType, "publisherType must not be null");
+    Method subscribe = method(publisherType, "subscribe", 1);
+    Class<?> subscriberType = subscribe.getParameterTypes()[0];
+    Method onSubscribe = method(subscriberType, "onSubscribe", 1);
+    Method onNext = method(subscriberType, "onNext", 1);
+    Method onError = method(subscriberType, "onError", 1);
+    Method onComplete = method(subscriberType, "onComplete", 0);
+    Class<?> subscriptionType = onSubscribe.getParameterTypes()[0];
+    method(subscriptionType, "request", 1);
+    method(subscriptionType, "cancel", 0);
+
+    Object adapted = proxy(publisherType, "Adapted" + publisher, (name, args) -> {
+      Object target = Objects.requireNonNull(args[0], "subscriber must not be null");
+      publisher.subscribe(new Subscriber<Object>() {
+        @Override
+        public void onSubscribe(Subscription subscription) {
+          invoke(onSubscribe, target, proxy(subscriptionType, "Adapted" + subscription, (method, requestArgs) -> {
+            if (method.equals("request")) {
+              subscription.request((Long) requestArgs[0]);
+            } else {
+              subscription.cancel();
+            }
+          }));
+        }
+
+        @Override
+        public void onNext(Object item) {
+          invoke(onNext, target, item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          invoke(onError, target, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          invoke(onComplete, target);
+        }
+      });
+    });
+    return publisherType.cast(adapted);
+  }
+
+  // finds the abstract method of the interface, throwing an exception if not found
+  private static Method method(Class<?> type, String name, int parameterCount) {
+    if (type.isInterface()) {
+      for (Method method : type.getMethods()) {
+        if (method.getName().equals(name) && method.getParameterCount() == parameterCount && !method.isDefault()) {
+          return method;
+        }
+      }
+    }
+    throw new IllegalArgumentException("Type is not a compatible publisher interface: " + type.getName() +
+        ", method not found: " + name);
+  }
+
+  // creates a proxy implementing the interface, passing the name and arguments of each call to the handler
+  private static Object proxy(Class<?> type, String description, BiConsumer<String, Object[]> handler) {
+    return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) {
+        switch (method.getName()) {
+          case "equals":
+            return proxy == args[0];
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          default:
+            return description;
+        }
+      }
+      handler.accept(method.getName(), args);
+      return null;
+    });
+  }
+
+  // invokes the method of the target, rethrowing any exception it throws
+  private static void invoke(Method method, Object target, Object... args) {
+    try {
+      method.invoke(target, args);
+    } catch (InvocationTargetException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } catch (IllegalAccessException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // restricted constructor
+  private CalculationFlow() {
+  }
+
+}
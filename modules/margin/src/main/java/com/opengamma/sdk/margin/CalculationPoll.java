@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The outcome of a single poll of a calculation.
+ * <p>
+ * This captures the result, if the calculation has completed, together with any hint
+ * from the server as to when the next poll should occur.
+ *
+ * @param <T> the type of the result
+ */
+final class CalculationPoll<T> {
+
+  /** The result, null if the server asked the client to back off or the calculation is pending. */
+  private final T result;
+  /** The delay requested by the server, null if none. */
+  private final Duration retryAfter;
+
+  //-------------------------------------------------------------------------
+  // obtains an instance for the result of a completed calculation
+  static <T> CalculationPoll<T> of(T result, Duration retryAfter) {
+    return new CalculationPoll<>(Objects.requireNonNull(result, "result must not be null"), retryAfter);
+  }
+
+  // obtains an instance where the calculation is still pending
+  static <T> CalculationPoll<T> pending(Duration retryAfter) {
+    return new CalculationPoll<>(null, retryAfter);
+  }
+
+  // obtains an instance where the server was too busy to return a result
+  static <T> CalculationPoll<T> busy(Duration retryAfter) {
+    return new CalculationPoll<>(null, retryAfter);
+  }
+
+  private CalculationPoll(T result, Duration retryAfter) {
+    this.result = result;
+    this.retryAfter = retryAfter;
+  }
+
+  //-------------------------------------------------------------------------
+  // checks if the calculation has completed
+  boolean isCompleted() {
+    return result != null;
+  }
+
+  // gets the result, null if the server was busy or the calculation is pending
+  T getResult() {
+    return result;
+  }
+
+  // gets the delay requested by the server, null if none
+  Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+}
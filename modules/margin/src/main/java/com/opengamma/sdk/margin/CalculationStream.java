@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Streams the results of calculations to a subscriber, starting calculations only in response to demand.
+ * <p>
+ * A calculation is only started when the subscriber has requested a result that is not already
+ * covered by a calculation started but not yet delivered, and the number of incomplete calculations
+ * is below the maximum. As such, a slow subscriber throttles the creation of calculations, and the number
+ * of results held in memory waiting to be delivered never exceeds the outstanding demand.
+ * <p>
+ * Results are delivered in the order of the inputs, thus a slow calculation holds back the delivery
+ * of later results that have already completed. Those completed results do not count against the maximum
+ * in flight, so further calculations are started while the slow one completes, up to the outstanding demand.
+ * <p>
+ * The first calculation to fail terminates the stream straight away via
+ * {@link CalculationFlow.Subscriber#onError(Throwable)}, even if earlier results have not been delivered
+ * or there is no outstanding demand, after which no more calculations are started or results delivered.
+ * When the subscription is cancelled, or a failure is delivered, the futures of the calculations
+ * in progress are cancelled, which allows the calculation function to stop them.
+ * <p>
+ * All signals to the subscriber are sent from a drain loop that only one thread runs at a time.
+ * This class is thread-safe.
+ */
+final class CalculationStream<T, R> implements CalculationFlow.Subscription {
+
+  /**
+   * The function that starts a single calculation.
+   */
+  private final Function<T, CompletableFuture<R>> calculateFn;
+  /**
+   * The inputs, only accessed by the drain loop.
+   */
+  private final Iterator<T> inputs;
+  /**
+   * The maximum number of calculations in flight.
+   */
+  private final int maxInFlight;
+  /**
+   * The subscriber.
+   */
+  private final CalculationFlow.Subscriber<? super R> subscriber;
+  /**
+   * The calculations started but not yet delivered, in order, only accessed by the drain loop.
+   */
+  private final ArrayDeque<CompletableFuture<R>> pending = new ArrayDeque<>();
+  /**
+   * The failure of the first calculation to fail, null if none.
+   */
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  /**
+   * The number of calculations started but not yet complete.
+   */
+  private final AtomicInteger running = new AtomicInteger();
+  /**
+   * The number of results requested but not yet delivered.
+   */
+  private final AtomicLong requested = new AtomicLong();
+  /**
+   * The number of times the drain loop has been triggered and not yet run.
+   */
+  private final AtomicInteger wip = new AtomicInteger();
+  /**
+   * The invalid request, null if none.
+   */
+  private volatile IllegalArgumentException invalidRequest;
+  /**
+   * Whether the stream has been cancelled or has terminated.
+   */
+  private volatile boolean done;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Creates a publisher that streams the results of calculations to a single subscriber.
+   *
+   * @param <T>  the type of the input
+   * @param <R>  the type of the result
+   * @param inputs  the inputs, which are only read when a calculation is to be started
+   * @param maxInFlight  the maximum number of calculations in flight at any one time
+   * @param calculateFn  the function that starts a single calculation
+   * @return the publisher
+   */
+  static <T, R> CalculationFlow.Publisher<R> publisher(
+      Iterator<T> inputs,
+      int maxInFlight,
+      Function<T, CompletableFuture<R>> calculateFn) {
+
+    Objects.requireNonNull(inputs, "inputs must not be null");
+    Objects.requireNonNull(calculateFn, "calculateFn must not be null");
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least one");
+    }
+    AtomicBoolean subscribed = new AtomicBoolean();
+    return subscriber -> {
+      Objects.requireNonNull(subscriber, "subscriber must not be null");
+      if (!subscribed.compareAndSet(false, true)) {
+        subscriber.onSubscribe(new CalculationFlow.Subscription() {
+          @Override
+          public void request(long n) {
+          }
+
+          @Override
+          public void cancel() {
+          }
+        });
+        subscriber.onError(new IllegalStateException("Publisher only supports a single subscriber"));
+        return;
+      }
+      CalculationStream<T, R> stream = new CalculationStream<>(inputs, maxInFlight, calculateFn, subscriber);
+      subscriber.onSubscribe(stream);
+      stream.drain();
+    };
+  }
+
+  // creates an instance
+  private CalculationStream(
+      Iterator<T> inputs,
+      int maxInFlight,
+      Function<T, CompletableFuture<R>> calculateFn,
+      CalculationFlow.Subscriber<? super R> subscriber) {
+
+    this.inputs = inputs;
+    this.maxInFlight = maxInFlight;
+    this.calculateFn = calculateFn;
+    this.subscriber = subscriber;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest = new IllegalArgumentException("Number of items requested must be positive, but was " + n);
+    } else {
+      requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+    }
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    done = true;
+    drain();
+  }
+
+  //-------------------------------------------------------------------------
+  // runs the drain loop, unless another thread is already running it, in which case that thread runs it again
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      drainOnce();
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  // delivers completed results and starts calculations to meet demand
+  private void drainOnce() {
+    while (true) {
+      if (done) {
+        cancelPending();
+        return;
+      }
+      if (invalidRequest != null) {
+        terminate(invalidRequest);
+        return;
+      }
+      // deliver a failure straight away, whatever its position and the demand
+      Throwable failed = failure.get();
+      if (failed != null) {
+        terminate(failed);
+        return;
+      }
+      // deliver the next result in order, if complete and requested
+      CompletableFuture<R> head = pending.peek();
+      if (head != null && head.isDone() && requested.get() > 0) {
+        pending.poll();
+        R result;
+        try {
+          result = head.join();
+        } catch (CompletionException ex) {
+          terminate(ex.getCause() != null ? ex.getCause() : ex);
+          return;
+        } catch (RuntimeException ex) {
+          terminate(ex);
+          return;
+        }
+        requested.decrementAndGet();
+        subscriber.onNext(result);
+        continue;
+      }
+      // start a calculation if there is demand not already covered by those in progress
+      boolean hasNext;
+      try {
+        hasNext = inputs.hasNext();
+      } catch (RuntimeException ex) {
+        terminate(ex);
+        return;
+      }
+      if (!hasNext) {
+        if (pending.isEmpty()) {
+          done = true;
+          subscriber.onComplete();
+        }
+        return;
+      }
+      if (running.get() >= maxInFlight || pending.size() >= requested.get()) {
+        return;
+      }
+      pending.add(start());
+    }
+  }
+
+  // starts the next calculation, recording any failure and triggering the drain loop when it completes
+  private CompletableFuture<R> start() {
+    running.incrementAndGet();
+    CompletableFuture<R> future;
+    try {
+      future = calculateFn.apply(inputs.next());
+    } catch (RuntimeException ex) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(ex);
+    }
+    future.whenComplete((result, ex) -> {
+      if (ex != null) {
+        failure.compareAndSet(null, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+      }
+      running.decrementAndGet();
+      drain();
+    });
+    return future;
+  }
+
+  // terminates the stream with a failure
+  private void terminate(Throwable failure) {
+    done = true;
+    cancelPending();
+    subscriber.onError(failure);
+  }
+
+  // cancels the calculations started but not yet delivered
+  private void cancelPending() {
+    CompletableFuture<R> future;
+    while ((future = pending.poll()) != null) {
+      future.cancel(false);
+    }
+  }
+
+}
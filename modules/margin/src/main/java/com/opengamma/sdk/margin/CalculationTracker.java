@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiFunction;
+
+import com.opengamma.sdk.common.PollingStrategy;
+
+/**
+ * Tracks pending calculations, polling all of them from a single loop.
+ * <p>
+ * Each pending calculation is registered by CCP and identifier, and is polled when its
+ * polling strategy says it is due. Rather than each calculation having its own scheduled task,
+ * a single wake-up is scheduled for whichever calculation is due next, and at most a fixed
+ * number of polls are in progress at any one time. As such, the load on the executor is
+ * bounded by the concurrency limit, not by the number of pending calculations.
+ * <p>
+ * The poll function is asynchronous, such that no thread is blocked while a poll is in progress.
+ * <p>
+ * This class is thread-safe.
+ */
+final class CalculationTracker {
+
+  /**
+   * The function that polls a calculation, returning a future that completes when the poll does.
+   */
+  private final BiFunction<Ccp, String, CompletableFuture<CalculationPoll<MarginCalcResult>>> pollFn;
+  /**
+   * The executor used to poll.
+   */
+  private final ScheduledExecutorService executor;
+  /**
+   * The maximum number of polls in progress at any one time.
+   */
+  private final int maxConcurrentPolls;
+  /**
+   * The pending calculations, keyed by CCP and identifier.
+   */
+  private final ConcurrentMap<CalcKey, TrackedCalculation> registry = new ConcurrentHashMap<>();
+  /**
+   * The calculations waiting for their next poll, ordered by when they are due, guarded by this.
+   */
+  private final PriorityQueue<TrackedCalculation> queue =
+      new PriorityQueue<>(Comparator.comparingLong(calc -> calc.dueNanos));
+  /**
+   * The number of polls in progress, guarded by this.
+   */
+  private int activePolls;
+  /**
+   * The scheduled wake-up, null if none, guarded by this.
+   */
+  private ScheduledFuture<?> wakeup;
+  /**
+   * The time of the scheduled wake-up, guarded by this.
+   */
+  private long wakeupNanos;
+
+  //-------------------------------------------------------------------------
+  // creates an instance where each poll counts towards the limit until its future completes
+  static CalculationTracker ofAsync(
+      BiFunction<Ccp, String, CompletableFuture<CalculationPoll<MarginCalcResult>>> pollFn,
+      ScheduledExecutorService executor,
+      int maxConcurrentPolls) {
+
+    return new CalculationTracker(pollFn, executor, maxConcurrentPolls);
+  }
+
+  private CalculationTracker(
+      BiFunction<Ccp, String, CompletableFuture<CalculationPoll<MarginCalcResult>>> pollFn,
+      ScheduledExecutorService executor,
+      int maxConcurrentPolls) {
+
+    this.pollFn = Objects.requireNonNull(pollFn, "pollFn must not be null");
+    this.executor = Objects.requireNonNull(executor, "executor must not be null");
+    if (maxConcurrentPolls < 1) {
+      throw new IllegalArgumentException("maxConcurrentPolls must be at least one");
+    }
+    this.maxConcurrentPolls = maxConcurrentPolls;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Starts tracking a calculation, returning a future that completes when the calculation does.
+   * <p>
+   * If the calculation is already being tracked, the existing future is returned.
+   * The future completes exceptionally if polling fails.
+   *
+   * @param ccp  the CCP
+   * @param calcId  the calculation identifier
+   * @param retryAfter  the delay requested by the server when the calculation was created, null if none
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the future result
+   */
+  CompletableFuture<MarginCalcResult> track(
+      Ccp ccp,
+      String calcId,
+      Duration retryAfter,
+      PollingStrategy pollingStrategy) {
+
+    Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    TrackedCalculation calc = new TrackedCalculation(new CalcKey(ccp, calcId), pollingStrategy);
+    TrackedCalculation existing = registry.putIfAbsent(calc.key, calc);
+    if (existing != null) {
+      return existing.future;
+    }
+    synchronized (this) {
+      calc.scheduleNext(System.nanoTime(), retryAfter);
+      queue.add(calc);
+    }
+    drain();
+    return calc.future;
+  }
+
+  //-------------------------------------------------------------------------
+  // starts polls for all calculations that are due, up to the concurrency limit
+  private void drain() {
+    List<TrackedCalculation> due = new ArrayList<>();
+    List<TrackedCalculation> abandoned = new ArrayList<>();
+    RejectedExecutionException rejection = null;
+    synchronized (this) {
+      long now = System.nanoTime();
+      while (activePolls < maxConcurrentPolls && !queue.isEmpty() && queue.peek().dueNanos - now <= 0) {
+        TrackedCalculation calc = queue.poll();
+        if (calc.future.isDone()) {
+          abandoned.add(calc);
+        } else {
+          activePolls++;
+          due.add(calc);
+        }
+      }
+      try {
+        scheduleWakeup(now);
+      } catch (RejectedExecutionException ex) {
+        // executor has been shutdown, nothing more can be polled
+        abandoned.addAll(queue);
+        queue.clear();
+        rejection = ex;
+      }
+    }
+    for (TrackedCalculation calc : abandoned) {
+      unregister(calc);
+      if (rejection != null) {
+        calc.future.completeExceptionally(rejection);
+      }
+    }
+    for (TrackedCalculation calc : due) {
+      try {
+        executor.execute(() -> poll(calc));
+      } catch (RejectedExecutionException ex) {
+        synchronized (this) {
+          activePolls--;
+        }
+        unregister(calc);
+        calc.future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  // schedules a single wake-up for when the next calculation is due, must be called holding the lock
+  private void scheduleWakeup(long now) {
+    if (queue.isEmpty() || activePolls >= maxConcurrentPolls) {
+      // nothing to wait for, or a poll that is in progress will drain again when it finishes
+      return;
+    }
+    long dueNanos = queue.peek().dueNanos;
+    if (wakeup != null) {
+      if (wakeupNanos - dueNanos <= 0) {
+        // existing wake-up is soon enough
+        return;
+      }
+      // do not interrupt, as that breaks an in-progress drain
+      wakeup.cancel(false);
+    }
+    wakeupNanos = dueNanos;
+    wakeup = executor.schedule(this::onWakeup, Math.max(dueNanos - now, 0), NANOSECONDS);
+  }
+
+  // called when the scheduled wake-up fires
+  private void onWakeup() {
+    synchronized (this) {
+      wakeup = null;
+    }
+    drain();
+  }
+
+  // polls a single calculation, handling the result when the poll completes
+  private void poll(TrackedCalculation calc) {
+    CompletableFuture<CalculationPoll<MarginCalcResult>> pending;
+    try {
+      pending = pollFn.apply(calc.key.ccp, calc.key.calcId);
+    } catch (RuntimeException ex) {
+      pending = new CompletableFuture<>();
+      pending.completeExceptionally(ex);
+    }
+    pending.whenComplete((poll, ex) -> polled(calc, poll, ex));
+  }
+
+  // handles the result of a poll, then drains again to keep the pipeline full
+  private void polled(TrackedCalculation calc, CalculationPoll<MarginCalcResult> poll, Throwable pollFailure) {
+    Throwable failure = unwrap(pollFailure);
+    boolean finished = failure != null || poll.isCompleted() || calc.future.isDone();
+    synchronized (this) {
+      activePolls--;
+      if (!finished) {
+        calc.scheduleNext(System.nanoTime(), poll.getRetryAfter());
+        queue.add(calc);
+      }
+    }
+    if (finished) {
+      unregister(calc);
+      if (failure != null) {
+        calc.future.completeExceptionally(failure);
+      } else {
+        calc.future.complete(poll.getResult());
+      }
+    }
+    drain();
+  }
+
+  // unwraps the exception of a dependent future
+  private static Throwable unwrap(Throwable ex) {
+    return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+  }
+
+  // removes the calculation from the registry
+  private void unregister(TrackedCalculation calc) {
+    registry.remove(calc.key, calc);
+  }
+
+  //-------------------------------------------------------------------------
+  // the key of a pending calculation
+  private static final class CalcKey {
+    /** The CCP. */
+    private final Ccp ccp;
+    /** The calculation identifier. */
+    private final String calcId;
+
+    private CalcKey(Ccp ccp, String calcId) {
+      this.ccp = Objects.requireNonNull(ccp, "ccp must not be null");
+      this.calcId = Objects.requireNonNull(calcId, "calcId must not be null");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof CalcKey) {
+        CalcKey other = (CalcKey) obj;
+        return ccp.equals(other.ccp) && calcId.equals(other.calcId);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return ccp.hashCode() * 31 + calcId.hashCode();
+    }
+  }
+
+  // the state of a single pending calculation
+  private static final class TrackedCalculation {
+    /** The CCP and calculation identifier. */
+    private final CalcKey key;
+    /** The polling strategy. */
+    private final PollingStrategy pollingStrategy;
+    /** The result. */
+    private final CompletableFuture<MarginCalcResult> future = new CompletableFuture<>();
+    /** The number of polls made, guarded by the tracker. */
+    private int attempt;
+    /** When the next poll is due, guarded by the tracker. */
+    private long dueNanos;
+
+    private TrackedCalculation(CalcKey key, PollingStrategy pollingStrategy) {
+      this.key = key;
+      this.pollingStrategy = pollingStrategy;
+    }
+
+    // sets the time of the next poll
+    private void scheduleNext(long now, Duration serverHint) {
+      dueNanos = now + pollingStrategy.nextDelay(attempt, serverHint).toNanos();
+      attempt++;
+    }
+  }
+
+}
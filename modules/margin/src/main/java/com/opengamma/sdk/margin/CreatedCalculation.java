@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A calculation that has been created on the server.
+ * <p>
+ * This captures the identifier, together with any hint from the server as to when the first poll should occur.
+ */
+final class CreatedCalculation {
+
+  /** The calculation identifier. */
+  private final String calcId;
+  /** The delay requested by the server, null if none. */
+  private final Duration retryAfter;
+
+  //-------------------------------------------------------------------------
+  // obtains an instance
+  static CreatedCalculation of(String calcId, Duration retryAfter) {
+    return new CreatedCalculation(calcId, retryAfter);
+  }
+
+  private CreatedCalculation(String calcId, Duration retryAfter) {
+    this.calcId = Objects.requireNonNull(calcId, "calcId must not be null");
+    this.retryAfter = retryAfter;
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the calculation identifier
+  String getCalcId() {
+    return calcId;
+  }
+
+  // gets the delay requested by the server, null if none
+  Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+}
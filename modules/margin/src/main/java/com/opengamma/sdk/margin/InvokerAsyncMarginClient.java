@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import com.opengamma.sdk.common.PollingStrategy;
+
+/**
+ * Implementation of the non-blocking margin client.
+ * <p>
+ * This shares the requests and response handling of {@link InvokerMarginClient}.
+ */
+final class InvokerAsyncMarginClient implements AsyncMarginClient {
+
+  /**
+   * The underlying client.
+   */
+  private final InvokerMarginClient client;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance, wrapping the blocking client.
+   *
+   * @param client  the blocking client
+   * @return the client
+   */
+  static InvokerAsyncMarginClient of(InvokerMarginClient client) {
+    return new InvokerAsyncMarginClient(client);
+  }
+
+  private InvokerAsyncMarginClient(InvokerMarginClient client) {
+    this.client = client;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public CompletableFuture<CcpsResult> listCcps() {
+    return client.listCcpsAsync();
+  }
+
+  @Override
+  public CompletableFuture<CcpInfo> getCcpInfo(Ccp ccp) {
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    return client.getCcpInfoAsync(ccp);
+  }
+
+  @Override
+  public CompletableFuture<String> createCalculation(Ccp ccp, MarginCalcRequest request) {
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(request, "request must not be null");
+    return client.createCalculationAsync(ccp, request);
+  }
+
+  @Override
+  public CompletableFuture<MarginCalcResult> getCalculation(Ccp ccp, String calcId) {
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(calcId, "calcId must not be null");
+    return client.getCalculationAsync(ccp, calcId);
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteCalculation(Ccp ccp, String calcId) {
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(calcId, "calcId must not be null");
+    return client.deleteCalculationAsync(ccp, calcId);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public CompletableFuture<MarginCalcResult> calculate(Ccp ccp, MarginCalcRequest request) {
+    return client.calculateAsync(ccp, request);
+  }
+
+  @Override
+  public CompletableFuture<MarginCalcResult> calculate(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    return client.calculateAsync(ccp, request, pollingStrategy);
+  }
+
+}
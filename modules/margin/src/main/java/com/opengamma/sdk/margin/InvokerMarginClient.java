@@ -11,27 +11,42 @@ import static com.opengamma.sdk.margin.MarginOperation.DELETE_CALCULATION;
 import static com.opengamma.sdk.margin.MarginOperation.GET_CALCULATION;
 import static com.opengamma.sdk.margin.MarginOperation.GET_CCP_INFO;
 import static com.opengamma.sdk.margin.MarginOperation.LIST_CCPS;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.Period;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.function.BiConsumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.joda.beans.ser.JodaBeanSer;
 import org.joda.beans.ser.SerDeserializers;
 
+import com.opengamma.sdk.common.PollingStrategy;
 import com.opengamma.sdk.common.ServiceInvoker;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -49,18 +64,47 @@ final class InvokerMarginClient implements MarginClient {
     SERIALIZER.getConverter().register(Period.class, new TenorStringConverter());
   }
   /**
-   * Sleep for 500ms between polls.
+   * The number of bytes at the start of a result that are examined to find the status.
    */
-  private static final long POLL_WAIT = 500;
+  private static final long STATUS_PEEK_SIZE = 4096;
+  /**
+   * HTTP header.
+   */
+  private static final String RETRY_AFTER = "Retry-After";
   /**
    * HTTP header.
    */
   private static final String LOCATION = "Location";
+  /**
+   * The number of times a request is retried when the server is too busy to handle it.
+   */
+  private static final int MAX_BUSY_RETRIES = 4;
+  /**
+   * The delay before the first retry when the server is busy and has not said when to try again.
+   */
+  private static final Duration BUSY_BACKOFF = Duration.ofMillis(250);
+  /**
+   * The maximum delay before retrying when the server is busy.
+   */
+  private static final Duration MAX_BUSY_DELAY = Duration.ofMinutes(1);
+  /**
+   * The names of the properties of a result that are decoded on first access by a lazy result.
+   */
+  private static final Set<String> LAZY_PROPERTIES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("marginDetail", "tradeValuations")));
 
   /**
    * The service invoker.
    */
   private final ServiceInvoker invoker;
+  /**
+   * The tracker, used to poll all pending async calculations from a single loop.
+   */
+  private final CalculationTracker tracker;
+  /**
+   * The limiter of concurrent requests, null if not limited.
+   */
+  private final MarginLimiter limiter;
 
   //-------------------------------------------------------------------------
   /**
@@ -70,113 +114,511 @@ final class InvokerMarginClient implements MarginClient {
    * @return the client
    */
   static InvokerMarginClient of(ServiceInvoker invoker) {
-    return new InvokerMarginClient(invoker);
+    return new InvokerMarginClient(invoker, null);
   }
 
-  private InvokerMarginClient(ServiceInvoker invoker) {
+  /**
+   * Obtains an instance, specifying the limiter of concurrent requests.
+   *
+   * @param invoker  the service invoker
+   * @param limiter  the limiter of concurrent requests
+   * @return the client
+   */
+  static InvokerMarginClient of(ServiceInvoker invoker, MarginLimiter limiter) {
+    return new InvokerMarginClient(invoker, Objects.requireNonNull(limiter, "limiter must not be null"));
+  }
+
+  private InvokerMarginClient(ServiceInvoker invoker, MarginLimiter limiter) {
     this.invoker = Objects.requireNonNull(invoker, "invoker must not be null");
+    this.limiter = limiter;
+    // poll no more calculations at once than the HTTP client will send to the server at once
+    this.tracker = CalculationTracker.ofAsync(
+        this::pollCalculationAsync,
+        invoker.getExecutor(),
+        invoker.getHttpClient().dispatcher().getMaxRequestsPerHost());
   }
 
   //-------------------------------------------------------------------------
   @Override
   public CcpsResult listCcps() {
-    Request request = new Request.Builder()
+    return execute(null, LIST_CCPS, listCcpsRequest(), this::readCcps);
+  }
+
+  // lists the CCPs without blocking
+  CompletableFuture<CcpsResult> listCcpsAsync() {
+    return enqueue(null, LIST_CCPS, listCcpsRequest(), this::readCcps);
+  }
+
+  // creates the request to list the CCPs
+  private Request listCcpsRequest() {
+    return new Request.Builder()
         .url(invoker.getServiceUrl().resolve("margin/v3/ccps"))
         .get()
         .header("Accept", MEDIA_JSON.toString())
         .build();
+  }
 
-    try (Response response = invoker.getHttpClient().newCall(request).execute()) {
-      if (!response.isSuccessful()) {
-        throw parseError(LIST_CCPS, response);
-      }
-      return SERIALIZER.jsonReader().read(response.body().string(), CcpsResult.class);
-
-    } catch (IOException ex) {
-      throw new UncheckedIOException(ex);
+  // reads the response to list the CCPs
+  private CcpsResult readCcps(Response response) throws IOException {
+    if (!response.isSuccessful()) {
+      throw parseError(LIST_CCPS, response);
     }
+    return JsonResponseReader.read(SERIALIZER, response.body(), CcpsResult.class);
   }
 
   @Override
   public CcpInfo getCcpInfo(Ccp ccp) {
-    Request request = new Request.Builder()
+    return execute(ccp, GET_CCP_INFO, getCcpInfoRequest(ccp), this::readCcpInfo);
+  }
+
+  // gets the CCP information without blocking
+  CompletableFuture<CcpInfo> getCcpInfoAsync(Ccp ccp) {
+    return enqueue(ccp, GET_CCP_INFO, getCcpInfoRequest(ccp), this::readCcpInfo);
+  }
+
+  // creates the request to get the CCP information
+  private Request getCcpInfoRequest(Ccp ccp) {
+    return new Request.Builder()
         .url(invoker.getServiceUrl().resolve("margin/v3/ccps/" + ccp.name().toLowerCase(Locale.ENGLISH)))
         .get()
         .header("Accept", MEDIA_JSON.toString())
         .build();
+  }
 
-    try (Response response = invoker.getHttpClient().newCall(request).execute()) {
-      if (!response.isSuccessful()) {
-        throw parseError(GET_CCP_INFO, response);
-      }
-      return SERIALIZER.jsonReader().read(response.body().string(), CcpInfo.class);
-    } catch (IOException ex) {
-      throw new UncheckedIOException(ex);
+  // reads the response to get the CCP information
+  private CcpInfo readCcpInfo(Response response) throws IOException {
+    if (!response.isSuccessful()) {
+      throw parseError(GET_CCP_INFO, response);
     }
+    return JsonResponseReader.read(SERIALIZER, response.body(), CcpInfo.class);
   }
 
   @Override
   public String createCalculation(Ccp ccp, MarginCalcRequest calcRequest) {
-    String text = SERIALIZER.jsonWriter().write(calcRequest, false);
-    RequestBody body = RequestBody.create(MEDIA_JSON, text);
-    Request request = new Request.Builder()
+    return submitCalculation(ccp, calcRequest).getCalcId();
+  }
+
+  // creates the calculation without blocking
+  CompletableFuture<String> createCalculationAsync(Ccp ccp, MarginCalcRequest calcRequest) {
+    return enqueue(
+        ccp,
+        CREATE_CALCULATION,
+        createCalculationRequest(ccp, calcRequest),
+        response -> readCreatedCalculation(response).getCalcId());
+  }
+
+  // creates the calculation, capturing any hint from the server as to when to poll first
+  CreatedCalculation submitCalculation(Ccp ccp, MarginCalcRequest calcRequest) {
+    return execute(ccp, CREATE_CALCULATION, createCalculationRequest(ccp, calcRequest), this::readCreatedCalculation);
+  }
+
+  // creates the calculation without blocking, capturing any hint from the server as to when to poll first
+  CompletableFuture<CreatedCalculation> submitCalculationAsync(Ccp ccp, MarginCalcRequest calcRequest) {
+    return enqueue(ccp, CREATE_CALCULATION, createCalculationRequest(ccp, calcRequest), this::readCreatedCalculation);
+  }
+
+  // creates the request to create a calculation
+  private Request createCalculationRequest(Ccp ccp, MarginCalcRequest calcRequest) {
+    RequestBody body = new MarginCalcRequestBody(SERIALIZER, calcRequest);
+    return new Request.Builder()
         .url(invoker.getServiceUrl().resolve("margin/v3/ccps/" + ccp.name().toLowerCase(Locale.ENGLISH) + "/calculations"))
         .post(body)
         .header("Content-Type", MEDIA_JSON.toString())
         .header("Accept", MEDIA_JSON.toString())
         .build();
+  }
 
-    try (Response response = invoker.getHttpClient().newCall(request).execute()) {
-      if (response.code() != 202) {
-        throw parseError(CREATE_CALCULATION, response);
-      }
-      String location = response.header(LOCATION);
-      return location.substring(location.lastIndexOf('/') + 1);
-
-    } catch (IOException ex) {
-      throw new UncheckedIOException(ex);
+  // reads the response to create a calculation, returning the identifier and any hint as to when to poll first
+  private CreatedCalculation readCreatedCalculation(Response response) throws IOException {
+    if (response.code() != 202) {
+      throw parseError(CREATE_CALCULATION, response);
     }
+    String location = response.header(LOCATION);
+    return CreatedCalculation.of(
+        location.substring(location.lastIndexOf('/') + 1),
+        parseRetryAfter(response.header(RETRY_AFTER)));
   }
 
   @Override
   public MarginCalcResult getCalculation(Ccp ccp, String calcId) {
-    Request request = new Request.Builder()
+    return execute(ccp, GET_CALCULATION, getCalculationRequest(ccp, calcId), response -> readCalculation(ccp, response));
+  }
+
+  // gets the calculation without blocking
+  CompletableFuture<MarginCalcResult> getCalculationAsync(Ccp ccp, String calcId) {
+    return enqueue(ccp, GET_CALCULATION, getCalculationRequest(ccp, calcId), response -> readCalculation(ccp, response));
+  }
+
+  // reads the response to get a calculation
+  private MarginCalcResult readCalculation(Ccp ccp, Response response) throws IOException {
+    if (!response.isSuccessful()) {
+      throw parseError(GET_CALCULATION, response);
+    }
+    return parseCalculation(ccp, response);
+  }
+
+  // gets the calculation, capturing any hint from the server as to when to poll next
+  CalculationPoll<MarginCalcResult> pollCalculation(Ccp ccp, String calcId) {
+    return execute(
+        ccp,
+        GET_CALCULATION,
+        getCalculationRequest(ccp, calcId),
+        response -> readPoll(response, r -> parseCalculation(ccp, r), MarginCalcResult::getStatus));
+  }
+
+  // gets the calculation without blocking, capturing any hint from the server as to when to poll next
+  CompletableFuture<CalculationPoll<MarginCalcResult>> pollCalculationAsync(Ccp ccp, String calcId) {
+    return enqueue(
+        ccp,
+        GET_CALCULATION,
+        getCalculationRequest(ccp, calcId),
+        response -> readPoll(response, r -> parseCalculation(ccp, r), MarginCalcResult::getStatus));
+  }
+
+  // gets the calculation, reading a completed result lazily
+  private CalculationPoll<LazyMarginCalcResult> pollLazyCalculation(Ccp ccp, String calcId) {
+    return execute(
+        ccp,
+        GET_CALCULATION,
+        getCalculationRequest(ccp, calcId),
+        response -> readPoll(response, r -> parseLazyCalculation(ccp, r), lazy -> lazy.getSummary().getStatus()));
+  }
+
+  // reads the response to poll a calculation, using the parser to read the result once completed
+  private <T> CalculationPoll<T> readPoll(
+      Response response,
+      ResponseHandler<T> parser,
+      Function<T, MarginCalcResultStatus> statusFn) throws IOException {
+
+    Duration retryAfter = parseRetryAfter(response.header(RETRY_AFTER));
+    if (retryAfter != null && (response.code() == 429 || response.code() == 503)) {
+      // server is busy and has said when to try again
+      return CalculationPoll.busy(retryAfter);
+    }
+    if (!response.isSuccessful()) {
+      throw parseError(GET_CALCULATION, response);
+    }
+    // only the status is needed until the calculation completes, so avoid reading the full result
+    String status = JsonResponseReader.peekString(response.body(), "status", STATUS_PEEK_SIZE);
+    if (status != null && !status.equals(MarginCalcResultStatus.COMPLETED.name())) {
+      return CalculationPoll.pending(retryAfter);
+    }
+    T result = parser.handle(response);
+    if (statusFn.apply(result) != MarginCalcResultStatus.COMPLETED) {
+      return CalculationPoll.pending(retryAfter);
+    }
+    return CalculationPoll.of(result, retryAfter);
+  }
+
+  // creates the request to get a calculation
+  private Request getCalculationRequest(Ccp ccp, String calcId) {
+    return new Request.Builder()
         .url(invoker.getServiceUrl()
             .resolve("margin/v3/ccps/" + ccp.name().toLowerCase(Locale.ENGLISH) + "/calculations/" + calcId))
         .get()
         .header("Accept", MEDIA_JSON.toString())
         .build();
+  }
 
-    try (Response response = invoker.getHttpClient().newCall(request).execute()) {
-      if (!response.isSuccessful()) {
-        throw parseError(GET_CALCULATION, response);
-      }
-      SerDeserializers deser = MarginDetailDeserializer.of(ccp)
-          .map(ds -> new SerDeserializers(true, ds))
-          .orElse(SerDeserializers.LENIENT);
-      return SERIALIZER.withDeserializers(deser).jsonReader().read(response.body().string(), MarginCalcResult.class);
+  // obtains the serializer used to write requests and read responses other than results
+  static JodaBeanSer serializer() {
+    return SERIALIZER;
+  }
 
-    } catch (IOException ex) {
-      throw new UncheckedIOException(ex);
-    }
+  // obtains the serializer used to read results, handling the CCP specific margin detail
+  static JodaBeanSer resultSerializer(Ccp ccp) {
+    SerDeserializers deser = MarginDetailDeserializer.of(ccp)
+        .map(ds -> new SerDeserializers(true, ds))
+        .orElse(SerDeserializers.LENIENT);
+    return SERIALIZER.withDeserializers(deser);
+  }
+
+  // parses the calculation result
+  private static MarginCalcResult parseCalculation(Ccp ccp, Response response) throws IOException {
+    return JsonResponseReader.read(resultSerializer(ccp), response.body(), MarginCalcResult.class);
+  }
+
+  // parses the calculation result, holding the heavy sections as JSON that is only decoded if accessed
+  private static LazyMarginCalcResult parseLazyCalculation(Ccp ccp, Response response) throws IOException {
+    JodaBeanSer serializer = resultSerializer(ccp);
+    Map<String, byte[]> separated = new HashMap<>();
+    String json = JsonResponseReader.readSeparating(response.body(), LAZY_PROPERTIES, separated);
+    MarginCalcResult summary = serializer.jsonReader().read(json, MarginCalcResult.class);
+    byte[] marginDetail = separated.get("marginDetail");
+    byte[] tradeValuations = separated.get("tradeValuations");
+    return LazyMarginCalcResult.of(
+        summary,
+        marginDetail != null ? new LazyJsonBean<>(serializer, MarginDetail.class, marginDetail) : null,
+        tradeValuations != null ? new LazyJsonBean<>(serializer, TradeValuations.class, tradeValuations) : null);
   }
 
   @Override
   public void deleteCalculation(Ccp ccp, String calcId) {
-    Request request = new Request.Builder()
+    execute(ccp, DELETE_CALCULATION, deleteCalculationRequest(ccp, calcId), this::readDeletedCalculation);
+  }
+
+  // deletes the calculation without blocking
+  CompletableFuture<Void> deleteCalculationAsync(Ccp ccp, String calcId) {
+    return enqueue(ccp, DELETE_CALCULATION, deleteCalculationRequest(ccp, calcId), this::readDeletedCalculation);
+  }
+
+  // creates the request to delete a calculation
+  private Request deleteCalculationRequest(Ccp ccp, String calcId) {
+    return new Request.Builder()
         .url(invoker.getServiceUrl()
             .resolve("margin/v3/ccps/" + ccp.name().toLowerCase(Locale.ENGLISH) + "/calculations/" + calcId))
         .delete()
         .header("Accept", MEDIA_JSON.toString())
         .build();
+  }
 
-    try (Response response = invoker.getHttpClient().newCall(request).execute()) {
-      if (!response.isSuccessful()) {
-        throw parseError(DELETE_CALCULATION, response);
+  // reads the response to delete a calculation
+  private Void readDeletedCalculation(Response response) throws IOException {
+    if (!response.isSuccessful()) {
+      throw parseError(DELETE_CALCULATION, response);
+    }
+    return null;
+  }
+
+  //-------------------------------------------------------------------------
+  // sends the request and reads the response, blocking until complete
+  // a 429 or 503 response is retried after a delay, a limited number of times, whether or not there is a limiter
+  private <T> T execute(Ccp ccp, MarginOperation operation, Request request, ResponseHandler<T> handler) {
+    for (int attempt = 0; ; attempt++) {
+      try {
+        return executeOnce(ccp, operation, request, retryingHandler(handler, attempt));
+      } catch (ServerBusyException ex) {
+        try {
+          Thread.sleep(ex.delay.toMillis());
+        } catch (InterruptedException ex2) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(ex2);
+        }
       }
+    }
+  }
+
+  // sends the request once and reads the response, blocking until complete
+  // the request first waits for the limiter, if there is one
+  private <T> T executeOnce(Ccp ccp, MarginOperation operation, Request request, ResponseHandler<T> handler) {
+    MarginLimiter.Permit permit = limiter != null ? acquirePermit(ccp, operation) : null;
+    Response response;
+    try {
+      response = invoker.getHttpClient().newCall(request).execute();
     } catch (IOException ex) {
+      release(permit, null);
       throw new UncheckedIOException(ex);
     }
+    try (Response closeable = response) {
+      return handler.handle(closeable);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      // released once the body has been read, so the permit covers the whole of the response
+      release(permit, response);
+    }
+  }
+
+  // waits for the limiter to allow a request
+  private MarginLimiter.Permit acquirePermit(Ccp ccp, MarginOperation operation) {
+    CompletableFuture<MarginLimiter.Permit> future = limiter.acquire(ccp, operation, invoker.getExecutor());
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      // a permit granted later is released immediately
+      future.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+
+  // sends the request and reads the response on an OkHttp thread, without a thread waiting for the response
+  // a 429 or 503 response is retried after a delay, a limited number of times, whether or not there is a limiter
+  private <T> CompletableFuture<T> enqueue(
+      Ccp ccp,
+      MarginOperation operation,
+      Request request,
+      ResponseHandler<T> handler) {
+
+    CompletableFuture<T> future = new CompletableFuture<>();
+    enqueueAttempt(ccp, operation, request, handler, 0, future);
+    return future;
+  }
+
+  // sends an attempt of the request, scheduling the next attempt if the server is busy
+  private <T> void enqueueAttempt(
+      Ccp ccp,
+      MarginOperation operation,
+      Request request,
+      ResponseHandler<T> handler,
+      int attempt,
+      CompletableFuture<T> future) {
+
+    CompletableFuture<T> sent = enqueueOnce(ccp, operation, request, retryingHandler(handler, attempt));
+    sent.whenComplete((result, ex) -> {
+      if (ex instanceof ServerBusyException) {
+        if (future.isDone()) {
+          return;
+        }
+        try {
+          invoker.getExecutor().schedule(
+              () -> enqueueAttempt(ccp, operation, request, handler, attempt + 1, future),
+              ((ServerBusyException) ex).delay.toNanos(),
+              TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex2) {
+          future.completeExceptionally(ex2);
+        }
+      } else if (ex != null) {
+        future.completeExceptionally(ex);
+      } else {
+        future.complete(result);
+      }
+    });
+    // cancelling the future cancels the attempt in progress
+    future.whenComplete((result, ex) -> {
+      if (future.isCancelled()) {
+        sent.cancel(false);
+      }
+    });
+  }
+
+  // sends the request once and reads the response on an OkHttp thread, without a thread waiting for the response
+  // the request first waits for the limiter, if there is one, which also happens without a thread waiting
+  private <T> CompletableFuture<T> enqueueOnce(
+      Ccp ccp,
+      MarginOperation operation,
+      Request request,
+      ResponseHandler<T> handler) {
+
+    if (limiter == null) {
+      return enqueue(request, handler, null);
+    }
+    CompletableFuture<MarginLimiter.Permit> permitFuture = limiter.acquire(ccp, operation, invoker.getExecutor());
+    if (permitFuture.isDone()) {
+      return enqueue(request, handler, permitFuture.join());
+    }
+    CompletableFuture<T> future = new CompletableFuture<>();
+    permitFuture.thenAccept(permit -> {
+      if (future.isDone()) {
+        // cancelled while waiting
+        permit.release();
+        return;
+      }
+      CompletableFuture<T> sent = enqueue(request, handler, permit);
+      sent.whenComplete((result, ex) -> {
+        if (ex != null) {
+          future.completeExceptionally(ex);
+        } else {
+          future.complete(result);
+        }
+      });
+      future.whenComplete((result, ex) -> {
+        if (future.isCancelled()) {
+          sent.cancel(false);
+        }
+      });
+    });
+    // cancelling the future while waiting removes it from the limiter
+    future.whenComplete((result, ex) -> {
+      if (future.isCancelled()) {
+        permitFuture.cancel(false);
+      }
+    });
+    return future;
+  }
+
+  // sends the request, releasing the permit, if any, once the response has been read
+  // the number of requests in progress is limited by the dispatcher of the HTTP client
+  private <T> CompletableFuture<T> enqueue(Request request, ResponseHandler<T> handler, MarginLimiter.Permit permit) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Call call = invoker.getHttpClient().newCall(request);
+    call.enqueue(new Callback() {
+      @Override
+      public void onResponse(Call call, Response response) {
+        T result;
+        try (Response closeable = response) {
+          result = handler.handle(closeable);
+        } catch (IOException ex) {
+          release(permit, response);
+          future.completeExceptionally(new UncheckedIOException(ex));
+          return;
+        } catch (RuntimeException ex) {
+          release(permit, response);
+          future.completeExceptionally(ex);
+          return;
+        }
+        release(permit, response);
+        future.complete(result);
+      }
+
+      @Override
+      public void onFailure(Call call, IOException ex) {
+        release(permit, null);
+        future.completeExceptionally(new UncheckedIOException(ex));
+      }
+    });
+    // cancelling the future cancels the call
+    future.whenComplete((result, ex) -> {
+      if (future.isCancelled()) {
+        call.cancel();
+      }
+    });
+    return future;
+  }
+
+  // releases the permit, if any, adjusting the limit based on the response, which is null if there was none
+  private static void release(MarginLimiter.Permit permit, Response response) {
+    if (permit == null) {
+      return;
+    }
+    if (response != null) {
+      permit.release(response);
+    } else {
+      permit.release();
+    }
+  }
+
+  // reads a response, which is closed by the caller
+  @FunctionalInterface
+  private interface ResponseHandler<T> {
+    public abstract T handle(Response response) throws IOException;
+  }
+
+  // wraps the handler, such that a 429 or 503 response is reported as busy while retries remain
+  private static <T> ResponseHandler<T> retryingHandler(ResponseHandler<T> handler, int attempt) {
+    return response -> {
+      Duration delay = attempt < MAX_BUSY_RETRIES ? busyDelay(response, attempt) : null;
+      if (delay != null) {
+        throw new ServerBusyException(delay);
+      }
+      return handler.handle(response);
+    };
+  }
+
+  // the delay before retrying a request the server was too busy to handle, null if the server was not busy
+  // any Retry-After header is followed, otherwise the delay doubles with each attempt
+  private static Duration busyDelay(Response response, int attempt) {
+    if (response.code() != 429 && response.code() != 503) {
+      return null;
+    }
+    Duration retryAfter = parseRetryAfter(response.header(RETRY_AFTER));
+    Duration delay = retryAfter != null ? retryAfter : BUSY_BACKOFF.multipliedBy(1L << attempt);
+    return delay.compareTo(MAX_BUSY_DELAY) > 0 ? MAX_BUSY_DELAY : delay;
+  }
+
+  // thrown by the handler when the server was too busy to handle the request, and it should be retried
+  private static final class ServerBusyException extends RuntimeException {
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /** The delay before retrying. */
+    private final Duration delay;
+
+    private ServerBusyException(Duration delay) {
+      super("Server busy", null, false, false);
+      this.delay = delay;
+    }
   }
 
   // throw exception in case of error
@@ -190,25 +632,68 @@ final class InvokerMarginClient implements MarginClient {
   // avoid errors when processing errors
   private ErrorMessage parseError(Response response) throws IOException {
     try {
-      return SERIALIZER.jsonReader().read(response.body().string(), ErrorMessage.class);
+      return JsonResponseReader.read(SERIALIZER, response.body(), ErrorMessage.class);
     } catch (RuntimeException ex) {
       return ErrorMessage.of(response.code(), "Unexpected JSON error", ex.getMessage());
     }
   }
 
+  // parses the Retry-After header, which is either a number of seconds or an HTTP date
+  static Duration parseRetryAfter(String header) {
+    if (header == null || header.trim().isEmpty()) {
+      return null;
+    }
+    String trimmed = header.trim();
+    try {
+      long seconds = Long.parseLong(trimmed);
+      return seconds >= 0 ? Duration.ofSeconds(seconds) : null;
+    } catch (NumberFormatException ex) {
+      try {
+        Instant retryTime = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        Duration delay = Duration.between(Instant.now(), retryTime);
+        return delay.isNegative() ? Duration.ZERO : delay;
+      } catch (DateTimeParseException ex2) {
+        return null;
+      }
+    }
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public MarginCalcResult calculate(Ccp ccp, MarginCalcRequest request) {
-    String calcId = createCalculation(ccp, request);
-    MarginCalcResult result = getCalculation(ccp, calcId);
-    while (result.getStatus() == MarginCalcResultStatus.PENDING) {
+    return calculate(ccp, request, invoker.getPollingStrategy());
+  }
+
+  @Override
+  public MarginCalcResult calculate(Ccp ccp, MarginCalcRequest request, PollingStrategy pollingStrategy) {
+    return calculate(ccp, request, pollingStrategy, this::pollCalculation);
+  }
+
+  @Override
+  public LazyMarginCalcResult calculateLazy(Ccp ccp, MarginCalcRequest request) {
+    return calculate(ccp, request, invoker.getPollingStrategy(), this::pollLazyCalculation);
+  }
+
+  // creates the calculation, then polls until it completes
+  private <T> T calculate(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy,
+      BiFunction<Ccp, String, CalculationPoll<T>> pollFn) {
+
+    Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    CreatedCalculation created = submitCalculation(ccp, request);
+    String calcId = created.getCalcId();
+    // the first poll is timed using any hint from the create response
+    CalculationPoll<T> poll = CalculationPoll.busy(created.getRetryAfter());
+    for (int attempt = 0; !poll.isCompleted(); attempt++) {
       try {
-        Thread.sleep(POLL_WAIT);
+        Thread.sleep(pollingStrategy.nextDelay(attempt, poll.getRetryAfter()).toMillis());
       } catch (InterruptedException ex) {
         Thread.currentThread().interrupt();
         throw new RuntimeException(ex);
       }
-      result = getCalculation(ccp, calcId);
+      poll = pollFn.apply(ccp, calcId);
     }
     // cleanup server state quietly
     try {
@@ -216,47 +701,114 @@ final class InvokerMarginClient implements MarginClient {
     } catch (RuntimeException ex) {
       // ignore
     }
-    return result;
+    return poll.getResult();
   }
 
   @Override
   public CompletableFuture<MarginCalcResult> calculateAsync(Ccp ccp, MarginCalcRequest request) {
-    ScheduledExecutorService executorService = invoker.getExecutor();
-    // async function to create the calculation
-    Supplier<String> createFn = () -> createCalculation(ccp, request);
-    // async function to poll for results
-    Function<String, CompletableFuture<MarginCalcResult>> pollingFn = id -> {
-      // manually manage the result future and polling
-      CompletableFuture<MarginCalcResult> resultFuture = new CompletableFuture<>();
-      // polling task must catch exceptions, otherwise it will poll forever
-      Runnable pollTask = () -> {
-        // avoid potential race conditions during scheduled task cancellation by checking if we are done
-        if (!resultFuture.isDone()) {
-          try {
-            MarginCalcResult calcResult = getCalculation(ccp, id);
-            if (calcResult.getStatus() == MarginCalcResultStatus.COMPLETED) {
-              resultFuture.complete(calcResult);
-            }
-          } catch (RuntimeException ex) {
-            resultFuture.completeExceptionally(ex);
-          }
+    return calculateAsync(ccp, request, invoker.getPollingStrategy());
+  }
+
+  @Override
+  public CompletableFuture<MarginCalcResult> calculateAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    // async function to poll for results, using the shared polling loop
+    Function<CreatedCalculation, CompletableFuture<MarginCalcResult>> pollingFn = created -> {
+      String id = created.getCalcId();
+      CompletableFuture<MarginCalcResult> tracked = tracker.track(ccp, id, created.getRetryAfter(), pollingStrategy);
+      // cleanup server state quietly, completing once the calculation has been deleted
+      return tracked
+          .handle((result, resultEx) -> null)
+          .thenCompose(ignored -> deleteCalculationAsync(ccp, id))
+          .handle((result, deleteEx) -> null)
+          .thenCompose(ignored -> tracked);
+    };
+    // no thread waits while the calculation is created or polled
+    return submitCalculationAsync(ccp, request).thenCompose(pollingFn);
+  }
+
+  @Override
+  public List<CompletableFuture<MarginCalcResult>> calculateAll(Ccp ccp, List<MarginCalcRequest> requests) {
+    return calculateAll(ccp, requests, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  @Override
+  public List<CompletableFuture<MarginCalcResult>> calculateAll(
+      Ccp ccp,
+      List<MarginCalcRequest> requests,
+      int maxInFlight) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    PollingStrategy pollingStrategy = invoker.getPollingStrategy();
+    return CalculationBatch.start(requests, maxInFlight, request -> createAndTrack(ccp, request, pollingStrategy));
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public CalculationFlow.Publisher<MarginCalcResult> calculateStream(Iterator<CcpCalcRequest> requests) {
+    return calculateStream(requests, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  @Override
+  public CalculationFlow.Publisher<MarginCalcResult> calculateStream(
+      Iterator<CcpCalcRequest> requests,
+      int maxInFlight) {
+
+    PollingStrategy pollingStrategy = invoker.getPollingStrategy();
+    return CalculationStream.publisher(
+        requests, maxInFlight, request -> createAndTrack(request.getCcp(), request.getRequest(), pollingStrategy));
+  }
+
+  // creates and polls the calculation, deleting server state in the background once the result is known
+  // cancelling the returned future stops polling and deletes the calculation
+  // a create request already sent is not cancelled, as the calculation could not then be deleted
+  private CompletableFuture<MarginCalcResult> createAndTrack(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    CompletableFuture<MarginCalcResult> future = new CompletableFuture<>();
+    submitCalculationAsync(ccp, request).whenComplete((created, createEx) -> {
+      if (createEx != null) {
+        future.completeExceptionally(createEx);
+        return;
+      }
+      String calcId = created.getCalcId();
+      if (future.isDone()) {
+        // cancelled while being created
+        deleteInBackground(ccp, calcId);
+        return;
+      }
+      CompletableFuture<MarginCalcResult> tracked =
+          tracker.track(ccp, calcId, created.getRetryAfter(), pollingStrategy);
+      tracked.whenComplete((result, resultEx) -> {
+        deleteInBackground(ccp, calcId);
+        if (resultEx != null) {
+          future.completeExceptionally(resultEx);
+        } else {
+          future.complete(result);
         }
-      };
-      ScheduledFuture<?> scheduledTask = executorService.scheduleWithFixedDelay(pollTask, POLL_WAIT, POLL_WAIT, MILLISECONDS);
-      // stop the scheduled job and cleanup server state quietly
-      BiConsumer<MarginCalcResult, Throwable> cleanupFn = (result, resultEx) -> {
-        // do not interrupt during cancellation, as that breaks delete calculation (in okio)
-        scheduledTask.cancel(false);
-        try {
-          deleteCalculation(ccp, id);
-        } catch (RuntimeException ex) {
-          // ignore
+      });
+      future.whenComplete((result, ex) -> {
+        if (future.isCancelled()) {
+          tracked.cancel(false);
         }
-      };
-      return resultFuture.whenComplete(cleanupFn);
-    };
+      });
+    });
+    return future;
+  }
 
-    return CompletableFuture.supplyAsync(createFn, executorService).thenCompose(pollingFn);
+  // cleanup server state quietly, without delaying the caller
+  private void deleteInBackground(Ccp ccp, String calcId) {
+    try {
+      deleteCalculationAsync(ccp, calcId);
+    } catch (RuntimeException ex) {
+      // ignore
+    }
   }
 
   //-------------------------------------------------------------------------
@@ -266,49 +818,162 @@ final class InvokerMarginClient implements MarginClient {
       MarginCalcRequest request,
       List<PortfolioDataFile> deltaFiles) {
 
-    String baseCalcId = createCalculation(ccp, request);
-    ArrayList<PortfolioDataFile> combinedPortfolioData = new ArrayList<>();
+    return join(calculateWhatIfAsync(ccp, request, deltaFiles));
+  }
+
+  @Override
+  public CompletableFuture<MarginWhatIfCalcResult> calculateWhatIfAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<PortfolioDataFile> deltaFiles) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    PollingStrategy pollingStrategy = invoker.getPollingStrategy();
+    MarginCalcRequest combinedRequest = combinedRequest(request, deltaFiles);
+    // the base and combined calculations are uploaded concurrently, then polled from the shared loop,
+    // deleting server state in the background once each is known, or once cancelled
+    CompletableFuture<MarginCalcResult> base = createAndTrack(ccp, request, pollingStrategy);
+    CompletableFuture<MarginCalcResult> combined = createAndTrack(ccp, combinedRequest, pollingStrategy);
+    return whatIfResult(request, base, combined);
+  }
+
+  @Override
+  public List<MarginWhatIfCalcResult> calculateWhatIfScenarios(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<List<PortfolioDataFile>> candidateDeltaFiles) {
+
+    return join(calculateWhatIfScenariosAsync(ccp, request, candidateDeltaFiles));
+  }
+
+  @Override
+  public CompletableFuture<List<MarginWhatIfCalcResult>> calculateWhatIfScenariosAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<List<PortfolioDataFile>> candidateDeltaFiles) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(candidateDeltaFiles, "candidateDeltaFiles must not be null");
+    PollingStrategy pollingStrategy = invoker.getPollingStrategy();
+    List<MarginCalcRequest> combinedRequests = new ArrayList<>(candidateDeltaFiles.size());
+    for (List<PortfolioDataFile> deltaFiles : candidateDeltaFiles) {
+      combinedRequests.add(combinedRequest(request, deltaFiles));
+    }
+    // the base is calculated once, with the candidates calculated alongside it
+    CompletableFuture<MarginCalcResult> base = createAndTrack(ccp, request, pollingStrategy);
+    List<CompletableFuture<MarginCalcResult>> combined = CalculationBatch.start(
+        combinedRequests,
+        DEFAULT_MAX_IN_FLIGHT,
+        combinedRequest -> createAndTrack(ccp, combinedRequest, pollingStrategy));
+    return whatIfResults(request, base, combined);
+  }
+
+  // creates the request for the base portfolio plus the delta portfolio
+  static MarginCalcRequest combinedRequest(MarginCalcRequest request, List<PortfolioDataFile> deltaFiles) {
+    List<PortfolioDataFile> combinedPortfolioData = new ArrayList<>();
     combinedPortfolioData.addAll(request.getPortfolioData());
     combinedPortfolioData.addAll(deltaFiles);
-
-    MarginCalcRequest secondRequest = request.toBuilder()
+    return request.toBuilder()
         .portfolioData(combinedPortfolioData)
         .build();
+  }
 
-    String deltaCalcId = createCalculation(ccp, secondRequest);
-    MarginCalcResult baseResult = getCalculation(ccp, baseCalcId);
-    MarginCalcResult deltaResult = getCalculation(ccp, deltaCalcId);
-    while (MarginCalcResultStatus.PENDING.equals(baseResult.getStatus()) ||
-        MarginCalcResultStatus.PENDING.equals(deltaResult.getStatus())) {
-      try {
-        Thread.sleep(POLL_WAIT);
-      } catch (InterruptedException ex) {
-        throw new RuntimeException(ex);
+  // combines the base and combined results
+  static MarginWhatIfCalcResult whatIfResult(
+      MarginCalcRequest request,
+      MarginCalcResult baseResult,
+      MarginCalcResult combinedResult) {
+
+    return MarginWhatIfCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        request.getCalculationTypes(),
+        combinedResult.getValuationDate(),
+        combinedResult.getReportingCurrency(),
+        combinedResult.getPortfolioItems(),
+        baseResult.getMargin().orElseThrow(() -> new MarginException("No base margin found in response", "Invalid")),
+        combinedResult.getMargin().orElseThrow(() -> new MarginException("No combined margin found in response", "Invalid")),
+        combinedResult.getFailures());
+  }
+
+  // combines the base and combined results, once both are known
+  // a failure of either cancels the other, and cancelling the returned future cancels both
+  static CompletableFuture<MarginWhatIfCalcResult> whatIfResult(
+      MarginCalcRequest request,
+      CompletableFuture<MarginCalcResult> base,
+      CompletableFuture<MarginCalcResult> combined) {
+
+    return allOrNothing(Arrays.asList(base, combined), () -> whatIfResult(request, base.join(), combined.join()));
+  }
+
+  // combines the base and candidate results, once all are known
+  // a failure of any cancels the others, and cancelling the returned future cancels all
+  static CompletableFuture<List<MarginWhatIfCalcResult>> whatIfResults(
+      MarginCalcRequest request,
+      CompletableFuture<MarginCalcResult> base,
+      List<CompletableFuture<MarginCalcResult>> combined) {
+
+    List<CompletableFuture<MarginCalcResult>> calculations = new ArrayList<>(combined.size() + 1);
+    calculations.add(base);
+    calculations.addAll(combined);
+    return allOrNothing(calculations, () -> {
+      MarginCalcResult baseResult = base.join();
+      List<MarginWhatIfCalcResult> results = new ArrayList<>(combined.size());
+      for (CompletableFuture<MarginCalcResult> combinedResult : combined) {
+        results.add(whatIfResult(request, baseResult, combinedResult.join()));
       }
-      if (MarginCalcResultStatus.PENDING.equals(baseResult.getStatus())) {
-        baseResult = getCalculation(ccp, baseCalcId);
+      return results;
+    });
+  }
+
+  // completes with the result of the function once all the calculations succeed
+  // the first failure completes the returned future and cancels the other calculations,
+  // and cancelling the returned future cancels the calculations, allowing them to be stopped and deleted
+  private static <T> CompletableFuture<T> allOrNothing(
+      List<CompletableFuture<MarginCalcResult>> calculations,
+      Supplier<T> resultFn) {
+
+    CompletableFuture<T> future = new CompletableFuture<>();
+    for (CompletableFuture<MarginCalcResult> calculation : calculations) {
+      calculation.whenComplete((result, ex) -> {
+        if (ex != null && future.completeExceptionally(ex)) {
+          calculations.forEach(other -> other.cancel(false));
+        }
+      });
+    }
+    CompletableFuture.allOf(calculations.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+      try {
+        future.complete(resultFn.get());
+      } catch (RuntimeException ex) {
+        future.completeExceptionally(ex);
       }
-      if (MarginCalcResultStatus.PENDING.equals(deltaResult.getStatus())) {
-        deltaResult = getCalculation(ccp, deltaCalcId);
+    });
+    future.whenComplete((result, ex) -> {
+      if (future.isCancelled()) {
+        calculations.forEach(calculation -> calculation.cancel(false));
       }
-    }
-    // cleanup server state quietly
+    });
+    return future;
+  }
+
+  // blocks until the future completes, restoring the interrupt flag if interrupted
+  static <T> T join(CompletableFuture<T> future) {
     try {
-      deleteCalculation(ccp, baseCalcId);
-      deleteCalculation(ccp, deltaCalcId);
-    } catch (RuntimeException ex) {
-      // ignore
+      return future.get();
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      throw rethrow(ex.getCause());
     }
+  }
 
-    return MarginWhatIfCalcResult.of(
-        MarginCalcResultStatus.COMPLETED,
-        request.getCalculationTypes(),
-        deltaResult.getValuationDate(),
-        deltaResult.getReportingCurrency(),
-        deltaResult.getPortfolioItems(),
-        baseResult.getMargin().orElseThrow(() -> new MarginException("No base margin found in response", "Invalid")),
-        deltaResult.getMargin().orElseThrow(() -> new MarginException("No combined margin found in response", "Invalid")),
-        deltaResult.getFailures());
+  // obtains the cause of a failed future, wrapping checked exceptions
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
   }
 
 }
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.beans.ser.JodaBeanSer;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * Reads JSON directly from the body of a response.
+ * <p>
+ * The JSON is parsed as the body is received, such that the body as a whole is never held
+ * in memory as a single {@code String}. Only the parsed beans are retained.
+ */
+final class JsonResponseReader {
+
+  /**
+   * The size of the buffer, in characters.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Restricted constructor.
+   */
+  private JsonResponseReader() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Reads a bean from the JSON body of a response.
+   * <p>
+   * The character set is taken from the response, defaulting to UTF-8.
+   * The body is consumed, but not closed.
+   *
+   * @param <T> the type of the bean
+   * @param serializer the serializer
+   * @param body the response body
+   * @param type the type of the bean
+   * @return the bean
+   * @throws IOException if an IO error occurs reading the body
+   * @throws RuntimeException if the JSON is invalid
+   */
+  static <T> T read(JodaBeanSer serializer, ResponseBody body, Class<T> type) throws IOException {
+    try {
+      return serializer.jsonReader().read(new BufferedBodyReader(body.charStream()), type);
+    } catch (RuntimeException ex) {
+      // the JSON reader wraps IO errors, which are unwrapped so that they are reported as before
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads the JSON body of a response, separating out the values of some top-level properties.
+   * <p>
+   * The body is scanned as UTF-8 bytes, without decoding it to characters.
+   * The value of each separated property is copied directly from the bytes of the body,
+   * and added to the map as UTF-8 JSON, unless the value is null.
+   * The JSON of the body is returned without the separated properties.
+   * If the body is not a JSON object, the whole body is returned.
+   *
+   * @param body the response body
+   * @param propertyNames the names of the top-level properties to separate
+   * @param separated the map to add the separated values to, keyed by property name
+   * @return the JSON without the separated properties
+   * @throws IOException if an IO error occurs reading the body
+   */
+  static String readSeparating(
+      ResponseBody body,
+      Set<String> propertyNames,
+      Map<String, byte[]> separated) throws IOException {
+
+    byte[] json = utf8Bytes(body);
+    int start = skipWhitespace(json, 0, json.length);
+    if (start == json.length || json[start] != '{') {
+      return new String(json, StandardCharsets.UTF_8);
+    }
+    ByteArrayOutputStream remaining = new ByteArrayOutputStream();
+    remaining.write('{');
+    boolean memberWritten = false;
+    int memberStart = start + 1;
+    int depth = 1;
+    boolean inString = false;
+    // the bytes of a multi-byte UTF-8 sequence are never ASCII, so cannot be mistaken for structure
+    for (int i = memberStart; i < json.length && depth > 0; i++) {
+      byte b = json[i];
+      if (inString) {
+        if (b == '\\') {
+          i++;
+        } else if (b == '"') {
+          inString = false;
+        }
+      } else if (b == '"') {
+        inString = true;
+      } else if (b == '{' || b == '[') {
+        depth++;
+      } else if (depth == 1 && (b == ',' || b == '}')) {
+        // the end of a top-level member
+        int from = skipWhitespace(json, memberStart, i);
+        int to = trimWhitespace(json, from, i);
+        if (from < to) {
+          int keyEnd = json[from] == '"' ? endOfString(json, from, to) : -1;
+          String key = keyEnd > 0 ? new String(json, from + 1, keyEnd - from - 1, StandardCharsets.UTF_8) : "";
+          if (propertyNames.contains(key)) {
+            int valueStart = skipWhitespace(json, indexOf(json, (byte) ':', keyEnd, to) + 1, to);
+            if (!isNull(json, valueStart, to)) {
+              separated.put(key, Arrays.copyOfRange(json, valueStart, to));
+            }
+          } else {
+            if (memberWritten) {
+              remaining.write(',');
+            }
+            remaining.write(json, from, to - from);
+            memberWritten = true;
+          }
+        }
+        memberStart = i + 1;
+        if (b == '}') {
+          depth = 0;
+          remaining.write('}');
+        }
+      } else if (b == '}' || b == ']') {
+        depth--;
+      }
+    }
+    return new String(remaining.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  // reads the body as UTF-8 bytes, which only needs conversion in the unusual case of another character set
+  private static byte[] utf8Bytes(ResponseBody body) throws IOException {
+    MediaType contentType = body.contentType();
+    Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+    byte[] bytes = body.bytes();
+    return charset.equals(StandardCharsets.UTF_8) ? bytes : new String(bytes, charset).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Peeks at the start of the JSON body of a response to find the value of a top-level string property.
+   * <p>
+   * The body is not consumed, thus it can still be read in full afterwards.
+   * At most {@code maxBytes} are examined, so this is only useful where the property
+   * is known to be written near the start of the JSON.
+   *
+   * @param body the response body
+   * @param propertyName the name of the property
+   * @param maxBytes the maximum number of bytes to examine
+   * @return the value of the property, null if not found or if the value is not a string
+   * @throws IOException if an IO error occurs reading the body
+   */
+  static String peekString(ResponseBody body, String propertyName, long maxBytes) throws IOException {
+    BufferedSource peek = body.source().peek();
+    peek.request(maxBytes);
+    String json = peek.readUtf8(Math.min(maxBytes, peek.getBuffer().size()));
+    int depth = 0;
+    boolean expectKey = false;
+    for (int i = 0; i < json.length(); i++) {
+      char ch = json.charAt(i);
+      switch (ch) {
+        case '"': {
+          int end = endOfString(json, i);
+          if (end < 0) {
+            return null;
+          }
+          if (depth == 1 && expectKey) {
+            expectKey = false;
+            if (json.regionMatches(i + 1, propertyName, 0, propertyName.length()) &&
+                end == i + 1 + propertyName.length()) {
+              int valueStart = skipSeparator(json, end + 1);
+              if (valueStart < 0 || json.charAt(valueStart) != '"') {
+                return null;
+              }
+              int valueEnd = endOfString(json, valueStart);
+              return valueEnd < 0 ? null : json.substring(valueStart + 1, valueEnd);
+            }
+          }
+          i = end;
+          break;
+        }
+        case '{':
+          depth++;
+          expectKey = depth == 1;
+          break;
+        case '[':
+          depth++;
+          break;
+        case '}':
+        case ']':
+          depth--;
+          break;
+        case ',':
+          expectKey = depth == 1;
+          break;
+        default:
+          break;
+      }
+    }
+    return null;
+  }
+
+  // finds the index of the quote ending the string starting at the specified quote, -1 if not found
+  private static int endOfString(String json, int start) {
+    for (int i = start + 1; i < json.length(); i++) {
+      char ch = json.charAt(i);
+      if (ch == '\\') {
+        i++;
+      } else if (ch == '"') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // skips the colon between a key and its value, returning the start of the value, -1 if not found
+  private static int skipSeparator(String json, int start) {
+    boolean colon = false;
+    for (int i = start; i < json.length(); i++) {
+      char ch = json.charAt(i);
+      if (ch == ':' && !colon) {
+        colon = true;
+      } else if (!Character.isWhitespace(ch)) {
+        return colon ? i : -1;
+      }
+    }
+    return -1;
+  }
+
+  // finds the index of the quote ending the string starting at the specified quote, -1 if not found
+  private static int endOfString(byte[] json, int start, int end) {
+    for (int i = start + 1; i < end; i++) {
+      byte b = json[i];
+      if (b == '\\') {
+        i++;
+      } else if (b == '"') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // finds the index of the byte, -1 if not found
+  private static int indexOf(byte[] json, byte target, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (json[i] == target) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // skips whitespace forwards, returning the index of the first non-whitespace byte, or the end
+  private static int skipWhitespace(byte[] json, int start, int end) {
+    int i = start;
+    while (i < end && isWhitespace(json[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  // skips whitespace backwards, returning the index after the last non-whitespace byte, or the start
+  private static int trimWhitespace(byte[] json, int start, int end) {
+    int i = end;
+    while (i > start && isWhitespace(json[i - 1])) {
+      i--;
+    }
+    return i;
+  }
+
+  // checks if the byte is JSON whitespace
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  // checks if the range is the JSON null literal
+  private static boolean isNull(byte[] json, int start, int end) {
+    return end - start == 4 && json[start] == 'n' && json[start + 1] == 'u' &&
+        json[start + 2] == 'l' && json[start + 3] == 'l';
+  }
+
+  //-------------------------------------------------------------------------
+  // an unsynchronized buffered reader, as the JSON parser reads one character at a time
+  private static final class BufferedBodyReader extends Reader {
+    /** The underlying reader. */
+    private final Reader underlying;
+    /** The buffer. */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /** The position of the next character in the buffer. */
+    private int pos;
+    /** The number of characters in the buffer. */
+    private int limit;
+
+    private BufferedBodyReader(Reader underlying) {
+      this.underlying = underlying;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (pos == limit && !fill()) {
+        return -1;
+      }
+      return buffer[pos++];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (pos == limit && !fill()) {
+        return -1;
+      }
+      int count = Math.min(len, limit - pos);
+      System.arraycopy(buffer, pos, cbuf, off, count);
+      pos += count;
+      return count;
+    }
+
+    // fills the buffer, returning false at the end of the stream
+    private boolean fill() throws IOException {
+      int read;
+      do {
+        read = underlying.read(buffer, 0, BUFFER_SIZE);
+      } while (read == 0);
+      if (read < 0) {
+        return false;
+      }
+      pos = 0;
+      limit = read;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      underlying.close();
+    }
+  }
+
+}
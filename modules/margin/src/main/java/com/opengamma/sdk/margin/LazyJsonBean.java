@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import org.joda.beans.ser.JodaBeanSer;
+
+/**
+ * A bean held as JSON, that is only decoded when first accessed.
+ * <p>
+ * The JSON is held as UTF-8 bytes, which is far more compact than the equivalent beans.
+ * Once decoded, the JSON is discarded and the bean is retained.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T> the type of the bean
+ */
+final class LazyJsonBean<T> {
+
+  /**
+   * The serializer, null if created decoded.
+   */
+  private final JodaBeanSer serializer;
+  /**
+   * The type of the bean, null if created decoded.
+   */
+  private final Class<T> type;
+  /**
+   * The JSON, null once decoded, guarded by this.
+   */
+  private byte[] json;
+  /**
+   * The bean, null until decoded.
+   */
+  private volatile T bean;
+
+  //-------------------------------------------------------------------------
+  // creates an instance, the UTF-8 JSON is not copied
+  LazyJsonBean(JodaBeanSer serializer, Class<T> type, byte[] json) {
+    this.serializer = Objects.requireNonNull(serializer, "serializer must not be null");
+    this.type = Objects.requireNonNull(type, "type must not be null");
+    this.json = Objects.requireNonNull(json, "json must not be null");
+  }
+
+  // creates an instance that is already decoded
+  static <T> LazyJsonBean<T> ofDecoded(T bean) {
+    return new LazyJsonBean<>(bean);
+  }
+
+  private LazyJsonBean(T bean) {
+    this.serializer = null;
+    this.type = null;
+    this.bean = Objects.requireNonNull(bean, "bean must not be null");
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the bean, decoding the JSON on first access
+  T get() {
+    T result = bean;
+    if (result == null) {
+      synchronized (this) {
+        result = bean;
+        if (result == null) {
+          result = serializer.jsonReader()
+              .read(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8), type);
+          bean = result;
+          json = null;
+        }
+      }
+    }
+    return result;
+  }
+
+}
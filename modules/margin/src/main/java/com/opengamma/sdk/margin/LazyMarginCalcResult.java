@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Result from the service, where the margin detail and trade valuations are only decoded when first accessed.
+ * <p>
+ * The summary of the result, such as the margin, is decoded when the result is received.
+ * The margin detail and trade valuations are held as UTF-8 JSON, which is far more compact than the
+ * equivalent beans, and are decoded on the first call to {@link #getMarginDetail()} or
+ * {@link #getTradeValuations()}. This reduces the memory used where many results are held
+ * but the detail is rarely accessed.
+ * <p>
+ * This class is not a bean. Use {@link #toResult()} to obtain the equivalent {@link MarginCalcResult}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LazyMarginCalcResult {
+
+  /**
+   * The summary of the result, without the margin detail and trade valuations.
+   */
+  private final MarginCalcResult summary;
+  /**
+   * The margin detail, null if there is none.
+   */
+  private final LazyJsonBean<MarginDetail> marginDetail;
+  /**
+   * The trade valuations, null if there are none.
+   */
+  private final LazyJsonBean<TradeValuations> tradeValuations;
+
+  //-------------------------------------------------------------------------
+  // obtains an instance
+  static LazyMarginCalcResult of(
+      MarginCalcResult summary,
+      LazyJsonBean<MarginDetail> marginDetail,
+      LazyJsonBean<TradeValuations> tradeValuations) {
+
+    return new LazyMarginCalcResult(summary, marginDetail, tradeValuations);
+  }
+
+  // obtains an instance from a result that is already decoded
+  static LazyMarginCalcResult ofDecoded(MarginCalcResult result) {
+    MarginCalcResult summary = MarginCalcResult.of(
+        result.getStatus(),
+        result.getCalculationTypes(),
+        result.getMode(),
+        result.getValuationDate(),
+        result.getReportingCurrency(),
+        result.getCalculationCurrency(),
+        result.isApplyClientMultiplier(),
+        result.getPortfolioItems(),
+        result.getMargin().orElse(null),
+        null,
+        null,
+        result.getFailures());
+    return new LazyMarginCalcResult(
+        summary,
+        result.getMarginDetail().map(LazyJsonBean::ofDecoded).orElse(null),
+        result.getTradeValuations().map(LazyJsonBean::ofDecoded).orElse(null));
+  }
+
+  private LazyMarginCalcResult(
+      MarginCalcResult summary,
+      LazyJsonBean<MarginDetail> marginDetail,
+      LazyJsonBean<TradeValuations> tradeValuations) {
+
+    this.summary = Objects.requireNonNull(summary, "summary must not be null");
+    this.marginDetail = marginDetail;
+    this.tradeValuations = tradeValuations;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the summary of the result.
+   * <p>
+   * The summary contains everything except the margin detail and trade valuations,
+   * which are always empty in the returned result.
+   *
+   * @return the summary
+   */
+  public MarginCalcResult getSummary() {
+    return summary;
+  }
+
+  /**
+   * Gets the detailed breakdown of the margin calculation, decoding it on first access.
+   * The structure varies by CCP.
+   *
+   * @return the margin detail, empty if there is none
+   */
+  public Optional<MarginDetail> getMarginDetail() {
+    return marginDetail != null ? Optional.of(marginDetail.get()) : Optional.empty();
+  }
+
+  /**
+   * Gets the valuation of the trades, decoding them on first access.
+   *
+   * @return the trade valuations, empty if there are none
+   */
+  public Optional<TradeValuations> getTradeValuations() {
+    return tradeValuations != null ? Optional.of(tradeValuations.get()) : Optional.empty();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Converts this result to a {@code MarginCalcResult}, decoding the margin detail and trade valuations.
+   *
+   * @return the result
+   */
+  public MarginCalcResult toResult() {
+    return MarginCalcResult.of(
+        summary.getStatus(),
+        summary.getCalculationTypes(),
+        summary.getMode(),
+        summary.getValuationDate(),
+        summary.getReportingCurrency(),
+        summary.getCalculationCurrency(),
+        summary.isApplyClientMultiplier(),
+        summary.getPortfolioItems(),
+        summary.getMargin().orElse(null),
+        getMarginDetail().orElse(null),
+        getTradeValuations().orElse(null),
+        summary.getFailures());
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "LazyMarginCalcResult{summary=" + summary +
+        ", marginDetail=" + (marginDetail != null ? "present" : "none") +
+        ", tradeValuations=" + (tradeValuations != null ? "present" : "none") + "}";
+  }
+
+}
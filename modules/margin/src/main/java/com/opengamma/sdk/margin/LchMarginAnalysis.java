@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Analysis of the value-at-risk scenarios of an LCH margin calculation.
+ * <p>
+ * This computes the tail of the scenario profit-and-loss, the expected shortfall over the tail,
+ * the contribution of each tail scenario, and the diversification benefit across the indices.
+ * The detail only holds the profit-and-loss of the whole portfolio, thus the analysis of the indices
+ * is limited to the margin reported by LCH for each index and the scenarios each index uses.
+ * <p>
+ * The profit-and-loss is held in a primitive array, and the tail is found by partial selection,
+ * such that only the scenarios in the tail are sorted.
+ * A loss is a negative profit-and-loss, with margin and shortfall expressed as positive amounts.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class LchMarginAnalysis {
+
+  /**
+   * The margin detail.
+   */
+  private final LchMarginDetail detail;
+  /**
+   * The scenarios, ordered by date.
+   */
+  private final List<LchMarginScenario> scenarios;
+  /**
+   * The profit-and-loss of each scenario, ordered by date.
+   */
+  private final double[] pnl;
+  /**
+   * Whether the profit-and-loss is scaled.
+   */
+  private final boolean scaled;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance analyzing the scaled profit-and-loss.
+   * <p>
+   * The scaled profit-and-loss is that used by LCH to calculate margin.
+   *
+   * @param detail  the LCH margin detail
+   * @return the analysis
+   */
+  public static LchMarginAnalysis ofScaledPnl(LchMarginDetail detail) {
+    Objects.requireNonNull(detail, "detail must not be null");
+    return new LchMarginAnalysis(detail, detail.scaledPnlVector(), true);
+  }
+
+  /**
+   * Obtains an instance analyzing the unscaled profit-and-loss.
+   *
+   * @param detail  the LCH margin detail
+   * @return the analysis
+   */
+  public static LchMarginAnalysis ofUnscaledPnl(LchMarginDetail detail) {
+    Objects.requireNonNull(detail, "detail must not be null");
+    return new LchMarginAnalysis(detail, detail.unscaledPnlVector(), false);
+  }
+
+  // creates an instance
+  private LchMarginAnalysis(LchMarginDetail detail, double[] pnl, boolean scaled) {
+    this.detail = detail;
+    this.scenarios = detail.scenariosByDate();
+    this.pnl = pnl;
+    this.scaled = scaled;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of scenarios.
+   *
+   * @return the number of scenarios
+   */
+  public int getScenarioCount() {
+    return pnl.length;
+  }
+
+  /**
+   * Gets the tail, being the scenarios with the largest losses, worst first.
+   * <p>
+   * Scenarios with equal profit-and-loss are ordered by date.
+   *
+   * @param tailSize  the number of scenarios in the tail
+   * @return the scenarios in the tail, worst first
+   * @throws IllegalArgumentException if the tail size is invalid
+   */
+  public List<LchMarginScenario> tailScenarios(int tailSize) {
+    int[] tail = tail(tailSize);
+    List<LchMarginScenario> result = new ArrayList<>(tailSize);
+    for (int position : tail) {
+      result.add(scenarios.get(position));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Gets the contribution of each scenario in the tail to the expected shortfall.
+   * <p>
+   * The array is in the same order as {@link #tailScenarios(int)}, and sums to the expected shortfall.
+   *
+   * @param tailSize  the number of scenarios in the tail
+   * @return the contribution of each tail scenario, expressed in the reporting currency
+   * @throws IllegalArgumentException if the tail size is invalid
+   */
+  public double[] tailContributions(int tailSize) {
+    int[] tail = tail(tailSize);
+    double[] result = new double[tailSize];
+    for (int i = 0; i < tailSize; i++) {
+      result[i] = -pnl[tail[i]] / tailSize;
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the value-at-risk, being the loss of the least severe scenario in the tail.
+   * <p>
+   * This is the loss of the scenario ranked {@code tailSize} from the worst, such as the 6th worst loss
+   * for a tail size of 6, rather than the worst loss overall.
+   *
+   * @param tailSize  the number of scenarios in the tail
+   * @return the value-at-risk, expressed in the reporting currency
+   * @throws IllegalArgumentException if the tail size is invalid
+   */
+  public double valueAtRisk(int tailSize) {
+    checkTailSize(tailSize);
+    double[] values = pnl.clone();
+    select(values, tailSize - 1);
+    return -values[tailSize - 1];
+  }
+
+  /**
+   * Calculates the expected shortfall, being the average loss of the scenarios in the tail.
+   *
+   * @param tailSize  the number of scenarios in the tail
+   * @return the expected shortfall, expressed in the reporting currency
+   * @throws IllegalArgumentException if the tail size is invalid
+   */
+  public double expectedShortfall(int tailSize) {
+    checkTailSize(tailSize);
+    return expectedShortfall(pnl.clone(), tailSize);
+  }
+
+  // calculates the expected shortfall, reordering the values
+  static double expectedShortfall(double[] values, int tailSize) {
+    select(values, tailSize - 1);
+    double total = 0;
+    for (int i = 0; i < tailSize; i++) {
+      total += values[i];
+    }
+    return -total / tailSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the base margin from the base scenarios of the margin detail.
+   * <p>
+   * This is the average loss of the {@linkplain LchMarginDetail#getBaseScenarioIds() base scenarios},
+   * being those used by LCH to calculate margin for the diversified portfolio.
+   * Base scenarios that are not in the detail are ignored.
+   *
+   * @return the base margin, expressed in the reporting currency, zero if there are no base scenarios
+   */
+  public double baseMargin() {
+    double total = 0;
+    int count = 0;
+    for (String scenarioId : detail.getBaseScenarioIds()) {
+      Optional<LchMarginScenario> scenario = detail.findScenario(scenarioId);
+      if (scenario.isPresent()) {
+        total += pnl(scenario.get());
+        count++;
+      }
+    }
+    return count == 0 ? 0 : -total / count;
+  }
+
+  /**
+   * Calculates the total of the diversified base margin of the indices.
+   *
+   * @return the diversified base margin, expressed in the reporting currency
+   */
+  public double diversifiedBaseMargin() {
+    double total = 0;
+    for (LchMarginIndex index : detail.getIndices()) {
+      total += index.getDiversifiedBaseMargin();
+    }
+    return total;
+  }
+
+  /**
+   * Calculates the total of the undiversified base margin of the indices.
+   * <p>
+   * This is the margin that would apply if each index was margined on its own.
+   *
+   * @return the undiversified base margin, expressed in the reporting currency
+   */
+  public double undiversifiedBaseMargin() {
+    double total = 0;
+    for (LchMarginIndex index : detail.getIndices()) {
+      total += index.getUndiversifiedBaseMargin();
+    }
+    return total;
+  }
+
+  /**
+   * Calculates the diversification benefit across the indices.
+   * <p>
+   * This is the undiversified base margin less the diversified base margin.
+   *
+   * @return the diversification benefit, expressed in the reporting currency
+   */
+  public double diversificationBenefit() {
+    return undiversifiedBaseMargin() - diversifiedBaseMargin();
+  }
+
+  /**
+   * Calculates the diversification benefit of each index.
+   * <p>
+   * The array is in the same order as {@link LchMarginDetail#getIndices()}.
+   *
+   * @return the diversification benefit of each index, expressed in the reporting currency
+   */
+  public double[] indexDiversificationBenefits() {
+    List<LchMarginIndex> indices = detail.getIndices();
+    double[] result = new double[indices.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = indices.get(i).getUndiversifiedBaseMargin() - indices.get(i).getDiversifiedBaseMargin();
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the share of each index in the diversified base margin.
+   * <p>
+   * The share is the diversified base margin of the index, as reported by LCH, divided by the total
+   * diversified base margin of the indices, such that the shares sum to one.
+   * The array is in the same order as {@link LchMarginDetail#getIndices()}.
+   * <p>
+   * This only rescales the margin reported by LCH, and is not a marginal or component contribution.
+   * Those would require the profit-and-loss of each index in each scenario, whereas the detail
+   * only holds the profit-and-loss of the whole portfolio.
+   *
+   * @return the share of each index, zero if the diversified base margin is zero
+   */
+  public double[] indexMarginShares() {
+    List<LchMarginIndex> indices = detail.getIndices();
+    double total = diversifiedBaseMargin();
+    double[] result = new double[indices.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = total == 0 ? 0 : indices.get(i).getDiversifiedBaseMargin() / total;
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the overlap of the scenarios of each index with the base scenarios.
+   * <p>
+   * The overlap is the proportion of the {@linkplain LchMarginIndex#getIndexScenarioIds() index scenarios}
+   * that are also base scenarios. An index whose scenarios overlap less with the base scenarios
+   * benefits more from diversification.
+   * The array is in the same order as {@link LchMarginDetail#getIndices()}.
+   *
+   * @return the overlap of each index, from zero to one, zero if the index has no scenarios
+   */
+  public double[] indexTailOverlaps() {
+    Set<String> base = new HashSet<>();
+    for (String scenarioId : detail.getBaseScenarioIds()) {
+      detail.findScenario(scenarioId).ifPresent(scenario -> base.add(scenario.getId()));
+    }
+    List<LchMarginIndex> indices = detail.getIndices();
+    double[] result = new double[indices.size()];
+    for (int i = 0; i < result.length; i++) {
+      List<String> indexScenarioIds = indices.get(i).getIndexScenarioIds();
+      int count = 0;
+      for (String scenarioId : indexScenarioIds) {
+        Optional<LchMarginScenario> scenario = detail.findScenario(scenarioId);
+        if (scenario.isPresent() && base.contains(scenario.get().getId())) {
+          count++;
+        }
+      }
+      result[i] = indexScenarioIds.isEmpty() ? 0 : (double) count / indexScenarioIds.size();
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "LchMarginAnalysis{scenarios=" + pnl.length + ", pnl=" + (scaled ? "scaled" : "unscaled") + "}";
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the profit-and-loss of the scenario
+  private double pnl(LchMarginScenario scenario) {
+    return scaled ? scenario.getScaledPortfolioPnl() : scenario.getUnscaledPortfolioPnl();
+  }
+
+  // checks the tail size
+  private void checkTailSize(int tailSize) {
+    if (tailSize < 1 || tailSize > pnl.length) {
+      throw new IllegalArgumentException(
+          "Tail size must be from 1 to the number of scenarios, " + pnl.length + ", but was " + tailSize);
+    }
+  }
+
+  // finds the positions of the scenarios in the tail, worst first
+  private int[] tail(int tailSize) {
+    checkTailSize(tailSize);
+    int[] positions = new int[pnl.length];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = i;
+    }
+    selectPositions(positions, tailSize - 1);
+    int[] tail = new int[tailSize];
+    System.arraycopy(positions, 0, tail, 0, tailSize);
+    sortPositions(tail);
+    return tail;
+  }
+
+  // partially sorts the values, such that the kth smallest is at index k, with smaller values before it
+  private static void select(double[] values, int k) {
+    int left = 0;
+    int right = values.length - 1;
+    while (right > left) {
+      double pivot = median(values[left], values[(left + right) >>> 1], values[right]);
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          double tmp = values[i];
+          values[i] = values[j];
+          values[j] = tmp;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  // partially sorts the positions by profit-and-loss, such that the kth smallest is at index k
+  private void selectPositions(int[] positions, int k) {
+    int left = 0;
+    int right = positions.length - 1;
+    while (right > left) {
+      int pivot = medianPosition(positions[left], positions[(left + right) >>> 1], positions[right]);
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (compare(positions[i], pivot) < 0) {
+          i++;
+        }
+        while (compare(positions[j], pivot) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          int tmp = positions[i];
+          positions[i] = positions[j];
+          positions[j] = tmp;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  // sorts the positions by profit-and-loss, using a merge sort to avoid boxing
+  private void sortPositions(int[] positions) {
+    int[] buffer = new int[positions.length];
+    for (int width = 1; width < positions.length; width *= 2) {
+      for (int left = 0; left < positions.length - width; left += width * 2) {
+        int mid = left + width;
+        int right = Math.min(left + width * 2, positions.length);
+        int i = left;
+        int j = mid;
+        int k = left;
+        while (i < mid && j < right) {
+          buffer[k++] = compare(positions[i], positions[j]) <= 0 ? positions[i++] : positions[j++];
+        }
+        while (i < mid) {
+          buffer[k++] = positions[i++];
+        }
+        while (j < right) {
+          buffer[k++] = positions[j++];
+        }
+        System.arraycopy(buffer, left, positions, left, right - left);
+      }
+    }
+  }
+
+  // compares by profit-and-loss, then by position, which is the date order
+  private int compare(int position1, int position2) {
+    int cmp = Double.compare(pnl[position1], pnl[position2]);
+    return cmp != 0 ? cmp : Integer.compare(position1, position2);
+  }
+
+  // finds the median of three values
+  private static double median(double a, double b, double c) {
+    return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+  }
+
+  // finds the position whose profit-and-loss is the median of three
+  private int medianPosition(int a, int b, int c) {
+    if (compare(a, b) > 0) {
+      return compare(b, c) >= 0 ? b : (compare(a, c) <= 0 ? a : c);
+    }
+    return compare(a, c) >= 0 ? a : (compare(b, c) <= 0 ? b : c);
+  }
+
+}
@@ -7,10 +7,14 @@ package com.opengamma.sdk.margin;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Function;
 
 import org.joda.beans.Bean;
 import org.joda.beans.BeanBuilder;
@@ -56,6 +60,10 @@ public final class LchMarginDetail extends MarginDetail implements ImmutableBean
    */
   @PropertyDefinition(validate = "notNull")
   private final List<LchMarginScenario> scenarios;
+  /**
+   * The lookups, built on first use, null until then.
+   */
+  private volatile Lookups lookups;
 
   //-------------------------------------------------------------------------
   @Override
@@ -66,28 +74,159 @@ public final class LchMarginDetail extends MarginDetail implements ImmutableBean
 
   /**
    * Finds the first index matching by name.
+   * <p>
+   * The name is matched ignoring case.
    * 
    * @param indexName the index name
    * @return the optional index
    */
   public Optional<LchMarginIndex> findIndex(String indexName) {
-    return indices.stream()
-        .filter(val -> val.getIndexName().equalsIgnoreCase(indexName))
-        .findFirst();
+    if (indexName == null) {
+      return Optional.empty();
+    }
+    Lookups lookups = lookups();
+    return find(lookups.indicesByName, lookups.asciiIndexNames, indices, LchMarginIndex::getIndexName, indexName);
   }
 
   /**
    * Finds the first scenario matching by identifier.
+   * <p>
+   * The identifier is matched ignoring case.
    * 
    * @param scenarioId the scenario identifier
    * @return the optional scenario
    */
   public Optional<LchMarginScenario> findScenario(String scenarioId) {
-    return scenarios.stream()
-        .filter(val -> val.getId().equalsIgnoreCase(scenarioId))
+    if (scenarioId == null) {
+      return Optional.empty();
+    }
+    Lookups lookups = lookups();
+    return find(lookups.scenariosById, lookups.asciiScenarioIds, scenarios, LchMarginScenario::getId, scenarioId);
+  }
+
+  /**
+   * Gets the scenarios ordered by date.
+   * <p>
+   * Scenarios without a date are placed last. Scenarios with the same date retain their order.
+   * This is the order of the PnL vectors.
+   *
+   * @return the scenarios, ordered by date
+   */
+  public List<LchMarginScenario> scenariosByDate() {
+    return lookups().scenariosByDate;
+  }
+
+  /**
+   * Gets the scaled profit-and-loss at the portfolio level of each scenario, ordered by date.
+   * <p>
+   * The values are expressed in the reporting currency, in the order of {@link #scenariosByDate()}.
+   * The array is a copy.
+   *
+   * @return the scaled profit-and-loss vector
+   */
+  public double[] scaledPnlVector() {
+    return lookups().scaledPnl.clone();
+  }
+
+  /**
+   * Gets the unscaled profit-and-loss at the portfolio level of each scenario, ordered by date.
+   * <p>
+   * The values are expressed in the reporting currency, in the order of {@link #scenariosByDate()}.
+   * The array is a copy.
+   *
+   * @return the unscaled profit-and-loss vector
+   */
+  public double[] unscaledPnlVector() {
+    return lookups().unscaledPnl.clone();
+  }
+
+  // finds the first value whose key matches ignoring case, as String.equalsIgnoreCase does
+  private static <T> Optional<T> find(
+      Map<String, T> map,
+      boolean asciiKeys,
+      List<T> values,
+      Function<T, String> keyFn,
+      String key) {
+
+    // upper-casing is only equivalent to equalsIgnoreCase for ASCII, so other keys are matched by scanning
+    if (asciiKeys && isAscii(key)) {
+      return Optional.ofNullable(map.get(key.toUpperCase(Locale.ROOT)));
+    }
+    return values.stream()
+        .filter(val -> keyFn.apply(val).equalsIgnoreCase(key))
         .findFirst();
   }
 
+  // checks if the string is entirely ASCII
+  private static boolean isAscii(String str) {
+    for (int i = 0; i < str.length(); i++) {
+      if (str.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // gets the lookups, building them on first use
+  private Lookups lookups() {
+    // racing threads build equal lookups, so the field is not locked
+    Lookups result = lookups;
+    if (result == null) {
+      result = new Lookups(indices, scenarios);
+      lookups = result;
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  // the lookups, derived from the indices and scenarios
+  private static final class Lookups {
+    /** The first index for each upper-case name. */
+    private final Map<String, LchMarginIndex> indicesByName;
+    /** The first scenario for each upper-case identifier. */
+    private final Map<String, LchMarginScenario> scenariosById;
+    /** Whether all the index names are ASCII. */
+    private final boolean asciiIndexNames;
+    /** Whether all the scenario identifiers are ASCII. */
+    private final boolean asciiScenarioIds;
+    /** The scenarios ordered by date. */
+    private final List<LchMarginScenario> scenariosByDate;
+    /** The scaled profit-and-loss, ordered by date. */
+    private final double[] scaledPnl;
+    /** The unscaled profit-and-loss, ordered by date. */
+    private final double[] unscaledPnl;
+
+    private Lookups(List<LchMarginIndex> indices, List<LchMarginScenario> scenarios) {
+      boolean asciiIndexNames = true;
+      Map<String, LchMarginIndex> indicesByName = new HashMap<>();
+      for (LchMarginIndex index : indices) {
+        asciiIndexNames &= isAscii(index.getIndexName());
+        indicesByName.putIfAbsent(index.getIndexName().toUpperCase(Locale.ROOT), index);
+      }
+      boolean asciiScenarioIds = true;
+      Map<String, LchMarginScenario> scenariosById = new HashMap<>();
+      for (LchMarginScenario scenario : scenarios) {
+        asciiScenarioIds &= isAscii(scenario.getId());
+        scenariosById.putIfAbsent(scenario.getId().toUpperCase(Locale.ROOT), scenario);
+      }
+      List<LchMarginScenario> scenariosByDate = new ArrayList<>(scenarios);
+      scenariosByDate.sort(Comparator.comparing(LchMarginScenario::getDate, Comparator.nullsLast(Comparator.naturalOrder())));
+      double[] scaledPnl = new double[scenariosByDate.size()];
+      double[] unscaledPnl = new double[scenariosByDate.size()];
+      for (int i = 0; i < scaledPnl.length; i++) {
+        scaledPnl[i] = scenariosByDate.get(i).getScaledPortfolioPnl();
+        unscaledPnl[i] = scenariosByDate.get(i).getUnscaledPortfolioPnl();
+      }
+      this.indicesByName = indicesByName;
+      this.scenariosById = scenariosById;
+      this.asciiIndexNames = asciiIndexNames;
+      this.asciiScenarioIds = asciiScenarioIds;
+      this.scenariosByDate = Collections.unmodifiableList(scenariosByDate);
+      this.scaledPnl = scaledPnl;
+      this.unscaledPnl = unscaledPnl;
+    }
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code LchMarginDetail}.
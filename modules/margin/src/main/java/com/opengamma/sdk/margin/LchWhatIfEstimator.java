@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Estimates the LCH margin of adding candidate trades to a base portfolio, without calling the service.
+ * <p>
+ * When {@link MarginCalcType#MARGIN_DETAIL MARGIN_DETAIL} is requested, the LCH margin detail includes
+ * the scaled profit-and-loss of the portfolio under each scenario. Adding the profit-and-loss of a candidate
+ * to that of the base portfolio, and recalculating the expected shortfall over the tail, estimates the
+ * change of margin in microseconds. This allows thousands of candidates to be screened,
+ * with only the most promising sent to {@link MarginClient#calculateWhatIf(Ccp, MarginCalcRequest, List)}
+ * to obtain the authoritative margin.
+ * <p>
+ * The estimate is approximate. The margin detail only contains the scenarios that were actively used,
+ * thus a scenario of the base that is not in the detail of a candidate is treated as having no
+ * profit-and-loss for the candidate, and scenarios of the candidate that are not in the base are ignored.
+ * Add-ons are not recalculated.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class LchWhatIfEstimator {
+
+  /**
+   * The base margin detail.
+   */
+  private final LchMarginDetail base;
+  /**
+   * The scenario identifiers, defining the order of the vectors.
+   */
+  private final List<String> scenarioIds;
+  /**
+   * The scaled profit-and-loss of the base portfolio.
+   */
+  private final double[] basePnl;
+  /**
+   * The number of scenarios in the tail.
+   */
+  private final int tailSize;
+  /**
+   * The expected shortfall of the base portfolio.
+   */
+  private final double baseShortfall;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance from the result of a base portfolio calculation.
+   *
+   * @param base  the result of the base portfolio, which must contain LCH margin detail
+   * @return the estimator
+   * @throws IllegalArgumentException if the result does not contain LCH margin detail
+   */
+  public static LchWhatIfEstimator of(MarginCalcResult base) {
+    Objects.requireNonNull(base, "base must not be null");
+    Optional<MarginDetail> detail = base.getMarginDetail();
+    if (!detail.isPresent() || !(detail.get() instanceof LchMarginDetail)) {
+      throw new IllegalArgumentException("Result must contain LCH margin detail, request MARGIN_DETAIL from LCH");
+    }
+    return of((LchMarginDetail) detail.get());
+  }
+
+  /**
+   * Obtains an instance from the margin detail of a base portfolio.
+   * <p>
+   * The size of the tail is the number of base scenarios, being those used by LCH to calculate margin.
+   *
+   * @param base  the LCH margin detail of the base portfolio
+   * @return the estimator
+   * @throws IllegalArgumentException if the detail has no scenarios
+   */
+  public static LchWhatIfEstimator of(LchMarginDetail base) {
+    Objects.requireNonNull(base, "base must not be null");
+    List<LchMarginScenario> scenarios = base.scenariosByDate();
+    if (scenarios.isEmpty()) {
+      throw new IllegalArgumentException("Margin detail must contain scenarios");
+    }
+    List<String> scenarioIds = new ArrayList<>(scenarios.size());
+    for (LchMarginScenario scenario : scenarios) {
+      scenarioIds.add(scenario.getId());
+    }
+    int tailSize = Math.min(Math.max(base.getBaseScenarioIds().size(), 1), scenarios.size());
+    return new LchWhatIfEstimator(base, scenarioIds, base.scaledPnlVector(), tailSize);
+  }
+
+  // creates an instance
+  private LchWhatIfEstimator(LchMarginDetail base, List<String> scenarioIds, double[] basePnl, int tailSize) {
+    this.base = base;
+    this.scenarioIds = Collections.unmodifiableList(scenarioIds);
+    this.basePnl = basePnl;
+    this.tailSize = tailSize;
+    this.baseShortfall = LchMarginAnalysis.expectedShortfall(basePnl.clone(), tailSize);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the scenario identifiers.
+   * <p>
+   * This defines the order of the profit-and-loss vectors accepted by this class.
+   *
+   * @return the scenario identifiers
+   */
+  public List<String> getScenarioIds() {
+    return scenarioIds;
+  }
+
+  /**
+   * Gets the number of scenarios in the tail used to calculate the expected shortfall.
+   *
+   * @return the number of scenarios in the tail
+   */
+  public int getTailSize() {
+    return tailSize;
+  }
+
+  /**
+   * Gets the total margin of the base portfolio, as calculated by the service.
+   *
+   * @return the total margin, expressed in the reporting currency
+   */
+  public double getBaseMargin() {
+    return base.getTotalMargin();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Aligns the scaled profit-and-loss of a candidate to the scenarios of the base.
+   * <p>
+   * The candidate detail would typically be obtained by calculating the candidate trades on their own.
+   * The result can be reused to estimate the margin of the candidate many times over.
+   *
+   * @param candidate  the LCH margin detail of the candidate
+   * @return the profit-and-loss of the candidate, in the order of {@link #getScenarioIds()}
+   */
+  public double[] alignPnl(LchMarginDetail candidate) {
+    Objects.requireNonNull(candidate, "candidate must not be null");
+    double[] result = new double[scenarioIds.size()];
+    for (int i = 0; i < result.length; i++) {
+      Optional<LchMarginScenario> scenario = candidate.findScenario(scenarioIds.get(i));
+      result[i] = scenario.isPresent() ? scenario.get().getScaledPortfolioPnl() : 0;
+    }
+    return result;
+  }
+
+  /**
+   * Estimates the change of margin caused by adding a candidate to the base portfolio.
+   *
+   * @param candidatePnl  the scaled profit-and-loss of the candidate, in the order of {@link #getScenarioIds()}
+   * @return the estimated change of margin, expressed in the reporting currency
+   * @throws IllegalArgumentException if the vector is the wrong length
+   */
+  public double estimateMarginChange(double[] candidatePnl) {
+    if (candidatePnl.length != basePnl.length) {
+      throw new IllegalArgumentException(
+          "Profit-and-loss vector must have " + basePnl.length + " scenarios, but had " + candidatePnl.length);
+    }
+    double[] combined = new double[basePnl.length];
+    for (int i = 0; i < combined.length; i++) {
+      combined[i] = basePnl[i] + candidatePnl[i];
+    }
+    return LchMarginAnalysis.expectedShortfall(combined, tailSize) - baseShortfall;
+  }
+
+  /**
+   * Estimates the change of margin caused by adding a candidate to the base portfolio.
+   *
+   * @param candidate  the LCH margin detail of the candidate
+   * @return the estimated change of margin, expressed in the reporting currency
+   */
+  public double estimateMarginChange(LchMarginDetail candidate) {
+    return estimateMarginChange(alignPnl(candidate));
+  }
+
+  /**
+   * Estimates the total margin of the base portfolio combined with a candidate.
+   * <p>
+   * This is the total margin of the base portfolio plus the estimated change of margin.
+   *
+   * @param candidatePnl  the scaled profit-and-loss of the candidate, in the order of {@link #getScenarioIds()}
+   * @return the estimated total margin, expressed in the reporting currency
+   * @throws IllegalArgumentException if the vector is the wrong length
+   */
+  public double estimateMargin(double[] candidatePnl) {
+    return base.getTotalMargin() + estimateMarginChange(candidatePnl);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "LchWhatIfEstimator{scenarios=" + basePnl.length + ", tailSize=" + tailSize + "}";
+  }
+
+}
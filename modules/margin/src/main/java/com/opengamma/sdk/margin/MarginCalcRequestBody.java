@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static com.opengamma.sdk.common.ServiceInvoker.MEDIA_JSON;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.joda.beans.ser.JodaBeanSer;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body that streams a calculation request to the server.
+ * <p>
+ * The JSON for the request is written without the portfolio data, which is then written directly
+ * to the sink, such that the request as a whole is never held in memory as a single {@code String}.
+ * Streamed portfolio data is read, compressed and encoded from the file as it is written.
+ * <p>
+ * The body can be written more than once, allowing the request to be retried.
+ */
+final class MarginCalcRequestBody extends RequestBody {
+
+  /**
+   * The serializer.
+   */
+  private final JodaBeanSer serializer;
+  /**
+   * The request.
+   */
+  private final MarginCalcRequest request;
+
+  //-------------------------------------------------------------------------
+  // creates an instance
+  MarginCalcRequestBody(JodaBeanSer serializer, MarginCalcRequest request) {
+    this.serializer = Objects.requireNonNull(serializer, "serializer must not be null");
+    this.request = Objects.requireNonNull(request, "request must not be null");
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public MediaType contentType() {
+    return MEDIA_JSON;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    // write the JSON with a placeholder for the data of each file
+    // the random marker ensures that the placeholder cannot clash with any other content
+    String marker = "-" + UUID.randomUUID() + "-";
+    List<PortfolioDataFile> files = request.getPortfolioData();
+    List<PortfolioDataFile> placeholders = new ArrayList<>(files.size());
+    for (int i = 0; i < files.size(); i++) {
+      placeholders.add((PortfolioDataFile) PortfolioDataFile.meta().builder()
+          .set("name", files.get(i).getName())
+          .set("data", marker + i + marker)
+          .build());
+    }
+    String envelope = serializer.jsonWriter().write(request.toBuilder().portfolioData(placeholders).build(), false);
+
+    // write the JSON, replacing each placeholder with the data
+    int pos = 0;
+    for (int i = 0; i < files.size(); i++) {
+      String placeholder = '"' + marker + i + marker + '"';
+      int index = envelope.indexOf(placeholder, pos);
+      if (index < 0) {
+        throw new IllegalStateException("Unable to find portfolio data placeholder in JSON");
+      }
+      sink.writeUtf8(envelope, pos, index + 1);
+      PortfolioDataFile file = files.get(i);
+      if (file.isStreamed()) {
+        file.writeStreamedData(sink.outputStream());
+      } else {
+        writeJsonStringContent(sink, file.getData());
+      }
+      pos = index + placeholder.length() - 1;
+    }
+    sink.writeUtf8(envelope, pos, envelope.length());
+  }
+
+  // writes the content of a JSON string, escaping as necessary, without copying the string
+  private static void writeJsonStringContent(BufferedSink sink, String str) throws IOException {
+    int start = 0;
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      if (ch == '"' || ch == '\\' || ch < 0x20) {
+        sink.writeUtf8(str, start, i);
+        switch (ch) {
+          case '"':
+            sink.writeUtf8("\\\"");
+            break;
+          case '\\':
+            sink.writeUtf8("\\\\");
+            break;
+          case '\n':
+            sink.writeUtf8("\\n");
+            break;
+          case '\r':
+            sink.writeUtf8("\\r");
+            break;
+          case '\t':
+            sink.writeUtf8("\\t");
+            break;
+          default:
+            sink.writeUtf8(String.format(Locale.ENGLISH, "\\u%04x", (int) ch));
+            break;
+        }
+        start = i + 1;
+      }
+    }
+    sink.writeUtf8(str, start, str.length());
+  }
+
+}
@@ -12,6 +12,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -143,6 +144,23 @@ public final class MarginCalcResult implements ImmutableBean {
         failures);
   }
 
+  /**
+   * Parses a result from the JSON form used by the service.
+   * <p>
+   * The result is read in the same way as {@link MarginClient} reads it, including the margin detail
+   * specific to the CCP. This allows a result that has been saved as JSON to be read again.
+   *
+   * @param ccp  the CCP that calculated the result
+   * @param json  the JSON
+   * @return the result
+   * @throws RuntimeException if the JSON is invalid
+   */
+  public static MarginCalcResult parseJson(Ccp ccp, String json) {
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(json, "json must not be null");
+    return InvokerMarginClient.resultSerializer(ccp).jsonReader().read(json, MarginCalcResult.class);
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Gets the type of the calculation request.
@@ -6,9 +6,13 @@
 package com.opengamma.sdk.margin;
 
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
+import com.opengamma.sdk.common.PollingStrategy;
 import com.opengamma.sdk.common.ServiceInvoker;
 
 /**
@@ -16,6 +20,11 @@ import com.opengamma.sdk.common.ServiceInvoker;
  */
 public interface MarginClient {
 
+  /**
+   * The default maximum number of calculations in flight when calculating a batch.
+   */
+  public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+
   /**
    * Obtains an instance, specifying the invoker to use.
    * <p>
@@ -28,6 +37,22 @@ public interface MarginClient {
     return InvokerMarginClient.of(invoker);
   }
 
+  /**
+   * Obtains an instance, specifying the invoker to use and the limiter of concurrent requests.
+   * <p>
+   * The {@link ServiceInvoker} provides authentication.
+   * The {@link MarginLimiter} limits the number of requests in progress for each CCP and operation,
+   * adapting to the load on the server, which avoids overloading the server when calculating
+   * many portfolios across many CCPs.
+   *
+   * @param invoker  the service invoker
+   * @param limiter  the limiter of concurrent requests
+   * @return the client
+   */
+  public static MarginClient of(ServiceInvoker invoker, MarginLimiter limiter) {
+    return InvokerMarginClient.of(invoker, limiter);
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Lists the available CCPs.
@@ -96,11 +121,59 @@ public interface MarginClient {
    */
   public abstract MarginCalcResult calculate(Ccp ccp, MarginCalcRequest request);
 
+  /**
+   * High-level call to submit a portfolio for parsing, validation and IM calculation,
+   * specifying how to poll for the result.
+   * <p>
+   * This is identical to {@link #calculate(Ccp, MarginCalcRequest)}, except that the specified
+   * polling strategy is used instead of the one from the service invoker.
+   * <p>
+   * The default implementation uses {@link #createCalculation(Ccp, MarginCalcRequest)},
+   * then {@link #getCalculation(Ccp, String)} until the calculation completes, waiting as specified
+   * by the polling strategy before each poll. The calculation is then deleted.
+   * As these methods do not expose the {@code Retry-After} hint of the server, the strategy is not given a hint.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the detailed result of the calculation
+   * @throws MarginException if unable to calculate
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public default MarginCalcResult calculate(Ccp ccp, MarginCalcRequest request, PollingStrategy pollingStrategy) {
+    return PolledCalculation.calculate(this, ccp, request, pollingStrategy);
+  }
+
+  /**
+   * High-level call to submit a portfolio for parsing, validation and IM calculation,
+   * where the margin detail and trade valuations of the result are only decoded when first accessed.
+   * <p>
+   * This is identical to {@link #calculate(Ccp, MarginCalcRequest)}, except for the form of the result.
+   * The summary, including the margin, is read when the result is received, while the margin detail
+   * and trade valuations are held in a compact form. This reduces the memory used where many results
+   * are held, but the detail is rarely accessed.
+   * <p>
+   * The default implementation wraps the result of {@link #calculate(Ccp, MarginCalcRequest)},
+   * such that the margin detail and trade valuations are already decoded, and no memory is saved.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @return the result of the calculation
+   * @throws MarginException if unable to calculate
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public default LazyMarginCalcResult calculateLazy(Ccp ccp, MarginCalcRequest request) {
+    return LazyMarginCalcResult.ofDecoded(calculate(ccp, request));
+  }
+
   /**
    * High-level call to submit a portfolio for parsing, validation and IM calculation,
    * performing the work on a background thread.
    * <p>
    * This will use the executor from the service invoker to perform the background work.
+   * All pending calculations from this client are polled from a single shared loop,
+   * with the number of polls in progress at once limited to the maximum number of requests
+   * per host of the HTTP client's dispatcher.
    * <p>
    * Callers should consider whether to use {@link CompletableFuture#get(long, java.util.concurrent.TimeUnit)}
    * to enforce a time out on the calculation.
@@ -112,6 +185,138 @@ public interface MarginClient {
    */
   public abstract CompletableFuture<MarginCalcResult> calculateAsync(Ccp ccp, MarginCalcRequest request);
 
+  /**
+   * High-level call to submit a portfolio for parsing, validation and IM calculation,
+   * performing the work on a background thread and specifying how to poll for the result.
+   * <p>
+   * This is identical to {@link #calculateAsync(Ccp, MarginCalcRequest)}, except that the specified
+   * polling strategy is used instead of the one from the service invoker.
+   * <p>
+   * The default implementation is the async equivalent of the default implementation of
+   * {@link #calculate(Ccp, MarginCalcRequest, PollingStrategy)}. The blocking methods of this interface
+   * are called, and the delay between polls timed, on a shared pool of daemon threads.
+   * Cancelling the future stops polling and deletes the calculation.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the detailed result of the calculation, expressed via a future
+   * @throws RuntimeException if unable to setup the async calculation
+   */
+  public default CompletableFuture<MarginCalcResult> calculateAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    return PolledCalculation.calculateAsync(this, ccp, request, pollingStrategy);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * High-level call to submit a batch of portfolios for parsing, validation and IM calculation,
+   * performing the work on background threads.
+   * <p>
+   * This is identical to {@link #calculateAll(Ccp, List, int)} with a window of
+   * {@value #DEFAULT_MAX_IN_FLIGHT} calculations.
+   * <p>
+   * The default implementation calls {@link #calculateAll(Ccp, List, int)}.
+   *
+   * @param ccp  the CCP to use
+   * @param requests  the calculation requests
+   * @return the detailed results of the calculations, expressed via futures in the same order as the requests
+   * @throws RuntimeException if unable to setup the async calculations
+   */
+  public default List<CompletableFuture<MarginCalcResult>> calculateAll(Ccp ccp, List<MarginCalcRequest> requests) {
+    return calculateAll(ccp, requests, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * High-level call to submit a batch of portfolios for parsing, validation and IM calculation,
+   * performing the work on background threads and limiting the number of calculations in flight.
+   * <p>
+   * Calculations are submitted to the server in order, with at most {@code maxInFlight}
+   * created but not yet complete at any one time. As each calculation completes, its future
+   * is completed and the next request is submitted, so results can be consumed as they arrive
+   * by attaching callbacks, such as {@link CompletableFuture#thenAccept}, to the futures.
+   * Server state is deleted in the background once each result is known.
+   * <p>
+   * A failure in one calculation completes only the matching future exceptionally,
+   * the remaining calculations continue.
+   * <p>
+   * The default implementation submits each request using {@link #calculateAsync(Ccp, MarginCalcRequest)}.
+   *
+   * @param ccp  the CCP to use
+   * @param requests  the calculation requests
+   * @param maxInFlight  the maximum number of calculations in flight at any one time, at least one
+   * @return the detailed results of the calculations, expressed via futures in the same order as the requests
+   * @throws IllegalArgumentException if the maximum in flight is less than one
+   * @throws RuntimeException if unable to setup the async calculations
+   */
+  public default List<CompletableFuture<MarginCalcResult>> calculateAll(
+      Ccp ccp,
+      List<MarginCalcRequest> requests,
+      int maxInFlight) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    return CalculationBatch.start(requests, maxInFlight, request -> calculateAsync(ccp, request));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * High-level call to stream portfolios for parsing, validation and IM calculation,
+   * with the rate of calculation controlled by the consumer of the results.
+   * <p>
+   * This is identical to {@link #calculateStream(Iterator, int)} with a maximum of
+   * {@value #DEFAULT_MAX_IN_FLIGHT} calculations in flight.
+   * <p>
+   * The default implementation calls {@link #calculateStream(Iterator, int)}.
+   *
+   * @param requests  the calculation requests, each with the CCP to use,
+   *   which are only read when a calculation is to be started
+   * @return the publisher of the detailed results of the calculations, which supports a single subscriber
+   */
+  public default CalculationFlow.Publisher<MarginCalcResult> calculateStream(Iterator<CcpCalcRequest> requests) {
+    return calculateStream(requests, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * High-level call to stream portfolios for parsing, validation and IM calculation,
+   * with the rate of calculation controlled by the consumer of the results.
+   * <p>
+   * Nothing is submitted to the server until a subscriber requests results.
+   * A calculation is only created when the subscriber has requested a result that is not already
+   * covered by a calculation created but not yet delivered, with at most {@code maxInFlight} incomplete
+   * at any one time. As such, a slow subscriber throttles the calculations, and completed results waiting
+   * to be delivered never exceed the outstanding demand.
+   * The requests are read from the iterator one at a time, so they can be produced lazily.
+   * Each request specifies its CCP, thus a single stream can calculate for several CCPs.
+   * <p>
+   * Results are delivered in the same order as the requests, thus a slow calculation holds back
+   * the delivery of later results that have already completed. Those completed results do not count
+   * against {@code maxInFlight}, so further calculations are created while the slow one completes.
+   * Server state is deleted in the background once each result is known.
+   * If a calculation fails, the failure is delivered to {@code onError} as soon as it is known,
+   * without waiting for earlier results or for demand, and no more calculations are started.
+   * Cancelling the subscription, or a failure, stops further calculations from being started,
+   * and cancels the calculations in progress, deleting them from the server.
+   * <p>
+   * The default implementation starts each calculation using {@link #calculateAsync(Ccp, MarginCalcRequest)},
+   * and cancels a calculation in progress by cancelling its future.
+   *
+   * @param requests  the calculation requests, each with the CCP to use,
+   *   which are only read when a calculation is to be started
+   * @param maxInFlight  the maximum number of calculations in flight at any one time, at least one
+   * @return the publisher of the detailed results of the calculations, which supports a single subscriber
+   * @throws IllegalArgumentException if the maximum in flight is less than one
+   */
+  public default CalculationFlow.Publisher<MarginCalcResult> calculateStream(
+      Iterator<CcpCalcRequest> requests,
+      int maxInFlight) {
+
+    return CalculationStream.publisher(
+        requests, maxInFlight, request -> calculateAsync(request.getCcp(), request.getRequest()));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * High-level call to submit a base portfolio together with an extra set of trades,
@@ -119,6 +324,10 @@ public interface MarginClient {
    * <p>
    * This will return the margin summary for the base request, the combined request (base portfolio + delta portfolio),
    * and the difference between the two.
+   * <p>
+   * If the thread is interrupted while this method is blocked, then a runtime exception
+   * is thrown, but with the interrupt flag set.
+   * For additional control, use {@link #calculateWhatIfAsync(Ccp, MarginCalcRequest, List)}.
    *
    * @param ccp  the CCP to use
    * @param request  the calculation request
@@ -132,4 +341,98 @@ public interface MarginClient {
       MarginCalcRequest request,
       List<PortfolioDataFile> deltaFiles);
 
+  /**
+   * High-level call to submit a base portfolio together with an extra set of trades,
+   * for parsing, validation and IM calculation, performing the work on background threads.
+   * <p>
+   * The base and combined calculations are uploaded and polled concurrently using the shared polling loop,
+   * such that the future completes as soon as both have finished.
+   * Server state is deleted in the background once each result is known.
+   * If either calculation fails, the other is cancelled, stopping it and deleting it from the server.
+   * Cancelling the returned future, which includes interrupting the blocking method, cancels both.
+   * <p>
+   * The default implementation calculates the base and combined portfolios using
+   * {@link #calculateAsync(Ccp, MarginCalcRequest)}.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param deltaFiles  the portfolios representing the extra trades for the what-if scenario
+   * @return the detailed result of the calculation, expressed via a future
+   * @throws RuntimeException if unable to setup the async calculation
+   */
+  public default CompletableFuture<MarginWhatIfCalcResult> calculateWhatIfAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<PortfolioDataFile> deltaFiles) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    MarginCalcRequest combinedRequest = InvokerMarginClient.combinedRequest(request, deltaFiles);
+    CompletableFuture<MarginCalcResult> base = calculateAsync(ccp, request);
+    CompletableFuture<MarginCalcResult> combined = calculateAsync(ccp, combinedRequest);
+    return InvokerMarginClient.whatIfResult(request, base, combined);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * High-level call to submit a base portfolio together with a number of candidate sets of extra trades,
+   * for parsing, validation and IM calculation.
+   * <p>
+   * This is equivalent to calling {@link #calculateWhatIf(Ccp, MarginCalcRequest, List)} once for each candidate,
+   * except that the base portfolio is only submitted and calculated once, and the candidates are
+   * calculated concurrently, with at most {@value #DEFAULT_MAX_IN_FLIGHT} in flight at any one time.
+   * <p>
+   * If the thread is interrupted while this method is blocked, then a runtime exception
+   * is thrown, but with the interrupt flag set.
+   * <p>
+   * The default implementation blocks on {@link #calculateWhatIfScenariosAsync(Ccp, MarginCalcRequest, List)}.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request for the base portfolio
+   * @param candidateDeltaFiles  the candidate sets of portfolios, each representing the extra trades for one scenario
+   * @return the detailed result of the calculation for each candidate, in the same order as the candidates
+   * @throws MarginException if unable to calculate
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public default List<MarginWhatIfCalcResult> calculateWhatIfScenarios(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<List<PortfolioDataFile>> candidateDeltaFiles) {
+
+    return InvokerMarginClient.join(calculateWhatIfScenariosAsync(ccp, request, candidateDeltaFiles));
+  }
+
+  /**
+   * High-level call to submit a base portfolio together with a number of candidate sets of extra trades,
+   * for parsing, validation and IM calculation, performing the work on background threads.
+   * <p>
+   * This is the async equivalent of {@link #calculateWhatIfScenarios(Ccp, MarginCalcRequest, List)}.
+   * The future completes exceptionally if the base or any candidate fails,
+   * in which case the calculations still in progress are cancelled.
+   * Cancelling the returned future cancels the base and all the candidates.
+   * <p>
+   * The default implementation calculates the base and candidates using {@link #calculateAsync(Ccp, MarginCalcRequest)}.
+   *
+   * @param ccp  the CCP to use
+   * @param request  the calculation request for the base portfolio
+   * @param candidateDeltaFiles  the candidate sets of portfolios, each representing the extra trades for one scenario
+   * @return the detailed results, in the same order as the candidates, expressed via a future
+   * @throws RuntimeException if unable to setup the async calculation
+   */
+  public default CompletableFuture<List<MarginWhatIfCalcResult>> calculateWhatIfScenariosAsync(
+      Ccp ccp,
+      MarginCalcRequest request,
+      List<List<PortfolioDataFile>> candidateDeltaFiles) {
+
+    Objects.requireNonNull(ccp, "ccp must not be null");
+    Objects.requireNonNull(candidateDeltaFiles, "candidateDeltaFiles must not be null");
+    List<MarginCalcRequest> combinedRequests = new ArrayList<>(candidateDeltaFiles.size());
+    for (List<PortfolioDataFile> deltaFiles : candidateDeltaFiles) {
+      combinedRequests.add(InvokerMarginClient.combinedRequest(request, deltaFiles));
+    }
+    CompletableFuture<MarginCalcResult> base = calculateAsync(ccp, request);
+    List<CompletableFuture<MarginCalcResult>> combined =
+        CalculationBatch.start(combinedRequests, DEFAULT_MAX_IN_FLIGHT, combinedRequest -> calculateAsync(ccp, combinedRequest));
+    return InvokerMarginClient.whatIfResults(request, base, combined);
+  }
+
 }
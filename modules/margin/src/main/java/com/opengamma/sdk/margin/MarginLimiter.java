@@ -0,0 +1,573 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Response;
+
+/**
+ * Limits the number of concurrent requests to the margin service, adapting the limit to the load on the server.
+ * <p>
+ * Each combination of {@link Ccp} and {@link MarginOperation} has a separate window, which is the number
+ * of requests that may be in progress at once, a request being in progress until its response has been read.
+ * Requests beyond the window wait, in order, for a request to complete.
+ * The window follows additive-increase/multiplicative-decrease (AIMD):
+ * <ul>
+ * <li>each successful response while the window is full increases the window by one divided by the window,
+ *  thus the window grows by roughly one for each window of requests, up to the maximum
+ * <li>a 429 (Too Many Requests) or 503 (Service Unavailable) response reduces the window by the backoff ratio,
+ *  down to one, and if the response has a {@code Retry-After} header, no more requests are sent for that
+ *  window until the time has passed
+ * <li>a successful response that took longer than the latency tolerance multiplied by the lowest recent latency
+ *  reduces the window in the same way, as a rising latency indicates that requests are queuing on the server
+ * </ul>
+ * The lowest recent latency is taken over the last 100 to 200 successful responses, such that the baseline
+ * follows a lasting change in latency rather than holding on to a single fast response.
+ * Latency is not used for {@link MarginOperation#CREATE_CALCULATION} by default, as the time taken includes
+ * uploading the portfolio, which depends on its size rather than the load on the server.
+ * The window is reduced at most once for each set of requests in progress, such that a burst of
+ * rejections caused by a single overload only reduces the window once.
+ * Other errors, and failures to connect, do not change the window.
+ * <p>
+ * Whether or not a limiter is used, the client retries a request rejected with 429 or 503 a few times,
+ * after the delay in the {@code Retry-After} header, or an increasing delay if there is none.
+ * With a limiter, each retry waits for the window again.
+ * <p>
+ * A limiter is passed to {@link MarginClient#of(com.opengamma.sdk.common.ServiceInvoker, MarginLimiter)}.
+ * The same limiter may be shared between clients using the same service.
+ * <p>
+ * This class is mutable and thread-safe.
+ */
+public final class MarginLimiter {
+
+  /**
+   * The default initial window.
+   */
+  private static final int DEFAULT_INITIAL_LIMIT = 8;
+  /**
+   * The default maximum window.
+   */
+  private static final int DEFAULT_MAX_LIMIT = 64;
+  /**
+   * The default backoff ratio.
+   */
+  private static final double DEFAULT_BACKOFF_RATIO = 0.5;
+  /**
+   * The default latency tolerance.
+   */
+  private static final double DEFAULT_LATENCY_TOLERANCE = 3;
+  /**
+   * The number of successful responses in each set used to find the lowest recent latency.
+   */
+  private static final int LATENCY_SAMPLES = 100;
+
+  /**
+   * The settings used when there is no specific setting.
+   */
+  private final Settings defaultSettings;
+  /**
+   * The settings for each operation.
+   */
+  private final Map<MarginOperation, Settings> operationSettings;
+  /**
+   * The settings for each CCP and operation.
+   */
+  private final Map<WindowKey, Settings> ccpSettings;
+  /**
+   * The factor that the window is multiplied by when reduced.
+   */
+  private final double backoffRatio;
+  /**
+   * The latency tolerance, zero if latency does not reduce the window.
+   */
+  private final double latencyTolerance;
+  /**
+   * The latency tolerance for each operation.
+   */
+  private final Map<MarginOperation, Double> operationLatencyTolerances;
+  /**
+   * The windows, created when first used.
+   */
+  private final ConcurrentMap<WindowKey, Window> windows = new ConcurrentHashMap<>();
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance with the standard settings.
+   * <p>
+   * Each window starts at 8 requests and may grow to 64 requests.
+   * The window halves when the server is overloaded, or when the latency is more than three times the lowest recent
+   * latency, except for creating calculations, where latency is not used.
+   *
+   * @return the limiter
+   */
+  public static MarginLimiter adaptive() {
+    return builder().build();
+  }
+
+  /**
+   * Returns a builder used to create an instance.
+   * <p>
+   * The builder is initialized with the standard settings, as used by {@link #adaptive()}.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  // creates an instance
+  private MarginLimiter(Builder builder) {
+    this.defaultSettings = builder.defaultSettings;
+    this.operationSettings = new HashMap<>(builder.operationSettings);
+    this.ccpSettings = new HashMap<>(builder.ccpSettings);
+    this.backoffRatio = builder.backoffRatio;
+    this.latencyTolerance = builder.latencyTolerance;
+    this.operationLatencyTolerances = new HashMap<>(builder.operationLatencyTolerances);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the current window for a CCP and operation.
+   * <p>
+   * This is the number of requests that may currently be in progress at once,
+   * which may be useful for monitoring.
+   *
+   * @param ccp  the CCP, null for an operation that is not specific to a CCP, such as listing the CCPs
+   * @param operation  the operation
+   * @return the current window
+   */
+  public int getLimit(Ccp ccp, MarginOperation operation) {
+    Objects.requireNonNull(operation, "operation must not be null");
+    return window(ccp, operation).limit();
+  }
+
+  //-------------------------------------------------------------------------
+  // acquires a permit to send a request, the future completes when the window allows
+  // the executor is used to wake waiting requests after a Retry-After pause
+  CompletableFuture<Permit> acquire(Ccp ccp, MarginOperation operation, ScheduledExecutorService executor) {
+    return window(ccp, operation).acquire(executor);
+  }
+
+  // finds or creates the window
+  private Window window(Ccp ccp, MarginOperation operation) {
+    WindowKey key = new WindowKey(ccp, operation);
+    Window window = windows.get(key);
+    return window != null ? window : windows.computeIfAbsent(
+        key, k -> new Window(settings(k), operationLatencyTolerances.getOrDefault(k.operation, latencyTolerance)));
+  }
+
+  // finds the most specific settings
+  private Settings settings(WindowKey key) {
+    Settings settings = ccpSettings.get(key);
+    if (settings == null) {
+      settings = operationSettings.getOrDefault(key.operation, defaultSettings);
+    }
+    return settings;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "MarginLimiter{backoffRatio=" + backoffRatio + ", latencyTolerance=" + latencyTolerance + "}";
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Builder used to create a {@code MarginLimiter}.
+   * <p>
+   * The most specific limits apply, those for the CCP and operation, then those for the operation,
+   * then the default limits.
+   */
+  public static final class Builder {
+
+    /** The default settings. */
+    private Settings defaultSettings = new Settings(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    /** The settings for each operation. */
+    private final Map<MarginOperation, Settings> operationSettings = new HashMap<>();
+    /** The settings for each CCP and operation. */
+    private final Map<WindowKey, Settings> ccpSettings = new HashMap<>();
+    /** The backoff ratio. */
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+    /** The latency tolerance. */
+    private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+    /** The latency tolerance for each operation. */
+    private final Map<MarginOperation, Double> operationLatencyTolerances = new HashMap<>();
+
+    // creates an instance
+    private Builder() {
+      operationLatencyTolerances.put(MarginOperation.CREATE_CALCULATION, 0d);
+    }
+
+    /**
+     * Sets the limits used where no more specific limits are set.
+     * <p>
+     * The default is an initial window of 8 and a maximum of 64.
+     *
+     * @param initialLimit  the initial window, at least one
+     * @param maxLimit  the maximum window, at least the initial window
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the limits are invalid
+     */
+    public Builder defaultLimits(int initialLimit, int maxLimit) {
+      this.defaultSettings = new Settings(initialLimit, maxLimit);
+      return this;
+    }
+
+    /**
+     * Sets the limits for an operation, applying to all CCPs.
+     *
+     * @param operation  the operation
+     * @param initialLimit  the initial window, at least one
+     * @param maxLimit  the maximum window, at least the initial window
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the limits are invalid
+     */
+    public Builder limits(MarginOperation operation, int initialLimit, int maxLimit) {
+      Objects.requireNonNull(operation, "operation must not be null");
+      operationSettings.put(operation, new Settings(initialLimit, maxLimit));
+      return this;
+    }
+
+    /**
+     * Sets the limits for an operation on a CCP.
+     *
+     * @param ccp  the CCP
+     * @param operation  the operation
+     * @param initialLimit  the initial window, at least one
+     * @param maxLimit  the maximum window, at least the initial window
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the limits are invalid
+     */
+    public Builder limits(Ccp ccp, MarginOperation operation, int initialLimit, int maxLimit) {
+      Objects.requireNonNull(ccp, "ccp must not be null");
+      Objects.requireNonNull(operation, "operation must not be null");
+      ccpSettings.put(new WindowKey(ccp, operation), new Settings(initialLimit, maxLimit));
+      return this;
+    }
+
+    /**
+     * Sets the factor that the window is multiplied by when the server is overloaded.
+     * <p>
+     * The default is 0.5, halving the window.
+     *
+     * @param backoffRatio  the backoff ratio, greater than zero and less than one
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the ratio is invalid
+     */
+    public Builder backoffRatio(double backoffRatio) {
+      if (!(backoffRatio > 0 && backoffRatio < 1)) {
+        throw new IllegalArgumentException("backoffRatio must be greater than zero and less than one");
+      }
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /**
+     * Sets the multiple of the lowest recent latency beyond which the window is reduced.
+     * <p>
+     * This applies to operations without a tolerance set by {@link #latencyTolerance(MarginOperation, double)}.
+     * The default is 3, such that a response taking more than three times as long as the fastest recent
+     * response for the same CCP and operation reduces the window.
+     * Zero disables the use of latency, such that only 429 and 503 responses reduce the window.
+     *
+     * @param latencyTolerance  the latency tolerance, zero or greater than one
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the tolerance is invalid
+     */
+    public Builder latencyTolerance(double latencyTolerance) {
+      this.latencyTolerance = validateLatencyTolerance(latencyTolerance);
+      return this;
+    }
+
+    /**
+     * Sets the multiple of the lowest recent latency beyond which the window is reduced for an operation.
+     * <p>
+     * By default, {@link MarginOperation#CREATE_CALCULATION} has a tolerance of zero, disabling the use of latency,
+     * as the latency depends on the size of the portfolio being uploaded.
+     * Other operations use the tolerance set by {@link #latencyTolerance(double)}.
+     *
+     * @param operation  the operation
+     * @param latencyTolerance  the latency tolerance, zero or greater than one
+     * @return this builder, for method chaining
+     * @throws IllegalArgumentException if the tolerance is invalid
+     */
+    public Builder latencyTolerance(MarginOperation operation, double latencyTolerance) {
+      Objects.requireNonNull(operation, "operation must not be null");
+      operationLatencyTolerances.put(operation, validateLatencyTolerance(latencyTolerance));
+      return this;
+    }
+
+    // validates the latency tolerance
+    private static double validateLatencyTolerance(double latencyTolerance) {
+      if (!(latencyTolerance == 0 || latencyTolerance > 1)) {
+        throw new IllegalArgumentException("latencyTolerance must be zero or greater than one");
+      }
+      return latencyTolerance;
+    }
+
+    /**
+     * Builds the limiter.
+     *
+     * @return the limiter
+     */
+    public MarginLimiter build() {
+      return new MarginLimiter(this);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the limits of a window
+  private static final class Settings {
+    /** The initial window. */
+    private final int initialLimit;
+    /** The maximum window. */
+    private final int maxLimit;
+
+    private Settings(int initialLimit, int maxLimit) {
+      if (initialLimit < 1) {
+        throw new IllegalArgumentException("initialLimit must be at least one");
+      }
+      if (maxLimit < initialLimit) {
+        throw new IllegalArgumentException("maxLimit must not be less than initialLimit");
+      }
+      this.initialLimit = initialLimit;
+      this.maxLimit = maxLimit;
+    }
+  }
+
+  // the key of a window, the CCP is null for operations not specific to a CCP
+  private static final class WindowKey {
+    /** The CCP, may be null. */
+    private final Ccp ccp;
+    /** The operation. */
+    private final MarginOperation operation;
+
+    private WindowKey(Ccp ccp, MarginOperation operation) {
+      this.ccp = ccp;
+      this.operation = operation;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof WindowKey) {
+        WindowKey other = (WindowKey) obj;
+        return Objects.equals(ccp, other.ccp) && operation == other.operation;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(ccp) * 31 + operation.hashCode();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the window for a single CCP and operation, guarded by this
+  private final class Window {
+    /** The maximum window. */
+    private final int maxLimit;
+    /** The latency tolerance, zero if latency does not reduce the window. */
+    private final double latencyTolerance;
+    /** The window, which is fractional to allow additive increase. */
+    private double limit;
+    /** The number of requests in progress. */
+    private int inFlight;
+    /** The lowest latency in the current set of successful responses, in nanoseconds. */
+    private long currentMinLatency = Long.MAX_VALUE;
+    /** The lowest latency in the previous set of successful responses, in nanoseconds. */
+    private long previousMinLatency = Long.MAX_VALUE;
+    /** The number of successful responses in the current set. */
+    private int latencySamples;
+    /** The value of System.nanoTime() when the window was last reduced. */
+    private long reducedAt;
+    /** Whether the window has been reduced. */
+    private boolean reduced;
+    /** The value of System.nanoTime() until which requests are paused, only used if paused. */
+    private long pausedUntil;
+    /** Whether requests are paused. */
+    private boolean paused;
+    /** Whether a task is scheduled to end the pause. */
+    private boolean wakeScheduled;
+    /** The requests waiting for a permit, in order. */
+    private final ArrayDeque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+
+    private Window(Settings settings, double latencyTolerance) {
+      this.limit = settings.initialLimit;
+      this.maxLimit = settings.maxLimit;
+      this.latencyTolerance = latencyTolerance;
+    }
+
+    // gets the current window
+    private synchronized int limit() {
+      return (int) limit;
+    }
+
+    // acquires a permit, or waits for one
+    private CompletableFuture<Permit> acquire(ScheduledExecutorService executor) {
+      CompletableFuture<Permit> future = new CompletableFuture<>();
+      synchronized (this) {
+        if (waiting.isEmpty() && !isPaused() && inFlight < (int) limit) {
+          inFlight++;
+        } else {
+          waiting.add(future);
+          scheduleWake(executor);
+          return future;
+        }
+      }
+      future.complete(new Permit(this, executor));
+      return future;
+    }
+
+    // releases a permit, adjusting the window based on the response
+    private void release(long sentAt, Response response, ScheduledExecutorService executor) {
+      synchronized (this) {
+        boolean full = inFlight >= (int) limit || !waiting.isEmpty();
+        inFlight--;
+        if (response != null) {
+          adjust(sentAt, response, full);
+        }
+        scheduleWake(executor);
+      }
+      grant(executor);
+    }
+
+    // adjusts the window, must be called with the lock held
+    private void adjust(long sentAt, Response response, boolean full) {
+      int code = response.code();
+      if (code == 429 || code == 503) {
+        reduce(sentAt);
+        Duration retryAfter = InvokerMarginClient.parseRetryAfter(response.header("Retry-After"));
+        if (retryAfter != null && !retryAfter.isZero()) {
+          long until = System.nanoTime() + retryAfter.toNanos();
+          if (!paused || until - pausedUntil > 0) {
+            pausedUntil = until;
+            paused = true;
+          }
+        }
+      } else if (response.isSuccessful()) {
+        long latency = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+        long latencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(latency, 1));
+        long baseline = recordLatency(latencyNanos);
+        if (latencyTolerance > 0 && latencyNanos > baseline * latencyTolerance) {
+          reduce(sentAt);
+        } else if (full) {
+          limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+      }
+    }
+
+    // records the latency, returning the lowest recent latency, must be called with the lock held
+    // the lowest is taken over the current and previous sets of samples, so an old fast response is forgotten
+    private long recordLatency(long latencyNanos) {
+      currentMinLatency = Math.min(currentMinLatency, latencyNanos);
+      long baseline = Math.min(currentMinLatency, previousMinLatency);
+      if (++latencySamples == LATENCY_SAMPLES) {
+        previousMinLatency = currentMinLatency;
+        currentMinLatency = Long.MAX_VALUE;
+        latencySamples = 0;
+      }
+      return baseline;
+    }
+
+    // reduces the window, unless it was reduced after the request was sent
+    private void reduce(long sentAt) {
+      if (reduced && sentAt - reducedAt < 0) {
+        return;
+      }
+      limit = Math.max(1, limit * backoffRatio);
+      reducedAt = System.nanoTime();
+      reduced = true;
+    }
+
+    // checks if requests are paused, ending the pause if the time has passed
+    private boolean isPaused() {
+      if (paused && System.nanoTime() - pausedUntil >= 0) {
+        paused = false;
+      }
+      return paused;
+    }
+
+    // schedules a task to grant permits when the pause ends, must be called with the lock held
+    private void scheduleWake(ScheduledExecutorService executor) {
+      if (!isPaused() || wakeScheduled || waiting.isEmpty()) {
+        return;
+      }
+      try {
+        executor.schedule(() -> {
+          synchronized (this) {
+            wakeScheduled = false;
+            scheduleWake(executor);
+          }
+          grant(executor);
+        }, pausedUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+        wakeScheduled = true;
+      } catch (RejectedExecutionException ex) {
+        // invoker closed, waiting requests are granted when the next request completes
+      }
+    }
+
+    // grants permits to waiting requests while the window allows
+    private void grant(ScheduledExecutorService executor) {
+      List<CompletableFuture<Permit>> granted = new ArrayList<>();
+      synchronized (this) {
+        while (!waiting.isEmpty() && !isPaused() && inFlight < (int) limit) {
+          granted.add(waiting.poll());
+          inFlight++;
+        }
+      }
+      for (CompletableFuture<Permit> future : granted) {
+        if (!future.complete(new Permit(this, executor))) {
+          // cancelled while waiting
+          release(System.nanoTime(), null, executor);
+        }
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // permission to send a single request, which must be released exactly once
+  static final class Permit {
+    /** The window. */
+    private final Window window;
+    /** The executor. */
+    private final ScheduledExecutorService executor;
+    /** The value of System.nanoTime() when the permit was granted. */
+    private final long sentAt = System.nanoTime();
+
+    private Permit(Window window, ScheduledExecutorService executor) {
+      this.window = window;
+      this.executor = executor;
+    }
+
+    // releases the permit, adjusting the window based on the response
+    void release(Response response) {
+      window.release(sentAt, response, executor);
+    }
+
+    // releases the permit without adjusting the window, such as when the request failed to connect
+    void release() {
+      window.release(sentAt, null, executor);
+    }
+  }
+
+}
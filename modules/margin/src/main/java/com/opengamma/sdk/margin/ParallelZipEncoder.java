@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Builds a ZIP archive, compressing each file concurrently.
+ * <p>
+ * Each file is deflated into memory on the executor, then the compressed entries are written
+ * in order as a standard ZIP archive. The archive has the same entries, in the same order and with
+ * the same content, as that written by {@link java.util.zip.ZipOutputStream}, but with the sizes and
+ * CRC of each entry written in the local header rather than in a trailing data descriptor.
+ * <p>
+ * ZIP64 is not supported, thus there must be no more than 65,535 files, each smaller than 4Gb.
+ * As the result is a {@code String}, the archive itself is always smaller than 4Gb.
+ */
+final class ParallelZipEncoder {
+
+  /**
+   * The largest file that can be written without ZIP64.
+   */
+  static final long MAX_SIZE = 0xFFFFFFFEL;
+  /**
+   * The largest number of entries that can be written without ZIP64.
+   */
+  static final int MAX_ENTRIES = 0xFFFF;
+  /**
+   * The ZIP version needed to extract deflated entries.
+   */
+  private static final int VERSION = 20;
+  /**
+   * The general purpose flag indicating that the name is UTF-8, as used by {@code ZipOutputStream}.
+   */
+  private static final int FLAG_UTF8 = 0x0800;
+
+  /**
+   * Restricted constructor.
+   */
+  private ParallelZipEncoder() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Combines multiple files into a ZIP archive, compressing the files concurrently, then base-64 the ZIP archive.
+   *
+   * @param paths the files, at least one
+   * @param executor the executor used to compress the files
+   * @param level the compression level
+   * @return the compressed output, as a String
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  static String zipBase64(List<Path> paths, Executor executor, int level) {
+    if (paths.size() > MAX_ENTRIES) {
+      throw new IllegalStateException("Too many portfolio files to ZIP without ZIP64");
+    }
+    List<CompletableFuture<CompressedEntry>> futures = new ArrayList<>(paths.size());
+    for (Path path : paths) {
+      futures.add(CompletableFuture.supplyAsync(() -> compress(path, level), executor));
+    }
+    List<CompressedEntry> entries = new ArrayList<>(paths.size());
+    try {
+      for (CompletableFuture<CompressedEntry> future : futures) {
+        entries.add(future.join());
+      }
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+    long size = 22;
+    for (CompressedEntry entry : entries) {
+      if (entry.size > MAX_SIZE) {
+        throw new IllegalStateException("Portfolio file too large to ZIP without ZIP64");
+      }
+      size += entry.compressed.length + 2L * entry.name.length + 76;
+    }
+    try {
+      try (ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.min(size * 4 / 3 + 4, Integer.MAX_VALUE))) {
+        try (OutputStream baseos = Base64.getEncoder().wrap(baos)) {
+          write(entries, baseos);
+        }
+        return baos.toString("ISO-8859-1");  // base-64 bytes are ASCII, so this is optimal
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to zip base-64 content", ex);
+    }
+  }
+
+  // deflates a single file into memory
+  private static CompressedEntry compress(Path path, int level) {
+    byte[] name = path.getFileName().toString().getBytes(StandardCharsets.UTF_8);
+    CRC32 crc = new CRC32();
+    Deflater deflater = new Deflater(level, true);
+    try {
+      long fileSize = Files.size(path);
+      ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.min(fileSize / 4 + 64, Integer.MAX_VALUE));
+      long size = 0;
+      try (InputStream in = Files.newInputStream(path);
+          DeflaterOutputStream out = new DeflaterOutputStream(baos, deflater, 8192)) {
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = in.read(buf)) >= 0) {
+          crc.update(buf, 0, read);
+          out.write(buf, 0, read);
+          size += read;
+        }
+      }
+      return new CompressedEntry(name, baos.toByteArray(), crc.getValue(), size);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to zip content", ex);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  // writes the ZIP archive
+  private static void write(List<CompressedEntry> entries, OutputStream out) throws IOException {
+    int dosTime = dosTime(LocalDateTime.now());
+    Set<String> names = new HashSet<>();
+    long offset = 0;
+    long[] offsets = new long[entries.size()];
+    for (int i = 0; i < entries.size(); i++) {
+      CompressedEntry entry = entries.get(i);
+      String name = new String(entry.name, StandardCharsets.UTF_8);
+      if (!names.add(name)) {
+        throw new ZipException("duplicate entry: " + name);
+      }
+      offsets[i] = offset;
+      writeInt(out, 0x04034b50);  // local file header signature
+      writeShort(out, VERSION);
+      writeEntryInfo(out, entry, dosTime);
+      writeShort(out, 0);  // extra field length
+      out.write(entry.name);
+      out.write(entry.compressed);
+      offset += 30 + entry.name.length + entry.compressed.length;
+    }
+    long centralOffset = offset;
+    for (int i = 0; i < entries.size(); i++) {
+      CompressedEntry entry = entries.get(i);
+      writeInt(out, 0x02014b50);  // central file header signature
+      writeShort(out, VERSION);  // version made by
+      writeShort(out, VERSION);  // version needed to extract
+      writeEntryInfo(out, entry, dosTime);
+      writeShort(out, 0);  // extra field length
+      writeShort(out, 0);  // comment length
+      writeShort(out, 0);  // disk number
+      writeShort(out, 0);  // internal attributes
+      writeInt(out, 0);  // external attributes
+      writeInt(out, offsets[i]);
+      out.write(entry.name);
+      offset += 46 + entry.name.length;
+    }
+    writeInt(out, 0x06054b50);  // end of central directory signature
+    writeShort(out, 0);  // disk number
+    writeShort(out, 0);  // disk with central directory
+    writeShort(out, entries.size());
+    writeShort(out, entries.size());
+    writeInt(out, offset - centralOffset);
+    writeInt(out, centralOffset);
+    writeShort(out, 0);  // comment length
+  }
+
+  // writes the fields common to the local and central headers, from the flags to the name length
+  private static void writeEntryInfo(OutputStream out, CompressedEntry entry, int dosTime) throws IOException {
+    writeShort(out, FLAG_UTF8);
+    writeShort(out, Deflater.DEFLATED);
+    writeInt(out, dosTime);
+    writeInt(out, entry.crc);
+    writeInt(out, entry.compressed.length);
+    writeInt(out, entry.size);
+    writeShort(out, entry.name.length);
+  }
+
+  // converts the time to MS-DOS format, as used by ZIP
+  private static int dosTime(LocalDateTime time) {
+    return (time.getYear() - 1980) << 25 |
+        time.getMonthValue() << 21 |
+        time.getDayOfMonth() << 16 |
+        time.getHour() << 11 |
+        time.getMinute() << 5 |
+        time.getSecond() >> 1;
+  }
+
+  // writes a little-endian short
+  private static void writeShort(OutputStream out, int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  // writes a little-endian int
+  private static void writeInt(OutputStream out, long value) throws IOException {
+    writeShort(out, (int) (value & 0xFFFF));
+    writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+  }
+
+  //-------------------------------------------------------------------------
+  // a single compressed file
+  private static final class CompressedEntry {
+    /** The UTF-8 name. */
+    private final byte[] name;
+    /** The deflated data. */
+    private final byte[] compressed;
+    /** The CRC-32 of the uncompressed data. */
+    private final long crc;
+    /** The size of the uncompressed data. */
+    private final long size;
+
+    private CompressedEntry(byte[] name, byte[] compressed, long crc, long size) {
+      this.name = name;
+      this.compressed = compressed;
+      this.crc = crc;
+      this.size = size;
+    }
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.opengamma.sdk.common.PollingStrategy;
+
+/**
+ * Calculates by creating, polling and deleting a calculation using the basic methods of a margin client.
+ * <p>
+ * This provides the default implementations of the methods of {@link MarginClient} that take a polling strategy.
+ * The basic methods do not expose the {@code Retry-After} hint of the server, so the strategy is never given a hint.
+ * The async calculation runs the blocking basic methods on a shared pool of daemon threads,
+ * which also times the delay between polls.
+ */
+final class PolledCalculation {
+
+  /**
+   * Restricted constructor.
+   */
+  private PolledCalculation() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Creates the calculation, then polls until it completes, blocking the calling thread.
+   * <p>
+   * The calculation is deleted once the result is known, or polling fails.
+   *
+   * @param client  the client
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the detailed result of the calculation
+   */
+  static MarginCalcResult calculate(
+      MarginClient client,
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    String calcId = client.createCalculation(ccp, request);
+    try {
+      for (int attempt = 0; ; attempt++) {
+        try {
+          Thread.sleep(pollingStrategy.nextDelay(attempt, null).toMillis());
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(ex);
+        }
+        MarginCalcResult result = client.getCalculation(ccp, calcId);
+        if (result.getStatus() == MarginCalcResultStatus.COMPLETED) {
+          return result;
+        }
+      }
+    } finally {
+      deleteQuietly(client, ccp, calcId);
+    }
+  }
+
+  /**
+   * Creates the calculation, then polls until it completes, without blocking the calling thread.
+   * <p>
+   * The calculation is deleted once the result is known, or polling fails.
+   * Cancelling the returned future stops polling and deletes the calculation.
+   *
+   * @param client  the client
+   * @param ccp  the CCP to use
+   * @param request  the calculation request
+   * @param pollingStrategy  the strategy used to decide how long to wait between polls
+   * @return the detailed result of the calculation, expressed via a future
+   */
+  static CompletableFuture<MarginCalcResult> calculateAsync(
+      MarginClient client,
+      Ccp ccp,
+      MarginCalcRequest request,
+      PollingStrategy pollingStrategy) {
+
+    Objects.requireNonNull(pollingStrategy, "pollingStrategy must not be null");
+    CompletableFuture<MarginCalcResult> future = new CompletableFuture<>();
+    schedule(future, Duration.ZERO, () -> {
+      String calcId = client.createCalculation(ccp, request);
+      if (future.isDone()) {
+        // cancelled while being created
+        deleteQuietly(client, ccp, calcId);
+        return;
+      }
+      poll(client, ccp, calcId, pollingStrategy, 0, future);
+    });
+    return future;
+  }
+
+  // schedules the next poll, completing the future and deleting the calculation once the result is known
+  private static void poll(
+      MarginClient client,
+      Ccp ccp,
+      String calcId,
+      PollingStrategy pollingStrategy,
+      int attempt,
+      CompletableFuture<MarginCalcResult> future) {
+
+    Runnable pollTask = () -> {
+      if (future.isDone()) {
+        // cancelled while waiting
+        deleteQuietly(client, ccp, calcId);
+        return;
+      }
+      MarginCalcResult result;
+      try {
+        result = client.getCalculation(ccp, calcId);
+      } catch (RuntimeException ex) {
+        deleteQuietly(client, ccp, calcId);
+        throw ex;
+      }
+      if (result.getStatus() == MarginCalcResultStatus.COMPLETED) {
+        deleteQuietly(client, ccp, calcId);
+        future.complete(result);
+      } else {
+        poll(client, ccp, calcId, pollingStrategy, attempt + 1, future);
+      }
+    };
+    schedule(future, pollingStrategy.nextDelay(attempt, null), pollTask);
+  }
+
+  // schedules the task, completing the future exceptionally if the task fails
+  private static void schedule(CompletableFuture<?> future, Duration delay, Runnable task) {
+    try {
+      Executor.INSTANCE.schedule(
+          () -> {
+            try {
+              task.run();
+            } catch (RuntimeException | Error ex) {
+              future.completeExceptionally(ex);
+            }
+          },
+          delay.toNanos(),
+          TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException ex) {
+      future.completeExceptionally(ex);
+    }
+  }
+
+  // cleanup server state quietly
+  private static void deleteQuietly(MarginClient client, Ccp ccp, String calcId) {
+    try {
+      client.deleteCalculation(ccp, calcId);
+    } catch (RuntimeException ex) {
+      // ignore
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the shared executor, only created when first used
+  // the threads are daemon threads, so that asynchronous calculations do not prevent JVM exit
+  private static final class Executor {
+    private static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      ThreadFactory threadFactory = r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setName("MarginClient-" + t.getName());
+        t.setDaemon(true);
+        return t;
+      };
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors(), threadFactory);
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+}
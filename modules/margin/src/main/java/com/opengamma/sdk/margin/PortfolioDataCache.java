@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of encoded portfolio files.
+ * <p>
+ * Compressing and encoding a large portfolio file is expensive.
+ * Where the same file is submitted many times, such as for what-if calculations, multiple CCPs or re-runs,
+ * this cache allows the encoded data to be reused, provided that the file has not changed.
+ * <p>
+ * Entries are keyed by the absolute path of the file and the encoding options, and are only reused
+ * if the size and last modified time of the file are unchanged. The total size of the encoded data held is bounded,
+ * with the least recently used entries evicted first. Files whose encoded data would exceed
+ * the maximum size on their own are encoded but not cached.
+ * <p>
+ * This class is thread-safe. If two threads request the same uncached file at the same time,
+ * the file may be encoded twice.
+ */
+public final class PortfolioDataCache {
+
+  /**
+   * The maximum total size of the encoded data, in bytes.
+   */
+  private final long maxSize;
+  /**
+   * The entries, in least recently used order, guarded by this.
+   */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The total size of the encoded data, guarded by this.
+   */
+  private long totalSize;
+  /**
+   * The number of hits, guarded by this.
+   */
+  private long hitCount;
+  /**
+   * The number of misses, guarded by this.
+   */
+  private long missCount;
+  /**
+   * The number of evictions, guarded by this.
+   */
+  private long evictionCount;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance, specifying the maximum total size of the encoded data.
+   * <p>
+   * As the encoded data is Base-64, the size is also the number of characters held.
+   *
+   * @param maxSize  the maximum total size of the encoded data, in bytes
+   * @return the cache
+   * @throws IllegalArgumentException if the size is negative
+   */
+  public static PortfolioDataCache ofMaxSize(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must not be negative");
+    }
+    return new PortfolioDataCache(maxSize);
+  }
+
+  // creates an instance
+  private PortfolioDataCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the portfolio data for a file, using the cached encoding if the file is unchanged.
+   * <p>
+   * The result is equal to that of {@link PortfolioDataFile#of(Path)}.
+   *
+   * @param path  the file
+   * @return the portfolio data
+   * @throws IllegalArgumentException if the file does not exist
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public PortfolioDataFile get(Path path) {
+    return get(path, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Gets the portfolio data for a file, specifying how to encode it,
+   * using the cached encoding if the file is unchanged.
+   * <p>
+   * The result is equal to that of {@link PortfolioDataFile#of(Path, PortfolioEncodingOptions)}.
+   * The same file encoded using different options is cached separately.
+   *
+   * @param path  the file
+   * @param options  the options controlling the compression
+   * @return the portfolio data
+   * @throws IllegalArgumentException if the file does not exist
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public PortfolioDataFile get(Path path, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+    Key key = new Key(path.toAbsolutePath(), options);
+    BasicFileAttributes attributes = readAttributes(path);
+    long fileSize = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.fileSize == fileSize && entry.lastModified == lastModified) {
+        hitCount++;
+        return entry.file;
+      }
+      missCount++;
+    }
+    PortfolioDataFile file = PortfolioDataFile.of(path, options);
+    long encodedSize = file.getData().length();
+    synchronized (this) {
+      Entry previous = entries.remove(key);
+      if (previous != null) {
+        totalSize -= previous.encodedSize;
+      }
+      if (encodedSize <= maxSize) {
+        entries.put(key, new Entry(file, fileSize, lastModified, encodedSize));
+        totalSize += encodedSize;
+        evict();
+      }
+    }
+    return file;
+  }
+
+  // reads the file attributes used to detect changes
+  private static BasicFileAttributes readAttributes(Path path) {
+    if (Files.notExists(path)) {
+      throw new IllegalArgumentException("Could not find portfolio file: " + path.toAbsolutePath());
+    }
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  // evicts the least recently used entries until within the maximum size, must be called holding the lock
+  private void evict() {
+    Iterator<Entry> it = entries.values().iterator();
+    while (totalSize > maxSize && it.hasNext()) {
+      Entry eldest = it.next();
+      it.remove();
+      totalSize -= eldest.encodedSize;
+      evictionCount++;
+    }
+  }
+
+  /**
+   * Removes all entries from the cache.
+   * <p>
+   * The hit, miss and eviction counts are not reset.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    totalSize = 0;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the maximum total size of the encoded data, in bytes.
+   *
+   * @return the maximum size
+   */
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets the total size of the encoded data currently held, in bytes.
+   *
+   * @return the total size
+   */
+  public synchronized long getTotalSize() {
+    return totalSize;
+  }
+
+  /**
+   * Gets the number of files currently held.
+   *
+   * @return the number of entries
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the number of requests that were served from the cache.
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Gets the number of requests that required the file to be encoded.
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Gets the number of entries evicted to stay within the maximum size.
+   *
+   * @return the number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "PortfolioDataCache{entries=" + entries.size() + ", totalSize=" + totalSize + ", maxSize=" + maxSize +
+        ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+  }
+
+  //-------------------------------------------------------------------------
+  // the key of a cached file
+  private static final class Key {
+    /** The absolute path of the file. */
+    private final Path path;
+    /** The options used to encode the file. */
+    private final PortfolioEncodingOptions options;
+
+    private Key(Path path, PortfolioEncodingOptions options) {
+      this.path = path;
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof Key) {
+        Key other = (Key) obj;
+        return path.equals(other.path) && options.equals(other.options);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return path.hashCode() * 31 + options.hashCode();
+    }
+  }
+
+  // a single cached file
+  private static final class Entry {
+    /** The encoded file. */
+    private final PortfolioDataFile file;
+    /** The size of the file when encoded. */
+    private final long fileSize;
+    /** The last modified time of the file when encoded. */
+    private final long lastModified;
+    /** The size of the encoded data. */
+    private final long encodedSize;
+
+    private Entry(PortfolioDataFile file, long fileSize, long lastModified, long encodedSize) {
+      this.file = file;
+      this.fileSize = fileSize;
+      this.lastModified = lastModified;
+      this.encodedSize = encodedSize;
+    }
+  }
+
+}
@@ -9,6 +9,7 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -20,6 +21,8 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -31,6 +34,7 @@ import org.joda.beans.JodaBeanUtils;
 import org.joda.beans.MetaBean;
 import org.joda.beans.MetaProperty;
 import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableConstructor;
 import org.joda.beans.gen.PropertyDefinition;
 import org.joda.beans.impl.direct.DirectMetaBean;
 import org.joda.beans.impl.direct.DirectMetaProperty;
@@ -51,9 +55,20 @@ public final class PortfolioDataFile implements ImmutableBean {
   private final String name;
   /**
    * The portfolio data.
+   * <p>
+   * This is only null when the data is streamed from the source file, which is then read by {@link #getData()}.
    */
-  @PropertyDefinition(validate = "notNull")
+  @PropertyDefinition(validate = "notNull", get = "manual")
   private final String data;
+  /**
+   * The file that the data is read from when it is sent, null if the data is held in memory.
+   * This is not a property, thus it is neither serialized nor compared.
+   */
+  private final transient Path source;
+  /**
+   * The compression level used to encode the file when it is sent, only used if the data is streamed.
+   */
+  private final transient int sourceCompressionLevel;
 
   //-------------------------------------------------------------------------
   /**
@@ -67,7 +82,23 @@ public final class PortfolioDataFile implements ImmutableBean {
    * @throws UncheckedIOException if an IO error occurs
    */
   public static PortfolioDataFile of(String name, String data) {
-    String base64Data = gzipBase64(data);
+    return of(name, data, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Obtains an instance from the String representation of the data, specifying how to encode it.
+   * <p>
+   * The data is compressed using GZIP, and sent to the server using Base-64.
+   *
+   * @param name the name, not empty
+   * @param data the data, not empty
+   * @param options the options controlling the compression
+   * @return the instance
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public static PortfolioDataFile of(String name, String data, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+    String base64Data = gzipBase64(data, options.getCompressionLevel());
     return new PortfolioDataFile(name + ".gz.base64", base64Data);
   }
 
@@ -75,20 +106,76 @@ public final class PortfolioDataFile implements ImmutableBean {
    * Obtains an instance from a file.
    * <p>
    * The file is compressed using GZIP, and sent to the server using Base-64.
+   * Use {@link PortfolioDataCache} to avoid compressing the same file repeatedly.
    *
    * @param path the file
    * @return the instance
    * @throws UncheckedIOException if an IO error occurs
    */
   public static PortfolioDataFile of(Path path) {
+    return of(path, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Obtains an instance from a file, specifying how to encode it.
+   * <p>
+   * The file is compressed using GZIP, and sent to the server using Base-64.
+   *
+   * @param path the file
+   * @param options the options controlling the compression
+   * @return the instance
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public static PortfolioDataFile of(Path path, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
     String filename = path.toAbsolutePath().toString();
     if (Files.notExists(path)) {
       throw new IllegalArgumentException("Could not find portfolio file: " + filename);
     }
-    String base64Data = gzipBase64(path);
+    String base64Data = gzipBase64(path, options.getCompressionLevel());
     return new PortfolioDataFile(filename + ".gz.base64", base64Data);
   }
 
+  /**
+   * Obtains an instance from a file, deferring reading the file until the data is sent.
+   * <p>
+   * The file is compressed using GZIP, and sent to the server using Base-64.
+   * Unlike {@link #of(Path)}, the file is not read when this method is called.
+   * Instead, when submitted using {@link MarginClient}, the file is compressed and encoded directly
+   * into the request as it is sent, such that memory usage does not depend on the size of the file.
+   * The file must therefore not be changed or deleted until the calculation has been created.
+   * <p>
+   * The file is not part of the bean, thus the result is serialized and compared as though it held the data.
+   * Calling {@link #getData()}, or any operation that reads the properties, such as serialization,
+   * equality or hash code, reads and encodes the whole file into memory.
+   *
+   * @param path the file
+   * @return the instance
+   */
+  public static PortfolioDataFile ofStreamed(Path path) {
+    return ofStreamed(path, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Obtains an instance from a file, deferring reading the file until the data is sent,
+   * specifying how to encode it.
+   * <p>
+   * This is identical to {@link #ofStreamed(Path)}, except that the specified options are used
+   * to compress the file.
+   *
+   * @param path the file
+   * @param options the options controlling the compression
+   * @return the instance
+   */
+  public static PortfolioDataFile ofStreamed(Path path, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+    String filename = path.toAbsolutePath().toString();
+    if (Files.notExists(path)) {
+      throw new IllegalArgumentException("Could not find portfolio file: " + filename);
+    }
+    return new PortfolioDataFile(filename + ".gz.base64", path.toAbsolutePath(), options.getCompressionLevel());
+  }
+
   /**
    * Obtains an instance from a bean.
    * <p>
@@ -118,26 +205,209 @@ public final class PortfolioDataFile implements ImmutableBean {
    * @throws UncheckedIOException if an IO error occurs
    */
   public static PortfolioDataFile ofCombined(List<Path> paths) {
+    return ofCombined(paths, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Obtains an instance by combining a list of files, specifying how to encode them.
+   * <p>
+   * The files are combined using ZIP, and sent to the server using Base-64.
+   *
+   * @param paths the files, at least one
+   * @param options the options controlling the compression
+   * @return the instance
+   * @throws IllegalArgumentException if no files were passed in
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public static PortfolioDataFile ofCombined(List<Path> paths, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+    checkFilesExist(paths);
+    String base64Data = zipBase64(paths, options.getCompressionLevel());
+    return new PortfolioDataFile("JavaSDK.zip.base64", base64Data);
+  }
+
+  /**
+   * Obtains an instance by combining a list of files, compressing the files concurrently.
+   * <p>
+   * The files are combined using ZIP, and sent to the server using Base-64.
+   * Each file is compressed on the specified executor, with the compressed files then combined
+   * into a single archive. The archive contains the same entries as {@link #ofCombined(List)},
+   * thus the server treats the two identically. This is faster when combining many large files.
+   *
+   * @param paths the files, at least one
+   * @param executor the executor used to compress the files
+   * @return the instance
+   * @throws IllegalArgumentException if no files were passed in
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public static PortfolioDataFile ofCombined(List<Path> paths, Executor executor) {
+    return ofCombined(paths, executor, PortfolioEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Obtains an instance by combining a list of files, compressing the files concurrently,
+   * and specifying how to encode them.
+   * <p>
+   * This is identical to {@link #ofCombined(List, Executor)}, except that the specified options are used
+   * to compress the files.
+   *
+   * @param paths the files, at least one
+   * @param executor the executor used to compress the files
+   * @param options the options controlling the compression
+   * @return the instance
+   * @throws IllegalArgumentException if no files were passed in
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public static PortfolioDataFile ofCombined(List<Path> paths, Executor executor, PortfolioEncodingOptions options) {
+    Objects.requireNonNull(executor, "executor must not be null");
+    Objects.requireNonNull(options, "options must not be null");
+    int level = options.getCompressionLevel();
+    checkFilesExist(paths);
+    if (paths.isEmpty()) {
+      throw new IllegalArgumentException("PortfolioDataFile requires at least one file");
+    }
+    String base64Data = requiresZip64(paths) ?
+        zipBase64(paths, level) :
+        ParallelZipEncoder.zipBase64(paths, executor, level);
+    return new PortfolioDataFile("JavaSDK.zip.base64", base64Data);
+  }
+
+  // checks that all the files exist
+  private static void checkFilesExist(List<Path> paths) {
     List<Path> missingFiles = paths.stream().filter(Files::notExists).collect(toList());
     if (!missingFiles.isEmpty()) {
       String missingFilesAsString = missingFiles.stream().map(Path::toString).collect(joining(","));
       throw new IllegalArgumentException("Could not find one or more of the input files in the list." + missingFilesAsString);
     }
-    String base64Data = zipBase64(paths);
-    return new PortfolioDataFile("JavaSDK.zip.base64", base64Data);
   }
 
+  // checks if the files are too large or too many for the parallel encoder, which does not support ZIP64
+  private static boolean requiresZip64(List<Path> paths) {
+    if (paths.size() > ParallelZipEncoder.MAX_ENTRIES) {
+      return true;
+    }
+    try {
+      for (Path path : paths) {
+        if (Files.size(path) > ParallelZipEncoder.MAX_SIZE) {
+          return true;
+        }
+      }
+      return false;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @ImmutableConstructor
+  private PortfolioDataFile(
+      String name,
+      String data) {
+    JodaBeanUtils.notNull(name, "name");
+    JodaBeanUtils.notNull(data, "data");
+    this.name = name;
+    this.data = data;
+    this.source = null;
+    this.sourceCompressionLevel = 0;
+  }
+
+  // creates an instance that reads the data from the file when it is sent, the data is null
+  private PortfolioDataFile(String name, Path source, int sourceCompressionLevel) {
+    JodaBeanUtils.notNull(name, "name");
+    JodaBeanUtils.notNull(source, "source");
+    this.name = name;
+    this.data = null;
+    this.source = source;
+    this.sourceCompressionLevel = sourceCompressionLevel;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the portfolio data.
+   * <p>
+   * If this instance was created using {@link #ofStreamed(Path)}, the file is read and encoded
+   * each time this method is called.
+   *
+   * @return the value of the property, not null
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public String getData() {
+    return source != null ? gzipBase64(source, sourceCompressionLevel) : data;
+  }
+
+  /**
+   * Checks if the data is read from a file as it is sent.
+   *
+   * @return true if the data is streamed
+   */
+  boolean isStreamed() {
+    return source != null;
+  }
+
+  /**
+   * Reads, compresses and encodes the file, writing the Base-64 data to the output stream.
+   * <p>
+   * This must only be called if the data is streamed. The output stream is not closed.
+   *
+   * @param out the output stream
+   * @throws IOException if an IO error occurs
+   */
+  void writeStreamedData(OutputStream out) throws IOException {
+    if (source == null) {
+      throw new IllegalStateException("Portfolio data is not streamed: " + name);
+    }
+    try (OutputStream baseos = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+      try (GZIPOutputStream zos = new LevelGzipOutputStream(baseos, sourceCompressionLevel)) {
+        Files.copy(source, zos);
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the data is compared using getData(), such that a streamed instance is equal to one holding the same data
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      PortfolioDataFile other = (PortfolioDataFile) obj;
+      return JodaBeanUtils.equal(name, other.name) &&
+          JodaBeanUtils.equal(getData(), other.getData());
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(name);
+    hash = hash * 31 + JodaBeanUtils.hashCode(getData());
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(96);
+    buf.append("PortfolioDataFile{");
+    buf.append("name").append('=').append(JodaBeanUtils.toString(name)).append(',').append(' ');
+    buf.append("data").append('=').append(JodaBeanUtils.toString(getData()));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-------------------------------------------------------------------------
   /**
    * Convert input to bytes using UTF-8, gzip it, then base-64 it.
    *
    * @param data the input data, as a String
+   * @param level the compression level
    * @return the compressed output, as a String
    */
-  private static String gzipBase64(String data) {
+  private static String gzipBase64(String data, int level) {
     try {
       try (ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length() / 4 + 1)) {
         try (OutputStream baseos = Base64.getEncoder().wrap(baos)) {
-          try (GZIPOutputStream zos = new GZIPOutputStream(baseos)) {
+          try (GZIPOutputStream zos = new LevelGzipOutputStream(baseos, level)) {
             try (OutputStreamWriter writer = new OutputStreamWriter(zos, StandardCharsets.UTF_8)) {
               writer.write(data);
             }
@@ -154,15 +424,16 @@ public final class PortfolioDataFile implements ImmutableBean {
    * Gzips the input then base-64 it.
    *
    * @param path the input data file, as an instance of {@link Path}
+   * @param level the compression level
    * @return the compressed output, as a String
    */
-  private static String gzipBase64(Path path) {
+  private static String gzipBase64(Path path, int level) {
     try {
       long size = Files.size(path) / 4 + 1;
       int initialSize = size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
       try (ByteArrayOutputStream baos = new ByteArrayOutputStream(initialSize)) {
         try (OutputStream baseos = Base64.getEncoder().wrap(baos)) {
-          try (GZIPOutputStream zos = new GZIPOutputStream(baseos)) {
+          try (GZIPOutputStream zos = new LevelGzipOutputStream(baseos, level)) {
             Files.copy(path, zos);
           }
         }
@@ -177,9 +448,10 @@ public final class PortfolioDataFile implements ImmutableBean {
    * Combines multiple files into a ZIP archive, then base-64 the ZIP archive.
    *
    * @param paths a list of one or more input files, that are to be compressed together
+   * @param level the compression level
    * @return the compressed output, as a String
    */
-  private static String zipBase64(List<Path> paths) {
+  private static String zipBase64(List<Path> paths, int level) {
     if (paths.isEmpty()) {
       throw new IllegalArgumentException("PortfolioDataFile requires at least one file");
     }
@@ -187,6 +459,7 @@ public final class PortfolioDataFile implements ImmutableBean {
       try (ByteArrayOutputStream baos = new ByteArrayOutputStream(1024 * 8)) {
         try (OutputStream baseos = Base64.getEncoder().wrap(baos)) {
           try (ZipOutputStream zos = new ZipOutputStream(baseos)) {
+            zos.setLevel(level);
             for (Path path : paths) {
               ZipEntry entry = new ZipEntry(path.getFileName().toString());
               zos.putNextEntry(entry);
@@ -202,6 +475,32 @@ public final class PortfolioDataFile implements ImmutableBean {
     }
   }
 
+  //-------------------------------------------------------------------------
+  // a GZIP output stream with a specific compression level
+  private static final class LevelGzipOutputStream extends GZIPOutputStream {
+    private LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out);
+      def.setLevel(level);
+    }
+  }
+
+  // an output stream that flushes rather than closes the underlying stream
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+    private NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code PortfolioDataFile}.
@@ -215,15 +514,6 @@ public final class PortfolioDataFile implements ImmutableBean {
     MetaBean.register(PortfolioDataFile.Meta.INSTANCE);
   }
 
-  private PortfolioDataFile(
-      String name,
-      String data) {
-    JodaBeanUtils.notNull(name, "name");
-    JodaBeanUtils.notNull(data, "data");
-    this.name = name;
-    this.data = data;
-  }
-
   @Override
   public MetaBean metaBean() {
     return PortfolioDataFile.Meta.INSTANCE;
@@ -238,47 +528,6 @@ public final class PortfolioDataFile implements ImmutableBean {
     return name;
   }
 
-  //-----------------------------------------------------------------------
-  /**
-   * Gets the portfolio data.
-   * @return the value of the property, not null
-   */
-  public String getData() {
-    return data;
-  }
-
-  //-----------------------------------------------------------------------
-  @Override
-  public boolean equals(Object obj) {
-    if (obj == this) {
-      return true;
-    }
-    if (obj != null && obj.getClass() == this.getClass()) {
-      PortfolioDataFile other = (PortfolioDataFile) obj;
-      return JodaBeanUtils.equal(name, other.name) &&
-          JodaBeanUtils.equal(data, other.data);
-    }
-    return false;
-  }
-
-  @Override
-  public int hashCode() {
-    int hash = getClass().hashCode();
-    hash = hash * 31 + JodaBeanUtils.hashCode(name);
-    hash = hash * 31 + JodaBeanUtils.hashCode(data);
-    return hash;
-  }
-
-  @Override
-  public String toString() {
-    StringBuilder buf = new StringBuilder(96);
-    buf.append("PortfolioDataFile{");
-    buf.append("name").append('=').append(JodaBeanUtils.toString(name)).append(',').append(' ');
-    buf.append("data").append('=').append(JodaBeanUtils.toString(data));
-    buf.append('}');
-    return buf.toString();
-  }
-
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code PortfolioDataFile}.
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.util.zip.Deflater;
+
+/**
+ * Options controlling how portfolio data is encoded for sending to the service.
+ * <p>
+ * Portfolio data is compressed using GZIP or ZIP, both of which use deflate.
+ * A lower compression level uses less CPU but sends more data, which suits a fast network link.
+ * A higher compression level uses more CPU but sends less data, which suits a slow network link.
+ * <p>
+ * Only the compression level can be chosen, not the codec.
+ * The service identifies the encoding of each file from its name, which ends in {@code .gz} or {@code .zip},
+ * and these are the only encodings it accepts.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class PortfolioEncodingOptions {
+
+  /**
+   * The default options, using the default compression level of deflate.
+   */
+  public static final PortfolioEncodingOptions DEFAULT = new PortfolioEncodingOptions(Deflater.DEFAULT_COMPRESSION);
+  /**
+   * Options that store the data without compression, minimizing CPU usage.
+   */
+  public static final PortfolioEncodingOptions STORE_ONLY = new PortfolioEncodingOptions(Deflater.NO_COMPRESSION);
+  /**
+   * Options that compress the data as fast as possible.
+   */
+  public static final PortfolioEncodingOptions FASTEST = new PortfolioEncodingOptions(Deflater.BEST_SPEED);
+  /**
+   * Options that compress the data as much as possible.
+   */
+  public static final PortfolioEncodingOptions SMALLEST = new PortfolioEncodingOptions(Deflater.BEST_COMPRESSION);
+
+  /**
+   * The compression level.
+   */
+  private final int compressionLevel;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance specifying the compression level.
+   * <p>
+   * The level is from 0 (no compression) to 9 (best compression),
+   * or -1 for the default level, as defined by {@link Deflater}.
+   *
+   * @param compressionLevel  the compression level, from -1 to 9
+   * @return the options
+   * @throws IllegalArgumentException if the level is invalid
+   */
+  public static PortfolioEncodingOptions ofCompressionLevel(int compressionLevel) {
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+    }
+    return new PortfolioEncodingOptions(compressionLevel);
+  }
+
+  // creates an instance
+  private PortfolioEncodingOptions(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the compression level.
+   *
+   * @return the compression level, from -1 to 9
+   */
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj instanceof PortfolioEncodingOptions) {
+      return compressionLevel == ((PortfolioEncodingOptions) obj).compressionLevel;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return compressionLevel;
+  }
+
+  @Override
+  public String toString() {
+    return "PortfolioEncodingOptions{compressionLevel=" + compressionLevel + "}";
+  }
+
+}
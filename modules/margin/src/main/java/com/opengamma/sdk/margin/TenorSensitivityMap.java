@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Period;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable map of tenor to sensitivity, backed by primitive arrays.
+ * <p>
+ * A result with delta or gamma holds tens of tenors for every curve of every trade.
+ * Holding these in a {@code HashMap} needs an entry object and a boxed {@code Double} for each value.
+ * This map instead holds the tenors and values in parallel arrays, ordered by the length of the tenor.
+ * The tenors are interned, such that equal tenors share a single instance across all results.
+ * <p>
+ * The map is small, so keys are found by a linear search.
+ */
+final class TenorSensitivityMap extends AbstractMap<Period, Double> {
+
+  /**
+   * Orders tenors by their approximate length.
+   */
+  static final Comparator<Period> TENOR_ORDER =
+      Comparator.comparingLong((Period tenor) -> tenor.toTotalMonths() * 31 + tenor.getDays());
+  /**
+   * The maximum number of interned tenors, which protects against unexpected data.
+   */
+  private static final int MAX_INTERNED = 1000;
+  /**
+   * The interned tenors.
+   */
+  private static final ConcurrentMap<Period, Period> INTERNED = new ConcurrentHashMap<>();
+
+  /**
+   * The tenors, in order of increasing length.
+   */
+  private final Period[] tenors;
+  /**
+   * The values, parallel to the tenors.
+   */
+  private final double[] values;
+
+  //-------------------------------------------------------------------------
+  // creates an instance from a map, which must not contain null values
+  static TenorSensitivityMap of(Map<Period, Double> map) {
+    if (map instanceof TenorSensitivityMap) {
+      return (TenorSensitivityMap) map;
+    }
+    @SuppressWarnings("unchecked")
+    Map.Entry<Period, Double>[] entries = map.entrySet().toArray(new Map.Entry[map.size()]);
+    Arrays.sort(entries, Map.Entry.comparingByKey(TENOR_ORDER));
+    Period[] tenors = new Period[entries.length];
+    double[] values = new double[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      tenors[i] = intern(Objects.requireNonNull(entries[i].getKey(), "tenor must not be null"));
+      values[i] = Objects.requireNonNull(entries[i].getValue(), "sensitivity must not be null");
+    }
+    return new TenorSensitivityMap(tenors, values);
+  }
+
+  // interns the tenor, such that a single instance is shared
+  static Period intern(Period tenor) {
+    Period interned = INTERNED.get(tenor);
+    if (interned != null) {
+      return interned;
+    }
+    if (INTERNED.size() >= MAX_INTERNED) {
+      return tenor;
+    }
+    interned = INTERNED.putIfAbsent(tenor, tenor);
+    return interned != null ? interned : tenor;
+  }
+
+  // creates an instance
+  private TenorSensitivityMap(Period[] tenors, double[] values) {
+    this.tenors = tenors;
+    this.values = values;
+  }
+
+  //-------------------------------------------------------------------------
+  // gets the tenor at the index
+  Period tenor(int index) {
+    return tenors[index];
+  }
+
+  // gets the value at the index
+  double value(int index) {
+    return values[index];
+  }
+
+  // gets the index of the tenor, -1 if not found
+  int indexOf(Object tenor) {
+    for (int i = 0; i < tenors.length; i++) {
+      if (tenors[i].equals(tenor)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // gets a copy of the values
+  double[] valueArray() {
+    return values.clone();
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public int size() {
+    return tenors.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public Double get(Object key) {
+    int index = indexOf(key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  @Override
+  public Set<Entry<Period, Double>> entrySet() {
+    return new AbstractSet<Entry<Period, Double>>() {
+      @Override
+      public int size() {
+        return tenors.length;
+      }
+
+      @Override
+      public Iterator<Entry<Period, Double>> iterator() {
+        return new Iterator<Entry<Period, Double>>() {
+          private int index;
+
+          @Override
+          public boolean hasNext() {
+            return index < tenors.length;
+          }
+
+          @Override
+          public Entry<Period, Double> next() {
+            if (index >= tenors.length) {
+              throw new NoSuchElementException();
+            }
+            Entry<Period, Double> entry = new SimpleImmutableEntry<>(tenors[index], values[index]);
+            index++;
+            return entry;
+          }
+        };
+      }
+    };
+  }
+
+}
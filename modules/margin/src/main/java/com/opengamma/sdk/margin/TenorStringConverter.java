@@ -6,14 +6,29 @@
 package com.opengamma.sdk.margin;
 
 import java.time.Period;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.joda.convert.TypedStringConverter;
 
 /**
  * Converts tenors, not prefixed by 'P', to periods.
+ * <p>
+ * A result with delta or gamma contains the same few tenors many times over,
+ * thus each distinct string is parsed once and the interned period is returned thereafter.
  */
 class TenorStringConverter implements TypedStringConverter<Period> {
 
+  /**
+   * The maximum number of cached strings, which protects against unexpected data.
+   */
+  private static final int MAX_CACHED = 1000;
+
+  /**
+   * The parsed tenors, keyed by string.
+   */
+  private final ConcurrentMap<String, Period> parsed = new ConcurrentHashMap<>();
+
   @Override
   public String convertToString(Period object) {
     return object.toString();
@@ -21,7 +36,14 @@ class TenorStringConverter implements TypedStringConverter<Period> {
 
   @Override
   public Period convertFromString(Class<? extends Period> cls, String str) {
-    return str.startsWith("P") ? Period.parse(str) : Period.parse("P" + str);
+    Period tenor = parsed.get(str);
+    if (tenor == null) {
+      tenor = TenorSensitivityMap.intern(str.startsWith("P") ? Period.parse(str) : Period.parse("P" + str));
+      if (parsed.size() < MAX_CACHED) {
+        parsed.putIfAbsent(str, tenor);
+      }
+    }
+    return tenor;
   }
 
   @Override
@@ -6,10 +6,12 @@
 package com.opengamma.sdk.margin;
 
 import java.time.Period;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
 
 import org.joda.beans.Bean;
 import org.joda.beans.BeanBuilder;
@@ -18,6 +20,7 @@ import org.joda.beans.JodaBeanUtils;
 import org.joda.beans.MetaBean;
 import org.joda.beans.MetaProperty;
 import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableConstructor;
 import org.joda.beans.gen.PropertyDefinition;
 import org.joda.beans.impl.direct.DirectMetaBean;
 import org.joda.beans.impl.direct.DirectMetaProperty;
@@ -54,6 +57,65 @@ public final class TradeCurveSensitivity implements ImmutableBean {
   @PropertyDefinition(validate = "notNull")
   private final Map<Period, Double> tenorSensitivity;
 
+  //-------------------------------------------------------------------------
+  @ImmutableConstructor
+  private TradeCurveSensitivity(
+      String curveName,
+      String currency,
+      double sensitivity,
+      Map<Period, Double> tenorSensitivity) {
+
+    JodaBeanUtils.notNull(curveName, "curveName");
+    JodaBeanUtils.notNull(currency, "currency");
+    JodaBeanUtils.notNull(tenorSensitivity, "tenorSensitivity");
+    this.curveName = curveName;
+    this.currency = currency;
+    this.sensitivity = sensitivity;
+    // held in primitive arrays, as there are many tenors per curve and many curves per result
+    this.tenorSensitivity = TenorSensitivityMap.of(tenorSensitivity);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the tenors of the per-tenor sensitivity, in order of increasing length.
+   *
+   * @return the tenors
+   */
+  public List<Period> getTenors() {
+    TenorSensitivityMap map = (TenorSensitivityMap) tenorSensitivity;
+    Period[] tenors = new Period[map.size()];
+    for (int i = 0; i < tenors.length; i++) {
+      tenors[i] = map.tenor(i);
+    }
+    return Collections.unmodifiableList(Arrays.asList(tenors));
+  }
+
+  /**
+   * Gets the values of the per-tenor sensitivity, in the same order as {@link #getTenors()}.
+   * <p>
+   * Values are expressed in the specified currency.
+   * The array is a copy.
+   *
+   * @return the values
+   */
+  public double[] getTenorValues() {
+    return ((TenorSensitivityMap) tenorSensitivity).valueArray();
+  }
+
+  /**
+   * Finds the sensitivity to a single tenor.
+   * <p>
+   * This avoids boxing the value, unlike {@code getTenorSensitivity().get(tenor)}.
+   *
+   * @param tenor  the tenor
+   * @return the sensitivity, empty if there is no sensitivity to the tenor
+   */
+  public OptionalDouble findTenorSensitivity(Period tenor) {
+    TenorSensitivityMap map = (TenorSensitivityMap) tenorSensitivity;
+    int index = map.indexOf(tenor);
+    return index >= 0 ? OptionalDouble.of(map.value(index)) : OptionalDouble.empty();
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code TradeCurveSensitivity}.
@@ -87,20 +149,6 @@ public final class TradeCurveSensitivity implements ImmutableBean {
       tenorSensitivity);
   }
 
-  private TradeCurveSensitivity(
-      String curveName,
-      String currency,
-      double sensitivity,
-      Map<Period, Double> tenorSensitivity) {
-    JodaBeanUtils.notNull(curveName, "curveName");
-    JodaBeanUtils.notNull(currency, "currency");
-    JodaBeanUtils.notNull(tenorSensitivity, "tenorSensitivity");
-    this.curveName = curveName;
-    this.currency = currency;
-    this.sensitivity = sensitivity;
-    this.tenorSensitivity = Collections.unmodifiableMap(new HashMap<>(tenorSensitivity));
-  }
-
   @Override
   public MetaBean metaBean() {
     return TradeCurveSensitivity.Meta.INSTANCE;
@@ -106,6 +106,19 @@ public final class TradeValuations implements ImmutableBean {
     return new TradeValuations(totalPresentValue, totalDelta, null, totalGamma, null, trades);
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Converts the per-trade valuations to a columnar table.
+   * <p>
+   * The table holds the per-trade values in primitive arrays, which suits aggregation across large portfolios.
+   * The table is created each time this method is called.
+   *
+   * @return the table of per-trade valuations
+   */
+  public TradeValuationsTable toTable() {
+    return TradeValuationsTable.of(this);
+  }
+
   @ImmutablePreBuild
   private static void preBuild(Builder builder) {
     if (builder.totalDelta == null) {
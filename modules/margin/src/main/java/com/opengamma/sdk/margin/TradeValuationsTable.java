@@ -0,0 +1,654 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A columnar view of the per-trade valuations of a portfolio.
+ * <p>
+ * The per-trade values of {@link TradeValuations} are held in parallel primitive arrays,
+ * indexed by the position of the trade, from zero to {@code size() - 1}.
+ * Currencies, curves and tenors are each held once in a dictionary, and referred to by index.
+ * Sensitivities are held as a sparse row for each curve that a trade is sensitive to,
+ * holding only the tenors of that curve, as referred to by index in the tenor dictionary.
+ * <p>
+ * This allows values to be aggregated across a large portfolio without walking the beans.
+ * Values that are not available for a trade, such as the delta when delta was not calculated, are {@code NaN}.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class TradeValuationsTable {
+
+  /**
+   * The trade identifiers.
+   */
+  private final String[] tradeIds;
+  /**
+   * The currency dictionary.
+   */
+  private final List<String> currencies;
+  /**
+   * The index of the trade currency in the dictionary, -1 if not known.
+   */
+  private final int[] currencyIndices;
+  /**
+   * The present value, expressed in the reporting currency.
+   */
+  private final double[] presentValues;
+  /**
+   * The present value, expressed in the trade currency.
+   */
+  private final double[] presentValuesTradeCurrency;
+  /**
+   * The total delta, expressed in the reporting currency.
+   */
+  private final double[] deltas;
+  /**
+   * The total gamma, expressed in the reporting currency.
+   */
+  private final double[] gammas;
+  /**
+   * The curve dictionary.
+   */
+  private final List<String> curveNames;
+  /**
+   * The currency of each curve in the curve dictionary.
+   */
+  private final List<String> curveCurrencies;
+  /**
+   * The tenor dictionary, in order of increasing length.
+   */
+  private final List<Period> tenors;
+  /**
+   * The delta sensitivities.
+   */
+  private final Sensitivities deltaSensitivities;
+  /**
+   * The gamma sensitivities.
+   */
+  private final Sensitivities gammaSensitivities;
+
+  //-------------------------------------------------------------------------
+  /**
+   * Obtains an instance from the valuations.
+   *
+   * @param valuations  the valuations
+   * @return the table
+   */
+  public static TradeValuationsTable of(TradeValuations valuations) {
+    Objects.requireNonNull(valuations, "valuations must not be null");
+    List<TradeValuation> trades = valuations.getTrades();
+    int size = trades.size();
+    String[] tradeIds = new String[size];
+    int[] currencyIndices = new int[size];
+    double[] presentValues = new double[size];
+    double[] presentValuesTradeCurrency = new double[size];
+    double[] deltas = new double[size];
+    double[] gammas = new double[size];
+    Dictionary<String> currencies = new Dictionary<>();
+    Dictionary<CurveKey> curves = new Dictionary<>();
+    Dictionary<Period> tenors = new Dictionary<>();
+
+    // first pass builds the dictionaries and the scalar columns
+    for (int i = 0; i < size; i++) {
+      TradeValuation trade = trades.get(i);
+      tradeIds[i] = trade.getTradeId();
+      Optional<TradeValue> value = trade.getValue();
+      currencyIndices[i] = value.isPresent() ? currencies.indexOf(value.get().getTradeCurrency()) : -1;
+      presentValues[i] = value.isPresent() ? value.get().getPresentValue() : Double.NaN;
+      presentValuesTradeCurrency[i] = value.isPresent() ? value.get().getPresentValueTradeCurrency() : Double.NaN;
+      deltas[i] = trade.getDelta().isPresent() ? trade.getDelta().get().getSensitivity() : Double.NaN;
+      gammas[i] = trade.getGamma().isPresent() ? trade.getGamma().get().getSensitivity() : Double.NaN;
+      addCurves(trade.getDelta(), curves, tenors);
+      addCurves(trade.getGamma(), curves, tenors);
+    }
+
+    // tenors are sorted such that each matrix row reads from short to long
+    List<Period> sortedTenors = new ArrayList<>(tenors.values());
+    sortedTenors.sort(TenorSensitivityMap.TENOR_ORDER);
+    Map<Period, Integer> tenorIndices = new HashMap<>();
+    for (int i = 0; i < sortedTenors.size(); i++) {
+      tenorIndices.put(sortedTenors.get(i), i);
+    }
+    Sensitivities deltaSensitivities = Sensitivities.of(trades, TradeValuation::getDelta, curves, tenorIndices);
+    Sensitivities gammaSensitivities = Sensitivities.of(trades, TradeValuation::getGamma, curves, tenorIndices);
+    List<String> curveNames = new ArrayList<>(curves.values().size());
+    List<String> curveCurrencies = new ArrayList<>(curves.values().size());
+    for (CurveKey curve : curves.values()) {
+      curveNames.add(curve.name);
+      curveCurrencies.add(curve.currency);
+    }
+    return new TradeValuationsTable(
+        tradeIds,
+        currencies.values(),
+        currencyIndices,
+        presentValues,
+        presentValuesTradeCurrency,
+        deltas,
+        gammas,
+        curveNames,
+        curveCurrencies,
+        sortedTenors,
+        deltaSensitivities,
+        gammaSensitivities);
+  }
+
+  // adds the curves and tenors of the sensitivity to the dictionaries
+  private static void addCurves(
+      Optional<TradeSensitivity> sensitivity,
+      Dictionary<CurveKey> curves,
+      Dictionary<Period> tenors) {
+
+    if (!sensitivity.isPresent()) {
+      return;
+    }
+    for (TradeCurveSensitivity curve : sensitivity.get().getCurveSensitivity()) {
+      curves.indexOf(CurveKey.of(curve));
+      TenorSensitivityMap tenorSensitivity = (TenorSensitivityMap) curve.getTenorSensitivity();
+      for (int i = 0; i < tenorSensitivity.size(); i++) {
+        tenors.indexOf(tenorSensitivity.tenor(i));
+      }
+    }
+  }
+
+  // creates an instance
+  private TradeValuationsTable(
+      String[] tradeIds,
+      List<String> currencies,
+      int[] currencyIndices,
+      double[] presentValues,
+      double[] presentValuesTradeCurrency,
+      double[] deltas,
+      double[] gammas,
+      List<String> curveNames,
+      List<String> curveCurrencies,
+      List<Period> tenors,
+      Sensitivities deltaSensitivities,
+      Sensitivities gammaSensitivities) {
+
+    this.tradeIds = tradeIds;
+    this.currencies = Collections.unmodifiableList(currencies);
+    this.currencyIndices = currencyIndices;
+    this.presentValues = presentValues;
+    this.presentValuesTradeCurrency = presentValuesTradeCurrency;
+    this.deltas = deltas;
+    this.gammas = gammas;
+    this.curveNames = Collections.unmodifiableList(curveNames);
+    this.curveCurrencies = Collections.unmodifiableList(curveCurrencies);
+    this.tenors = Collections.unmodifiableList(tenors);
+    this.deltaSensitivities = deltaSensitivities;
+    this.gammaSensitivities = gammaSensitivities;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of trades.
+   *
+   * @return the number of trades
+   */
+  public int size() {
+    return tradeIds.length;
+  }
+
+  /**
+   * Gets the identifier of a trade.
+   *
+   * @param trade  the index of the trade
+   * @return the trade identifier, an empty string if not known
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public String getTradeId(int trade) {
+    return tradeIds[trade];
+  }
+
+  /**
+   * Gets the currency dictionary.
+   * <p>
+   * This contains each trade currency once, in the order first seen.
+   *
+   * @return the currencies, as ISO 4217 three letter currency codes
+   */
+  public List<String> getCurrencies() {
+    return currencies;
+  }
+
+  /**
+   * Gets the index of the currency of a trade in the currency dictionary.
+   *
+   * @param trade  the index of the trade
+   * @return the index of the trade currency, -1 if the trade has no value
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public int getCurrencyIndex(int trade) {
+    return currencyIndices[trade];
+  }
+
+  /**
+   * Gets the present value of a trade, expressed in the reporting currency.
+   *
+   * @param trade  the index of the trade
+   * @return the present value, NaN if the trade has no value
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public double getPresentValue(int trade) {
+    return presentValues[trade];
+  }
+
+  /**
+   * Gets the present value of a trade, expressed in the trade currency.
+   *
+   * @param trade  the index of the trade
+   * @return the present value, NaN if the trade has no value
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public double getPresentValueTradeCurrency(int trade) {
+    return presentValuesTradeCurrency[trade];
+  }
+
+  /**
+   * Gets the total delta of a trade, expressed in the reporting currency.
+   *
+   * @param trade  the index of the trade
+   * @return the delta, NaN if the trade has no delta
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public double getDelta(int trade) {
+    return deltas[trade];
+  }
+
+  /**
+   * Gets the total gamma of a trade, expressed in the reporting currency.
+   *
+   * @param trade  the index of the trade
+   * @return the gamma, NaN if the trade has no gamma
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public double getGamma(int trade) {
+    return gammas[trade];
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the present value column, expressed in the reporting currency.
+   * <p>
+   * The array is a copy, indexed by trade.
+   *
+   * @return the present values, NaN where a trade has no value
+   */
+  public double[] presentValueColumn() {
+    return presentValues.clone();
+  }
+
+  /**
+   * Gets the present value column, expressed in the trade currency.
+   * <p>
+   * The array is a copy, indexed by trade.
+   *
+   * @return the present values, NaN where a trade has no value
+   */
+  public double[] presentValueTradeCurrencyColumn() {
+    return presentValuesTradeCurrency.clone();
+  }
+
+  /**
+   * Gets the total delta column, expressed in the reporting currency.
+   * <p>
+   * The array is a copy, indexed by trade.
+   *
+   * @return the deltas, NaN where a trade has no delta
+   */
+  public double[] deltaColumn() {
+    return deltas.clone();
+  }
+
+  /**
+   * Gets the total gamma column, expressed in the reporting currency.
+   * <p>
+   * The array is a copy, indexed by trade.
+   *
+   * @return the gammas, NaN where a trade has no gamma
+   */
+  public double[] gammaColumn() {
+    return gammas.clone();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Sums the present value of all trades, expressed in the reporting currency.
+   * <p>
+   * Trades without a value are ignored.
+   *
+   * @return the total present value
+   */
+  public double totalPresentValue() {
+    return sum(presentValues);
+  }
+
+  /**
+   * Sums the present value of the trades in each currency, expressed in the trade currency.
+   * <p>
+   * The array is indexed by the currency dictionary.
+   *
+   * @return the total present value of each currency
+   */
+  public double[] totalPresentValueTradeCurrency() {
+    double[] totals = new double[currencies.size()];
+    for (int i = 0; i < currencyIndices.length; i++) {
+      if (currencyIndices[i] >= 0) {
+        totals[currencyIndices[i]] += presentValuesTradeCurrency[i];
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Sums the total delta of all trades, expressed in the reporting currency.
+   * <p>
+   * Trades without a delta are ignored.
+   *
+   * @return the total delta
+   */
+  public double totalDelta() {
+    return sum(deltas);
+  }
+
+  /**
+   * Sums the total gamma of all trades, expressed in the reporting currency.
+   * <p>
+   * Trades without a gamma are ignored.
+   *
+   * @return the total gamma
+   */
+  public double totalGamma() {
+    return sum(gammas);
+  }
+
+  // sums the values that are not NaN
+  private static double sum(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      if (!Double.isNaN(value)) {
+        total += value;
+      }
+    }
+    return total;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the curve dictionary.
+   * <p>
+   * This contains the name of each curve that any trade is sensitive to, in the order first seen.
+   * A curve is identified by its name and currency, thus a name may occur more than once,
+   * with the currency of each entry in {@link #getCurveCurrencies()}.
+   *
+   * @return the curve names
+   */
+  public List<String> getCurveNames() {
+    return curveNames;
+  }
+
+  /**
+   * Gets the currency of each curve in the curve dictionary.
+   *
+   * @return the curve currencies, as ISO 4217 three letter currency codes
+   */
+  public List<String> getCurveCurrencies() {
+    return curveCurrencies;
+  }
+
+  /**
+   * Gets the tenor dictionary.
+   * <p>
+   * This contains each tenor that any trade is sensitive to, in order of increasing length.
+   *
+   * @return the tenors
+   */
+  public List<Period> getTenors() {
+    return tenors;
+  }
+
+  /**
+   * Gets the delta of a trade to a single curve and tenor.
+   * <p>
+   * The value is expressed in the currency of the curve.
+   *
+   * @param trade  the index of the trade
+   * @param curve  the index of the curve in the curve dictionary
+   * @param tenor  the index of the tenor in the tenor dictionary
+   * @return the delta, zero if the trade is not sensitive to the curve and tenor
+   * @throws IndexOutOfBoundsException if an index is invalid
+   */
+  public double getDelta(int trade, int curve, int tenor) {
+    checkCurveAndTenor(curve, tenor);
+    return deltaSensitivities.get(trade, curve, tenor);
+  }
+
+  /**
+   * Gets the gamma of a trade to a single curve and tenor.
+   * <p>
+   * The value is expressed in the currency of the curve.
+   *
+   * @param trade  the index of the trade
+   * @param curve  the index of the curve in the curve dictionary
+   * @param tenor  the index of the tenor in the tenor dictionary
+   * @return the gamma, zero if the trade is not sensitive to the curve and tenor
+   * @throws IndexOutOfBoundsException if an index is invalid
+   */
+  public double getGamma(int trade, int curve, int tenor) {
+    checkCurveAndTenor(curve, tenor);
+    return gammaSensitivities.get(trade, curve, tenor);
+  }
+
+  // checks the curve and tenor indices
+  private void checkCurveAndTenor(int curve, int tenor) {
+    if (curve < 0 || curve >= curveNames.size()) {
+      throw new IndexOutOfBoundsException("Invalid curve index: " + curve);
+    }
+    if (tenor < 0 || tenor >= tenors.size()) {
+      throw new IndexOutOfBoundsException("Invalid tenor index: " + tenor);
+    }
+  }
+
+  /**
+   * Sums the delta of all trades into a curve by tenor matrix.
+   * <p>
+   * The values are expressed in the currency of the curve.
+   * The matrix is indexed first by the curve dictionary, then by the tenor dictionary.
+   *
+   * @return the delta matrix
+   */
+  public double[][] totalDeltaMatrix() {
+    return deltaSensitivities.total(curveNames.size(), tenors.size());
+  }
+
+  /**
+   * Sums the gamma of all trades into a curve by tenor matrix.
+   * <p>
+   * The values are expressed in the currency of the curve.
+   * The matrix is indexed first by the curve dictionary, then by the tenor dictionary.
+   *
+   * @return the gamma matrix
+   */
+  public double[][] totalGammaMatrix() {
+    return gammaSensitivities.total(curveNames.size(), tenors.size());
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "TradeValuationsTable{size=" + tradeIds.length + ", curves=" + curveNames.size() +
+        ", tenors=" + tenors.size() + "}";
+  }
+
+  //-------------------------------------------------------------------------
+  // assigns an index to each distinct value, in the order first seen
+  private static final class Dictionary<T> {
+    /** The index of each value. */
+    private final Map<T, Integer> indices = new HashMap<>();
+    /** The values. */
+    private final List<T> values = new ArrayList<>();
+
+    // gets the index of the value, adding it if not already present
+    private int indexOf(T value) {
+      Integer index = indices.get(value);
+      if (index == null) {
+        index = values.size();
+        indices.put(value, index);
+        values.add(value);
+      }
+      return index;
+    }
+
+    private List<T> values() {
+      return values;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the key of a curve in the curve dictionary, as curves in different currencies may share a name
+  private static final class CurveKey {
+    /** The curve name. */
+    private final String name;
+    /** The curve currency. */
+    private final String currency;
+
+    private CurveKey(String name, String currency) {
+      this.name = name;
+      this.currency = currency;
+    }
+
+    // obtains the key of the curve sensitivity
+    private static CurveKey of(TradeCurveSensitivity curve) {
+      return new CurveKey(curve.getCurveName(), curve.getCurrency());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof CurveKey) {
+        CurveKey other = (CurveKey) obj;
+        return name.equals(other.name) && currency.equals(other.currency);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode() * 31 + currency.hashCode();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // the sensitivities of all trades, with a sparse row for each curve that a trade is sensitive to
+  // like TenorSensitivityMap, each row holds only the tenors of the curve, which are found by a linear search
+  private static final class Sensitivities {
+    /** The first row of each trade, with a final entry for the end of the last trade. */
+    private final int[] tradeRows;
+    /** The curve of each row. */
+    private final int[] rowCurves;
+    /** The first entry of each row, with a final entry for the end of the last row. */
+    private final int[] rowEntries;
+    /** The index of the tenor of each entry in the tenor dictionary. */
+    private final int[] entryTenors;
+    /** The value of each entry. */
+    private final double[] entryValues;
+
+    private Sensitivities(int[] tradeRows, int[] rowCurves, int[] rowEntries, int[] entryTenors, double[] entryValues) {
+      this.tradeRows = tradeRows;
+      this.rowCurves = rowCurves;
+      this.rowEntries = rowEntries;
+      this.entryTenors = entryTenors;
+      this.entryValues = entryValues;
+    }
+
+    // creates the sensitivities of the trades
+    private static Sensitivities of(
+        List<TradeValuation> trades,
+        Function<TradeValuation, Optional<TradeSensitivity>> getter,
+        Dictionary<CurveKey> curves,
+        Map<Period, Integer> tenorIndices) {
+
+      int[] tradeRows = new int[trades.size() + 1];
+      int rowCount = 0;
+      int entryCount = 0;
+      for (int i = 0; i < trades.size(); i++) {
+        tradeRows[i] = rowCount;
+        Optional<TradeSensitivity> sensitivity = getter.apply(trades.get(i));
+        if (sensitivity.isPresent()) {
+          for (TradeCurveSensitivity curve : sensitivity.get().getCurveSensitivity()) {
+            rowCount++;
+            entryCount = Math.addExact(entryCount, curve.getTenorSensitivity().size());
+          }
+        }
+      }
+      tradeRows[trades.size()] = rowCount;
+      int[] rowCurves = new int[rowCount];
+      int[] rowEntries = new int[rowCount + 1];
+      int[] entryTenors = new int[entryCount];
+      double[] entryValues = new double[entryCount];
+      int row = 0;
+      int entry = 0;
+      for (TradeValuation trade : trades) {
+        Optional<TradeSensitivity> sensitivity = getter.apply(trade);
+        if (sensitivity.isPresent()) {
+          for (TradeCurveSensitivity curve : sensitivity.get().getCurveSensitivity()) {
+            rowCurves[row] = curves.indexOf(CurveKey.of(curve));
+            rowEntries[row] = entry;
+            TenorSensitivityMap tenorSensitivity = (TenorSensitivityMap) curve.getTenorSensitivity();
+            for (int i = 0; i < tenorSensitivity.size(); i++) {
+              entryTenors[entry] = tenorIndices.get(tenorSensitivity.tenor(i));
+              entryValues[entry] = tenorSensitivity.value(i);
+              entry++;
+            }
+            row++;
+          }
+        }
+      }
+      rowEntries[rowCount] = entry;
+      return new Sensitivities(tradeRows, rowCurves, rowEntries, entryTenors, entryValues);
+    }
+
+    // gets the value for the trade, curve and tenor
+    private double get(int trade, int curve, int tenor) {
+      double total = 0;
+      for (int row = tradeRows[trade]; row < tradeRows[trade + 1]; row++) {
+        if (rowCurves[row] == curve) {
+          for (int entry = rowEntries[row]; entry < rowEntries[row + 1]; entry++) {
+            if (entryTenors[entry] == tenor) {
+              total += entryValues[entry];
+            }
+          }
+        }
+      }
+      return total;
+    }
+
+    // sums the rows of all trades into a curve by tenor matrix
+    private double[][] total(int curveCount, int tenorCount) {
+      double[][] matrix = new double[curveCount][tenorCount];
+      for (int row = 0; row < rowCurves.length; row++) {
+        double[] target = matrix[rowCurves[row]];
+        for (int entry = rowEntries[row]; entry < rowEntries[row + 1]; entry++) {
+          target[entryTenors[entry]] += entryValues[entry];
+        }
+      }
+      return matrix;
+    }
+  }
+
+}
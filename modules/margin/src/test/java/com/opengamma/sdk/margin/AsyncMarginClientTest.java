@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.joda.beans.ser.JodaBeanSer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.sdk.common.ServiceInvoker;
+import com.opengamma.sdk.common.auth.Credentials;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Test {@link AsyncMarginClient}.
+ */
+public class AsyncMarginClientTest {
+
+  private static final Credentials CREDENTIALS = Credentials.ofApiKey("user", "password");
+  private static final LocalDate VAL_DATE = LocalDate.of(2017, 6, 1);
+  private static final MarginCalcRequest REQUEST = MarginCalcRequest.builder()
+      .calculationTypes(MarginCalcType.MARGIN)
+      .valuationDate(VAL_DATE)
+      .reportingCurrency("GBP")
+      .build();
+
+  private static final String RESPONSE_LIST_CCPS = JodaBeanSer.PRETTY.simpleJsonWriter()
+      .write(CcpsResult.of(Arrays.asList("LCH", "RUBBISH")));
+  private static final String RESPONSE_CALC_GET_PENDING = JodaBeanSer.PRETTY.simpleJsonWriter().write(
+      result(MarginCalcResultStatus.PENDING, null));
+  private static final String RESPONSE_CALC_GET_COMPLETE = JodaBeanSer.PRETTY.simpleJsonWriter().write(
+      result(MarginCalcResultStatus.COMPLETED, MarginSummary.of(125d, Collections.emptyList(), MarginBreakdown.of(125d, 125d, 0, 0))));
+  private static final String RESPONSE_ERROR = JodaBeanSer.PRETTY.simpleJsonWriter().write(
+      ErrorMessage.of(500, "Error", "Error"));
+
+  private MockWebServer server;
+
+  //-------------------------------------------------------------------------
+  @BeforeEach
+  public void setUp() throws IOException {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_listCcps() throws Exception {
+    server.enqueue(new MockResponse().setBody(RESPONSE_LIST_CCPS));
+
+    AsyncMarginClient client = AsyncMarginClient.of(createInvoker());
+    CompletableFuture<CcpsResult> future = client.listCcps();
+    assertThat(future.join().getCcpNames()).containsExactly("LCH", "RUBBISH");
+    assertThat(server.takeRequest().getPath()).isEqualTo("/margin/v3/ccps");
+  }
+
+  @Test
+  public void test_getCalculation_error() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(500).setBody(RESPONSE_ERROR));
+
+    AsyncMarginClient client = AsyncMarginClient.of(createInvoker());
+    CompletableFuture<MarginCalcResult> future = client.getCalculation(Ccp.LCH, "789");
+    assertThatExceptionOfType(CompletionException.class)
+        .isThrownBy(() -> future.join())
+        .withCauseInstanceOf(MarginException.class);
+  }
+
+  @Test
+  public void test_createGetDelete() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789")));
+    server.enqueue(new MockResponse().setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse());
+
+    AsyncMarginClient client = AsyncMarginClient.of(createInvoker());
+    String calcId = client.createCalculation(Ccp.LCH, REQUEST).join();
+    assertThat(calcId).isEqualTo("789");
+    MarginCalcResult result = client.getCalculation(Ccp.LCH, calcId).join();
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(client.deleteCalculation(Ccp.LCH, calcId).join()).isNull();
+    assertThat(server.takeRequest().getMethod()).isEqualTo("POST");
+    assertThat(server.takeRequest().getMethod()).isEqualTo("GET");
+    assertThat(server.takeRequest().getMethod()).isEqualTo("DELETE");
+  }
+
+  @Test
+  public void test_calculate() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789")));
+    server.enqueue(new MockResponse().setBody(RESPONSE_CALC_GET_PENDING));
+    server.enqueue(new MockResponse().setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse());
+
+    AsyncMarginClient client = AsyncMarginClient.of(createInvoker());
+    MarginCalcResult result = client.calculate(Ccp.LCH, REQUEST).join();
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(result.getMargin().get().getMargin()).isEqualTo(125d);
+    // deleted before the future completes
+    assertThat(server.getRequestCount()).isEqualTo(4);
+  }
+
+  //-------------------------------------------------------------------------
+  private ServiceInvoker createInvoker() {
+    return ServiceInvoker.builder(CREDENTIALS)
+        .serviceUrl(server.url("/"))
+        .authClientFactory(inv -> new TestingAuthClient())
+        .build();
+  }
+
+  private static MarginCalcResult result(MarginCalcResultStatus status, MarginSummary margin) {
+    return MarginCalcResult.of(
+        status,
+        EnumSet.of(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        VAL_DATE,
+        "GBP",
+        "GBP",
+        true,
+        Collections.emptyList(),
+        margin,
+        null,
+        null,
+        Collections.emptyList());
+  }
+
+}
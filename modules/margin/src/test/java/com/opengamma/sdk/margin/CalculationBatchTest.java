@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link CalculationBatch}.
+ */
+public class CalculationBatchTest {
+
+  @Test
+  public void test_start_boundedWindow() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    List<CompletableFuture<String>> test = CalculationBatch.start(
+        Arrays.asList("a", "b", "c", "d", "e"),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+
+    assertThat(test).hasSize(5);
+    assertThat(started).hasSize(2);
+
+    // completing out of order releases the window and completes the matching result
+    started.get(1).complete("B");
+    assertThat(test.get(1).join()).isEqualTo("B");
+    assertThat(test.get(0)).isNotDone();
+    assertThat(started).hasSize(3);
+
+    started.get(0).completeExceptionally(new MarginException("Failed", "Test"));
+    assertThatExceptionOfType(CompletionException.class)
+        .isThrownBy(() -> test.get(0).join())
+        .withCauseInstanceOf(MarginException.class);
+    assertThat(started).hasSize(4);
+
+    started.get(2).complete("C");
+    started.get(3).complete("D");
+    assertThat(started).hasSize(5);
+    started.get(4).complete("E");
+    assertThat(test.get(4).join()).isEqualTo("E");
+  }
+
+  @Test
+  public void test_start_cancel() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    List<CompletableFuture<String>> test = CalculationBatch.start(
+        Arrays.asList("a", "b", "c", "d"),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    assertThat(started).hasSize(2);
+
+    // a calculation not yet started is never started
+    test.get(2).cancel(false);
+    assertThat(started).hasSize(2);
+
+    // cancelling a calculation in progress cancels it and frees its place in the window
+    test.get(0).cancel(false);
+    assertThat(started.get(0)).isCancelled();
+    assertThat(started).hasSize(3);
+    started.get(1).complete("B");
+    started.get(2).complete("D");
+    assertThat(test.get(1).join()).isEqualTo("B");
+    assertThat(test.get(3).join()).isEqualTo("D");
+    assertThat(started).hasSize(3);
+  }
+
+  @Test
+  public void test_start_calculateFnThrows() {
+    List<CompletableFuture<String>> test = CalculationBatch.start(
+        Arrays.asList("a", "b"),
+        1,
+        input -> {
+          if (input.equals("a")) {
+            throw new IllegalStateException();
+          }
+          return CompletableFuture.completedFuture("B");
+        });
+    assertThat(test.get(0)).isCompletedExceptionally();
+    assertThat(test.get(1).join()).isEqualTo("B");
+  }
+
+  @Test
+  public void test_start_completedImmediately() {
+    // a long batch of calculations that complete synchronously must not recurse
+    List<CompletableFuture<String>> test = CalculationBatch.start(
+        Collections.nCopies(100_000, "a"),
+        1,
+        input -> CompletableFuture.completedFuture("A"));
+    assertThat(test).hasSize(100_000);
+    assertThat(test.get(99_999).join()).isEqualTo("A");
+  }
+
+  @Test
+  public void test_start_empty() {
+    assertThat(CalculationBatch.start(Collections.emptyList(), 1, input -> new CompletableFuture<>())).isEmpty();
+  }
+
+  @Test
+  public void test_start_invalidWindow() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> CalculationBatch.start(Arrays.asList("a"), 0, input -> new CompletableFuture<>()));
+  }
+
+}
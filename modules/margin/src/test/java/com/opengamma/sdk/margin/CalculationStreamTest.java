@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link CalculationStream}.
+ */
+public class CalculationStreamTest {
+
+  @Test
+  public void test_publisher_demandLimitsCalculations() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a", "b", "c", "d", "e").iterator(),
+        3,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    assertThat(started).isEmpty();
+
+    // demand for one result starts one calculation
+    test.subscription.request(1);
+    assertThat(started).hasSize(1);
+    started.get(0).complete("A");
+    assertThat(test.items).containsExactly("A");
+    assertThat(started).hasSize(1);
+
+    // the window is limited by the maximum in flight
+    test.subscription.request(10);
+    assertThat(started).hasSize(4);
+
+    // results are delivered in order, with a completed but undelivered result freeing its place in the window
+    started.get(2).complete("C");
+    assertThat(test.items).containsExactly("A");
+    assertThat(started).hasSize(5);
+    started.get(1).complete("B");
+    assertThat(test.items).containsExactly("A", "B", "C");
+    started.get(3).complete("D");
+    assertThat(test.completed).isFalse();
+    started.get(4).complete("E");
+    assertThat(test.items).containsExactly("A", "B", "C", "D", "E");
+    assertThat(test.completed).isTrue();
+  }
+
+  @Test
+  public void test_publisher_slowHeadDoesNotStallWindow() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Collections.nCopies(10, "x").iterator(),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(4);
+    assertThat(started).hasSize(2);
+
+    // later calculations complete while the first is slow, starting more up to the demand
+    started.get(1).complete("B");
+    assertThat(started).hasSize(3);
+    started.get(2).complete("C");
+    assertThat(started).hasSize(4);
+    started.get(3).complete("D");
+    assertThat(started).hasSize(4);
+    assertThat(test.items).isEmpty();
+
+    // completing the first delivers the held results in order
+    started.get(0).complete("A");
+    assertThat(test.items).containsExactly("A", "B", "C", "D");
+    assertThat(started).hasSize(4);
+  }
+
+  @Test
+  public void test_publisher_slowSubscriberBuffersOnlyDemand() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Collections.nCopies(100, "x").iterator(),
+        10,
+        input -> {
+          CompletableFuture<String> future = CompletableFuture.completedFuture(input);
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(2);
+    assertThat(started).hasSize(2);
+    assertThat(test.items).hasSize(2);
+    test.subscription.request(1);
+    assertThat(started).hasSize(3);
+    assertThat(test.items).hasSize(3);
+  }
+
+  @Test
+  public void test_publisher_failure() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a", "b", "c").iterator(),
+        1,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(Long.MAX_VALUE);
+    started.get(0).completeExceptionally(new MarginException("Failed", "Test"));
+    assertThat(test.error).isInstanceOf(MarginException.class);
+    assertThat(test.items).isEmpty();
+    assertThat(started).hasSize(1);
+  }
+
+  @Test
+  public void test_publisher_failureCancelsInFlight() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a", "b", "c").iterator(),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(Long.MAX_VALUE);
+    started.get(0).completeExceptionally(new MarginException("Failed", "Test"));
+    assertThat(test.error).isInstanceOf(MarginException.class);
+    assertThat(started).hasSize(2);
+    assertThat(started.get(1)).isCancelled();
+  }
+
+  @Test
+  public void test_publisher_failureBehindHead() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a", "b", "c", "d", "e").iterator(),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(3);
+    assertThat(started).hasSize(2);
+
+    // a failure behind the slow head is delivered straight away, with nothing more started
+    started.get(1).completeExceptionally(new MarginException("Failed", "Test"));
+    assertThat(test.error).isInstanceOf(MarginException.class);
+    assertThat(test.items).isEmpty();
+    assertThat(started).hasSize(2);
+    assertThat(started.get(0)).isCancelled();
+  }
+
+  @Test
+  public void test_publisher_cancel() {
+    List<CompletableFuture<String>> started = new ArrayList<>();
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a", "b").iterator(),
+        2,
+        input -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          started.add(future);
+          return future;
+        });
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(1);
+    test.subscription.cancel();
+    assertThat(started.get(0)).isCancelled();
+    started.get(0).complete("A");
+    test.subscription.request(1);
+    assertThat(test.items).isEmpty();
+    assertThat(started).hasSize(1);
+    assertThat(test.completed).isFalse();
+  }
+
+  @Test
+  public void test_publisher_invalidRequest() {
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a").iterator(), 1, input -> new CompletableFuture<>());
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    test.subscription.request(0);
+    assertThat(test.error).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void test_publisher_singleSubscriber() {
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Arrays.asList("a").iterator(), 1, input -> CompletableFuture.completedFuture("A"));
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    assertThat(test.error).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void test_publisher_empty() {
+    CalculationFlow.Publisher<String> publisher = CalculationStream.publisher(
+        Collections.<String>emptyList().iterator(), 1, input -> new CompletableFuture<>());
+    RecordingSubscriber test = new RecordingSubscriber();
+    publisher.subscribe(test);
+    assertThat(test.completed).isTrue();
+  }
+
+  @Test
+  public void test_publisher_invalidWindow() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> CalculationStream.publisher(
+            Arrays.asList("a").iterator(), 0, input -> new CompletableFuture<>()));
+  }
+
+  //-------------------------------------------------------------------------
+  // a subscriber that records the signals it receives
+  private static final class RecordingSubscriber implements CalculationFlow.Subscriber<String> {
+    private CalculationFlow.Subscription subscription;
+    private final List<String> items = new ArrayList<>();
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(CalculationFlow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.sdk.common.PollingStrategy;
+
+/**
+ * Test {@link CalculationTracker}.
+ */
+public class CalculationTrackerTest {
+
+  private static final PollingStrategy FAST = PollingStrategy.fixed(Duration.ofMillis(5));
+
+  private ScheduledExecutorService executor;
+
+  @BeforeEach
+  public void setUp() {
+    executor = Executors.newScheduledThreadPool(4);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_track_boundedConcurrency() throws Exception {
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    Map<String, Integer> pollCounts = new ConcurrentHashMap<>();
+    CalculationTracker test = CalculationTracker.ofAsync(
+        (ccp, calcId) -> {
+          maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+          try {
+            int count = pollCounts.merge(calcId, 1, Integer::sum);
+            return CompletableFuture.completedFuture(
+                count >= 3 ? CalculationPoll.of(completedResult(), null) : CalculationPoll.pending(null));
+          } finally {
+            active.decrementAndGet();
+          }
+        },
+        executor,
+        2);
+
+    List<CompletableFuture<MarginCalcResult>> futures = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      futures.add(test.track(Ccp.LCH, "calc" + i, null, FAST));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+    assertThat(futures).allMatch(future -> future.join().getStatus() == MarginCalcResultStatus.COMPLETED);
+    assertThat(pollCounts).hasSize(200).allSatisfy((calcId, count) -> assertThat(count).isEqualTo(3));
+    assertThat(maxActive.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void test_track_duplicate() {
+    CalculationTracker test = CalculationTracker.ofAsync(
+        (ccp, calcId) -> CompletableFuture.completedFuture(CalculationPoll.pending(null)),
+        executor,
+        1);
+    CompletableFuture<MarginCalcResult> future1 = test.track(Ccp.LCH, "123", null, FAST);
+    CompletableFuture<MarginCalcResult> future2 = test.track(Ccp.LCH, "123", null, FAST);
+    CompletableFuture<MarginCalcResult> future3 = test.track(Ccp.CME, "123", null, FAST);
+    assertThat(future1).isSameAs(future2);
+    assertThat(future3).isNotSameAs(future1);
+  }
+
+  @Test
+  public void test_track_failure() {
+    CalculationTracker test = CalculationTracker.ofAsync(
+        (ccp, calcId) -> {
+          throw new MarginException("Failed", "Test");
+        },
+        executor,
+        1);
+    CompletableFuture<MarginCalcResult> future = test.track(Ccp.LCH, "123", null, FAST);
+    assertThatExceptionOfType(CompletionException.class)
+        .isThrownBy(future::join)
+        .withCauseInstanceOf(MarginException.class);
+  }
+
+  @Test
+  public void test_track_serverBusy() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    CalculationTracker test = CalculationTracker.ofAsync(
+        (ccp, calcId) -> CompletableFuture.completedFuture(polls.incrementAndGet() == 1 ?
+            CalculationPoll.busy(Duration.ZERO) :
+            CalculationPoll.of(completedResult(), null)),
+        executor,
+        1);
+    // the second poll would be delayed by ten minutes if the server hint was ignored
+    PollingStrategy strategy = PollingStrategy.exponential(Duration.ofMillis(5), 1_000_000d, Duration.ofMinutes(10), 0d);
+    CompletableFuture<MarginCalcResult> future = test.track(Ccp.LCH, "123", null, strategy);
+    assertThat(future.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(polls.get()).isEqualTo(2);
+  }
+
+  //-------------------------------------------------------------------------
+  private static MarginCalcResult completedResult() {
+    return MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        Collections.singleton(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        LocalDate.of(2017, 6, 1),
+        "GBP",
+        "GBP",
+        false,
+        Collections.emptyList(),
+        null,
+        null,
+        null,
+        Collections.emptyList());
+  }
+
+}
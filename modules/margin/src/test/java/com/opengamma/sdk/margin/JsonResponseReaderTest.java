@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static com.opengamma.sdk.common.ServiceInvoker.MEDIA_JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.beans.ser.JodaBeanSer;
+import org.junit.jupiter.api.Test;
+
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+/**
+ * Test {@link JsonResponseReader}.
+ */
+public class JsonResponseReaderTest {
+
+  private static final JodaBeanSer SERIALIZER = JodaBeanSer.COMPACT;
+
+  @Test
+  public void test_read() throws IOException {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      names.add("CCP-\u00e9\u20ac-" + i);
+    }
+    CcpsResult expected = CcpsResult.of(names);
+    String json = SERIALIZER.jsonWriter().write(expected);
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, json);
+    assertThat(JsonResponseReader.read(SERIALIZER, body, CcpsResult.class)).isEqualTo(expected);
+  }
+
+  @Test
+  public void test_read_invalidJson() {
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, "{\"ccpNames\":");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> JsonResponseReader.read(SERIALIZER, body, CcpsResult.class));
+  }
+
+  @Test
+  public void test_read_ioError() {
+    byte[] start = "{\"ccpNames\":[\"LCH\",".getBytes(StandardCharsets.UTF_8);
+    InputStream failing = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Connection reset");
+      }
+    };
+    InputStream in = new SequenceInputStream(new ByteArrayInputStream(start), failing);
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, -1, Okio.buffer(Okio.source(in)));
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> JsonResponseReader.read(SERIALIZER, body, CcpsResult.class))
+        .withMessage("Connection reset");
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_readSeparating() throws IOException {
+    String json = "{\"a\":1, \"detail\" : {\"x\":[1,{\"y\":\"},\"}]},\"b\":\"\\\"detail\\\"\"," +
+        "\"valuations\":null,\"c\":[2]}";
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, json);
+    Map<String, byte[]> separated = new HashMap<>();
+    String remaining = JsonResponseReader.readSeparating(
+        body, new HashSet<>(Arrays.asList("detail", "valuations")), separated);
+    assertThat(remaining).isEqualTo("{\"a\":1,\"b\":\"\\\"detail\\\"\",\"c\":[2]}");
+    assertThat(separated).containsOnlyKeys("detail");
+    assertThat(new String(separated.get("detail"), StandardCharsets.UTF_8)).isEqualTo("{\"x\":[1,{\"y\":\"},\"}]}");
+  }
+
+  @Test
+  public void test_readSeparating_first() throws IOException {
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, "{\"detail\":[],\"a\":1}");
+    Map<String, byte[]> separated = new HashMap<>();
+    String remaining = JsonResponseReader.readSeparating(body, Collections.singleton("detail"), separated);
+    assertThat(remaining).isEqualTo("{\"a\":1}");
+    assertThat(separated).containsOnlyKeys("detail");
+    assertThat(separated.get("detail")).isEqualTo("[]".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void test_readSeparating_multiByte() throws IOException {
+    String json = "{\"name\":\"\u00e9\u20ac\ud83d\ude00\",\"detail\":{\"text\":\"\u20ac}\u00e9\"}}";
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, json);
+    Map<String, byte[]> separated = new HashMap<>();
+    String remaining = JsonResponseReader.readSeparating(body, Collections.singleton("detail"), separated);
+    assertThat(remaining).isEqualTo("{\"name\":\"\u00e9\u20ac\ud83d\ude00\"}");
+    assertThat(new String(separated.get("detail"), StandardCharsets.UTF_8)).isEqualTo("{\"text\":\"\u20ac}\u00e9\"}");
+  }
+
+  @Test
+  public void test_readSeparating_notObject() throws IOException {
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, " [1,2]");
+    Map<String, byte[]> separated = new HashMap<>();
+    assertThat(JsonResponseReader.readSeparating(body, Collections.singleton("detail"), separated)).isEqualTo(" [1,2]");
+    assertThat(separated).isEmpty();
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_peekString() throws IOException {
+    String json = "{\"nested\":{\"status\":\"NESTED\"},\"list\":[{\"status\":\"LIST\"}]," +
+        "\"text\":\"\\\"status\\\":\\\"TEXT\\\"\", \"status\" : \"PENDING\",\"other\":1}";
+    ResponseBody body = ResponseBody.create(MEDIA_JSON, json);
+    assertThat(JsonResponseReader.peekString(body, "status", 4096)).isEqualTo("PENDING");
+    assertThat(JsonResponseReader.peekString(body, "other", 4096)).isNull();
+    assertThat(JsonResponseReader.peekString(body, "missing", 4096)).isNull();
+    assertThat(JsonResponseReader.peekString(body, "status", 20)).isNull();
+    // body is not consumed
+    assertThat(body.string()).isEqualTo(json);
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link LazyMarginCalcResult}.
+ */
+public class LazyMarginCalcResultTest {
+
+  private static final LchMarginDetail DETAIL =
+      LchMarginDetail.of(30d, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_ofDecoded() {
+    MarginCalcResult result = MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        Collections.singleton(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        LocalDate.of(2017, 6, 1),
+        "GBP",
+        "GBP",
+        false,
+        Collections.emptyList(),
+        null,
+        DETAIL,
+        null,
+        Collections.emptyList());
+    LazyMarginCalcResult test = LazyMarginCalcResult.ofDecoded(result);
+    assertThat(test.getSummary().getMarginDetail()).isEmpty();
+    assertThat(test.getSummary().getValuationDate()).isEqualTo(result.getValuationDate());
+    assertThat(test.getMarginDetail()).hasValue(DETAIL);
+    assertThat(test.getTradeValuations()).isEmpty();
+    assertThat(test.toResult()).isEqualTo(result);
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link LchMarginAnalysis}.
+ */
+public class LchMarginAnalysisTest {
+
+  private static final LocalDate DATE = LocalDate.of(2026, 6, 1);
+  private static final LchMarginScenario SCENARIO1 = LchMarginScenario.of("S1", DATE.minusDays(4), -100d, -90d);
+  private static final LchMarginScenario SCENARIO2 = LchMarginScenario.of("S2", DATE.minusDays(3), -80d, -70d);
+  private static final LchMarginScenario SCENARIO3 = LchMarginScenario.of("S3", DATE.minusDays(2), -60d, -50d);
+  private static final LchMarginScenario SCENARIO4 = LchMarginScenario.of("S4", DATE.minusDays(1), 10d, 5d);
+  private static final LchMarginIndex INDEX1 = LchMarginIndex.of("LIBOR-BBA", 60d, 80d, Arrays.asList("S1", "S2"));
+  private static final LchMarginIndex INDEX2 = LchMarginIndex.of("SONIA", 40d, 50d, Arrays.asList("S3", "S4"));
+  private static final LchMarginDetail DETAIL = LchMarginDetail.of(
+      100d,
+      Arrays.asList("S1", "s2", "UNKNOWN"),
+      Arrays.asList(INDEX1, INDEX2),
+      Arrays.asList(SCENARIO3, SCENARIO1, SCENARIO4, SCENARIO2));
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_tail() {
+    LchMarginAnalysis test = LchMarginAnalysis.ofScaledPnl(DETAIL);
+    assertThat(test.getScenarioCount()).isEqualTo(4);
+    assertThat(test.tailScenarios(3)).containsExactly(SCENARIO1, SCENARIO2, SCENARIO3);
+    assertThat(test.tailContributions(2)).containsExactly(50d, 40d);
+    assertThat(test.valueAtRisk(2)).isEqualTo(80d);
+    assertThat(test.expectedShortfall(2)).isEqualTo(90d);
+    assertThat(test.expectedShortfall(4)).isEqualTo(57.5d);
+    assertThat(LchMarginAnalysis.ofUnscaledPnl(DETAIL).expectedShortfall(2)).isEqualTo(80d);
+  }
+
+  @Test
+  public void test_tail_invalidSize() {
+    LchMarginAnalysis test = LchMarginAnalysis.ofScaledPnl(DETAIL);
+    assertThatIllegalArgumentException().isThrownBy(() -> test.tailScenarios(0));
+    assertThatIllegalArgumentException().isThrownBy(() -> test.expectedShortfall(5));
+  }
+
+  @Test
+  public void test_tail_matchesFullSort() {
+    Random random = new Random(1);
+    List<LchMarginScenario> scenarios = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      // few distinct values, such that there are many ties, which are ordered by date
+      double pnl = random.nextInt(50) - 40;
+      scenarios.add(LchMarginScenario.of("S" + i, DATE.minusDays(i), pnl, pnl));
+    }
+    LchMarginDetail detail = LchMarginDetail.of(0d, Collections.emptyList(), Collections.emptyList(), scenarios);
+    List<LchMarginScenario> sorted = new ArrayList<>(detail.scenariosByDate());
+    sorted.sort(Comparator.comparingDouble(LchMarginScenario::getScaledPortfolioPnl));
+    LchMarginAnalysis test = LchMarginAnalysis.ofScaledPnl(detail);
+    for (int tailSize : new int[] {1, 7, 100, 2000}) {
+      List<LchMarginScenario> expected = sorted.subList(0, tailSize);
+      double expectedShortfall = -expected.stream().mapToDouble(LchMarginScenario::getScaledPortfolioPnl).sum() / tailSize;
+      assertThat(test.tailScenarios(tailSize)).isEqualTo(expected);
+      assertThat(test.expectedShortfall(tailSize)).isCloseTo(expectedShortfall, within(1e-9));
+      assertThat(test.valueAtRisk(tailSize)).isEqualTo(-expected.get(tailSize - 1).getScaledPortfolioPnl());
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_diversification() {
+    LchMarginAnalysis test = LchMarginAnalysis.ofScaledPnl(DETAIL);
+    assertThat(test.baseMargin()).isEqualTo(90d);
+    assertThat(test.diversifiedBaseMargin()).isEqualTo(100d);
+    assertThat(test.undiversifiedBaseMargin()).isEqualTo(130d);
+    assertThat(test.diversificationBenefit()).isEqualTo(30d);
+    assertThat(test.indexDiversificationBenefits()).containsExactly(20d, 10d);
+    assertThat(test.indexMarginShares()).containsExactly(0.6d, 0.4d);
+    assertThat(test.indexTailOverlaps()).containsExactly(1d, 0d);
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link LchMarginDetail}.
+ */
+public class LchMarginDetailTest {
+
+  private static final LocalDate DATE = LocalDate.of(2026, 6, 1);
+  private static final LchMarginScenario SCENARIO1 = LchMarginScenario.of("S1", DATE.minusDays(1), -10d, -9d);
+  private static final LchMarginScenario SCENARIO2 = LchMarginScenario.of("S2", DATE.minusDays(3), -20d, -18d);
+  private static final LchMarginScenario SCENARIO3 = LchMarginScenario.of("S3", null, -30d, -27d);
+  private static final LchMarginScenario SCENARIO4 = LchMarginScenario.of("S4", DATE.minusDays(2), 5d, 4d);
+  private static final LchMarginScenario SCENARIO1_DUPLICATE = LchMarginScenario.of("s1", DATE, 1d, 1d);
+  private static final LchMarginIndex INDEX1 = LchMarginIndex.of("LIBOR-BBA", 10d, 12d, Arrays.asList("S1", "S2"));
+  private static final LchMarginIndex INDEX2 = LchMarginIndex.of("SONIA", 20d, 22d, Collections.singletonList("S4"));
+  private static final LchMarginDetail DETAIL = LchMarginDetail.of(
+      30d,
+      Arrays.asList("S1", "S2"),
+      Arrays.asList(INDEX1, INDEX2),
+      Arrays.asList(SCENARIO1, SCENARIO2, SCENARIO3, SCENARIO4, SCENARIO1_DUPLICATE));
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_findScenario() {
+    assertThat(DETAIL.findScenario("S2")).hasValue(SCENARIO2);
+    assertThat(DETAIL.findScenario("s4")).hasValue(SCENARIO4);
+    assertThat(DETAIL.findScenario("S1")).hasValue(SCENARIO1);
+    assertThat(DETAIL.findScenario("S9")).isEmpty();
+    assertThat(DETAIL.findScenario(null)).isEmpty();
+  }
+
+  @Test
+  public void test_findIndex() {
+    assertThat(DETAIL.findIndex("LIBOR-BBA")).hasValue(INDEX1);
+    assertThat(DETAIL.findIndex("sonia")).hasValue(INDEX2);
+    assertThat(DETAIL.findIndex("ESTR")).isEmpty();
+    assertThat(DETAIL.findIndex(null)).isEmpty();
+  }
+
+  @Test
+  public void test_find_nonAscii() {
+    // the Kelvin sign matches 'k' ignoring case, but does not upper-case to 'K'
+    LchMarginScenario kelvin = LchMarginScenario.of("\u212A1", DATE, 1d, 1d);
+    LchMarginIndex sharpS = LchMarginIndex.of("STRA\u00DFE", 1d, 1d, Collections.emptyList());
+    LchMarginDetail test = LchMarginDetail.of(
+        1d, Collections.emptyList(), Arrays.asList(INDEX1, sharpS), Arrays.asList(SCENARIO1, kelvin));
+    assertThat(test.findScenario("k1")).hasValue(kelvin);
+    assertThat(test.findScenario("K1")).hasValue(kelvin);
+    assertThat(test.findScenario("s1")).hasValue(SCENARIO1);
+    assertThat(test.findIndex("stra\u00DFe")).hasValue(sharpS);
+    assertThat(test.findIndex("STRASSE")).isEmpty();
+    assertThat(test.findIndex("libor-bba")).hasValue(INDEX1);
+    assertThat(DETAIL.findScenario("\u212A1")).isEmpty();
+  }
+
+  @Test
+  public void test_pnlVectors() {
+    assertThat(DETAIL.scenariosByDate()).containsExactly(SCENARIO2, SCENARIO4, SCENARIO1, SCENARIO1_DUPLICATE, SCENARIO3);
+    assertThat(DETAIL.scaledPnlVector()).containsExactly(-20d, 5d, -10d, 1d, -30d);
+    assertThat(DETAIL.unscaledPnlVector()).containsExactly(-18d, 4d, -9d, 1d, -27d);
+    // vectors are copies
+    DETAIL.scaledPnlVector()[0] = 0d;
+    assertThat(DETAIL.scaledPnlVector()[0]).isEqualTo(-20d);
+  }
+
+}
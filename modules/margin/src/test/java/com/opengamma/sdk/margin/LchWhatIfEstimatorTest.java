@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link LchWhatIfEstimator}.
+ */
+public class LchWhatIfEstimatorTest {
+
+  private static final LocalDate DATE = LocalDate.of(2026, 6, 1);
+  private static final LchMarginDetail BASE = LchMarginDetail.of(
+      120d,
+      Arrays.asList("S1", "S2"),
+      Collections.emptyList(),
+      Arrays.asList(
+          LchMarginScenario.of("S1", DATE.minusDays(4), -100d, -90d),
+          LchMarginScenario.of("S2", DATE.minusDays(3), -80d, -70d),
+          LchMarginScenario.of("S3", DATE.minusDays(2), -60d, -50d),
+          LchMarginScenario.of("S4", DATE.minusDays(1), 10d, 5d)));
+  // hedges the worst scenarios, such that S3 enters the tail
+  private static final LchMarginDetail CANDIDATE = LchMarginDetail.of(
+      5d,
+      Collections.singletonList("S3"),
+      Collections.emptyList(),
+      Arrays.asList(
+          LchMarginScenario.of("s1", DATE.minusDays(4), 50d, 50d),
+          LchMarginScenario.of("S3", DATE.minusDays(2), -5d, -5d),
+          LchMarginScenario.of("S9", DATE, -1000d, -1000d)));
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_of() {
+    LchWhatIfEstimator test = LchWhatIfEstimator.of(BASE);
+    assertThat(test.getScenarioIds()).containsExactly("S1", "S2", "S3", "S4");
+    assertThat(test.getTailSize()).isEqualTo(2);
+    assertThat(test.getBaseMargin()).isEqualTo(120d);
+  }
+
+  @Test
+  public void test_of_result() {
+    MarginCalcResult result = MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        EnumSet.of(MarginCalcType.MARGIN, MarginCalcType.MARGIN_DETAIL),
+        MarginCalcMode.SPOT,
+        DATE,
+        "GBP",
+        "GBP",
+        true,
+        Collections.emptyList(),
+        null,
+        BASE,
+        null,
+        Collections.emptyList());
+    assertThat(LchWhatIfEstimator.of(result).getTailSize()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_of_noDetail() {
+    MarginCalcResult result = MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        EnumSet.of(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        DATE,
+        "GBP",
+        "GBP",
+        true,
+        Collections.emptyList(),
+        null,
+        null,
+        null,
+        Collections.emptyList());
+    assertThatIllegalArgumentException().isThrownBy(() -> LchWhatIfEstimator.of(result));
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_estimate() {
+    LchWhatIfEstimator test = LchWhatIfEstimator.of(BASE);
+    double[] candidatePnl = test.alignPnl(CANDIDATE);
+    assertThat(candidatePnl).containsExactly(50d, 0d, -5d, 0d);
+    // base tail is S1 and S2, average loss 90, combined tail is S2 and S3, average loss 72.5
+    assertThat(test.estimateMarginChange(candidatePnl)).isEqualTo(-17.5d);
+    assertThat(test.estimateMarginChange(CANDIDATE)).isEqualTo(-17.5d);
+    assertThat(test.estimateMargin(candidatePnl)).isEqualTo(102.5d);
+    assertThat(test.estimateMarginChange(new double[4])).isEqualTo(0d);
+    assertThatIllegalArgumentException().isThrownBy(() -> test.estimateMarginChange(new double[3]));
+  }
+
+}
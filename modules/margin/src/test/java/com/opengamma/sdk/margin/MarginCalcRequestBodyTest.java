@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.joda.beans.ser.JodaBeanSer;
+import org.junit.jupiter.api.Test;
+
+import okio.Buffer;
+
+/**
+ * Test {@link MarginCalcRequestBody}.
+ */
+public class MarginCalcRequestBodyTest {
+
+  private static final Path PATH = Paths.get("src/test/resources/lch-trades.txt");
+  private static final PortfolioDataFile ESCAPED = (PortfolioDataFile) PortfolioDataFile.meta().builder()
+      .set("name", "a\"b")
+      .set("data", "a\"b\\c\n\u0001")
+      .build();
+
+  @Test
+  public void test_writeTo_matchesSerializer() throws Exception {
+    MarginCalcRequest streamed = request(PortfolioDataFile.ofStreamed(PATH), ESCAPED, PortfolioDataFile.of("name.txt", "a=b"));
+    MarginCalcRequest inMemory = request(PortfolioDataFile.of(PATH), ESCAPED, PortfolioDataFile.of("name.txt", "a=b"));
+    String expected = JodaBeanSer.COMPACT.jsonWriter().write(inMemory, false);
+
+    MarginCalcRequestBody test = new MarginCalcRequestBody(JodaBeanSer.COMPACT, streamed);
+    assertThat(write(test)).isEqualTo(expected);
+    // can be written again, such as on retry
+    assertThat(write(test)).isEqualTo(expected);
+    assertThat(test.contentLength()).isEqualTo(-1);
+  }
+
+  @Test
+  public void test_writeTo_noPortfolioData() throws Exception {
+    MarginCalcRequest request = request();
+    MarginCalcRequestBody test = new MarginCalcRequestBody(JodaBeanSer.COMPACT, request);
+    assertThat(write(test)).isEqualTo(JodaBeanSer.COMPACT.jsonWriter().write(request, false));
+  }
+
+  //-------------------------------------------------------------------------
+  private static MarginCalcRequest request(PortfolioDataFile... files) {
+    return MarginCalcRequest.builder()
+        .calculationTypes(MarginCalcType.MARGIN)
+        .valuationDate(LocalDate.of(2017, 6, 1))
+        .reportingCurrency("GBP")
+        .portfolioData(Arrays.asList(files))
+        .fpmlPartySelectionRegex("party.*")
+        .build();
+  }
+
+  private static String write(MarginCalcRequestBody body) throws Exception {
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer.readUtf8();
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import org.joda.beans.ser.JodaBeanSer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link MarginCalcResult}.
+ */
+public class MarginCalcResultTest {
+
+  private static final LchMarginDetail DETAIL =
+      LchMarginDetail.of(30d, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_parseJson() {
+    MarginCalcResult result = MarginCalcResult.of(
+        MarginCalcResultStatus.COMPLETED,
+        Collections.singleton(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        LocalDate.of(2017, 6, 1),
+        "GBP",
+        "GBP",
+        false,
+        Collections.emptyList(),
+        null,
+        DETAIL,
+        null,
+        Collections.emptyList());
+    String json = JodaBeanSer.COMPACT.jsonWriter().write(result, false);
+    MarginCalcResult test = MarginCalcResult.parseJson(Ccp.LCH, json);
+    assertThat(test).isEqualTo(result);
+    assertThat(test.getMarginDetail()).hasValue(DETAIL);
+  }
+
+}
@@ -11,20 +11,28 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.joda.beans.ser.JodaBeanSer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import com.opengamma.sdk.common.PollingStrategy;
 import com.opengamma.sdk.common.ServiceInvoker;
 import com.opengamma.sdk.common.auth.Credentials;
 
@@ -103,6 +111,30 @@ public class MarginClientTest {
           null,
           null,
           Collections.emptyList()));
+  private static final MarginCalcResult RESULT_DETAILED = MarginCalcResult.of(
+      MarginCalcResultStatus.COMPLETED,
+      set(MarginCalcType.MARGIN, MarginCalcType.MARGIN_DETAIL, MarginCalcType.PRESENT_VALUE),
+      MarginCalcMode.SPOT,
+      VAL_DATE,
+      "GBP",
+      "GBP",
+      true,
+      Collections.singletonList(PortfolioItemSummary.of("1", "SWAP", "MySwap")),
+      MarginSummary.of(125d, Collections.emptyList(), MarginBreakdown.of(125d, 125d, 0, 0)),
+      LchMarginDetail.of(
+          125d,
+          Collections.singletonList("S1"),
+          Collections.singletonList(LchMarginIndex.of("LIBOR-BBA", 100d, 125d, Collections.singletonList("S1"))),
+          Collections.singletonList(LchMarginScenario.of("S1", VAL_DATE.minusDays(1), -125d, -120d))),
+      TradeValuations.of(
+          0d,
+          0d,
+          Collections.emptyList(),
+          null,
+          null,
+          Collections.singletonList(TradeValuation.of("1", TradeValue.of(12d, "GBP", 12d), null, null))),
+      Collections.emptyList());
+  private static final String RESPONSE_CALC_GET_DETAILED = JodaBeanSer.PRETTY.simpleJsonWriter().write(RESULT_DETAILED);
   private static final String RESPONSE_DELETE = "";
   private static final String RESPONSE_ERROR = JodaBeanSer.PRETTY.simpleJsonWriter().write(
       ErrorMessage.of(500, "Error", "Error"));
@@ -202,6 +234,122 @@ public class MarginClientTest {
     assertThat(result.getValuationDate()).isEqualTo(VAL_DATE);
   }
 
+  @Test
+  public void test_calculate_pendingStatusOnly() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setBody(RESPONSE_CALC_POST));
+    // the rest of a pending result is not parsed, thus invalid content after the status is not an error
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody("{\"status\":\"PENDING\",\"portfolioItems\":[not-parsed"));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse()
+        .setBody(RESPONSE_DELETE));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    MarginCalcResult result = client.calculate(Ccp.LCH, REQUEST, PollingStrategy.fixed(Duration.ZERO));
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(result.getMargin().get().getMargin()).isEqualTo(125d);
+    assertThat(server.getRequestCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void test_calculateLazy() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setBody(RESPONSE_CALC_POST));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(RESPONSE_CALC_GET_DETAILED));
+    server.enqueue(new MockResponse()
+        .setBody(RESPONSE_DELETE));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    LazyMarginCalcResult result = client.calculateLazy(Ccp.LCH, REQUEST);
+    assertThat(result.getSummary().getMargin()).isEqualTo(RESULT_DETAILED.getMargin());
+    assertThat(result.getSummary().getMarginDetail()).isEmpty();
+    assertThat(result.getSummary().getTradeValuations()).isEmpty();
+    assertThat(result.getMarginDetail()).containsInstanceOf(LchMarginDetail.class);
+    assertThat(result.getMarginDetail()).isEqualTo(RESULT_DETAILED.getMarginDetail());
+    assertThat(result.getTradeValuations()).isEqualTo(RESULT_DETAILED.getTradeValuations());
+    assertThat(result.toResult()).isEqualTo(RESULT_DETAILED);
+  }
+
+  @Test
+  @Timeout(30)
+  public void test_calculate_retryAfter() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setHeader("Retry-After", "0")
+        .setBody(RESPONSE_CALC_POST));
+    server.enqueue(new MockResponse()
+        .setResponseCode(503)
+        .setHeader("Retry-After", "0"));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setHeader("Retry-After", "0")
+        .setBody(RESPONSE_CALC_GET_PENDING));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse()
+        .setBody(RESPONSE_DELETE));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    // every poll is timed by a server hint, so the long fixed delay is never used
+    long start = System.nanoTime();
+    MarginCalcResult result = client.calculate(Ccp.LCH, REQUEST, PollingStrategy.fixed(Duration.ofMinutes(10)));
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(server.getRequestCount()).isEqualTo(5);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+  }
+
+  @Test
+  @Timeout(30)
+  public void test_calculateAsync_retryAfter() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setHeader("Retry-After", "0")
+        .setBody(RESPONSE_CALC_POST));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse()
+        .setBody(RESPONSE_DELETE));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    // the first poll is timed by the hint on the create response, so the long fixed delay is never used
+    CompletableFuture<MarginCalcResult> future =
+        client.calculateAsync(Ccp.LCH, REQUEST, PollingStrategy.fixed(Duration.ofMinutes(10)));
+    assertThat(future.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(server.getRequestCount()).isGreaterThanOrEqualTo(2);
+  }
+
+  @Test
+  public void test_parseRetryAfter() {
+    assertThat(InvokerMarginClient.parseRetryAfter(null)).isNull();
+    assertThat(InvokerMarginClient.parseRetryAfter("")).isNull();
+    assertThat(InvokerMarginClient.parseRetryAfter("rubbish")).isNull();
+    assertThat(InvokerMarginClient.parseRetryAfter("-1")).isNull();
+    assertThat(InvokerMarginClient.parseRetryAfter(" 3 ")).isEqualTo(Duration.ofSeconds(3));
+    assertThat(InvokerMarginClient.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isEqualTo(Duration.ZERO);
+  }
+
   @Test
   public void test_calculate_with_retries_failing() throws Exception {
     server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
@@ -247,66 +395,14 @@ public class MarginClientTest {
 
   // This method handles two concurrent HTTP requests, thus defines the MockWebServer in a different way.
   // For any what-if scenario request, the sequence of HTTP requests should look like this:
-  // * POST - /margin/v1/ccps/lch/calculations - base portfolios
-  // * POST - /margin/v1/ccps/lch/calculations - delta portfolios
+  // * (concurrently) POST - /margin/v1/ccps/lch/calculations - base portfolios
+  // * (concurrently) POST - /margin/v1/ccps/lch/calculations - base plus delta portfolios
   // * (for each portfolio) GET - /margin/v1/ccps/lch/calculations/[calcID] - until the status is COMPLETED.
   // * (for each portfolio) DELETE - /margin/v1/ccps/lch/calculations/[calcID]
   @Test
   @SuppressWarnings("deprecation")
   public void test_calculate_whatif() throws Exception {
-    Dispatcher webServerDispatcher = new Dispatcher() {
-      private boolean firstRequestSubmitted;
-      private boolean firstCalcRequested;
-      private boolean secondCalcRequested;
-
-      @Override
-      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
-        String requestPath = request.getPath();
-        if (request.getMethod().equals("POST") && requestPath.equals("/margin/v3/ccps/lch/calculations")) {
-          if (!firstRequestSubmitted) {
-            firstRequestSubmitted = true;
-            return new MockResponse()
-                .setResponseCode(202)
-                .setHeader("Location", server.url("/ccps/lch/calculations/789"))
-                .setBody(RESPONSE_CALC_POST);
-          } else {
-            return new MockResponse()
-                .setResponseCode(202)
-                .setHeader("Location", server.url("/ccps/lch/calculations/790"))
-                .setBody(RESPONSE_CALC_POST);
-          }
-        } else if (request.getMethod().equals("GET") && requestPath.equals("/margin/v3/ccps/lch/calculations/789")) {
-          if (!firstCalcRequested) {
-            firstCalcRequested = true;
-            return new MockResponse()
-                .setHeader("Content-Type", "application/json")
-                .setBody(RESPONSE_CALC_GET_PENDING);
-          } else {
-            return new MockResponse()
-                .setHeader("Content-Type", "application/json")
-                .setBody(RESPONSE_CALC_GET_COMPLETE);
-          }
-        } else if (request.getMethod().equals("GET") && requestPath.equals("/margin/v3/ccps/lch/calculations/790")) {
-          if (!secondCalcRequested) {
-            secondCalcRequested = true;
-            return new MockResponse()
-                .setHeader("Content-Type", "application/json")
-                .setBody(RESPONSE_CALC_GET_PENDING);
-          } else {
-            return new MockResponse()
-                .setHeader("Content-Type", "application/json")
-                .setBody(RESPONSE_CALC_WHATIF_GET_COMPLETE);
-          }
-        } else if (request.getMethod().equals("DELETE")) {
-          return new MockResponse()
-              .setBody(RESPONSE_DELETE);
-        } else {
-
-          return new MockResponse().setResponseCode(404);
-        }
-      }
-    };
-    server.setDispatcher(webServerDispatcher);
+    server.setDispatcher(whatIfDispatcher());
 
     // call server
     ServiceInvoker invoker = createInvoker();
@@ -327,6 +423,238 @@ public class MarginClientTest {
     assertThat(result.getDeltaSummary().getMargin()).isEqualTo(135.0);
   }
 
+  @Test
+  public void test_calculateWhatIfAsync() throws Exception {
+    server.setDispatcher(whatIfDispatcher());
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    CompletableFuture<MarginWhatIfCalcResult> future =
+        client.calculateWhatIfAsync(Ccp.LCH, REQUEST, Collections.singletonList(lchPortfolioFile));
+    MarginWhatIfCalcResult result = future.get(30, TimeUnit.SECONDS);
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(result.getBaseSummary().getMargin()).isEqualTo(125.0);
+    assertThat(result.getCombinedSummary().getMargin()).isEqualTo(260.0);
+    assertThat(result.getDeltaSummary().getMargin()).isEqualTo(135.0);
+  }
+
+  @Test
+  public void test_calculateWhatIfAsync_createFails() throws Exception {
+    List<String> deleted = new CopyOnWriteArrayList<>();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getMethod().equals("POST") && request.getBody().readUtf8().contains("lch-trades")) {
+          return new MockResponse()
+              .setResponseCode(500)
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_ERROR);
+        } else if (request.getMethod().equals("POST")) {
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("DELETE")) {
+          deleted.add(request.getPath());
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    CompletableFuture<MarginWhatIfCalcResult> future =
+        client.calculateWhatIfAsync(Ccp.LCH, REQUEST, Collections.singletonList(lchPortfolioFile));
+    assertThatExceptionOfType(CompletionException.class).isThrownBy(future::join);
+    // the base was created, so is deleted without being polled
+    for (int i = 0; i < 50 && deleted.isEmpty(); i++) {
+      Thread.sleep(100);
+    }
+    assertThat(deleted).containsExactly("/margin/v3/ccps/lch/calculations/789");
+  }
+
+  @Test
+  public void test_calculateWhatIfAsync_cancel() throws Exception {
+    CountDownLatch polled = new CountDownLatch(2);
+    List<String> deleted = new CopyOnWriteArrayList<>();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getMethod().equals("POST")) {
+          String id = request.getBody().readUtf8().contains("lch-trades") ? "790" : "789";
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/" + id))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("GET")) {
+          polled.countDown();
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_GET_PENDING);
+        } else if (request.getMethod().equals("DELETE")) {
+          deleted.add(request.getPath());
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    CompletableFuture<MarginWhatIfCalcResult> future =
+        client.calculateWhatIfAsync(Ccp.LCH, REQUEST, Collections.singletonList(lchPortfolioFile));
+    assertThat(polled.await(30, TimeUnit.SECONDS)).isTrue();
+    future.cancel(true);
+    // both calculations stop being polled and are deleted
+    for (int i = 0; i < 50 && deleted.size() < 2; i++) {
+      Thread.sleep(100);
+    }
+    assertThat(deleted).containsExactlyInAnyOrder(
+        "/margin/v3/ccps/lch/calculations/789",
+        "/margin/v3/ccps/lch/calculations/790");
+  }
+
+  @Test
+  public void test_calculateWhatIf_interrupted() throws Exception {
+    server.setDispatcher(whatIfDispatcher());
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    Thread.currentThread().interrupt();
+    try {
+      assertThatExceptionOfType(RuntimeException.class)
+          .isThrownBy(() -> client.calculateWhatIf(Ccp.LCH, REQUEST, Collections.singletonList(lchPortfolioFile)))
+          .withCauseInstanceOf(InterruptedException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void test_calculateWhatIfScenarios() throws Exception {
+    AtomicInteger createdBase = new AtomicInteger();
+    AtomicInteger createdCombined = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String requestPath = request.getPath();
+        if (request.getMethod().equals("POST")) {
+          // the base is the only request without portfolio data
+          String id = request.getBody().readUtf8().contains("lch-trades") ?
+              "combined" + createdCombined.incrementAndGet() :
+              "base" + createdBase.incrementAndGet();
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/" + id))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("GET") && requestPath.contains("/base")) {
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_GET_COMPLETE);
+        } else if (request.getMethod().equals("GET")) {
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_WHATIF_GET_COMPLETE);
+        } else if (request.getMethod().equals("DELETE")) {
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    List<MarginWhatIfCalcResult> results = client.calculateWhatIfScenarios(
+        Ccp.LCH,
+        REQUEST,
+        Collections.nCopies(3, Collections.singletonList(lchPortfolioFile)));
+    assertThat(results).hasSize(3).allSatisfy(result -> {
+      assertThat(result.getBaseSummary().getMargin()).isEqualTo(125.0);
+      assertThat(result.getCombinedSummary().getMargin()).isEqualTo(260.0);
+      assertThat(result.getDeltaSummary().getMargin()).isEqualTo(135.0);
+    });
+    assertThat(createdBase.get()).isEqualTo(1);
+    assertThat(createdCombined.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void test_calculateWhatIfScenarios_baseFails() throws Exception {
+    List<String> deleted = new CopyOnWriteArrayList<>();
+    AtomicInteger createdCombined = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String requestPath = request.getPath();
+        if (request.getMethod().equals("POST")) {
+          String id = request.getBody().readUtf8().contains("lch-trades") ?
+              "combined" + createdCombined.incrementAndGet() :
+              "base";
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/" + id))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("GET") && requestPath.contains("/base")) {
+          return new MockResponse()
+              .setResponseCode(400)
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_ERROR);
+        } else if (request.getMethod().equals("GET")) {
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_GET_PENDING);
+        } else if (request.getMethod().equals("DELETE")) {
+          deleted.add(requestPath);
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    PortfolioDataFile lchPortfolioFile = PortfolioDataFile.of(Paths.get("src/test/resources/lch-trades.txt"));
+    CompletableFuture<List<MarginWhatIfCalcResult>> future = client.calculateWhatIfScenariosAsync(
+        Ccp.LCH,
+        REQUEST,
+        Collections.nCopies(3, Collections.singletonList(lchPortfolioFile)));
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> future.get(30, TimeUnit.SECONDS))
+        .withCauseInstanceOf(MarginException.class);
+    // the candidates are cancelled, stopping polling and deleting them
+    for (int i = 0; i < 50 && deleted.size() < createdCombined.get() + 1; i++) {
+      Thread.sleep(100);
+    }
+    assertThat(deleted).contains("/margin/v3/ccps/lch/calculations/base");
+    assertThat(deleted).hasSize(createdCombined.get() + 1);
+  }
+
   @Test
   public void test_calculate_postFail() throws Exception {
     server.enqueue(new MockResponse()
@@ -462,6 +790,325 @@ public class MarginClientTest {
     assertThat(server.getRequestCount()).isEqualTo(4);
   }
 
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_calculateAll() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger completed = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String requestPath = request.getPath();
+        if (request.getMethod().equals("POST")) {
+          int id = created.incrementAndGet();
+          maxInFlight.accumulateAndGet(id - completed.get(), Math::max);
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/" + id))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("GET") && requestPath.startsWith("/margin/v3/ccps/lch/calculations/")) {
+          completed.incrementAndGet();
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_GET_COMPLETE);
+        } else if (request.getMethod().equals("DELETE")) {
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    List<CompletableFuture<MarginCalcResult>> futures =
+        client.calculateAll(Ccp.LCH, Collections.nCopies(6, REQUEST), 2);
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+    assertThat(futures).hasSize(6)
+        .allMatch(future -> future.join().getStatus() == MarginCalcResultStatus.COMPLETED);
+    assertThat(created.get()).isEqualTo(6);
+    assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void test_calculateStream() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger completed = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String requestPath = request.getPath();
+        if (request.getMethod().equals("POST")) {
+          int id = created.incrementAndGet();
+          maxInFlight.accumulateAndGet(id - completed.get(), Math::max);
+          return new MockResponse()
+              .setResponseCode(202)
+              .setHeader("Location", server.url("/ccps/lch/calculations/" + id))
+              .setBody(RESPONSE_CALC_POST);
+        } else if (request.getMethod().equals("GET") && requestPath.startsWith("/margin/v3/ccps/lch/calculations/")) {
+          completed.incrementAndGet();
+          return new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(RESPONSE_CALC_GET_COMPLETE);
+        } else if (request.getMethod().equals("DELETE")) {
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    });
+
+    // call server, with a subscriber requesting one result at a time
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    List<MarginCalcResult> results = new CopyOnWriteArrayList<>();
+    CompletableFuture<List<MarginCalcResult>> future = new CompletableFuture<>();
+    client.calculateStream(Collections.nCopies(6, CcpCalcRequest.of(Ccp.LCH, REQUEST)).iterator(), 4)
+        .subscribe(new CalculationFlow.Subscriber<MarginCalcResult>() {
+          private CalculationFlow.Subscription subscription;
+
+          @Override
+          public void onSubscribe(CalculationFlow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+          }
+
+          @Override
+          public void onNext(MarginCalcResult item) {
+            results.add(item);
+            subscription.request(1);
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            future.completeExceptionally(throwable);
+          }
+
+          @Override
+          public void onComplete() {
+            future.complete(results);
+          }
+        });
+    assertThat(future.get(30, TimeUnit.SECONDS)).hasSize(6)
+        .allMatch(result -> result.getStatus() == MarginCalcResultStatus.COMPLETED);
+    assertThat(created.get()).isEqualTo(6);
+    assertThat(maxInFlight.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_createCalculation_limiter() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(429)
+        .setBody(RESPONSE_ERROR));
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setBody(RESPONSE_CALC_POST));
+
+    // call server
+    ServiceInvoker invoker = createInvoker();
+    MarginLimiter limiter = MarginLimiter.adaptive();
+    MarginClient client = MarginClient.of(invoker, limiter);
+
+    // the rejected request reduces the window, then is retried
+    assertThat(client.createCalculation(Ccp.LCH, REQUEST)).isEqualTo("789");
+    assertThat(limiter.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(4);
+    assertThat(limiter.getLimit(Ccp.EUREX, MarginOperation.CREATE_CALCULATION)).isEqualTo(8);
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_getCalculation_limiterHeldUntilRead() throws Exception {
+    List<Long> receivedAt = new CopyOnWriteArrayList<>();
+    server.setDispatcher(slowBodyDispatcher(receivedAt));
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker, limitedToOne());
+
+    // the second request waits for the body of the first to be read, not just its headers
+    CompletableFuture<MarginCalcResult> first = CompletableFuture.supplyAsync(() -> client.getCalculation(Ccp.LCH, "1"));
+    CompletableFuture<MarginCalcResult> second = CompletableFuture.supplyAsync(() -> client.getCalculation(Ccp.LCH, "2"));
+    assertThat(first.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(second.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(receivedAt).hasSize(2);
+    assertThat(receivedAt.get(1) - receivedAt.get(0)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+  }
+
+  @Test
+  public void test_getCalculation_limiterHeldUntilRead_async() throws Exception {
+    List<Long> receivedAt = new CopyOnWriteArrayList<>();
+    server.setDispatcher(slowBodyDispatcher(receivedAt));
+    ServiceInvoker invoker = createInvoker();
+    AsyncMarginClient client = AsyncMarginClient.of(invoker, limitedToOne());
+
+    // the second request waits for the body of the first to be read, not just its headers
+    CompletableFuture<MarginCalcResult> first = client.getCalculation(Ccp.LCH, "1");
+    CompletableFuture<MarginCalcResult> second = client.getCalculation(Ccp.LCH, "2");
+    assertThat(first.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(second.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(receivedAt).hasSize(2);
+    assertThat(receivedAt.get(1) - receivedAt.get(0)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+  }
+
+  // responds to each request for a calculation once received, sending the body after a delay
+  private static Dispatcher slowBodyDispatcher(List<Long> receivedAt) {
+    return new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        receivedAt.add(System.nanoTime());
+        return new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody(RESPONSE_CALC_GET_COMPLETE)
+            .setBodyDelay(500, TimeUnit.MILLISECONDS);
+      }
+    };
+  }
+
+  // a limiter that allows one request at a time to get a calculation
+  private static MarginLimiter limitedToOne() {
+    return MarginLimiter.builder()
+        .limits(MarginOperation.GET_CALCULATION, 1, 1)
+        .build();
+  }
+
+  @Test
+  public void test_createCalculation_busyRetriesWithInvokerRetries() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      server.enqueue(new MockResponse()
+          .setResponseCode(503)
+          .setHeader("Retry-After", "0")
+          .setBody(RESPONSE_ERROR));
+    }
+
+    // the invoker retries failures without a response, so the busy responses are only retried by the client
+    ServiceInvoker invoker = createInvoker(10, 3);
+    MarginClient client = MarginClient.of(invoker);
+
+    assertThatExceptionOfType(MarginException.class).isThrownBy(() -> client.createCalculation(Ccp.LCH, REQUEST));
+    assertThat(server.getRequestCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void test_createCalculation_busyRetried() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(429)
+        .setHeader("Retry-After", "0")
+        .setBody(RESPONSE_ERROR));
+    server.enqueue(new MockResponse()
+        .setResponseCode(503)
+        .setBody(RESPONSE_ERROR));
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setBody(RESPONSE_CALC_POST));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    assertThat(client.createCalculation(Ccp.LCH, REQUEST)).isEqualTo("789");
+    assertThat(server.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void test_createCalculation_busyRetriesExhausted() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      server.enqueue(new MockResponse()
+          .setResponseCode(429)
+          .setHeader("Retry-After", "0")
+          .setBody(RESPONSE_ERROR));
+    }
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    assertThatExceptionOfType(MarginException.class).isThrownBy(() -> client.createCalculation(Ccp.LCH, REQUEST));
+    assertThat(server.getRequestCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void test_calculateAsync_busyRetried() throws Exception {
+    server.enqueue(new MockResponse()
+        .setResponseCode(429)
+        .setBody(RESPONSE_ERROR));
+    server.enqueue(new MockResponse()
+        .setResponseCode(202)
+        .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+        .setBody(RESPONSE_CALC_POST));
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(RESPONSE_CALC_GET_COMPLETE));
+    server.enqueue(new MockResponse()
+        .setBody(RESPONSE_DELETE));
+
+    ServiceInvoker invoker = createInvoker();
+    MarginClient client = MarginClient.of(invoker);
+
+    CompletableFuture<MarginCalcResult> future =
+        client.calculateAsync(Ccp.LCH, REQUEST, PollingStrategy.fixed(Duration.ZERO));
+    assertThat(future.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+  }
+
+  // responds to what-if calculations, with a base margin of 125 and a combined margin of 260
+  private Dispatcher whatIfDispatcher() {
+    return new Dispatcher() {
+      private boolean firstCalcRequested;
+      private boolean secondCalcRequested;
+
+      @Override
+      public synchronized MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String requestPath = request.getPath();
+        if (request.getMethod().equals("POST") && requestPath.equals("/margin/v3/ccps/lch/calculations")) {
+          // the base is the only request without portfolio data, the two are uploaded concurrently
+          if (!request.getBody().readUtf8().contains("lch-trades")) {
+            return new MockResponse()
+                .setResponseCode(202)
+                .setHeader("Location", server.url("/ccps/lch/calculations/789"))
+                .setBody(RESPONSE_CALC_POST);
+          } else {
+            return new MockResponse()
+                .setResponseCode(202)
+                .setHeader("Location", server.url("/ccps/lch/calculations/790"))
+                .setBody(RESPONSE_CALC_POST);
+          }
+        } else if (request.getMethod().equals("GET") && requestPath.equals("/margin/v3/ccps/lch/calculations/789")) {
+          if (!firstCalcRequested) {
+            firstCalcRequested = true;
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(RESPONSE_CALC_GET_PENDING);
+          } else {
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(RESPONSE_CALC_GET_COMPLETE);
+          }
+        } else if (request.getMethod().equals("GET") && requestPath.equals("/margin/v3/ccps/lch/calculations/790")) {
+          if (!secondCalcRequested) {
+            secondCalcRequested = true;
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(RESPONSE_CALC_GET_PENDING);
+          } else {
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(RESPONSE_CALC_WHATIF_GET_COMPLETE);
+          }
+        } else if (request.getMethod().equals("DELETE")) {
+          return new MockResponse()
+              .setBody(RESPONSE_DELETE);
+        } else {
+
+          return new MockResponse().setResponseCode(404);
+        }
+      }
+    };
+  }
+
   private ServiceInvoker createInvoker() {
     return ServiceInvoker.builder(CREDENTIALS)
         .serviceUrl(server.url("/"))
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Test {@link MarginLimiter}.
+ */
+public class MarginLimiterTest {
+
+  private static final MarginOperation GET = MarginOperation.GET_CALCULATION;
+
+  private ScheduledExecutorService executor;
+
+  @BeforeEach
+  public void setUp() {
+    executor = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_acquire_waitsForWindow() {
+    MarginLimiter test = MarginLimiter.builder().defaultLimits(2, 10).build();
+    CompletableFuture<MarginLimiter.Permit> permit1 = acquire(test);
+    CompletableFuture<MarginLimiter.Permit> permit2 = acquire(test);
+    CompletableFuture<MarginLimiter.Permit> permit3 = acquire(test);
+    assertThat(permit1).isDone();
+    assertThat(permit2).isDone();
+    assertThat(permit3).isNotDone();
+
+    permit1.join().release(response(200, 10));
+    assertThat(permit3).isDone();
+  }
+
+  @Test
+  public void test_acquire_cancelledWhileWaiting() {
+    MarginLimiter test = MarginLimiter.builder().defaultLimits(1, 1).build();
+    CompletableFuture<MarginLimiter.Permit> permit1 = acquire(test);
+    CompletableFuture<MarginLimiter.Permit> permit2 = acquire(test);
+    CompletableFuture<MarginLimiter.Permit> permit3 = acquire(test);
+    permit2.cancel(false);
+    permit1.join().release();
+    assertThat(permit3).isDone();
+  }
+
+  @Test
+  public void test_release_successIncreasesWindowWhenFull() {
+    MarginLimiter test = MarginLimiter.builder().defaultLimits(1, 3).build();
+    acquire(test).join().release(response(200, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(2);
+  }
+
+  @Test
+  public void test_release_successDoesNotIncreaseWindowWhenNotFull() {
+    MarginLimiter test = MarginLimiter.builder().defaultLimits(2, 3).build();
+    acquire(test).join().release(response(200, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(2);
+  }
+
+  @Test
+  public void test_release_overloadReducesWindowOnce() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    MarginLimiter.Permit permit1 = acquire(test).join();
+    MarginLimiter.Permit permit2 = acquire(test).join();
+    permit1.release(response(429, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(4);
+
+    // sent before the window was reduced, so does not reduce it again
+    permit2.release(response(503, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(4);
+
+    acquire(test).join().release(response(429, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(2);
+  }
+
+  @Test
+  public void test_release_otherErrorDoesNotChangeWindow() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    acquire(test).join().release(response(500, 10));
+    acquire(test).join().release();
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(8);
+  }
+
+  @Test
+  public void test_release_retryAfterPauses() throws Exception {
+    MarginLimiter test = MarginLimiter.builder().defaultLimits(4, 4).build();
+    Response response = response(429, 10).newBuilder().header("Retry-After", "1").build();
+    acquire(test).join().release(response);
+    CompletableFuture<MarginLimiter.Permit> permit = acquire(test);
+    assertThat(permit).isNotDone();
+    assertThat(permit.get(10, TimeUnit.SECONDS)).isNotNull();
+  }
+
+  @Test
+  public void test_release_latencyReducesWindow() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    acquire(test, GET).join().release(response(200, 10));
+    assertThat(test.getLimit(Ccp.LCH, GET)).isEqualTo(8);
+    acquire(test, GET).join().release(response(200, 100));
+    assertThat(test.getLimit(Ccp.LCH, GET)).isEqualTo(4);
+  }
+
+  @Test
+  public void test_release_latencyBaselineFollowsLastingChange() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    acquire(test, GET).join().release(response(200, 10));
+    for (int i = 0; i < 300; i++) {
+      acquire(test, GET).join().release(response(200, 100));
+    }
+    // the single fast response is forgotten, so the window is no longer held at one
+    assertThat(test.getLimit(Ccp.LCH, GET)).isEqualTo(2);
+    acquire(test, GET).join().release(response(200, 100));
+    assertThat(test.getLimit(Ccp.LCH, GET)).isEqualTo(2);
+  }
+
+  @Test
+  public void test_release_latencyIgnoredWhenDisabled() {
+    MarginLimiter test = MarginLimiter.builder().latencyTolerance(0).build();
+    acquire(test, GET).join().release(response(200, 10));
+    acquire(test, GET).join().release(response(200, 100));
+    assertThat(test.getLimit(Ccp.LCH, GET)).isEqualTo(8);
+  }
+
+  @Test
+  public void test_release_latencyIgnoredForCreateByDefault() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    acquire(test).join().release(response(200, 10));
+    acquire(test).join().release(response(200, 100));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(8);
+
+    MarginLimiter enabled = MarginLimiter.builder().latencyTolerance(MarginOperation.CREATE_CALCULATION, 3).build();
+    acquire(enabled).join().release(response(200, 10));
+    acquire(enabled).join().release(response(200, 100));
+    assertThat(enabled.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(4);
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_limits() {
+    MarginLimiter test = MarginLimiter.builder()
+        .defaultLimits(2, 4)
+        .limits(MarginOperation.GET_CALCULATION, 16, 32)
+        .limits(Ccp.LCH, MarginOperation.GET_CALCULATION, 1, 1)
+        .build();
+    assertThat(test.getLimit(null, MarginOperation.LIST_CCPS)).isEqualTo(2);
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(2);
+    assertThat(test.getLimit(Ccp.EUREX, MarginOperation.GET_CALCULATION)).isEqualTo(16);
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.GET_CALCULATION)).isEqualTo(1);
+  }
+
+  @Test
+  public void test_windowsAreSeparate() {
+    MarginLimiter test = MarginLimiter.adaptive();
+    acquire(test).join().release(response(429, 10));
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.CREATE_CALCULATION)).isEqualTo(4);
+    assertThat(test.getLimit(Ccp.EUREX, MarginOperation.CREATE_CALCULATION)).isEqualTo(8);
+    assertThat(test.getLimit(Ccp.LCH, MarginOperation.GET_CALCULATION)).isEqualTo(8);
+  }
+
+  @Test
+  public void test_builder_invalid() {
+    MarginLimiter.Builder builder = MarginLimiter.builder();
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.defaultLimits(0, 1));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.limits(MarginOperation.LIST_CCPS, 2, 1));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.backoffRatio(1));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.latencyTolerance(0.5));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.latencyTolerance(GET, 0.5));
+  }
+
+  //-------------------------------------------------------------------------
+  // acquires a permit to create a calculation on LCH
+  private CompletableFuture<MarginLimiter.Permit> acquire(MarginLimiter limiter) {
+    return acquire(limiter, MarginOperation.CREATE_CALCULATION);
+  }
+
+  // acquires a permit for an operation on LCH
+  private CompletableFuture<MarginLimiter.Permit> acquire(MarginLimiter limiter, MarginOperation operation) {
+    return limiter.acquire(Ccp.LCH, operation, executor);
+  }
+
+  // creates a response with the specified code and latency
+  private static Response response(int code, long latencyMillis) {
+    return new Response.Builder()
+        .request(new Request.Builder().url("http://localhost/").build())
+        .protocol(Protocol.HTTP_1_1)
+        .code(code)
+        .message("Test")
+        .sentRequestAtMillis(1000)
+        .receivedResponseAtMillis(1000 + latencyMillis)
+        .build();
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.sdk.common.PollingStrategy;
+
+/**
+ * Test {@link PolledCalculation}, via the default methods of {@link MarginClient}.
+ */
+public class PolledCalculationTest {
+
+  private static final MarginCalcRequest REQUEST = MarginCalcRequest.builder()
+      .calculationTypes(MarginCalcType.MARGIN)
+      .valuationDate(LocalDate.of(2017, 6, 1))
+      .reportingCurrency("GBP")
+      .build();
+  private static final PollingStrategy FAST = PollingStrategy.fixed(Duration.ofMillis(1));
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_calculate() {
+    FakeClient client = new FakeClient(3);
+    List<Duration> delays = new ArrayList<>();
+    PollingStrategy strategy = (attempt, hint) -> {
+      assertThat(attempt).isEqualTo(delays.size());
+      assertThat(hint).isNull();
+      delays.add(Duration.ofMillis(1));
+      return Duration.ofMillis(1);
+    };
+    MarginCalcResult result = client.calculate(Ccp.LCH, REQUEST, strategy);
+    assertThat(result.getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(client.polls.get()).isEqualTo(3);
+    assertThat(delays).hasSize(3);
+    assertThat(client.deleted).containsExactly("calc1");
+  }
+
+  @Test
+  public void test_calculate_pollFails() {
+    FakeClient client = new FakeClient(-1);
+    assertThatExceptionOfType(MarginException.class).isThrownBy(() -> client.calculate(Ccp.LCH, REQUEST, FAST));
+    assertThat(client.deleted).containsExactly("calc1");
+  }
+
+  @Test
+  public void test_calculateAsync() throws Exception {
+    FakeClient client = new FakeClient(3);
+    CompletableFuture<MarginCalcResult> future = client.calculateAsync(Ccp.LCH, REQUEST, FAST);
+    assertThat(future.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(MarginCalcResultStatus.COMPLETED);
+    assertThat(client.polls.get()).isEqualTo(3);
+    client.awaitDeleted();
+    assertThat(client.deleted).containsExactly("calc1");
+  }
+
+  @Test
+  public void test_calculateAsync_pollFails() throws Exception {
+    FakeClient client = new FakeClient(-1);
+    CompletableFuture<MarginCalcResult> future = client.calculateAsync(Ccp.LCH, REQUEST, FAST);
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> future.get(30, TimeUnit.SECONDS))
+        .withCauseInstanceOf(MarginException.class);
+    client.awaitDeleted();
+    assertThat(client.deleted).containsExactly("calc1");
+  }
+
+  @Test
+  public void test_calculateAsync_cancel() throws Exception {
+    FakeClient client = new FakeClient(Integer.MAX_VALUE);
+    CompletableFuture<MarginCalcResult> future = client.calculateAsync(Ccp.LCH, REQUEST, FAST);
+    client.firstPoll.await(30, TimeUnit.SECONDS);
+    future.cancel(false);
+    client.awaitDeleted();
+    assertThat(client.deleted).containsExactly("calc1");
+  }
+
+  //-------------------------------------------------------------------------
+  // a client that only implements the basic methods, completing after a number of polls, or failing if negative
+  private static final class FakeClient implements MarginClient {
+    private final int pollsToComplete;
+    private final AtomicInteger polls = new AtomicInteger();
+    private final CountDownLatch firstPoll = new CountDownLatch(1);
+    private final CountDownLatch deleteLatch = new CountDownLatch(1);
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+    private FakeClient(int pollsToComplete) {
+      this.pollsToComplete = pollsToComplete;
+    }
+
+    private void awaitDeleted() throws InterruptedException {
+      assertThat(deleteLatch.await(30, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Override
+    public CcpsResult listCcps() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CcpInfo getCcpInfo(Ccp ccp) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String createCalculation(Ccp ccp, MarginCalcRequest request) {
+      return "calc1";
+    }
+
+    @Override
+    public MarginCalcResult getCalculation(Ccp ccp, String calcId) {
+      firstPoll.countDown();
+      if (pollsToComplete < 0) {
+        throw new MarginException("Failed", "Invalid");
+      }
+      int count = polls.incrementAndGet();
+      return result(count >= pollsToComplete ? MarginCalcResultStatus.COMPLETED : MarginCalcResultStatus.PENDING);
+    }
+
+    @Override
+    public void deleteCalculation(Ccp ccp, String calcId) {
+      deleted.add(calcId);
+      deleteLatch.countDown();
+    }
+
+    @Override
+    public MarginCalcResult calculate(Ccp ccp, MarginCalcRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<MarginCalcResult> calculateAsync(Ccp ccp, MarginCalcRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MarginWhatIfCalcResult calculateWhatIf(Ccp ccp, MarginCalcRequest request, List<PortfolioDataFile> deltaFiles) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static MarginCalcResult result(MarginCalcResultStatus status) {
+    return MarginCalcResult.of(
+        status,
+        Collections.singleton(MarginCalcType.MARGIN),
+        MarginCalcMode.SPOT,
+        LocalDate.of(2017, 6, 1),
+        "GBP",
+        "GBP",
+        false,
+        Collections.emptyList(),
+        null,
+        null,
+        null,
+        Collections.emptyList());
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test {@link PortfolioDataCache}.
+ */
+public class PortfolioDataCacheTest {
+
+  @Test
+  public void test_get_hit() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1024 * 1024);
+    PortfolioDataFile first = test.get(path);
+    PortfolioDataFile second = test.get(path);
+    assertThat(first).isEqualTo(PortfolioDataFile.of(path));
+    assertThat(second).isSameAs(first);
+    assertThat(test.getHitCount()).isEqualTo(1);
+    assertThat(test.getMissCount()).isEqualTo(1);
+    assertThat(test.getEntryCount()).isEqualTo(1);
+    assertThat(test.getTotalSize()).isEqualTo(first.getData().length());
+  }
+
+  @Test
+  public void test_get_options() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1024 * 1024);
+    PortfolioDataFile standard = test.get(path);
+    PortfolioDataFile stored = test.get(path, PortfolioEncodingOptions.STORE_ONLY);
+    assertThat(stored).isEqualTo(PortfolioDataFile.of(path, PortfolioEncodingOptions.STORE_ONLY));
+    assertThat(stored).isNotEqualTo(standard);
+    assertThat(test.get(path, PortfolioEncodingOptions.DEFAULT)).isSameAs(standard);
+    assertThat(test.get(path, PortfolioEncodingOptions.STORE_ONLY)).isSameAs(stored);
+    assertThat(test.getHitCount()).isEqualTo(2);
+    assertThat(test.getMissCount()).isEqualTo(2);
+    assertThat(test.getEntryCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_get_changedFile(@TempDir Path tempDir) throws Exception {
+    Path path = tempDir.resolve("trades.csv");
+    Files.write(path, "a,b".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(1_000_000));
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1024 * 1024);
+    PortfolioDataFile first = test.get(path);
+
+    Files.write(path, "a,b,c".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(2_000_000));
+    PortfolioDataFile second = test.get(path);
+    assertThat(second).isNotEqualTo(first).isEqualTo(PortfolioDataFile.of(path));
+    assertThat(test.getHitCount()).isZero();
+    assertThat(test.getMissCount()).isEqualTo(2);
+    assertThat(test.getEntryCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_get_evictsLeastRecentlyUsed() throws Exception {
+    Path path1 = Paths.get("src/test/resources/simple.csv");
+    Path path2 = Paths.get("src/test/resources/simple.xml");
+    Path path3 = Paths.get("src/test/resources/simple.xls");
+    long size1 = PortfolioDataFile.of(path1).getData().length();
+    long size2 = PortfolioDataFile.of(path2).getData().length();
+    long size3 = PortfolioDataFile.of(path3).getData().length();
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(Math.max(size1 + size3, size2 + size3));
+    test.get(path1);
+    test.get(path2);
+    test.get(path1);
+    test.get(path3);
+    // path2 was least recently used
+    assertThat(test.getEvictionCount()).isEqualTo(1);
+    assertThat(test.getEntryCount()).isEqualTo(2);
+    assertThat(test.getTotalSize()).isLessThanOrEqualTo(test.getMaxSize());
+    test.get(path3);
+    assertThat(test.getHitCount()).isEqualTo(2);
+    test.get(path2);
+    assertThat(test.getMissCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void test_get_tooLarge() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1);
+    assertThat(test.get(path)).isEqualTo(PortfolioDataFile.of(path));
+    assertThat(test.getEntryCount()).isZero();
+    assertThat(test.getTotalSize()).isZero();
+  }
+
+  @Test
+  public void test_get_missing() {
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1024);
+    assertThatIllegalArgumentException().isThrownBy(() -> test.get(Paths.get("src/test/resources/missing.csv")));
+  }
+
+  @Test
+  public void test_clear() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    PortfolioDataCache test = PortfolioDataCache.ofMaxSize(1024 * 1024);
+    test.get(path);
+    test.clear();
+    assertThat(test.getEntryCount()).isZero();
+    assertThat(test.getTotalSize()).isZero();
+    test.get(path);
+    assertThat(test.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_ofMaxSize_negative() {
+    assertThatIllegalArgumentException().isThrownBy(() -> PortfolioDataCache.ofMaxSize(-1));
+  }
+
+}
@@ -6,21 +6,34 @@
 package com.opengamma.sdk.margin;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.joda.beans.Bean;
+import org.joda.beans.JodaBeanUtils;
 import org.joda.beans.ser.JodaBeanSer;
 import org.junit.jupiter.api.Test;
 
@@ -83,6 +96,104 @@ public class PortfolioDataFileTest {
     assertThat(test.getData()).isEqualTo(Base64.getEncoder().encodeToString(gzip(path)));
   }
 
+  @Test
+  public void test_ofStreamed() {
+    Path path = Paths.get("src/test/resources/lch-trades.txt");
+    PortfolioDataFile test = PortfolioDataFile.ofStreamed(path);
+    assertThat(test.getName()).isEqualTo(PortfolioDataFile.of(path).getName());
+    assertThat(test.getData()).isEqualTo(Base64.getEncoder().encodeToString(gzip(path)));
+    assertThat(test.isStreamed()).isTrue();
+    assertThat(PortfolioDataFile.of(path).isStreamed()).isFalse();
+  }
+
+  @Test
+  public void test_ofStreamed_equalsHashCodeToString() {
+    Path path1 = Paths.get("src/test/resources/simple.csv");
+    Path path2 = Paths.get("src/test/resources/simple.xml");
+    PortfolioDataFile test = PortfolioDataFile.ofStreamed(path1);
+    assertThat(test).isEqualTo(PortfolioDataFile.ofStreamed(path1));
+    assertThat(test).hasSameHashCodeAs(PortfolioDataFile.ofStreamed(path1));
+    assertThat(test).isEqualTo(PortfolioDataFile.of(path1));
+    assertThat(test).hasSameHashCodeAs(PortfolioDataFile.of(path1));
+    assertThat(PortfolioDataFile.of(path1)).isEqualTo(test);
+    assertThat(test).isNotEqualTo(PortfolioDataFile.ofStreamed(path2));
+    assertThat(test).isNotEqualTo(PortfolioDataFile.ofStreamed(path1, PortfolioEncodingOptions.STORE_ONLY));
+    assertThat(test.hashCode()).isNotEqualTo(PortfolioDataFile.ofStreamed(path2).hashCode());
+    assertThat(test.toString()).isEqualTo(PortfolioDataFile.of(path1).toString());
+  }
+
+  @Test
+  public void test_ofStreamed_bean() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    PortfolioDataFile test = PortfolioDataFile.ofStreamed(path, PortfolioEncodingOptions.FASTEST);
+    PortfolioDataFile inMemory = PortfolioDataFile.of(path, PortfolioEncodingOptions.FASTEST);
+    // the file is not a property, generic bean operations see the data
+    assertThat(PortfolioDataFile.meta().metaPropertyMap().keySet()).containsExactly("name", "data");
+    assertThat(PortfolioDataFile.meta().metaProperty("data").get(test)).isEqualTo(inMemory.getData());
+    PortfolioDataFile cloned = JodaBeanUtils.clone(test);
+    assertThat(cloned).isEqualTo(inMemory);
+    String json = JodaBeanSer.COMPACT.jsonWriter().write(test);
+    assertThat(json).isEqualTo(JodaBeanSer.COMPACT.jsonWriter().write(inMemory));
+    assertThat(json).doesNotContain("sourceFile");
+    assertThat(JodaBeanSer.COMPACT.jsonReader().read(json, PortfolioDataFile.class)).isEqualTo(test);
+  }
+
+  @Test
+  public void test_ofStreamed_missing() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PortfolioDataFile.ofStreamed(Paths.get("src/test/resources/missing.txt")));
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_ofPath_options() throws Exception {
+    Path path = Paths.get("src/test/resources/lch-trades.txt");
+    PortfolioDataFile stored = PortfolioDataFile.of(path, PortfolioEncodingOptions.STORE_ONLY);
+    PortfolioDataFile fastest = PortfolioDataFile.of(path, PortfolioEncodingOptions.FASTEST);
+    PortfolioDataFile smallest = PortfolioDataFile.of(path, PortfolioEncodingOptions.SMALLEST);
+    assertThat(stored.getName()).isEqualTo(PortfolioDataFile.of(path).getName());
+    assertThat(gunzip(stored.getData())).isEqualTo(Files.readAllBytes(path));
+    assertThat(gunzip(smallest.getData())).isEqualTo(Files.readAllBytes(path));
+    assertThat(stored.getData().length()).isGreaterThan(fastest.getData().length());
+    assertThat(smallest.getData().length()).isLessThanOrEqualTo(fastest.getData().length());
+    assertThat(PortfolioDataFile.of(path, PortfolioEncodingOptions.DEFAULT)).isEqualTo(PortfolioDataFile.of(path));
+  }
+
+  @Test
+  public void test_ofStreamed_options() {
+    Path path = Paths.get("src/test/resources/lch-trades.txt");
+    PortfolioDataFile test = PortfolioDataFile.ofStreamed(path, PortfolioEncodingOptions.STORE_ONLY);
+    assertThat(test.getData()).isEqualTo(PortfolioDataFile.of(path, PortfolioEncodingOptions.STORE_ONLY).getData());
+  }
+
+  @Test
+  public void test_ofCombined_options() throws Exception {
+    List<Path> paths = Arrays.asList(
+        Paths.get("src/test/resources/lch-trades.txt"),
+        Paths.get("src/test/resources/simple.csv"));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PortfolioDataFile sequential = PortfolioDataFile.ofCombined(paths, PortfolioEncodingOptions.STORE_ONLY);
+      PortfolioDataFile parallel = PortfolioDataFile.ofCombined(paths, executor, PortfolioEncodingOptions.STORE_ONLY);
+      assertThat(unzip(parallel.getData())).isEqualTo(unzip(sequential.getData()));
+      assertThat(sequential.getData().length())
+          .isGreaterThan(PortfolioDataFile.ofCombined(paths, PortfolioEncodingOptions.FASTEST).getData().length());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void test_options_null() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    List<Path> paths = Arrays.asList(path);
+    assertThatNullPointerException().isThrownBy(() -> PortfolioDataFile.of("name.txt", "a=b", null));
+    assertThatNullPointerException().isThrownBy(() -> PortfolioDataFile.of(path, null));
+    assertThatNullPointerException().isThrownBy(() -> PortfolioDataFile.ofStreamed(path, null));
+    assertThatNullPointerException().isThrownBy(() -> PortfolioDataFile.ofCombined(paths, (PortfolioEncodingOptions) null));
+    assertThatNullPointerException().isThrownBy(() -> PortfolioDataFile.ofCombined(paths, Runnable::run, null));
+  }
+
   //-------------------------------------------------------------------------
   @Test
   public void test_ofBean_unchanged() {
@@ -109,6 +220,65 @@ public class PortfolioDataFileTest {
     assertThat(test.getData()).isEqualTo(Base64.getEncoder().encodeToString(zip(path1, path2)));
   }
 
+  @Test
+  public void test_ofCombined_parallel() throws Exception {
+    List<Path> paths = Arrays.asList(
+        Paths.get("src/test/resources/lch-trades.txt"),
+        Paths.get("src/test/resources/simple.csv"),
+        Paths.get("src/test/resources/simple.xls"),
+        Paths.get("src/test/resources/simple.xlsx"),
+        Paths.get("src/test/resources/simple.xml"));
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      PortfolioDataFile test = PortfolioDataFile.ofCombined(paths, executor);
+      assertThat(test.getName()).isEqualTo("JavaSDK.zip.base64");
+      assertThat(unzip(test.getData())).isEqualTo(unzip(PortfolioDataFile.ofCombined(paths).getData()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void test_ofCombined_parallel_duplicate() {
+    Path path = Paths.get("src/test/resources/simple.csv");
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThatExceptionOfType(UncheckedIOException.class)
+          .isThrownBy(() -> PortfolioDataFile.ofCombined(Arrays.asList(path, path), executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  // decompresses a base-64 GZIP
+  private static byte[] gunzip(String base64) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(base64)))) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int read;
+      while ((read = in.read(buf)) >= 0) {
+        baos.write(buf, 0, read);
+      }
+      return baos.toByteArray();
+    }
+  }
+
+  // reads the entries of a base-64 ZIP, in order
+  private static Map<String, String> unzip(String base64) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(base64)))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int read = in.read(buf); read >= 0; read = in.read(buf)) {
+          content.write(buf, 0, read);
+        }
+        entries.put(entry.getName(), Base64.getEncoder().encodeToString(content.toByteArray()));
+      }
+    }
+    return entries;
+  }
+
   private static byte[] gzip(String str) {
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       try (GZIPOutputStream zos = new GZIPOutputStream(baos)) {
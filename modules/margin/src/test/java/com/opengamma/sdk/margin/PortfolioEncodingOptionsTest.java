@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link PortfolioEncodingOptions}.
+ */
+public class PortfolioEncodingOptionsTest {
+
+  @Test
+  public void test_constants() {
+    assertThat(PortfolioEncodingOptions.DEFAULT.getCompressionLevel()).isEqualTo(-1);
+    assertThat(PortfolioEncodingOptions.STORE_ONLY.getCompressionLevel()).isEqualTo(0);
+    assertThat(PortfolioEncodingOptions.FASTEST.getCompressionLevel()).isEqualTo(1);
+    assertThat(PortfolioEncodingOptions.SMALLEST.getCompressionLevel()).isEqualTo(9);
+  }
+
+  @Test
+  public void test_ofCompressionLevel() {
+    PortfolioEncodingOptions test = PortfolioEncodingOptions.ofCompressionLevel(5);
+    assertThat(test.getCompressionLevel()).isEqualTo(5);
+    assertThat(test).isEqualTo(PortfolioEncodingOptions.ofCompressionLevel(5));
+    assertThat(test).isNotEqualTo(PortfolioEncodingOptions.SMALLEST);
+    assertThat(test.hashCode()).isEqualTo(PortfolioEncodingOptions.ofCompressionLevel(5).hashCode());
+    assertThat(test.toString()).contains("5");
+    assertThat(PortfolioEncodingOptions.ofCompressionLevel(9)).isEqualTo(PortfolioEncodingOptions.SMALLEST);
+  }
+
+  @Test
+  public void test_ofCompressionLevel_invalid() {
+    assertThatIllegalArgumentException().isThrownBy(() -> PortfolioEncodingOptions.ofCompressionLevel(-2));
+    assertThatIllegalArgumentException().isThrownBy(() -> PortfolioEncodingOptions.ofCompressionLevel(10));
+  }
+
+}
@@ -24,4 +24,13 @@ public class TenorStringConverterTest {
     assertThat(test.convertToString(Period.ofMonths(3))).isEqualTo("P3M");
   }
 
+  @Test
+  public void test_interned() {
+    TenorStringConverter test = new TenorStringConverter();
+    Period tenor = test.convertFromString(Period.class, "6M");
+    assertThat(test.convertFromString(Period.class, "6M")).isSameAs(tenor);
+    assertThat(test.convertFromString(Period.class, "P6M")).isSameAs(tenor);
+    assertThat(new TenorStringConverter().convertFromString(Period.class, "6M")).isSameAs(tenor);
+  }
+
 }
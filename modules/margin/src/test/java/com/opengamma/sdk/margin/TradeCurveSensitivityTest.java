@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.time.Period;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import org.joda.beans.ser.JodaBeanSer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link TradeCurveSensitivity}.
+ */
+public class TradeCurveSensitivityTest {
+
+  private static final Period P1M = Period.ofMonths(1);
+  private static final Period P1Y = Period.ofYears(1);
+  private static final Period P10Y = Period.ofYears(10);
+
+  @Test
+  public void test_tenorSensitivity() {
+    Map<Period, Double> tenorSensitivity = new HashMap<>();
+    tenorSensitivity.put(P10Y, -1d);
+    tenorSensitivity.put(P1M, 2d);
+    tenorSensitivity.put(P1Y, 3d);
+    TradeCurveSensitivity test = TradeCurveSensitivity.of("GBP-SONIA", "GBP", 4d, tenorSensitivity);
+    assertThat(test.getTenorSensitivity()).isEqualTo(tenorSensitivity);
+    assertThat(test.getTenorSensitivity().hashCode()).isEqualTo(tenorSensitivity.hashCode());
+    assertThat(test.getTenorSensitivity()).containsExactly(entry(P1M, 2d), entry(P1Y, 3d), entry(P10Y, -1d));
+    assertThat(test.getTenors()).containsExactly(P1M, P1Y, P10Y);
+    assertThat(test.getTenorValues()).containsExactly(2d, 3d, -1d);
+    assertThat(test.findTenorSensitivity(P1Y)).isEqualTo(OptionalDouble.of(3d));
+    assertThat(test.findTenorSensitivity(Period.ofYears(2))).isEmpty();
+    assertThatExceptionOfType(UnsupportedOperationException.class)
+        .isThrownBy(() -> test.getTenorSensitivity().put(Period.ZERO, 0d));
+  }
+
+  @Test
+  public void test_tenorsInterned() {
+    Map<Period, Double> tenorSensitivity = new HashMap<>();
+    tenorSensitivity.put(Period.ofMonths(3), 1d);
+    TradeCurveSensitivity test1 = TradeCurveSensitivity.of("GBP-SONIA", "GBP", 1d, tenorSensitivity);
+    TradeCurveSensitivity test2 = TradeCurveSensitivity.of("GBP-SONIA", "GBP", 1d, new HashMap<>(tenorSensitivity));
+    assertThat(test1.getTenors().get(0)).isSameAs(test2.getTenors().get(0));
+  }
+
+  @Test
+  public void test_serialization() {
+    Map<Period, Double> tenorSensitivity = new HashMap<>();
+    tenorSensitivity.put(P1Y, 3d);
+    tenorSensitivity.put(P1M, 2d);
+    TradeCurveSensitivity test = TradeCurveSensitivity.of("GBP-SONIA", "GBP", 5d, tenorSensitivity);
+    String json = JodaBeanSer.COMPACT.jsonWriter().write(test);
+    assertThat(JodaBeanSer.COMPACT.jsonReader().read(json, TradeCurveSensitivity.class)).isEqualTo(test);
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.sdk.margin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Period;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link TradeValuationsTable}.
+ */
+public class TradeValuationsTableTest {
+
+  private static final Period P1Y = Period.ofYears(1);
+  private static final Period P3M = Period.ofMonths(3);
+  private static final Period P10Y = Period.ofYears(10);
+
+  private static final TradeValuations VALUATIONS = TradeValuations.of(
+      30d,
+      6d,
+      Collections.emptyList(),
+      null,
+      null,
+      Arrays.asList(
+          TradeValuation.of(
+              "T1",
+              TradeValue.of(10d, "EUR", 9d),
+              TradeSensitivity.of(4d, Arrays.asList(
+                  curve("EUR-DSC", "EUR", P1Y, 1d, P3M, 2d),
+                  curve("EUR-EURIBOR6M", "EUR", P10Y, 1d))),
+              null),
+          TradeValuation.of(
+              "T2",
+              TradeValue.of(20d, "USD", 25d),
+              TradeSensitivity.of(2d, Arrays.asList(curve("EUR-DSC", "EUR", P1Y, 2d))),
+              null),
+          TradeValuation.of("T3", null, null, null),
+          TradeValuation.of(
+              "T4",
+              TradeValue.of(5d, "EUR", 4d),
+              null,
+              null)));
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_columns() {
+    TradeValuationsTable test = VALUATIONS.toTable();
+    assertThat(test.size()).isEqualTo(4);
+    assertThat(test.getTradeId(2)).isEqualTo("T3");
+    assertThat(test.getCurrencies()).containsExactly("EUR", "USD");
+    assertThat(test.getCurrencyIndex(0)).isEqualTo(0);
+    assertThat(test.getCurrencyIndex(1)).isEqualTo(1);
+    assertThat(test.getCurrencyIndex(2)).isEqualTo(-1);
+    assertThat(test.getCurrencyIndex(3)).isEqualTo(0);
+    assertThat(test.presentValueColumn()).containsExactly(10d, 20d, Double.NaN, 5d);
+    assertThat(test.presentValueTradeCurrencyColumn()).containsExactly(9d, 25d, Double.NaN, 4d);
+    assertThat(test.deltaColumn()).containsExactly(4d, 2d, Double.NaN, Double.NaN);
+    assertThat(test.gammaColumn()).containsExactly(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    assertThat(test.getPresentValue(1)).isEqualTo(20d);
+    assertThat(test.getPresentValueTradeCurrency(1)).isEqualTo(25d);
+    assertThat(test.getDelta(0)).isEqualTo(4d);
+    assertThat(test.getGamma(0)).isNaN();
+  }
+
+  @Test
+  public void test_totals() {
+    TradeValuationsTable test = TradeValuationsTable.of(VALUATIONS);
+    assertThat(test.totalPresentValue()).isEqualTo(35d);
+    assertThat(test.totalPresentValueTradeCurrency()).containsExactly(13d, 25d);
+    assertThat(test.totalDelta()).isEqualTo(6d);
+    assertThat(test.totalGamma()).isEqualTo(0d);
+  }
+
+  @Test
+  public void test_sensitivities() {
+    TradeValuationsTable test = TradeValuationsTable.of(VALUATIONS);
+    assertThat(test.getCurveNames()).containsExactly("EUR-DSC", "EUR-EURIBOR6M");
+    assertThat(test.getCurveCurrencies()).containsExactly("EUR", "EUR");
+    assertThat(test.getTenors()).containsExactly(P3M, P1Y, P10Y);
+    assertThat(test.getDelta(0, 0, 0)).isEqualTo(2d);
+    assertThat(test.getDelta(0, 0, 1)).isEqualTo(1d);
+    assertThat(test.getDelta(0, 1, 2)).isEqualTo(1d);
+    assertThat(test.getDelta(1, 1, 2)).isEqualTo(0d);
+    assertThat(test.getDelta(2, 0, 0)).isEqualTo(0d);
+    assertThat(test.getGamma(0, 0, 0)).isEqualTo(0d);
+    assertThat(test.totalDeltaMatrix()).isDeepEqualTo(new double[][] {{2d, 3d, 0d}, {0d, 0d, 1d}});
+    assertThat(test.totalGammaMatrix()).isDeepEqualTo(new double[][] {{0d, 0d, 0d}, {0d, 0d, 0d}});
+    assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> test.getDelta(0, 2, 0));
+    assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> test.getDelta(0, 0, 3));
+  }
+
+  @Test
+  public void test_sensitivities_sameCurveNameDifferentCurrency() {
+    TradeValuations valuations = TradeValuations.of(
+        0d,
+        0d,
+        Collections.emptyList(),
+        null,
+        null,
+        Arrays.asList(
+            TradeValuation.of(
+                "T1",
+                null,
+                TradeSensitivity.of(3d, Arrays.asList(curve("OIS", "EUR", P1Y, 1d), curve("OIS", "USD", P1Y, 2d))),
+                null),
+            TradeValuation.of(
+                "T2",
+                null,
+                TradeSensitivity.of(4d, Arrays.asList(curve("OIS", "USD", P1Y, 4d))),
+                null)));
+    TradeValuationsTable test = TradeValuationsTable.of(valuations);
+    assertThat(test.getCurveNames()).containsExactly("OIS", "OIS");
+    assertThat(test.getCurveCurrencies()).containsExactly("EUR", "USD");
+    assertThat(test.getDelta(0, 0, 0)).isEqualTo(1d);
+    assertThat(test.getDelta(0, 1, 0)).isEqualTo(2d);
+    assertThat(test.getDelta(1, 0, 0)).isEqualTo(0d);
+    assertThat(test.totalDeltaMatrix()).isDeepEqualTo(new double[][] {{1d}, {6d}});
+  }
+
+  @Test
+  public void test_columnsAreCopies() {
+    TradeValuationsTable test = TradeValuationsTable.of(VALUATIONS);
+    test.presentValueColumn()[0] = 99d;
+    assertThat(test.getPresentValue(0)).isEqualTo(10d);
+  }
+
+  //-------------------------------------------------------------------------
+  private static TradeCurveSensitivity curve(String name, String currency, Object... tenorValues) {
+    Map<Period, Double> tenorSensitivity = new LinkedHashMap<>();
+    double total = 0;
+    for (int i = 0; i < tenorValues.length; i += 2) {
+      tenorSensitivity.put((Period) tenorValues[i], (Double) tenorValues[i + 1]);
+      total += (Double) tenorValues[i + 1];
+    }
+    return TradeCurveSensitivity.of(name, currency, total, tenorSensitivity);
+  }
+
+}